@@ -0,0 +1,83 @@
+package com.yousif.attemp2.benchmarks;
+
+import com.yousif.attemp2.BaggageItem;
+import com.yousif.attemp2.DataService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BaggageSearchBenchmark - Baggage lookups over 1M bags loaded into DataService.
+ *
+ * Searches cover an exact tag, a tag fragment and a query too short for the trigram index;
+ * findBaggage() and getBaggageForFlight() are the hash lookups behind the tracking screen.
+ * Each benchmark forks and loads the 1M bags afresh, so expect about a minute of setup each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BaggageSearchBenchmark {
+    @Param("10000")
+    private int flights;
+
+    @Param("1000000")
+    private int bags;
+
+    private DataService dataService;
+    private String tag;
+    private String flightNumber;
+
+    @Setup
+    public void setUp() throws SQLException {
+        dataService = BenchmarkDatabase.loadDataService(flights, bags);
+        tag = BenchmarkDatabase.baggageTag(bags / 2);
+        flightNumber = dataService.findBaggage(tag).getFlight();
+    }
+
+    @Benchmark
+    public List<BaggageItem> searchExactTag() {
+        return dataService.searchBaggage(tag);
+    }
+
+    /**
+     * A fragment shared by about a thousand tags, as typed halfway through a tag
+     */
+    @Benchmark
+    public List<BaggageItem> searchTagFragment() {
+        return dataService.searchBaggage("000424");
+    }
+
+    /**
+     * Too short for a trigram, so the index scans every tag
+     */
+    @Benchmark
+    public List<BaggageItem> searchShortQuery() {
+        return dataService.searchBaggage("42");
+    }
+
+    @Benchmark
+    public BaggageItem findBaggage() {
+        return dataService.findBaggage(tag);
+    }
+
+    @Benchmark
+    public Collection<BaggageItem> baggageForFlight() {
+        return dataService.getBaggageForFlight(flightNumber);
+    }
+}
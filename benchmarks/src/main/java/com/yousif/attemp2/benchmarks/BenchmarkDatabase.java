@@ -0,0 +1,212 @@
+package com.yousif.attemp2.benchmarks;
+
+import com.yousif.attemp2.DataService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Random;
+
+/**
+ * BenchmarkDatabase - In-memory H2 database (MySQL mode) seeded with a deterministic airport dataset.
+ *
+ * The app reaches it through DatabaseConnection's airport.db.* system properties, so the real
+ * DataService, pool and query metrics code runs unchanged, only against H2 instead of MySQL.
+ * Absolute numbers are therefore not MySQL numbers; compare runs against each other.
+ */
+public final class BenchmarkDatabase {
+    private static final String URL = "jdbc:h2:mem:airport_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int NOTIFICATIONS = 1000;
+    private static final long SEED = 42;
+
+    static final String[] FLIGHT_STATUSES = {"On Time", "Delayed", "Boarding", "Departed", "Cancelled"};
+    static final String[] TERMINALS = {"A", "B", "C", "D"};
+
+    private static int seededFlights = -1;
+    private static int seededBags = -1;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Create and seed the database once per JVM, and point DatabaseConnection at it.
+     * Must run before the first DataService.getInstance() call.
+     * @param flights Number of flights
+     * @param bags Number of checked bags; passengers and bookings are half that
+     * @throws SQLException If seeding fails
+     */
+    public static synchronized void start(int flights, int bags) throws SQLException {
+        if (seededFlights >= 0) {
+            if (seededFlights != flights || seededBags != bags) {
+                throw new IllegalStateException("Database already seeded with " + seededFlights
+                    + " flights and " + seededBags + " bags");
+            }
+            return;
+        }
+        System.setProperty("airport.db.url", URL);
+        System.setProperty("airport.db.user", USER);
+        System.setProperty("airport.db.password", PASSWORD);
+
+        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD)) {
+            createSchema(conn);
+            seed(conn, flights, bags);
+        }
+        seededFlights = flights;
+        seededBags = bags;
+    }
+
+    /**
+     * Seed the database and load it into the DataService singleton
+     * @param flights Number of flights
+     * @param bags Number of checked bags
+     * @return The loaded DataService
+     * @throws SQLException If seeding fails
+     * @throws IllegalStateException If DataService fell back to its sample data instead of loading the rows
+     */
+    public static DataService loadDataService(int flights, int bags) throws SQLException {
+        start(flights, bags);
+        DataService dataService = DataService.getInstance();
+        if (dataService.getFlights().size() != flights || dataService.getBaggageItems().size() != bags) {
+            throw new IllegalStateException("DataService loaded " + dataService.getFlights().size() + " flights and "
+                + dataService.getBaggageItems().size() + " bags, expected " + flights + " and " + bags);
+        }
+        return dataService;
+    }
+
+    private static void createSchema(Connection conn) throws SQLException {
+        String script;
+        try (InputStream in = BenchmarkDatabase.class.getResourceAsStream("/h2-schema.sql")) {
+            if (in == null) {
+                throw new SQLException("h2-schema.sql not found");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not read h2-schema.sql", e);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : script.split(";")) {
+                String trimmed = sql.replaceAll("(?m)^--.*$", "").trim();
+                if (!trimmed.isEmpty()) {
+                    stmt.execute(trimmed);
+                }
+            }
+        }
+    }
+
+    private static void seed(Connection conn, int flights, int bags) throws SQLException {
+        Random random = new Random(SEED);
+        int bookings = Math.max(1, bags / 2);
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO passengers (first_name, last_name) VALUES (?, ?)")) {
+                for (int i = 1; i <= bookings; i++) {
+                    stmt.setString(1, "First" + random.nextInt(2_000));
+                    stmt.setString(2, "Last" + random.nextInt(20_000));
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            long now = System.currentTimeMillis();
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO flights (flight_number, airline, origin, destination, departure_time, " +
+                    "arrival_time, status, gate, terminal) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= flights; i++) {
+                    long departure = now + (long) random.nextInt(30 * 24 * 60) * 60_000L;
+                    String terminal = TERMINALS[random.nextInt(TERMINALS.length)];
+                    stmt.setString(1, flightNumber(i));
+                    stmt.setString(2, "Airline " + (i % 40));
+                    stmt.setString(3, "Origin " + random.nextInt(200));
+                    stmt.setString(4, "Destination " + random.nextInt(200));
+                    stmt.setTimestamp(5, new Timestamp(departure));
+                    stmt.setTimestamp(6, new Timestamp(departure + 3 * 3_600_000L));
+                    stmt.setString(7, FLIGHT_STATUSES[random.nextInt(FLIGHT_STATUSES.length)]);
+                    stmt.setString(8, terminal + (1 + random.nextInt(30)));
+                    stmt.setString(9, terminal);
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO bookings (booking_reference, passenger_id, flight_id, seat_number) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= bookings; i++) {
+                    stmt.setString(1, "R" + Integer.toString(i, 36).toUpperCase());
+                    stmt.setInt(2, i);
+                    stmt.setInt(3, 1 + random.nextInt(flights));
+                    stmt.setString(4, (1 + random.nextInt(26)) + String.valueOf((char) ('A' + random.nextInt(6))));
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO baggage (baggage_tag, booking_id, weight, status, current_location, handling_time) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= bags; i++) {
+                    stmt.setString(1, baggageTag(i));
+                    stmt.setInt(2, 1 + (i - 1) % bookings);
+                    stmt.setDouble(3, 5 + random.nextInt(2_500) / 100.0);
+                    stmt.setString(4, "In Transit");
+                    stmt.setString(5, "Sorting Area " + (1 + random.nextInt(5)));
+                    stmt.setString(6, (20 + random.nextInt(100)) + " sec");
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO notifications (message, created_at) VALUES (?, ?)")) {
+                for (int i = 1; i <= NOTIFICATIONS; i++) {
+                    stmt.setString(1, "Notification " + i);
+                    stmt.setTimestamp(2, new Timestamp(now - (long) random.nextInt(90 * 24 * 60) * 60_000L));
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static void addBatch(PreparedStatement stmt, int row) throws SQLException {
+        stmt.addBatch();
+        if (row % BATCH_SIZE == 0) {
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Flight number of the n-th seeded flight, e.g. "BA27"
+     * @param index 1-based flight index
+     * @return The flight number
+     */
+    static String flightNumber(int index) {
+        return String.valueOf((char) ('A' + index % 26)) + (char) ('A' + (index / 26) % 26) + index;
+    }
+
+    /**
+     * Tag of the n-th seeded bag, e.g. "BAG000000042"
+     * @param index 1-based bag index
+     * @return The baggage tag
+     */
+    static String baggageTag(int index) {
+        return String.format("BAG%09d", index);
+    }
+}
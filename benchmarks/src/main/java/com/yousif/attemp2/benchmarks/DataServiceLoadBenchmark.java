@@ -0,0 +1,63 @@
+package com.yousif.attemp2.benchmarks;
+
+import com.yousif.attemp2.DataService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataServiceLoadBenchmark - Full and delta reloads of DataService from the embedded database.
+ *
+ * With bags = 0 a full reload is essentially loadFlightsFromDb(): one flights query, the row
+ * mapping, and rebuilding the flight indexes. With 1M bags it adds the four-table baggage join
+ * and the baggage indexes, which is what a workstation pays on startup. A full reload at that
+ * size takes seconds, so each iteration is a single call.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class DataServiceLoadBenchmark {
+    @Param("10000")
+    private int flights;
+
+    @Param({"0", "1000000"})
+    private int bags;
+
+    private DataService dataService;
+
+    @Setup
+    public void setUp() throws SQLException {
+        dataService = BenchmarkDatabase.loadDataService(flights, bags);
+        // No JavaFX thread: the benchmark thread owns the lists, so refreshes apply inline
+        dataService.setListThread(Runnable::run);
+    }
+
+    @Benchmark
+    public int reloadAllData() {
+        dataService.reloadAllData();
+        return dataService.getFlights().size();
+    }
+
+    /**
+     * The periodic refresh when nothing changed: sync position, two delta queries, notifications
+     */
+    @Benchmark
+    public int refreshDataNoChanges() {
+        dataService.refreshData();
+        return dataService.getFlights().size();
+    }
+}
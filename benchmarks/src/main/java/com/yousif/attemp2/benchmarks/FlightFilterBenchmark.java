@@ -0,0 +1,105 @@
+package com.yousif.attemp2.benchmarks;
+
+import com.yousif.attemp2.DataService;
+import com.yousif.attemp2.Flight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FlightFilterBenchmark - The flight table filter of FlightOperationsController.applyFilters()
+ * over 10k flights, indexed as the controller does it and as the plain scan it replaced.
+ *
+ * Each scenario is "search text|status|terminal", with the same values the combo boxes offer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FlightFilterBenchmark {
+    @Param("10000")
+    private int flights;
+
+    @Param({"|All|All", "|Delayed|All", "|Delayed|Terminal B", "ab1|All|All", "destination 12|On Time|Terminal A"})
+    private String scenario;
+
+    private DataService dataService;
+    private String searchText;
+    private String status;
+    private String terminal;
+
+    @Setup
+    public void setUp() throws SQLException {
+        dataService = BenchmarkDatabase.loadDataService(flights, 0);
+        String[] parts = scenario.split("\\|", -1);
+        searchText = parts[0];
+        status = parts[1];
+        terminal = parts[2];
+    }
+
+    /**
+     * The controller's filter: start from the smallest indexed bucket, then check every predicate
+     */
+    @Benchmark
+    public List<Flight> indexed() {
+        Collection<Flight> candidates = dataService.getFlights();
+        if (!searchText.isEmpty()) {
+            candidates = dataService.searchFlights(searchText);
+        }
+        if (!"All".equals(status)) {
+            Collection<Flight> byStatus = dataService.getFlightsByStatus(status);
+            if (byStatus.size() < candidates.size()) {
+                candidates = byStatus;
+            }
+        }
+        if (!"All".equals(terminal)) {
+            Collection<Flight> byTerminal = dataService.getFlightsByTerminal(terminal.substring(terminal.length() - 1));
+            if (byTerminal.size() < candidates.size()) {
+                candidates = byTerminal;
+            }
+        }
+        return filter(candidates);
+    }
+
+    /**
+     * The same predicates over every flight, as before the indexes
+     */
+    @Benchmark
+    public List<Flight> scan() {
+        return filter(dataService.getFlights());
+    }
+
+    private List<Flight> filter(Collection<Flight> candidates) {
+        List<Flight> filtered = new ArrayList<>();
+        for (Flight flight : candidates) {
+            boolean matchesSearch = searchText.isEmpty() ||
+                flight.getFlightNumber().toLowerCase().contains(searchText) ||
+                flight.getDestination().toLowerCase().contains(searchText) ||
+                flight.getAirline().toLowerCase().contains(searchText);
+
+            boolean matchesStatus = "All".equals(status) || flight.getStatus().equals(status);
+            boolean matchesTerminal = "All".equals(terminal) || flight.getTerminal().equals(terminal.substring(terminal.length() - 1));
+
+            if (matchesSearch && matchesStatus && matchesTerminal) {
+                filtered.add(flight);
+            }
+        }
+        return filtered;
+    }
+}
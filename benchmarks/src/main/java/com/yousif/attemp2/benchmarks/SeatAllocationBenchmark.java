@@ -0,0 +1,115 @@
+package com.yousif.attemp2.benchmarks;
+
+import com.yousif.attemp2.SeatAllocator;
+import com.yousif.attemp2.SeatInventory;
+import com.yousif.attemp2.SeatInventoryCache;
+import com.yousif.attemp2.SeatLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SeatAllocationBenchmark - Seat holds and seat map reads against the in-memory seat inventories.
+ *
+ * No database: the loader reports every seat free, so these measure the BitSet/CAS inventory and
+ * the hold expiry scheduling, not the bookings query. Flights are half booked, like a seat map
+ * mid-sale.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SeatAllocationBenchmark {
+    @Param("10000")
+    private int flights;
+
+    private final SeatLayout layout = SeatLayout.STANDARD;
+    private SeatInventoryCache cache;
+    private SeatAllocator allocator;
+    private String[] flightNumbers;
+    private SeatInventory halfBooked;
+
+    @Setup
+    public void setUp() throws SQLException {
+        cache = new SeatInventoryCache(layout, flightNumber -> List.of());
+        allocator = new SeatAllocator(cache, SeatAllocator.DEFAULT_HOLD_MILLIS);
+        flightNumbers = new String[flights];
+        for (int i = 0; i < flights; i++) {
+            flightNumbers[i] = BenchmarkDatabase.flightNumber(i + 1);
+            SeatInventory inventory = cache.get(flightNumbers[i]);
+            // Every even seat index booked
+            for (int seat = 0; seat < layout.size(); seat += 2) {
+                inventory.markTaken(layout.label(seat));
+            }
+        }
+        halfBooked = cache.get(flightNumbers[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        allocator.shutdown();
+    }
+
+    /**
+     * Hold a free seat on a random flight and release it: the seat dialog's round trip
+     */
+    @Benchmark
+    public boolean holdAndRelease() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String flightNumber = flightNumbers[random.nextInt(flightNumbers.length)];
+        String seat = layout.label(1 + 2 * random.nextInt(layout.size() / 2));
+        SeatAllocator.SeatHold hold = allocator.hold(flightNumber, seat, "bench");
+        return hold != null && allocator.release(hold);
+    }
+
+    /**
+     * As holdAndRelease, but four threads competing for the free seats of one flight
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean holdAndReleaseContended() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String seat = layout.label(1 + 2 * random.nextInt(layout.size() / 2));
+        SeatAllocator.SeatHold hold = allocator.hold(flightNumbers[0], seat, "bench");
+        return hold != null && allocator.release(hold);
+    }
+
+    /**
+     * Holding a booked seat fails fast on the taken bit
+     */
+    @Benchmark
+    public boolean holdTakenSeat() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String flightNumber = flightNumbers[random.nextInt(flightNumbers.length)];
+        String seat = layout.label(2 * random.nextInt(layout.size() / 2));
+        return allocator.hold(flightNumber, seat, "bench") == null;
+    }
+
+    @Benchmark
+    public List<String> freeSeats() {
+        return halfBooked.getFreeSeats();
+    }
+
+    @Benchmark
+    public List<String> findSeatsTogether() {
+        return new ArrayList<>(halfBooked.findSeatsTogether(2));
+    }
+}
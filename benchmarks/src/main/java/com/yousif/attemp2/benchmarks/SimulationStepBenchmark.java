@@ -0,0 +1,63 @@
+package com.yousif.attemp2.benchmarks;
+
+import com.yousif.attemp2.PassengerFlowModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimulationStepBenchmark - One frame of the passenger flow simulation's update loop.
+ *
+ * Uses the same zones as SimulationController. Passengers who finish boarding are replaced
+ * before each frame, so every frame moves the same number of passengers, spread over all stages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SimulationStepBenchmark {
+    private static final double CANVAS_HEIGHT = 400;
+    private static final int WARMUP_FRAMES = 300;
+
+    @Param({"1000", "100000"})
+    private int passengers;
+
+    private PassengerFlowModel model;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        model = new PassengerFlowModel(new int[] {30, 100, 100, 150}, new int[] {160, 100, 100, 150},
+            new int[] {290, 100, 100, 150}, new int[] {420, 100, 100, 150});
+        // Stagger arrivals over about as many frames as the whole route takes, so passengers are
+        // spread over the walk and every checkpoint
+        int spawnsPerFrame = Math.max(1, passengers / WARMUP_FRAMES);
+        for (int i = 1; i <= passengers; i++) {
+            model.spawn(10, CANVAS_HEIGHT / 2);
+            if (i % spawnsPerFrame == 0) {
+                model.step();
+            }
+        }
+    }
+
+    @Benchmark
+    public int step() {
+        while (model.getPassengers().size() < passengers) {
+            model.spawn(10, CANVAS_HEIGHT / 2);
+        }
+        model.step();
+        return model.getQueueLength(PassengerFlowModel.SECURITY);
+    }
+}
@@ -0,0 +1,78 @@
+-- Subset of the MySQL schema (migrations V001-V003) that DataService reads, in H2's MySQL mode.
+-- Keep column names and indexes in step with src/main/resources/com/yousif/attemp2/migrations.
+
+CREATE TABLE flights (
+    flight_id INT AUTO_INCREMENT PRIMARY KEY,
+    flight_number VARCHAR(10) NOT NULL,
+    airline VARCHAR(50) NOT NULL,
+    origin VARCHAR(100) NOT NULL,
+    destination VARCHAR(100) NOT NULL,
+    departure_time DATETIME NOT NULL,
+    arrival_time DATETIME NOT NULL,
+    status VARCHAR(20) DEFAULT 'On Time',
+    gate VARCHAR(5),
+    terminal VARCHAR(5),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE passengers (
+    passenger_id INT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT,
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE bookings (
+    booking_id INT AUTO_INCREMENT PRIMARY KEY,
+    booking_reference VARCHAR(10) NOT NULL UNIQUE,
+    passenger_id INT NOT NULL,
+    flight_id INT NOT NULL,
+    seat_number VARCHAR(5),
+    booking_status VARCHAR(20) DEFAULT 'Confirmed',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (passenger_id) REFERENCES passengers(passenger_id),
+    FOREIGN KEY (flight_id) REFERENCES flights(flight_id)
+);
+
+CREATE TABLE baggage (
+    baggage_id INT AUTO_INCREMENT PRIMARY KEY,
+    baggage_tag VARCHAR(15) NOT NULL UNIQUE,
+    booking_id INT NOT NULL,
+    weight DECIMAL(5,2),
+    status VARCHAR(20) DEFAULT 'Checked In',
+    current_location VARCHAR(50),
+    handling_time VARCHAR(20),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (booking_id) REFERENCES bookings(booking_id)
+);
+
+CREATE TABLE notifications (
+    notification_id INT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT NULL,
+    message TEXT NOT NULL,
+    is_read BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE deleted_rows (
+    tombstone_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(30) NOT NULL,
+    row_key VARCHAR(20) NOT NULL,
+    deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_flights_flight_number ON flights (flight_number);
+CREATE INDEX idx_flights_updated_at ON flights (updated_at);
+CREATE INDEX idx_baggage_updated_at ON baggage (updated_at);
+CREATE INDEX idx_bookings_flight_status ON bookings (flight_id, booking_status);
+CREATE INDEX idx_bookings_passenger ON bookings (passenger_id);
+CREATE INDEX idx_passengers_user ON passengers (user_id);
+CREATE INDEX idx_passengers_name ON passengers (last_name, first_name);
+CREATE INDEX idx_baggage_booking ON baggage (booking_id);
+CREATE INDEX idx_notifications_user_created ON notifications (user_id, created_at);
+CREATE INDEX idx_notifications_created ON notifications (created_at);
+CREATE INDEX idx_deleted_rows_table ON deleted_rows (table_name, tombstone_id);
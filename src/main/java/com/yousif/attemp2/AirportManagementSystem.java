@@ -14,6 +14,11 @@ import javafx.stage.Stage;
 import java.io.IOException;
 
 public class AirportManagementSystem extends Application {
+    // Embedded HTTP API, started when -Dairport.api.port is set
+    private ApiServer apiServer;
+    // Moves flights through check-in, boarding and departure as their times come
+    private FlightStatusScheduler statusScheduler;
+    
     @Override
     public void start(Stage stage) throws IOException {
         // Show a loading indicator while we initialize the database
@@ -28,15 +33,13 @@ public class AirportManagementSystem extends Application {
         Task<Boolean> initTask = new Task<>() {
             @Override
             protected Boolean call() throws Exception {
-                // Test database connection first
+                // Create the database or apply pending migrations; existing data is kept
                 DatabaseConnection dbConnection = DatabaseConnection.getInstance();
-                boolean isConnected = dbConnection.testConnection();
-                
-                if (!isConnected) {
-                    // Try to initialize database
-                    return dbConnection.initializeDatabase();
+                if (!dbConnection.initializeDatabase() || !dbConnection.testConnection()) {
+                    return false;
                 }
-                
+                // The first getInstance() loads all flights and baggage; keep that off the FX thread
+                DataService.getInstance();
                 return true;
             }
         };
@@ -46,6 +49,14 @@ public class AirportManagementSystem extends Application {
             boolean success = initTask.getValue();
             
             if (success) {
+                // Pick up edits made on other workstations as they happen
+                if (!DataService.getInstance().followChangeLog()) {
+                    System.err.println("No change log in the database; other workstations' edits appear on refresh");
+                }
+                statusScheduler = new FlightStatusScheduler(DataService.getInstance(), BackgroundExecutors::runOnFxThread);
+                statusScheduler.start();
+                startApiServer();
+                startScanListener();
                 loadMainApplication(stage);
             } else {
                 // Show error and exit
@@ -106,6 +117,66 @@ public class AirportManagementSystem extends Application {
         }
     }
 
+    /**
+     * Serve the shared data over HTTP for kiosks and gate displays, if a port is configured
+     */
+    private void startApiServer() {
+        String port = System.getProperty("airport.api.port");
+        if (port == null) {
+            return;
+        }
+        try {
+            apiServer = new ApiServer(DataService.getInstance(), Integer.parseInt(port));
+            apiServer.start();
+            System.out.println("HTTP API listening on port " + apiServer.getPort());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to start the HTTP API on port " + port + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Accept bag scans from local scanners, if a port is configured
+     */
+    private void startScanListener() {
+        String port = System.getProperty("airport.scanner.port");
+        if (port == null) {
+            return;
+        }
+        try {
+            BaggageScanIngestor ingestor = BaggageScanIngestor.getInstance();
+            ingestor.listen(Integer.parseInt(port));
+            System.out.println("Accepting baggage scans on port " + ingestor.getPort());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to accept baggage scans on port " + port + ": " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public void stop() {
+        DataService.getInstance().stopFollowingChangeLog();
+        if (statusScheduler != null) {
+            statusScheduler.stop();
+        }
+        if (apiServer != null) {
+            apiServer.stop();
+        }
+        // Write the scans still queued before the connections close
+        BaggageScanIngestor.shutdown();
+        // Next start replays only the events after this snapshot
+        BaggageProjection.shutdown();
+        // -Dairport.queryMetricsFile=<path> dumps the query metrics on exit
+        String metricsFile = System.getProperty("airport.queryMetricsFile");
+        if (metricsFile != null) {
+            try {
+                DatabaseConnection.getInstance().getQueryMetrics().dump(java.nio.file.Path.of(metricsFile));
+            } catch (java.io.IOException e) {
+                System.err.println("Failed to write query metrics: " + e.getMessage());
+            }
+        }
+        // Release pooled database connections on exit
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -0,0 +1,160 @@
+package com.yousif.attemp2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ApiLoadTest - Polls a running ApiServer the way gate displays and kiosks do, and reports throughput.
+ *
+ * Each worker keeps one keep-alive connection and sends a mix of requests: mostly the flight list
+ * with the ETag it last saw (the gate display poll, answered 304 while nothing changes), plus single
+ * flights, seat maps and the notifications. All requests accept gzip.
+ *
+ * Usage: ApiLoadTest [baseUrl] [threads] [seconds]
+ */
+public class ApiLoadTest {
+    private static final Pattern FLIGHT_NUMBER = Pattern.compile("\"flightNumber\":\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final int threads;
+    private final long durationMillis;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    // Last ETag seen per path, shared like a CDN in front of many displays would
+    private final ConcurrentHashMap<String, String> etags = new ConcurrentHashMap<>();
+
+    public ApiLoadTest(String baseUrl, int threads, long durationMillis) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.threads = threads;
+        this.durationMillis = durationMillis;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:" + ApiServer.DEFAULT_PORT + "/api";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        new ApiLoadTest(baseUrl, threads, seconds * 1000).run();
+    }
+
+    /**
+     * Run the workers and print the results
+     * @throws IOException If the flight list can't be fetched to pick request targets
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public void run() throws IOException, InterruptedException {
+        List<String> flightNumbers = fetchFlightNumbers();
+        if (flightNumbers.isEmpty()) {
+            throw new IOException("The server has no flights to request");
+        }
+        // Let connection reuse reach all workers
+        System.setProperty("http.maxConnections", String.valueOf(threads));
+
+        long deadline = System.currentTimeMillis() + durationMillis;
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    work(flightNumbers, deadline);
+                } finally {
+                    done.countDown();
+                }
+            }, "api-load-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long requests = ok.sum() + notModified.sum() + errors.sum();
+        System.out.printf("%d threads, %.1f s: %,d requests, %,.0f req/s%n", threads, seconds, requests, requests / seconds);
+        System.out.printf("  200: %,d  304: %,d  errors: %,d  body bytes: %,d%n",
+            ok.sum(), notModified.sum(), errors.sum(), bytes.sum());
+        System.out.printf("  latency ms: mean %.2f  p50 %.2f  p99 %.2f  max %.2f%n", latency.getMeanMillis(),
+            latency.getPercentileMillis(50), latency.getPercentileMillis(99), latency.getMaxMillis());
+    }
+
+    private void work(List<String> flightNumbers, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.currentTimeMillis() < deadline) {
+            int roll = random.nextInt(100);
+            String flightNumber = flightNumbers.get(random.nextInt(flightNumbers.size()));
+            String path;
+            if (roll < 70) {
+                path = "/flights";
+            } else if (roll < 85) {
+                path = "/flights/" + flightNumber;
+            } else if (roll < 95) {
+                path = "/flights/" + flightNumber + "/seats";
+            } else {
+                path = "/notifications";
+            }
+            long started = System.nanoTime();
+            try {
+                request(path);
+            } catch (IOException e) {
+                errors.increment();
+            }
+            latency.recordNanos(System.nanoTime() - started);
+        }
+    }
+
+    private void request(String path) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+        String etag = etags.get(path);
+        if (etag != null) {
+            conn.setRequestProperty("If-None-Match", etag);
+        }
+        int status = conn.getResponseCode();
+        if (status == 304) {
+            notModified.increment();
+            return;
+        }
+        // Read the whole body so the connection goes back to the keep-alive cache
+        try (InputStream in = status < 400 ? conn.getInputStream() : conn.getErrorStream()) {
+            if (in != null) {
+                bytes.add(in.readAllBytes().length);
+            }
+        }
+        if (status != 200) {
+            errors.increment();
+            return;
+        }
+        ok.increment();
+        String newEtag = conn.getHeaderField("ETag");
+        if (newEtag != null) {
+            etags.put(path, newEtag);
+        }
+    }
+
+    private List<String> fetchFlightNumbers() throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(baseUrl + "/flights").openConnection();
+        String body;
+        try (InputStream in = conn.getInputStream()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> numbers = new ArrayList<>();
+        Matcher matcher = FLIGHT_NUMBER.matcher(body);
+        while (matcher.find()) {
+            numbers.add(matcher.group(1));
+        }
+        return numbers;
+    }
+}
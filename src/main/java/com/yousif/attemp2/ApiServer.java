@@ -0,0 +1,584 @@
+package com.yousif.attemp2;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ApiServer - Read-only HTTP/JSON API over the in-memory DataService, for kiosks and gate displays.
+ *
+ * Endpoints, for GET and HEAD:
+ *   /api/flights                  all flights; ?status=, ?terminal= and ?q= (part of the flight
+ *                                 number, destination or airline) narrow the list
+ *   /api/flights/{number}         one flight
+ *   /api/flights/{number}/seats   the seat map: cabin layout and taken seats
+ *   /api/baggage/{tag}            one bag
+ *   /api/notifications            the latest notification messages
+ *   /api/events                   server-sent events of flight changes (GET only, see FlightEventStream)
+ *
+ * Requests never read the DataService lists, which belong to the thread that modifies them.
+ * The server follows the change events on that thread and publishes immutable views: a snapshot of
+ * the flights and notifications, replaced whole when they change, and a concurrent map of bags,
+ * patched row by row. Encoded responses are cached per snapshot, so polling an unchanged list is a
+ * map lookup. Every response carries a strong ETag derived from its body, a matching If-None-Match
+ * gets 304 Not Modified, and clients that accept gzip get bodies over a kilobyte compressed.
+ * Handlers run on BackgroundExecutors.newTaskExecutor(), i.e. on virtual threads from Java 21.
+ *
+ * The server listens on the loopback interface unless -Dairport.api.bind names another address
+ * (0.0.0.0 for all), since bags carry passenger names. Browsers only get CORS access for the one
+ * origin given with -Dairport.api.origin, e.g. https://displays.example.com; by default none.
+ *
+ * Inside the app, -Dairport.api.port=8085 starts it after login data is loaded. Headless, it runs
+ * its own DataService, which follows the database's change log; on databases without one it
+ * refreshes periodically instead (every half second by default, so the event stream stays within
+ * a second of edits made elsewhere).
+ *
+ * Usage: ApiServer [port] [refreshSeconds]
+ */
+public class ApiServer implements DataService.DataChangeEventListener {
+    public static final int DEFAULT_PORT = 8085;
+    // Address to listen on; loopback by default
+    public static final String BIND_PROPERTY = "airport.api.bind";
+    // Web origin allowed to read responses from a browser; none by default
+    public static final String ORIGIN_PROPERTY = "airport.api.origin";
+    // Edits made on other workstations reach the event stream within this, plus the coalescing window
+    private static final double DEFAULT_REFRESH_SECONDS = 0.5;
+
+    // Compressing smaller bodies costs more than it saves
+    private static final int MIN_GZIP_BYTES = 1024;
+
+    // Encoded responses kept per snapshot; rarer filter combinations are encoded per request
+    private static final int MAX_CACHED_RESPONSES = 256;
+
+    private static final int BACKLOG = 1024;
+
+    private final DataService dataService;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final FlightEventStream events = new FlightEventStream();
+
+    private volatile Snapshot snapshot = new Snapshot(List.of(), List.of());
+    private volatile ConcurrentHashMap<String, BaggageView> baggage = new ConcurrentHashMap<>();
+
+    // Whether the first snapshot exists; loading it isn't a change to stream. Data thread only.
+    private boolean streaming;
+
+    /**
+     * Serve on the address in airport.api.bind, or on loopback
+     * @param dataService The data to serve
+     * @param port The TCP port, or 0 for any free port
+     * @throws IOException If the address is unknown or the port can't be bound
+     */
+    public ApiServer(DataService dataService, int port) throws IOException {
+        this(dataService, bindAddress(), port);
+    }
+
+    /**
+     * @param dataService The data to serve
+     * @param address The interface to listen on
+     * @param port The TCP port, or 0 for any free port
+     * @throws IOException If the port can't be bound
+     */
+    public ApiServer(DataService dataService, InetAddress address, int port) throws IOException {
+        this.dataService = dataService;
+        this.server = HttpServer.create(new InetSocketAddress(address, port), BACKLOG);
+        this.handlers = BackgroundExecutors.newTaskExecutor("http-api");
+        server.setExecutor(handlers);
+        server.createContext("/api/", this::handle);
+        server.createContext("/api/events", events::handle);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        double refreshSeconds = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_REFRESH_SECONDS;
+        long refreshMillis = Math.max(1, Math.round(refreshSeconds * 1000));
+
+        // Without a JavaFX thread, this thread owns the DataService lists: it loads, refreshes and
+        // receives the change events
+        ScheduledExecutorService dataThread =
+            Executors.newSingleThreadScheduledExecutor(BackgroundExecutors.daemonThreadFactory("api-data"));
+        long start = System.nanoTime();
+        DataService dataService = dataThread.submit(DataService::getInstance).get();
+        dataService.setListThread(dataThread);
+        ApiServer api = new ApiServer(dataService, port);
+        api.start(dataThread);
+        // Follow the change log where the database has one; otherwise poll with delta refreshes
+        if (!dataService.followChangeLog(dataThread)) {
+            dataThread.scheduleWithFixedDelay(dataService::refreshData, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(api::stop));
+        System.out.printf("Serving %d flights at http://%s:%d/api/ (started in %d ms)%n",
+            dataService.getFlights().size(), api.server.getAddress().getHostString(), api.getPort(),
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Start serving, following changes on the JavaFX thread
+     */
+    public void start() {
+        start(BackgroundExecutors::runOnFxThread);
+    }
+
+    /**
+     * Start serving once the views have been built
+     * @param dataThread Runs tasks on the thread that modifies the DataService lists
+     */
+    public void start(Executor dataThread) {
+        dataService.addChangeEventListener(this, dataThread);
+        CompletableFuture.runAsync(() -> {
+            onDataChanged(DataChangeEvent.reloaded(DataService.DataType.ALL));
+            streaming = true;
+        }, dataThread).join();
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests and stop following changes
+     */
+    public void stop() {
+        dataService.removeChangeEventListener(this);
+        events.close();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /**
+     * Rebuild the views touched by a change. Runs on the thread that owns the DataService lists.
+     * @param event The changes
+     */
+    @Override
+    public void onDataChanged(DataChangeEvent event) {
+        boolean flightsChanged = event.affects(DataService.DataType.FLIGHTS);
+        boolean notificationsChanged = event.affects(DataService.DataType.NOTIFICATIONS);
+        if (flightsChanged || notificationsChanged) {
+            // A few thousand flights copy in about a millisecond; patching isn't worth it
+            Snapshot current = snapshot;
+            snapshot = new Snapshot(
+                flightsChanged ? copyFlights() : current.flights,
+                notificationsChanged ? List.copyOf(dataService.getNotifications()) : current.notifications);
+            if (flightsChanged && streaming) {
+                // Reloads are diffed in full, so streams see what actually changed
+                events.publish(current.flightsByNumber, snapshot.flightsByNumber,
+                    event.isReloaded(DataService.DataType.FLIGHTS) ? null : changedIds(event, DataService.DataType.FLIGHTS));
+            }
+        }
+
+        if (event.isReloaded(DataService.DataType.BAGGAGE)) {
+            ConcurrentHashMap<String, BaggageView> views =
+                new ConcurrentHashMap<>(Math.max(16, dataService.getBaggageItems().size() * 4 / 3));
+            for (BaggageItem item : dataService.getBaggageItems()) {
+                views.putIfAbsent(item.getBaggageId(), new BaggageView(item));
+            }
+            baggage = views;
+        } else {
+            for (DataChangeEvent.EntityChange change : event.getChanges(DataService.DataType.BAGGAGE)) {
+                BaggageItem item = change.getKind() == DataChangeEvent.ChangeKind.REMOVED
+                    ? null : dataService.findBaggage(change.getId());
+                if (item == null) {
+                    baggage.remove(change.getId());
+                } else {
+                    baggage.put(change.getId(), new BaggageView(item));
+                }
+            }
+        }
+    }
+
+    private static List<String> changedIds(DataChangeEvent event, DataService.DataType type) {
+        List<String> ids = new ArrayList<>();
+        for (DataChangeEvent.EntityChange change : event.getChanges(type)) {
+            ids.add(change.getId());
+        }
+        return ids;
+    }
+
+    private List<FlightView> copyFlights() {
+        List<FlightView> views = new ArrayList<>(dataService.getFlights().size());
+        for (Flight flight : dataService.getFlights()) {
+            views.add(new FlightView(flight));
+        }
+        return Collections.unmodifiableList(views);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                send(exchange, Response.error(405, "Method not allowed"), false);
+                return;
+            }
+            Response response;
+            try {
+                response = route(exchange.getRequestURI());
+            } catch (RuntimeException e) {
+                System.err.println("API request failed: " + exchange.getRequestURI() + ": " + e);
+                response = Response.error(500, "Internal error");
+            }
+            send(exchange, response, "HEAD".equals(method));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response route(URI uri) {
+        String[] path = uri.getPath().substring("/api/".length()).split("/");
+        Snapshot current = snapshot;
+        if (path.length == 1 && "flights".equals(path[0])) {
+            Map<String, String> query = parseQuery(uri.getRawQuery());
+            String status = query.get("status");
+            String terminal = query.get("terminal");
+            String text = query.get("q");
+            String key = "flights?" + status + "&" + terminal + "&" + text;
+            return current.cached(key, () -> encodeFlights(current.flights, status, terminal, text));
+        }
+        if (path.length == 2 && "flights".equals(path[0])) {
+            return current.cached("flight/" + path[1], () -> {
+                FlightView flight = current.flightsByNumber.get(path[1]);
+                return flight == null ? Response.error(404, "No flight " + path[1])
+                    : Response.json(flight.write(new JsonWriter()));
+            });
+        }
+        if (path.length == 3 && "flights".equals(path[0]) && "seats".equals(path[2])) {
+            // Seat holds change without events, so seat maps are encoded per request
+            if (!current.flightsByNumber.containsKey(path[1])) {
+                return Response.error(404, "No flight " + path[1]);
+            }
+            try {
+                return Response.json(encodeSeatMap(dataService.getSeatInventory(path[1])));
+            } catch (SQLException e) {
+                // Not an empty seat map: that would show every seat as free
+                System.err.println("Error reading seats of " + path[1] + ": " + e.getMessage());
+                return Response.error(503, "Seats unavailable");
+            }
+        }
+        if (path.length == 2 && "baggage".equals(path[0])) {
+            BaggageView bag = baggage.get(path[1]);
+            return bag == null ? Response.error(404, "No bag " + path[1]) : Response.json(bag.write(new JsonWriter()));
+        }
+        if (path.length == 1 && "notifications".equals(path[0])) {
+            return current.cached("notifications", () -> {
+                JsonWriter json = new JsonWriter().beginArray();
+                for (String message : current.notifications) {
+                    json.value(message);
+                }
+                return Response.json(json.endArray());
+            });
+        }
+        return Response.error(404, "Not found");
+    }
+
+    private static Response encodeFlights(List<FlightView> flights, String status, String terminal, String text) {
+        String needle = text == null ? null : text.trim().toLowerCase(Locale.ROOT);
+        JsonWriter json = new JsonWriter(flights.size() * 200).beginArray();
+        for (FlightView flight : flights) {
+            if ((status == null || status.equalsIgnoreCase(flight.status))
+                    && (terminal == null || terminal.equalsIgnoreCase(flight.terminal))
+                    && (needle == null || flight.searchText.contains(needle))) {
+                flight.write(json);
+            }
+        }
+        return Response.json(json.endArray());
+    }
+
+    private static JsonWriter encodeSeatMap(SeatInventory inventory) {
+        SeatLayout layout = inventory.getLayout();
+        JsonWriter json = new JsonWriter(1024).beginObject()
+            .field("flightNumber", inventory.getFlightNumber())
+            .field("rows", layout.getRows())
+            .field("seatsPerRow", layout.getSeatsPerRow())
+            .field("free", inventory.getFreeCount())
+            .name("taken").beginArray();
+        for (String seat : inventory.getTakenSeats()) {
+            json.value(seat);
+        }
+        return json.endArray().endObject();
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (!value.isEmpty()) {
+                query.putIfAbsent(name, value);
+            }
+        }
+        return query;
+    }
+
+    private static InetAddress bindAddress() throws UnknownHostException {
+        String address = System.getProperty(BIND_PROPERTY);
+        return address == null || address.isBlank() ? InetAddress.getLoopbackAddress() : InetAddress.getByName(address.trim());
+    }
+
+    /**
+     * Let the origin in airport.api.origin read the response from a browser; other origins get no
+     * CORS header, so pages elsewhere can't read passenger data through a visitor's browser
+     */
+    static void allowConfiguredOrigin(HttpExchange exchange) {
+        String allowed = System.getProperty(ORIGIN_PROPERTY);
+        if (allowed == null || allowed.isBlank()) {
+            return;
+        }
+        Headers headers = exchange.getResponseHeaders();
+        headers.add("Vary", "Origin");
+        if (allowed.trim().equals(exchange.getRequestHeaders().getFirst("Origin"))) {
+            headers.set("Access-Control-Allow-Origin", allowed.trim());
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response, boolean headOnly) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        // Pollers revalidate every time; the ETag makes that cheap
+        headers.set("Cache-Control", "no-cache");
+        headers.set("Vary", "Accept-Encoding");
+        allowConfiguredOrigin(exchange);
+
+        // A strong ETag names one representation, so the gzip encoding gets its own
+        boolean gzip = response.body.length >= MIN_GZIP_BYTES
+            && acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        String etag = gzip ? response.gzipEtag : response.etag;
+        headers.set("ETag", etag);
+        if (response.status == 200 && matchesEtag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        byte[] body = response.body;
+        if (gzip) {
+            body = response.gzipped();
+            headers.set("Content-Encoding", "gzip");
+        }
+        if (headOnly) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(response.status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Flights and notifications as of one change event, with the responses encoded from them
+     */
+    private static final class Snapshot {
+        final List<FlightView> flights;
+        final Map<String, FlightView> flightsByNumber;
+        final List<String> notifications;
+        final ConcurrentHashMap<String, Response> responses = new ConcurrentHashMap<>();
+
+        Snapshot(List<FlightView> flights, List<String> notifications) {
+            this.flights = flights;
+            this.notifications = notifications;
+            Map<String, FlightView> byNumber = new LinkedHashMap<>();
+            for (FlightView flight : flights) {
+                byNumber.putIfAbsent(flight.flightNumber, flight);
+            }
+            this.flightsByNumber = byNumber;
+        }
+
+        Response cached(String key, Supplier<Response> encoder) {
+            Response response = responses.get(key);
+            if (response == null) {
+                // Two requests may both encode it; the results are identical
+                response = encoder.get();
+                if (responses.size() < MAX_CACHED_RESPONSES) {
+                    responses.putIfAbsent(key, response);
+                }
+            }
+            return response;
+        }
+    }
+
+    static final class FlightView {
+        final String flightNumber;
+        final String airline;
+        final String origin;
+        final String destination;
+        final LocalDateTime departureTime;
+        final LocalDateTime arrivalTime;
+        final String status;
+        final String gate;
+        final String terminal;
+        final String searchText;
+
+        FlightView(Flight flight) {
+            flightNumber = flight.getFlightNumber();
+            airline = flight.getAirline();
+            origin = flight.getOrigin();
+            destination = flight.getDestination();
+            departureTime = flight.getDepartureTime();
+            arrivalTime = flight.getArrivalTime();
+            status = flight.getStatus();
+            gate = flight.getGate();
+            terminal = flight.getTerminal();
+            // Same fields as DataService.searchFlights()
+            searchText = (flightNumber + "\u0000" + destination + "\u0000" + airline).toLowerCase(Locale.ROOT);
+        }
+
+        JsonWriter write(JsonWriter json) {
+            return json.beginObject()
+                .field("flightNumber", flightNumber)
+                .field("airline", airline)
+                .field("origin", origin)
+                .field("destination", destination)
+                .field("departureTime", departureTime == null ? null : departureTime.toString())
+                .field("arrivalTime", arrivalTime == null ? null : arrivalTime.toString())
+                .field("status", status)
+                .field("gate", gate)
+                .field("terminal", terminal)
+                .endObject();
+        }
+    }
+
+    private static final class BaggageView {
+        final String tag;
+        final String passengerName;
+        final String flight;
+        final String location;
+        final String status;
+        final String handlingTime;
+
+        BaggageView(BaggageItem item) {
+            tag = item.getBaggageId();
+            passengerName = item.getPassengerName();
+            flight = item.getFlight();
+            location = item.getLocation();
+            status = item.getStatus();
+            handlingTime = item.getHandlingTime();
+        }
+
+        JsonWriter write(JsonWriter json) {
+            return json.beginObject()
+                .field("tag", tag)
+                .field("passengerName", passengerName)
+                .field("flight", flight)
+                .field("location", location)
+                .field("status", status)
+                .field("handlingTime", handlingTime)
+                .endObject();
+        }
+    }
+
+    /**
+     * An encoded response body with its ETag; the gzip encoding is made on first use
+     */
+    private static final class Response {
+        final int status;
+        final byte[] body;
+        final String etag;
+        final String gzipEtag;
+        private volatile byte[] gzipped;
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+            String hash = hashOf(body);
+            this.etag = '"' + hash + '"';
+            this.gzipEtag = "\"" + hash + "-gzip\"";
+        }
+
+        static Response json(JsonWriter json) {
+            return new Response(200, json.toBytes());
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, new JsonWriter().beginObject().field("error", message).endObject().toBytes());
+        }
+
+        byte[] gzipped() {
+            byte[] encoded = gzipped;
+            if (encoded == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(body);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                encoded = out.toByteArray();
+                gzipped = encoded;
+            }
+            return encoded;
+        }
+
+        // First 128 bits of the SHA-256 of the body, in hex
+        private static String hashOf(byte[] body) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+                StringBuilder hash = new StringBuilder(32);
+                for (int i = 0; i < 16; i++) {
+                    hash.append(Character.forDigit(digest[i] >> 4 & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+                }
+                return hash.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is required by the Java platform", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.yousif.attemp2;
+
+import javafx.application.Platform;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BackgroundExecutors - Shared executors for blocking work that must stay off the JavaFX thread
+ */
+public final class BackgroundExecutors {
+    // Executor for blocking JDBC calls
+    private static final ExecutorService DB_EXECUTOR = newTaskExecutor("db-io");
+
+    private BackgroundExecutors() {
+    }
+
+    /**
+     * Get the executor used for blocking database work
+     * @return The shared database executor
+     */
+    public static ExecutorService database() {
+        return DB_EXECUTOR;
+    }
+
+    /**
+     * Create an executor that runs every task on its own thread.
+     * Uses virtual threads when the runtime provides them (Java 21+); on older runtimes it
+     * falls back to a cached pool of daemon platform threads.
+     * @param name Prefix for thread names
+     * @return A new executor
+     */
+    public static ExecutorService newTaskExecutor(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreadFactory(name));
+        }
+    }
+
+    /**
+     * Create a thread factory producing named daemon threads
+     * @param name Prefix for thread names
+     * @return The thread factory
+     */
+    public static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Run an action on the JavaFX Application Thread. When called from that thread it runs
+     * immediately; when the toolkit isn't running (headless jobs) it runs on the caller.
+     * @param action The action to run
+     */
+    public static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+            return;
+        }
+        try {
+            Platform.runLater(action);
+        } catch (IllegalStateException e) {
+            // Toolkit not initialized
+            action.run();
+        }
+    }
+}
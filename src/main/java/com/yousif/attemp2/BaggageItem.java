@@ -1,18 +1,32 @@
 package com.yousif.attemp2;
 
-import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
+import java.util.Objects;
+
 /**
  * BaggageItem - Represents a baggage item in the airport system
+ *
+ * Like {@link Flight}, fields are plain values and a JavaFX property is only created when a view
+ * asks for it; changes are reported to the {@link FieldListener}, if one is set.
  */
 public class BaggageItem {
-    private final StringProperty baggageId;
-    private final StringProperty passengerName;
-    private final StringProperty flight;
-    private final StringProperty location;
-    private final StringProperty status;
-    private final StringProperty handlingTime;
+    private String baggageId;
+    private String passengerName;
+    private String flight;
+    private String location;
+    private String status;
+    private String handlingTime;
+    
+    // Created on first use by the matching xxxProperty() method
+    private StringProperty baggageIdProperty;
+    private StringProperty passengerNameProperty;
+    private StringProperty flightProperty;
+    private StringProperty locationProperty;
+    private StringProperty statusProperty;
+    private StringProperty handlingTimeProperty;
+    
+    private FieldListener<? super BaggageItem> fieldListener;
     
     /**
      * Create a new baggage item
@@ -25,84 +39,152 @@ public class BaggageItem {
      * @param handlingTime The handling time
      */
     public BaggageItem(String baggageId, String passengerName, String flight, String location, String status, String handlingTime) {
-        this.baggageId = new SimpleStringProperty(baggageId);
-        this.passengerName = new SimpleStringProperty(passengerName);
-        this.flight = new SimpleStringProperty(flight);
-        this.location = new SimpleStringProperty(location);
-        this.status = new SimpleStringProperty(status);
-        this.handlingTime = new SimpleStringProperty(handlingTime);
+        this.baggageId = baggageId;
+        this.passengerName = passengerName;
+        this.flight = flight;
+        this.location = location;
+        this.status = status;
+        this.handlingTime = handlingTime;
+    }
+    
+    /**
+     * Set the listener told about field changes, replacing any previous one
+     * @param listener The listener, or null to remove it
+     */
+    void setFieldListener(FieldListener<? super BaggageItem> listener) {
+        this.fieldListener = listener;
+    }
+    
+    private void fieldChanged(String field) {
+        if (fieldListener != null) {
+            fieldListener.fieldChanged(this, field);
+        }
     }
     
     // Getters and setters
     public String getBaggageId() {
-        return baggageId.get();
+        return baggageIdProperty != null ? baggageIdProperty.get() : baggageId;
     }
     
     public void setBaggageId(String value) {
-        baggageId.set(value);
+        if (baggageIdProperty != null) {
+            baggageIdProperty.set(value);
+        } else if (!Objects.equals(baggageId, value)) {
+            baggageId = value;
+            fieldChanged("baggageId");
+        }
     }
     
     public StringProperty baggageIdProperty() {
-        return baggageId;
+        if (baggageIdProperty == null) {
+            baggageIdProperty = new FieldProperties.StringField(this, "baggageId", baggageId,
+                () -> fieldChanged("baggageId"));
+        }
+        return baggageIdProperty;
     }
     
     public String getPassengerName() {
-        return passengerName.get();
+        return passengerNameProperty != null ? passengerNameProperty.get() : passengerName;
     }
     
     public void setPassengerName(String value) {
-        passengerName.set(value);
+        if (passengerNameProperty != null) {
+            passengerNameProperty.set(value);
+        } else if (!Objects.equals(passengerName, value)) {
+            passengerName = value;
+            fieldChanged("passengerName");
+        }
     }
     
     public StringProperty passengerNameProperty() {
-        return passengerName;
+        if (passengerNameProperty == null) {
+            passengerNameProperty = new FieldProperties.StringField(this, "passengerName", passengerName,
+                () -> fieldChanged("passengerName"));
+        }
+        return passengerNameProperty;
     }
     
     public String getFlight() {
-        return flight.get();
+        return flightProperty != null ? flightProperty.get() : flight;
     }
     
     public void setFlight(String value) {
-        flight.set(value);
+        if (flightProperty != null) {
+            flightProperty.set(value);
+        } else if (!Objects.equals(flight, value)) {
+            flight = value;
+            fieldChanged("flight");
+        }
     }
     
     public StringProperty flightProperty() {
-        return flight;
+        if (flightProperty == null) {
+            flightProperty = new FieldProperties.StringField(this, "flight", flight,
+                () -> fieldChanged("flight"));
+        }
+        return flightProperty;
     }
     
     public String getLocation() {
-        return location.get();
+        return locationProperty != null ? locationProperty.get() : location;
     }
     
     public void setLocation(String value) {
-        location.set(value);
+        if (locationProperty != null) {
+            locationProperty.set(value);
+        } else if (!Objects.equals(location, value)) {
+            location = value;
+            fieldChanged("location");
+        }
     }
     
     public StringProperty locationProperty() {
-        return location;
+        if (locationProperty == null) {
+            locationProperty = new FieldProperties.StringField(this, "location", location,
+                () -> fieldChanged("location"));
+        }
+        return locationProperty;
     }
     
     public String getStatus() {
-        return status.get();
+        return statusProperty != null ? statusProperty.get() : status;
     }
     
     public void setStatus(String value) {
-        status.set(value);
+        if (statusProperty != null) {
+            statusProperty.set(value);
+        } else if (!Objects.equals(status, value)) {
+            status = value;
+            fieldChanged("status");
+        }
     }
     
     public StringProperty statusProperty() {
-        return status;
+        if (statusProperty == null) {
+            statusProperty = new FieldProperties.StringField(this, "status", status,
+                () -> fieldChanged("status"));
+        }
+        return statusProperty;
     }
     
     public String getHandlingTime() {
-        return handlingTime.get();
+        return handlingTimeProperty != null ? handlingTimeProperty.get() : handlingTime;
     }
     
     public void setHandlingTime(String value) {
-        handlingTime.set(value);
+        if (handlingTimeProperty != null) {
+            handlingTimeProperty.set(value);
+        } else if (!Objects.equals(handlingTime, value)) {
+            handlingTime = value;
+            fieldChanged("handlingTime");
+        }
     }
     
     public StringProperty handlingTimeProperty() {
-        return handlingTime;
+        if (handlingTimeProperty == null) {
+            handlingTimeProperty = new FieldProperties.StringField(this, "handlingTime", handlingTime,
+                () -> fieldChanged("handlingTime"));
+        }
+        return handlingTimeProperty;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
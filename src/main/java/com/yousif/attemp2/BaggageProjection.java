@@ -0,0 +1,744 @@
+package com.yousif.attemp2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * BaggageProjection - Each bag's state derived from its baggage_tracking events.
+ *
+ * The tracking events are the record of what happened to a bag; the projection folds them, in
+ * tracking_id order, into the bag's current location and status, its first and latest scan, when
+ * it entered its current status and how many scans it has had, and adds up how long bags spent in
+ * each status. A scan older than the latest one applied to its bag (it arrived late) is counted but
+ * doesn't move the bag back, as in BaggageScanIngestor.
+ *
+ * The state is kept in parallel primitive arrays, about 40 bytes a bag, with the locations and
+ * statuses stored once in dictionaries, so millions of bags fit in memory. refresh() reads only the
+ * events after the last one applied. Every SNAPSHOT_EVENTS events, and at shutdown, the arrays are
+ * written to a compact binary snapshot with a CRC; after a restart only the events since the
+ * snapshot are replayed. A damaged snapshot, or one ahead of the database (it was restored or
+ * rebuilt), is ignored and the projection is rebuilt from the events. A deleted bag's events go
+ * with it, but its state stays here until the next rebuild.
+ *
+ * As with ChangeLogPoller, tracking ids are allocated on insert but become visible on commit, so a
+ * later id can be seen before an earlier one. Events are therefore only applied up to the first
+ * missing id. Once GAP_TIMEOUT_MS has passed since a gap was seen, every gap below the highest id
+ * visible at that time is skipped: it was rolled back or its bag was deleted.
+ *
+ * A bag's full history is read from the event log itself, see {@link #queryHistory(String)}.
+ */
+public class BaggageProjection {
+    // Where the snapshot is kept; by default under the user's home directory
+    public static final String SNAPSHOT_FILE_PROPERTY = "airport.projection.file";
+
+    // How long a missing tracking id is waited for before it is skipped
+    public static final long GAP_TIMEOUT_MS = 5000;
+
+    // Events read per query while catching up
+    private static final int FETCH_EVENTS = 100_000;
+    private static final long SNAPSHOT_EVENTS = 1_000_000;
+    private static final int SNAPSHOT_MAGIC = 0x42505331;
+    private static final int SNAPSHOT_VERSION = 1;
+    // Bytes written per chunk when saving a snapshot
+    private static final int WRITE_CHUNK = 1 << 20;
+
+    private static BaggageProjection instance;
+
+    /**
+     * A bag's projected state
+     */
+    public static final class BagState {
+        private final int baggageId;
+        private final String location;
+        private final String status;
+        private final long firstScanAt;
+        private final long statusSince;
+        private final long lastScanAt;
+        private final int scans;
+
+        private BagState(int baggageId, String location, String status, long firstScanAt, long statusSince,
+                long lastScanAt, int scans) {
+            this.baggageId = baggageId;
+            this.location = location;
+            this.status = status;
+            this.firstScanAt = firstScanAt;
+            this.statusSince = statusSince;
+            this.lastScanAt = lastScanAt;
+            this.scans = scans;
+        }
+
+        public int getBaggageId() { return baggageId; }
+        public String getLocation() { return location; }
+        public String getStatus() { return status; }
+
+        /**
+         * @return Epoch millis of the bag's earliest scan
+         */
+        public long getFirstScanAt() { return firstScanAt; }
+
+        /**
+         * @return Epoch millis of the scan that put the bag in its current status
+         */
+        public long getStatusSince() { return statusSince; }
+        public long getLastScanAt() { return lastScanAt; }
+        public int getScans() { return scans; }
+    }
+
+    /**
+     * How long bags spent in one status before moving on
+     */
+    public static final class StageTiming {
+        private final String status;
+        private final long bags;
+        private final double averageSeconds;
+
+        private StageTiming(String status, long bags, double averageSeconds) {
+            this.status = status;
+            this.bags = bags;
+            this.averageSeconds = averageSeconds;
+        }
+
+        public String getStatus() { return status; }
+
+        /**
+         * @return Bags that have left this status
+         */
+        public long getBags() { return bags; }
+        public double getAverageSeconds() { return averageSeconds; }
+    }
+
+    /**
+     * One event from a bag's history
+     */
+    public static final class TrackingEvent {
+        private final int baggageId;
+        private final String location;
+        private final String status;
+        private final long scannedAt;
+
+        private TrackingEvent(int baggageId, String location, String status, long scannedAt) {
+            this.baggageId = baggageId;
+            this.location = location;
+            this.status = status;
+            this.scannedAt = scannedAt;
+        }
+
+        public int getBaggageId() { return baggageId; }
+        public String getLocation() { return location; }
+        public String getStatus() { return status; }
+        public long getScannedAt() { return scannedAt; }
+    }
+
+    private final DatabaseConnection dbConnection;
+    private final Path snapshotFile;
+
+    // Guarded by this: the projection arrays, one slot per bag
+    private int size;
+    private int[] ids = new int[1024];
+    private int[] statuses = new int[1024];
+    private int[] locations = new int[1024];
+    private int[] scans = new int[1024];
+    private long[] firstScanAt = new long[1024];
+    private long[] statusSince = new long[1024];
+    private long[] lastScanAt = new long[1024];
+    // Open addressing from baggage id to slot; -1 is empty
+    private int[] index = newIndex(2048);
+
+    private final List<String> statusNames = new ArrayList<>();
+    private final Map<String, Integer> statusCodes = new HashMap<>();
+    private final List<String> locationNames = new ArrayList<>();
+    private final Map<String, Integer> locationCodes = new HashMap<>();
+    // Per status code: time bags spent in it before their next status, and how many did
+    private long[] stageMillis = new long[16];
+    private long[] stageExits = new long[16];
+
+    private long lastTrackingId;
+    private long eventsApplied;
+    private long eventsSinceSnapshot;
+    private boolean snapshotChecked;
+
+    // Refresh thread only: when a gap was first seen, the highest id visible then, and up to
+    // which id gaps have been given up on
+    private volatile long gapSince;
+    private long gapUpTo;
+    private long skipGapsUpTo;
+
+    // Held for a whole refresh, so two don't read the same events; reads only take this
+    private final Object refreshLock = new Object();
+
+    /**
+     * @param dbConnection Where the events are read from
+     * @param snapshotFile Where the snapshot is kept
+     */
+    public BaggageProjection(DatabaseConnection dbConnection, Path snapshotFile) {
+        this.dbConnection = dbConnection;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * @return The shared projection; call refresh() to bring it up to date
+     */
+    public static synchronized BaggageProjection getInstance() {
+        if (instance == null) {
+            Path file = Path.of(System.getProperty(SNAPSHOT_FILE_PROPERTY,
+                Path.of(System.getProperty("user.home"), ".airport", "baggage-projection.snap").toString()));
+            instance = new BaggageProjection(DatabaseConnection.getInstance(), file);
+        }
+        return instance;
+    }
+
+    /**
+     * Save the shared projection's snapshot, if it was used and has changed
+     */
+    public static void shutdown() {
+        BaggageProjection projection;
+        synchronized (BaggageProjection.class) {
+            projection = instance;
+        }
+        if (projection == null) {
+            return;
+        }
+        synchronized (projection.refreshLock) {
+            try {
+                if (projection.eventsSinceSnapshot > 0) {
+                    projection.saveSnapshot();
+                }
+            } catch (IOException e) {
+                System.err.println("Error saving baggage projection snapshot: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Apply the events recorded since the last refresh: on first use, those after the snapshot.
+     * Events behind a missing tracking id wait for it, see {@link #hasOpenGap()}.
+     * @return The number of events applied
+     * @throws SQLException If the events can't be read
+     */
+    public long refresh() throws SQLException {
+        synchronized (refreshLock) {
+            if (!snapshotChecked) {
+                loadSnapshot();
+                snapshotChecked = true;
+            }
+            long applied = 0;
+            while (true) {
+                int read = readEvents();
+                applied += read;
+                if (read < FETCH_EVENTS) {
+                    break;
+                }
+            }
+            if (eventsSinceSnapshot >= SNAPSHOT_EVENTS) {
+                try {
+                    saveSnapshot();
+                } catch (IOException e) {
+                    System.err.println("Error saving baggage projection snapshot: " + e.getMessage());
+                }
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * @return Whether events are held back behind a missing tracking id; a refresh after
+     * GAP_TIMEOUT_MS applies them
+     */
+    public boolean hasOpenGap() {
+        return gapSince != 0;
+    }
+
+    /**
+     * Read the next events in tracking_id order and apply those that follow on without a gap
+     * @return The number applied
+     */
+    private int readEvents() throws SQLException {
+        long after;
+        synchronized (this) {
+            after = lastTrackingId;
+        }
+        // Read outside the lock so state can be looked up meanwhile; only the refresh thread writes
+        long[] trackingIds = new long[FETCH_EVENTS];
+        int[] baggageIds = new int[FETCH_EVENTS];
+        String[] eventLocations = new String[FETCH_EVENTS];
+        String[] eventStatuses = new String[FETCH_EVENTS];
+        long[] times = new long[FETCH_EVENTS];
+        int count = 0;
+        int ready;
+        try (Connection conn = dbConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT tracking_id, baggage_id, location, status, timestamp FROM baggage_tracking " +
+                    "WHERE tracking_id > ? ORDER BY tracking_id LIMIT ?")) {
+                stmt.setLong(1, after);
+                stmt.setInt(2, FETCH_EVENTS);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    trackingIds[count] = rs.getLong(1);
+                    baggageIds[count] = rs.getInt(2);
+                    eventLocations[count] = rs.getString(3);
+                    eventStatuses[count] = rs.getString(4);
+                    times[count] = millis(rs.getTimestamp(5));
+                    count++;
+                }
+            }
+            ready = followingOn(conn, after, trackingIds, count);
+        }
+        synchronized (this) {
+            for (int i = 0; i < ready; i++) {
+                apply(trackingIds[i], baggageIds[i], eventLocations[i], eventStatuses[i], times[i]);
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * @return How many of the events read follow on from the last one applied without a gap, or
+     * after gaps open for GAP_TIMEOUT_MS
+     */
+    private int followingOn(Connection conn, long after, long[] trackingIds, int count) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (gapSince != 0 && now - gapSince >= GAP_TIMEOUT_MS) {
+            // Rolled back, or the bag was deleted with its events
+            skipGapsUpTo = gapUpTo;
+            gapSince = 0;
+        }
+        int ready = 0;
+        long expected = after + 1;
+        while (ready < count && (trackingIds[ready] == expected || trackingIds[ready] <= skipGapsUpTo)) {
+            expected = trackingIds[ready++] + 1;
+        }
+        if (ready == count) {
+            gapSince = 0;
+        } else if (gapSince == 0) {
+            // Every gap below the highest id visible now is at least as old as this one
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MAX(tracking_id) FROM baggage_tracking")) {
+                gapUpTo = rs.next() ? rs.getLong(1) : trackingIds[count - 1];
+            }
+            gapSince = now;
+        }
+        return ready;
+    }
+
+    /**
+     * Fold one event into its bag's state. Events must come in tracking_id order.
+     */
+    synchronized void apply(long trackingId, int baggageId, String location, String status, long scannedAt) {
+        int statusCode = code(status, statusNames, statusCodes);
+        int locationCode = code(location, locationNames, locationCodes);
+        int slot = slotOf(baggageId);
+        if (slot < 0) {
+            slot = addSlot(baggageId);
+            statuses[slot] = statusCode;
+            locations[slot] = locationCode;
+            firstScanAt[slot] = scannedAt;
+            statusSince[slot] = scannedAt;
+            lastScanAt[slot] = scannedAt;
+            scans[slot] = 1;
+        } else {
+            scans[slot]++;
+            if (scannedAt < firstScanAt[slot]) {
+                firstScanAt[slot] = scannedAt;
+            }
+            if (scannedAt >= lastScanAt[slot]) {
+                int previous = statuses[slot];
+                if (statusCode != previous) {
+                    stageMillis[previous] += scannedAt - statusSince[slot];
+                    stageExits[previous]++;
+                    statuses[slot] = statusCode;
+                    statusSince[slot] = scannedAt;
+                }
+                locations[slot] = locationCode;
+                lastScanAt[slot] = scannedAt;
+            }
+        }
+        lastTrackingId = trackingId;
+        eventsApplied++;
+        eventsSinceSnapshot++;
+    }
+
+    private int code(String value, List<String> names, Map<String, Integer> codes) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = names.size();
+            names.add(value);
+            codes.put(value, code);
+            if (names == statusNames && code >= stageMillis.length) {
+                stageMillis = Arrays.copyOf(stageMillis, stageMillis.length * 2);
+                stageExits = Arrays.copyOf(stageExits, stageExits.length * 2);
+            }
+        }
+        return code;
+    }
+
+    private static int[] newIndex(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        return table;
+    }
+
+    private static int hash(int id, int mask) {
+        return (id * 0x9E3779B9) >>> 1 & mask;
+    }
+
+    private int slotOf(int baggageId) {
+        int mask = index.length - 1;
+        for (int i = hash(baggageId, mask); ; i = (i + 1) & mask) {
+            int slot = index[i];
+            if (slot < 0 || ids[slot] == baggageId) {
+                return slot;
+            }
+        }
+    }
+
+    private int addSlot(int baggageId) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            locations = Arrays.copyOf(locations, capacity);
+            scans = Arrays.copyOf(scans, capacity);
+            firstScanAt = Arrays.copyOf(firstScanAt, capacity);
+            statusSince = Arrays.copyOf(statusSince, capacity);
+            lastScanAt = Arrays.copyOf(lastScanAt, capacity);
+        }
+        int slot = size++;
+        ids[slot] = baggageId;
+        if (size * 2 > index.length) {
+            rebuildIndex(index.length * 2);
+        } else {
+            insertIndex(slot);
+        }
+        return slot;
+    }
+
+    private void insertIndex(int slot) {
+        int mask = index.length - 1;
+        int i = hash(ids[slot], mask);
+        while (index[i] >= 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot;
+    }
+
+    private void rebuildIndex(int capacity) {
+        index = newIndex(capacity);
+        for (int slot = 0; slot < size; slot++) {
+            insertIndex(slot);
+        }
+    }
+
+    /**
+     * @param baggageId The bag's id
+     * @return Its projected state, or null if it has no events
+     */
+    public synchronized BagState get(int baggageId) {
+        int slot = slotOf(baggageId);
+        if (slot < 0) {
+            return null;
+        }
+        return new BagState(baggageId, locationNames.get(locations[slot]), statusNames.get(statuses[slot]),
+            firstScanAt[slot], statusSince[slot], lastScanAt[slot], scans[slot]);
+    }
+
+    /**
+     * @return Average time in each status bags have moved on from, in the order statuses were first seen
+     */
+    public synchronized List<StageTiming> getStageTimings() {
+        List<StageTiming> timings = new ArrayList<>();
+        for (int code = 0; code < statusNames.size(); code++) {
+            if (stageExits[code] > 0) {
+                timings.add(new StageTiming(statusNames.get(code), stageExits[code],
+                    stageMillis[code] / 1000.0 / stageExits[code]));
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * @return Bags with at least one event
+     */
+    public synchronized int getBagCount() {
+        return size;
+    }
+
+    /**
+     * @return Events applied since this projection was created, not counting those in the snapshot
+     */
+    public synchronized long getEventsApplied() {
+        return eventsApplied;
+    }
+
+    public synchronized long getLastTrackingId() {
+        return lastTrackingId;
+    }
+
+    /**
+     * Read a bag's events from the event log, in the order they happened
+     * @param baggageTag The bag's tag
+     * @return Its events, empty if it has none
+     * @throws SQLException If the query fails
+     */
+    public List<TrackingEvent> queryHistory(String baggageTag) throws SQLException {
+        List<TrackingEvent> events = new ArrayList<>();
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                "SELECT t.baggage_id, t.location, t.status, t.timestamp FROM baggage_tracking t " +
+                "JOIN baggage b ON b.baggage_id = t.baggage_id " +
+                "WHERE b.baggage_tag = ? ORDER BY t.timestamp, t.tracking_id")) {
+            stmt.setString(1, baggageTag);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                events.add(new TrackingEvent(rs.getInt(1), rs.getString(2), rs.getString(3), millis(rs.getTimestamp(4))));
+            }
+        }
+        return events;
+    }
+
+    private static long millis(Timestamp timestamp) {
+        return timestamp == null ? 0 : timestamp.getTime();
+    }
+
+    /**
+     * Write the projection to the snapshot file, replacing the previous one
+     * @throws IOException If it can't be written
+     */
+    public void saveSnapshot() throws IOException {
+        Path parent = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = parent.resolve(snapshotFile.getFileName() + ".tmp");
+        synchronized (this) {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                SnapshotOutput out = new SnapshotOutput(channel);
+                out.putInt(SNAPSHOT_MAGIC);
+                out.putInt(SNAPSHOT_VERSION);
+                out.putLong(lastTrackingId);
+                out.putStrings(statusNames);
+                out.putStrings(locationNames);
+                out.putLongs(stageMillis, statusNames.size());
+                out.putLongs(stageExits, statusNames.size());
+                out.putInt(size);
+                out.putInts(ids, size);
+                out.putInts(statuses, size);
+                out.putInts(locations, size);
+                out.putInts(scans, size);
+                out.putLongs(firstScanAt, size);
+                out.putLongs(statusSince, size);
+                out.putLongs(lastScanAt, size);
+                out.finish();
+                channel.force(false);
+            }
+            eventsSinceSnapshot = 0;
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Buffered snapshot writer that checksums what it writes and ends the file with the CRC
+     */
+    private static final class SnapshotOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_CHUNK);
+        private final CRC32 crc = new CRC32();
+
+        SnapshotOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            room(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            room(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putStrings(List<String> values) throws IOException {
+            putInt(values.size());
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                putInt(bytes.length);
+                room(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            for (int from = 0; from < count; ) {
+                room(Integer.BYTES);
+                int n = Math.min(count - from, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, from, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                from += n;
+            }
+        }
+
+        void putLongs(long[] values, int count) throws IOException {
+            for (int from = 0; from < count; ) {
+                room(Long.BYTES);
+                int n = Math.min(count - from, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, from, n);
+                buffer.position(buffer.position() + n * Long.BYTES);
+                from += n;
+            }
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+                if (bytes > buffer.capacity()) {
+                    throw new IOException("Snapshot value too large: " + bytes + " bytes");
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Restore the projection from the snapshot, if there is a usable one
+     */
+    private void loadSnapshot() throws SQLException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.capacity() < 3 * Integer.BYTES + 2 * Long.BYTES) {
+                throw new IOException("too short");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(in.slice(0, in.capacity() - Long.BYTES));
+            if (crc.getValue() != in.getLong(in.capacity() - Long.BYTES)) {
+                throw new IOException("checksum mismatch");
+            }
+            if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("not a version " + SNAPSHOT_VERSION + " snapshot");
+            }
+            long snapshotTrackingId = in.getLong();
+            if (snapshotTrackingId > queryMaxTrackingId()) {
+                System.err.println("Baggage projection snapshot is ahead of the database; rebuilding from the events");
+                return;
+            }
+            synchronized (this) {
+                readStrings(in, statusNames, statusCodes);
+                readStrings(in, locationNames, locationCodes);
+                int statusCount = statusNames.size();
+                stageMillis = new long[Math.max(16, statusCount)];
+                stageExits = new long[Math.max(16, statusCount)];
+                in.asLongBuffer().get(stageMillis, 0, statusCount);
+                in.position(in.position() + statusCount * Long.BYTES);
+                in.asLongBuffer().get(stageExits, 0, statusCount);
+                in.position(in.position() + statusCount * Long.BYTES);
+                int bags = in.getInt();
+                int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, bags)) * 2);
+                ids = readInts(in, bags, capacity);
+                statuses = readInts(in, bags, capacity);
+                locations = readInts(in, bags, capacity);
+                scans = readInts(in, bags, capacity);
+                firstScanAt = readLongs(in, bags, capacity);
+                statusSince = readLongs(in, bags, capacity);
+                lastScanAt = readLongs(in, bags, capacity);
+                size = bags;
+                rebuildIndex(capacity * 2);
+                lastTrackingId = snapshotTrackingId;
+            }
+            System.out.printf("Baggage projection: %d bags restored from snapshot in %.0f ms%n", size,
+                (System.nanoTime() - started) / 1e6);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring baggage projection snapshot " + snapshotFile + ": " + e.getMessage());
+            reset();
+        }
+    }
+
+    private long queryMaxTrackingId() throws SQLException {
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(tracking_id), 0) FROM baggage_tracking")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void readStrings(ByteBuffer in, List<String> names, Map<String, Integer> codes) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            codes.put(name, names.size());
+            names.add(name);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in, int count, int capacity) {
+        int[] values = new int[capacity];
+        in.asIntBuffer().get(values, 0, count);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static long[] readLongs(ByteBuffer in, int count, int capacity) {
+        long[] values = new long[capacity];
+        in.asLongBuffer().get(values, 0, count);
+        in.position(in.position() + count * Long.BYTES);
+        return values;
+    }
+
+    private synchronized void reset() {
+        size = 0;
+        ids = new int[1024];
+        statuses = new int[1024];
+        locations = new int[1024];
+        scans = new int[1024];
+        firstScanAt = new long[1024];
+        statusSince = new long[1024];
+        lastScanAt = new long[1024];
+        index = newIndex(2048);
+        statusNames.clear();
+        statusCodes.clear();
+        locationNames.clear();
+        locationCodes.clear();
+        stageMillis = new long[16];
+        stageExits = new long[16];
+        lastTrackingId = 0;
+    }
+}
@@ -0,0 +1,995 @@
+package com.yousif.attemp2;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * BaggageScanIngestor - Records bag scans in baggage_tracking and keeps each bag's current
+ * status and location on its baggage row.
+ *
+ * Scans are accepted from any thread into a BoundedMpscQueue, without locks. A journal thread
+ * moves them into a SegmentJournal on local disk, flushing each group at once, and one writer
+ * thread group-commits from the journal: it reads everything journaled (up to MAX_BATCH), inserts
+ * the events with one batched statement (a multi-row INSERT with the driver's rewriting), updates
+ * each bag's baggage row once with its latest scan, commits and then checkpoints the journal; scans
+ * arriving meanwhile form the next group, so the batch grows with the load and the cost per scan
+ * falls. A scan older than the one already applied to its bag is kept in the history but doesn't
+ * move the bag back. Workstations see the new locations through the change log.
+ *
+ * If the database is unavailable the writer keeps its batch and retries while the journal keeps
+ * taking scans, so scanning carries on at full speed through an outage or failover; once the
+ * database is back the writer replays the journal in order, and after a restart it starts from the
+ * checkpoint. Bags added, edited or removed while the database is down are journaled too, see
+ * {@link #journalBagAdded(BaggageItem)}, and applied in the same order as the scans. A crash between
+ * a commit and its checkpoint writes that batch's history again. Deadlocks, lock wait timeouts and
+ * other errors that may pass are retried with backoff. A batch the database rejects for its data
+ * (SQL state 22 or 23) is split in halves until the scan it rejects is on its own; that scan is
+ * counted as malformed and skipped, so one bad scan can't hold up the journal.
+ *
+ * When the queue is full, offer() refuses the scan and submit() waits for room; the stats count
+ * both, along with the queue depth, the journal backlog and the commit latency, so a writer
+ * falling behind shows up before scans are lost. Scans for unknown tags are counted and dropped.
+ *
+ * Scanners without the in-process API can stream lines of "tag,location,status[,epochMillis]"
+ * to a local socket, see {@link #listen(int)}.
+ *
+ * Usage: BaggageScanIngestor [port]
+ */
+public class BaggageScanIngestor {
+    public static final int DEFAULT_CAPACITY = 65_536;
+    static final int MAX_BATCH = 5_000;
+
+    // Tags resolved per lookup query
+    private static final int LOOKUP_CHUNK = 1_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+    // First wait after an error other than a lost connection, doubled up to RETRY_DELAY_MILLIS
+    private static final long MIN_RETRY_DELAY_MILLIS = 20;
+
+    // Where the journal lives; by default under the user's home directory
+    public static final String JOURNAL_DIR_PROPERTY = "airport.journal.dir";
+
+    // What the baggage_tracking timestamp column holds: 1970-01-01 00:00:01 to 2038-01-19 UTC
+    private static final long MIN_SCANNED_AT = 1_000L;
+    private static final long MAX_SCANNED_AT = Integer.MAX_VALUE * 1_000L;
+
+    private static final byte SCAN_RECORD = 'S';
+    private static final byte BAG_ADDED_RECORD = 'A';
+    private static final byte BAG_REMOVED_RECORD = 'R';
+    private static final byte BAG_BOOKED_RECORD = 'B';
+    private static final byte BAG_UPDATED_RECORD = 'U';
+
+    private static final String INSERT_TRACKING =
+        "INSERT INTO baggage_tracking (baggage_id, location, status, timestamp) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_BAGGAGE = "UPDATE baggage SET status = ?, current_location = ? WHERE baggage_id = ?";
+
+    private static BaggageScanIngestor instance;
+
+    /**
+     * One scan of a bag
+     */
+    public static final class Scan {
+        private final String baggageTag;
+        private final String location;
+        private final String status;
+        private final long scannedAt;
+        // When the scan was accepted, epoch millis, for the scan-to-commit latency
+        private final long acceptedAt;
+
+        /**
+         * @param baggageTag The bag's tag
+         * @param location Where it was scanned, up to 50 characters
+         * @param status Its status there, e.g. Screening or Loading, up to 20 characters
+         * @param scannedAt When it was scanned, epoch millis, from 1970 to January 2038
+         */
+        public Scan(String baggageTag, String location, String status, long scannedAt) {
+            this(baggageTag, location, status, scannedAt, System.currentTimeMillis());
+        }
+
+        private Scan(String baggageTag, String location, String status, long scannedAt, long acceptedAt) {
+            if (baggageTag == null || location == null || status == null
+                    || location.length() > 50 || status.length() > 20
+                    || scannedAt < MIN_SCANNED_AT || scannedAt > MAX_SCANNED_AT) {
+                throw new IllegalArgumentException("Invalid scan of " + baggageTag + " at " + location + ": " + status
+                    + " (" + scannedAt + ")");
+            }
+            this.baggageTag = baggageTag;
+            this.location = location;
+            this.status = status;
+            this.scannedAt = scannedAt;
+            this.acceptedAt = acceptedAt;
+        }
+
+        public String getBaggageTag() { return baggageTag; }
+        public String getLocation() { return location; }
+        public String getStatus() { return status; }
+        public long getScannedAt() { return scannedAt; }
+    }
+
+    /**
+     * A bag added, edited or removed through DataService while the database was unavailable
+     */
+    private static final class BagChange {
+        // The journal record type: added by flight or to a booking, updated or removed
+        final byte kind;
+        final String baggageTag;
+        final String flight;
+        final int bookingId;
+        final String weight;
+        final String location;
+        final String status;
+        final String handlingTime;
+
+        BagChange(byte kind, String baggageTag, String flight, int bookingId, String weight, String location,
+                  String status, String handlingTime) {
+            this.kind = kind;
+            this.baggageTag = baggageTag;
+            this.flight = flight;
+            this.bookingId = bookingId;
+            this.weight = weight;
+            this.location = location;
+            this.status = status;
+            this.handlingTime = handlingTime;
+        }
+    }
+
+    /**
+     * Counters since the ingestor was created
+     */
+    public static final class Stats {
+        private final long accepted;
+        private final long refused;
+        private final long waited;
+        private final long unknownTags;
+        private final long malformed;
+        private final long written;
+        private final long batches;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final int capacity;
+        private final long journalBacklogBytes;
+        private final int journalSegments;
+        private final boolean offline;
+        private final double commitP99Millis;
+        private final double latencyP99Millis;
+
+        private Stats(BaggageScanIngestor ingestor) {
+            accepted = ingestor.accepted.sum();
+            refused = ingestor.refused.sum();
+            waited = ingestor.waited.sum();
+            unknownTags = ingestor.unknownTags.get();
+            malformed = ingestor.malformed.sum();
+            written = ingestor.written.get();
+            batches = ingestor.batches.get();
+            queueDepth = ingestor.queue.size();
+            maxQueueDepth = ingestor.maxQueueDepth;
+            capacity = ingestor.queue.capacity();
+            journalBacklogBytes = ingestor.journal.getBacklogBytes();
+            journalSegments = ingestor.journal.getSegmentCount();
+            offline = ingestor.offline;
+            commitP99Millis = ingestor.commitLatency.getPercentileMillis(99);
+            latencyP99Millis = ingestor.scanLatency.getPercentileMillis(99);
+        }
+
+        /**
+         * @return Scans queued
+         */
+        public long getAccepted() { return accepted; }
+
+        /**
+         * @return Scans refused because the queue was full (offer) or stayed full (submit)
+         */
+        public long getRefused() { return refused; }
+
+        /**
+         * @return Times submit() had to wait for room: the writer is falling behind
+         */
+        public long getWaited() { return waited; }
+        public long getUnknownTags() { return unknownTags; }
+
+        /**
+         * @return Socket lines and journal records that weren't a valid scan or bag change, and
+         *         scans the database rejected
+         */
+        public long getMalformed() { return malformed; }
+
+        /**
+         * @return Scans committed to baggage_tracking
+         */
+        public long getWritten() { return written; }
+        public long getBatches() { return batches; }
+        public int getQueueDepth() { return queueDepth; }
+        public int getMaxQueueDepth() { return maxQueueDepth; }
+        public int getCapacity() { return capacity; }
+
+        /**
+         * @return Journaled bytes not yet in the database
+         */
+        public long getJournalBacklogBytes() { return journalBacklogBytes; }
+        public int getJournalSegments() { return journalSegments; }
+
+        /**
+         * @return Whether the database is unavailable, or the journal is still catching up after it was
+         */
+        public boolean isOffline() { return offline; }
+
+        /**
+         * @return 99th percentile time to write and commit one batch
+         */
+        public double getCommitP99Millis() { return commitP99Millis; }
+
+        /**
+         * @return 99th percentile time from a scan being queued to its commit
+         */
+        public double getLatencyP99Millis() { return latencyP99Millis; }
+
+        @Override
+        public String toString() {
+            return String.format("accepted=%d written=%d batches=%d (avg %.0f) queue=%d/%d (max %d) refused=%d waited=%d "
+                    + "unknown=%d malformed=%d journal=%dKB in %d segments%s commit p99=%.1fms scan-to-commit p99=%.1fms",
+                accepted, written, batches, batches == 0 ? 0.0 : (double) written / batches, queueDepth, capacity,
+                maxQueueDepth, refused, waited, unknownTags, malformed, journalBacklogBytes / 1024, journalSegments,
+                offline ? " (offline)" : "", commitP99Millis, latencyP99Millis);
+        }
+    }
+
+    private final DatabaseConnection dbConnection;
+    private final SegmentJournal journal;
+    private final BoundedMpscQueue<Scan> queue;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final AtomicLong unknownTags = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+    private final LatencyHistogram scanLatency = new LatencyHistogram();
+    private volatile int maxQueueDepth;
+
+    // Writer thread only: baggage id and latest applied scan per tag
+    private final Map<String, BagState> bags = new HashMap<>();
+
+    private volatile boolean running;
+    private volatile boolean appenderIdle;
+    // Set when a write fails, cleared once the writer has caught up with the journal
+    private volatile boolean offline;
+    private Thread appender;
+    private Thread writer;
+    private ServerSocket serverSocket;
+    private ExecutorService connections;
+
+    private static final class BagState {
+        final int baggageId;
+        long projectedAt = Long.MIN_VALUE;
+
+        BagState(int baggageId) {
+            this.baggageId = baggageId;
+        }
+    }
+
+    /**
+     * @param dbConnection Where to record the scans
+     * @param journal Where scans wait for the database; writing starts at its checkpoint
+     * @param capacity How many scans may wait to be journaled
+     */
+    public BaggageScanIngestor(DatabaseConnection dbConnection, SegmentJournal journal, int capacity) {
+        this.dbConnection = dbConnection;
+        this.journal = journal;
+        this.queue = new BoundedMpscQueue<>(capacity);
+    }
+
+    /**
+     * @return The shared ingestor, started on first use
+     */
+    public static synchronized BaggageScanIngestor getInstance() {
+        if (instance == null) {
+            instance = new BaggageScanIngestor(DatabaseConnection.getInstance(), openJournal(), DEFAULT_CAPACITY);
+            instance.start();
+        }
+        return instance;
+    }
+
+    /**
+     * Open the journal in airport.journal.dir, or a temporary one if that fails
+     */
+    private static SegmentJournal openJournal() {
+        Path directory = Path.of(System.getProperty(JOURNAL_DIR_PROPERTY,
+            Path.of(System.getProperty("user.home"), ".airport", "journal", "baggage").toString()));
+        try {
+            return SegmentJournal.open(directory, SegmentJournal.DEFAULT_SEGMENT_BYTES);
+        } catch (IOException e) {
+            System.err.println("Error opening baggage journal " + directory + ", using a temporary one: " + e.getMessage());
+            try {
+                return SegmentJournal.open(Files.createTempDirectory("baggage-journal"), SegmentJournal.DEFAULT_SEGMENT_BYTES);
+            } catch (IOException again) {
+                throw new UncheckedIOException(again);
+            }
+        }
+    }
+
+    /**
+     * Stop the shared ingestor, if it was started, writing the scans still queued
+     */
+    public static void shutdown() {
+        BaggageScanIngestor ingestor;
+        synchronized (BaggageScanIngestor.class) {
+            ingestor = instance;
+        }
+        if (ingestor != null) {
+            ingestor.stop();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        BaggageScanIngestor ingestor = getInstance();
+        ingestor.listen(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(ingestor::stop));
+        System.out.println("Accepting scans on port " + ingestor.getPort());
+        while (true) {
+            Thread.sleep(5_000);
+            System.out.println(ingestor.getStats());
+        }
+    }
+
+    /**
+     * Start the journal and writer threads
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        appender = new Thread(this::journalLoop, "baggage-journal");
+        appender.setDaemon(true);
+        writer = new Thread(this::writeLoop, "baggage-scans");
+        writer.setDaemon(true);
+        appender.start();
+        writer.start();
+    }
+
+    /**
+     * Stop accepting scans, journal those already queued, write what the database will take and
+     * close the journal. What isn't written is replayed on the next start.
+     */
+    public void stop() {
+        Thread appenderThread;
+        Thread writerThread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            closeListener();
+            appenderThread = appender;
+            writerThread = writer;
+        }
+        LockSupport.unpark(appenderThread);
+        LockSupport.unpark(writerThread);
+        try {
+            appenderThread.join(TimeUnit.SECONDS.toMillis(10));
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (appenderThread.isAlive()) {
+            System.err.println("Baggage scans not journaled at shutdown: " + queue.size());
+        }
+        if (journal.getBacklogBytes() > 0) {
+            System.err.println("Baggage changes left in the journal for the next start: " + journal.getBacklogBytes() + " bytes");
+        }
+        journal.close();
+    }
+
+    /**
+     * Queue a scan if there is room. Never blocks.
+     * @param scan The scan
+     * @return false if the queue is full or the ingestor stopped; the scan is counted as refused
+     */
+    public boolean offer(Scan scan) {
+        if (running && queue.offer(scan)) {
+            onAccepted();
+            return true;
+        }
+        refused.increment();
+        return false;
+    }
+
+    /**
+     * Queue a scan, waiting for room while the writer catches up
+     * @param scan The scan
+     * @param timeout How long to wait at most
+     * @param unit Unit of the timeout
+     * @return false if there was still no room, or the ingestor stopped
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean submit(Scan scan, long timeout, TimeUnit unit) throws InterruptedException {
+        if (running && queue.offer(scan)) {
+            onAccepted();
+            return true;
+        }
+        waited.increment();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long pause = 10_000;
+        while (running && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(pause);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (queue.offer(scan)) {
+                onAccepted();
+                return true;
+            }
+            pause = Math.min(pause * 2, 1_000_000);
+        }
+        refused.increment();
+        return false;
+    }
+
+    private void onAccepted() {
+        accepted.increment();
+        int depth = queue.size();
+        if (depth > maxQueueDepth) {
+            // Racy, but only ever an estimate of the peak
+            maxQueueDepth = depth;
+        }
+        if (appenderIdle) {
+            LockSupport.unpark(appender);
+        }
+    }
+
+    /**
+     * Journal a bag added while the database is unavailable; the writer adds it once the database
+     * is back, after the changes journaled before it
+     * @param item The new bag
+     * @return false if the journal couldn't take it
+     */
+    public boolean journalBagAdded(BaggageItem item) {
+        return journalChange(encode(new BagChange(BAG_ADDED_RECORD, item.getBaggageId(), item.getFlight(), 0, null,
+            item.getLocation(), item.getStatus(), item.getHandlingTime())));
+    }
+
+    /**
+     * Journal a bag added to a booking, or edited, while the database is unavailable
+     * @param added Whether the bag is new rather than edited
+     * @return false if the journal couldn't take it
+     */
+    public boolean journalBagSaved(boolean added, String baggageTag, int bookingId, String weight, String status,
+                                   String location, String handlingTime) {
+        return journalChange(encode(new BagChange(added ? BAG_BOOKED_RECORD : BAG_UPDATED_RECORD, baggageTag, null,
+            bookingId, weight, location, status, handlingTime)));
+    }
+
+    /**
+     * Journal a bag removed while the database is unavailable
+     * @param baggageTag The bag
+     * @return false if the journal couldn't take it
+     */
+    public boolean journalBagRemoved(String baggageTag) {
+        return journalChange(encode(new BagChange(BAG_REMOVED_RECORD, baggageTag, null, 0, null, null, null, null)));
+    }
+
+    private boolean journalChange(byte[] record) {
+        try {
+            journal.append(record);
+            journal.force();
+        } catch (IOException e) {
+            System.err.println("Error journaling baggage change: " + e.getMessage());
+            return false;
+        }
+        // Later changes go through the journal too until the writer has caught up, to keep their order
+        offline = true;
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    /**
+     * @return Whether baggage changes should be journaled rather than written: the database is
+     * unavailable, or the writer is still replaying what was journaled while it was
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * @return Whether an error means the database couldn't be reached, rather than a rejected statement
+     */
+    static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+            || e instanceof SQLRecoverableException || (state != null && state.startsWith("08"));
+    }
+
+    /**
+     * @return Whether the database refused the data itself, a constraint violation or a value the
+     * column can't hold, so writing it again would fail again. Deadlocks (SQL state 40001, MySQL
+     * 1213), lock wait timeouts (MySQL 1205) and other transient errors are not.
+     */
+    static boolean isRejected(SQLException e) {
+        for (SQLException error = e; error != null; error = error.getNextException()) {
+            if (error instanceof SQLTransientException || "40001".equals(error.getSQLState())
+                    || error.getErrorCode() == 1205 || error.getErrorCode() == 1213) {
+                return false;
+            }
+            String state = error.getSQLState();
+            if (error instanceof SQLDataException || error instanceof SQLIntegrityConstraintViolationException
+                    || (state != null && (state.startsWith("22") || state.startsWith("23")))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Current counters
+     */
+    public Stats getStats() {
+        return new Stats(this);
+    }
+
+    /**
+     * Accept scans from local scanners: each connection sends lines of
+     * "tag,location,status[,epochMillis]". A connection waits while the queue is full, so a fast
+     * scanner is slowed down by TCP rather than losing scans.
+     * @param port Port on the loopback address; 0 picks a free one
+     * @throws IOException If the port can't be opened
+     */
+    public synchronized void listen(int port) throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        connections = BackgroundExecutors.newTaskExecutor("scanner");
+        ServerSocket socket = serverSocket;
+        Thread acceptor = new Thread(() -> acceptLoop(socket), "scanner-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return The port scanners connect to, or -1 if not listening
+     */
+    public synchronized int getPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            try {
+                Socket connection = socket.accept();
+                connections.execute(() -> readScans(connection));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    System.err.println("Error accepting scanner connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readScans(Socket connection) {
+        try (Socket socket = connection;
+             BufferedReader reader = new BufferedReader(
+                 new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Scan scan = parseScan(line);
+                if (scan == null) {
+                    malformed.increment();
+                } else if (!submit(scan, 30, TimeUnit.SECONDS)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Scanner connection closed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The scan, or null if the line isn't one
+     */
+    static Scan parseScan(String line) {
+        List<String> fields = line.isBlank() ? null : ScheduleImporter.splitCsv(line);
+        if (fields == null || fields.size() < 3 || fields.size() > 4) {
+            return null;
+        }
+        try {
+            long scannedAt = fields.size() == 4 ? Long.parseLong(fields.get(3).trim()) : System.currentTimeMillis();
+            return new Scan(fields.get(0).trim(), fields.get(1).trim(), fields.get(2).trim(), scannedAt);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private synchronized void closeListener() {
+        if (serverSocket == null) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing scanner socket: " + e.getMessage());
+        }
+        connections.shutdownNow();
+        serverSocket = null;
+    }
+
+    private void journalLoop() {
+        List<Scan> group = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            if (group.isEmpty()) {
+                queue.drainTo(group, MAX_BATCH);
+            }
+            if (group.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                appenderIdle = true;
+                // A scan queued before the flag was set wouldn't unpark us
+                if (queue.isEmpty()) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                appenderIdle = false;
+                continue;
+            }
+            int appended = 0;
+            try {
+                for (Scan scan : group) {
+                    journal.append(encode(scan));
+                    appended++;
+                }
+                journal.force();
+            } catch (IOException e) {
+                // Keep the rest of the group; the queue fills up behind it until there is room on disk
+                System.err.println("Error journaling baggage scans, retrying: " + e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MILLIS));
+            }
+            group.subList(0, appended).clear();
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void writeLoop() {
+        List<byte[]> records = new ArrayList<>(MAX_BATCH);
+        long[] ends = new long[MAX_BATCH];
+        Object[] entries = new Object[MAX_BATCH];
+        List<Scan> run = new ArrayList<>(MAX_BATCH);
+        int count = 0;
+        int next = 0;
+        // Longest run to write; halved when the database rejects a run, to narrow down the scan it rejects
+        int runLimit = MAX_BATCH;
+        long retryDelay = MIN_RETRY_DELAY_MILLIS;
+        while (true) {
+            if (next == count) {
+                records.clear();
+                count = journal.poll(records, ends);
+                next = 0;
+                for (int i = 0; i < count; i++) {
+                    entries[i] = decode(records.get(i));
+                }
+                if (count == 0) {
+                    offline = false;
+                    if (!running && !appender.isAlive()) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+            }
+            // Scans are written in runs; a bag change is applied on its own, in journal order
+            int end = next + 1;
+            run.clear();
+            if (entries[next] instanceof Scan) {
+                run.add((Scan) entries[next]);
+                while (end < count && run.size() < runLimit && entries[end] instanceof Scan) {
+                    run.add((Scan) entries[end++]);
+                }
+            }
+            try {
+                if (!run.isEmpty()) {
+                    write(run);
+                } else if (entries[next] instanceof BagChange) {
+                    apply((BagChange) entries[next]);
+                } else {
+                    malformed.increment();
+                }
+            } catch (SQLException e) {
+                if (isConnectionFailure(e)) {
+                    // Keep the batch; the journal takes the scans arriving meanwhile
+                    offline = true;
+                    if (!running) {
+                        return;
+                    }
+                    System.err.println("Error writing baggage scans, retrying: " + e.getMessage());
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MILLIS));
+                    continue;
+                }
+                if (!isRejected(e)) {
+                    // A deadlock or lock wait timeout rolled the batch back; the same rows go through later
+                    if (!running) {
+                        return;
+                    }
+                    System.err.println("Error writing baggage scans, retrying in " + retryDelay + " ms: " + e.getMessage());
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(retryDelay));
+                    retryDelay = Math.min(RETRY_DELAY_MILLIS, retryDelay * 2);
+                    continue;
+                }
+                if (run.size() > 1) {
+                    // Something in the run was rejected; write it in halves until that scan is on its own
+                    System.err.println("Baggage scan batch of " + run.size() + " rejected, splitting it: " + e.getMessage());
+                    runLimit = run.size() / 2;
+                    continue;
+                }
+                // Retrying won't help, e.g. a value the column can't hold
+                System.err.println("Dropping baggage scan of " + run.get(0).baggageTag + ": " + e.getMessage());
+                malformed.increment();
+            }
+            next = end;
+            runLimit = Math.min(MAX_BATCH, runLimit * 2);
+            retryDelay = MIN_RETRY_DELAY_MILLIS;
+            try {
+                journal.commit(ends[end - 1]);
+            } catch (IOException e) {
+                // Written, but written again after a restart
+                System.err.println("Error saving baggage journal checkpoint: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Insert a batch of scans and move each bag to its latest one, in one transaction
+     */
+    private void write(List<Scan> batch) throws SQLException {
+        long started = System.nanoTime();
+        resolveTags(batch);
+        // Latest scan per bag in this batch that is newer than the one already applied
+        Map<BagState, Scan> latest = new LinkedHashMap<>();
+        int rows = 0;
+        int unknown = 0;
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(INSERT_TRACKING);
+                 PreparedStatement update = conn.prepareStatement(UPDATE_BAGGAGE)) {
+                for (Scan scan : batch) {
+                    BagState bag = bags.get(scan.baggageTag);
+                    if (bag == null) {
+                        unknown++;
+                        continue;
+                    }
+                    insert.setInt(1, bag.baggageId);
+                    insert.setString(2, scan.location);
+                    insert.setString(3, scan.status);
+                    insert.setTimestamp(4, new Timestamp(scan.scannedAt));
+                    insert.addBatch();
+                    rows++;
+                    Scan current = latest.get(bag);
+                    if (scan.scannedAt >= bag.projectedAt && (current == null || scan.scannedAt >= current.scannedAt)) {
+                        latest.put(bag, scan);
+                    }
+                }
+                if (rows > 0) {
+                    insert.executeBatch();
+                    for (Map.Entry<BagState, Scan> entry : latest.entrySet()) {
+                        update.setString(1, entry.getValue().status);
+                        update.setString(2, entry.getValue().location);
+                        update.setInt(3, entry.getKey().baggageId);
+                        update.addBatch();
+                    }
+                    update.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                if (isForeignKeyViolation(e)) {
+                    // A bag was deleted since its id was cached; look the tags up again
+                    bags.clear();
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        for (Map.Entry<BagState, Scan> entry : latest.entrySet()) {
+            entry.getKey().projectedAt = entry.getValue().scannedAt;
+        }
+        long now = System.currentTimeMillis();
+        for (Scan scan : batch) {
+            scanLatency.recordNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(0, now - scan.acceptedAt)));
+        }
+        commitLatency.recordNanos(System.nanoTime() - started);
+        written.addAndGet(rows);
+        unknownTags.addAndGet(unknown);
+        batches.incrementAndGet();
+    }
+
+    /**
+     * Add, edit or remove a bag journaled while the database was unavailable
+     */
+    private void apply(BagChange change) throws SQLException {
+        try (Connection conn = dbConnection.getConnection()) {
+            if (change.kind == BAG_BOOKED_RECORD || change.kind == BAG_UPDATED_RECORD) {
+                if (DataService.writeBookedBaggage(conn, change.kind == BAG_BOOKED_RECORD, change.baggageTag,
+                        change.bookingId, change.weight, change.status, change.location, change.handlingTime) == 0) {
+                    System.err.println("Journaled edit of baggage no longer there: " + change.baggageTag);
+                }
+            } else {
+                boolean added = change.kind == BAG_ADDED_RECORD;
+                try (PreparedStatement stmt = conn.prepareStatement(added ? DataService.INSERT_BAGGAGE : DataService.DELETE_BAGGAGE)) {
+                    stmt.setString(1, change.baggageTag);
+                    if (added) {
+                        stmt.setString(2, change.status);
+                        stmt.setString(3, change.location);
+                        stmt.setString(4, change.handlingTime);
+                        stmt.setString(5, change.flight);
+                    }
+                    if (stmt.executeUpdate() == 0) {
+                        System.err.println("Journaled baggage " + (added ? "has no booking on " + change.flight : "already removed")
+                            + ": " + change.baggageTag);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            if (!isRejected(e)) {
+                throw e;
+            }
+            // Retrying won't help, e.g. the bag was added before a restart replayed it again
+            System.err.println("Skipping journaled baggage change to " + change.baggageTag + ": " + e.getMessage());
+        }
+        bags.remove(change.baggageTag);
+    }
+
+    private static byte[] encode(Scan scan) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(SCAN_RECORD);
+            out.writeUTF(scan.baggageTag);
+            out.writeUTF(scan.location);
+            out.writeUTF(scan.status);
+            out.writeLong(scan.scannedAt);
+            out.writeLong(scan.acceptedAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encode(BagChange change) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(change.kind);
+            out.writeUTF(change.baggageTag);
+            if (change.kind == BAG_ADDED_RECORD) {
+                writeNullable(out, change.flight);
+            } else if (change.kind != BAG_REMOVED_RECORD) {
+                out.writeInt(change.bookingId);
+                writeNullable(out, change.weight);
+            }
+            if (change.kind != BAG_REMOVED_RECORD) {
+                writeNullable(out, change.location);
+                writeNullable(out, change.status);
+                writeNullable(out, change.handlingTime);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The Scan or BagChange in a journal record, or null if it isn't one
+     */
+    private static Object decode(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            switch (in.readByte()) {
+                case SCAN_RECORD:
+                    return new Scan(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong(), in.readLong());
+                case BAG_ADDED_RECORD:
+                    return new BagChange(BAG_ADDED_RECORD, in.readUTF(), readNullable(in), 0, null, readNullable(in),
+                        readNullable(in), readNullable(in));
+                case BAG_BOOKED_RECORD:
+                case BAG_UPDATED_RECORD:
+                    return new BagChange(record[0], in.readUTF(), null, in.readInt(), readNullable(in), readNullable(in),
+                        readNullable(in), readNullable(in));
+                case BAG_REMOVED_RECORD:
+                    return new BagChange(BAG_REMOVED_RECORD, in.readUTF(), null, 0, null, null, null, null);
+                default:
+                    return null;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Look up the baggage ids of tags not seen before
+     */
+    private void resolveTags(List<Scan> batch) throws SQLException {
+        Set<String> missing = new LinkedHashSet<>();
+        for (Scan scan : batch) {
+            if (!bags.containsKey(scan.baggageTag)) {
+                missing.add(scan.baggageTag);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<String> tags = new ArrayList<>(missing);
+        try (Connection conn = dbConnection.getConnection()) {
+            for (int from = 0; from < tags.size(); from += LOOKUP_CHUNK) {
+                List<String> chunk = tags.subList(from, Math.min(tags.size(), from + LOOKUP_CHUNK));
+                StringBuilder sql = new StringBuilder("SELECT baggage_id, baggage_tag FROM baggage WHERE baggage_tag IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(sql.append(')').toString())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setString(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        bags.put(rs.getString("baggage_tag"), new BagState(rs.getInt("baggage_id")));
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isForeignKeyViolation(SQLException e) {
+        // MySQL reports 1452; other databases use the standard SQL state
+        return e instanceof SQLIntegrityConstraintViolationException || "23506".equals(e.getSQLState())
+            || e.getErrorCode() == 1452;
+    }
+}
@@ -29,10 +29,21 @@ import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 import org.kordamp.ikonli.javafx.FontIcon;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 public class BaggageTrackingController {
 
+    private static final DateTimeFormatter SCAN_TIME_FORMATTER = DateTimeFormatter.ofPattern("MMM dd HH:mm:ss");
+
     @FXML
     private Label bagsProcessedValue;
     
@@ -83,6 +94,23 @@ public class BaggageTrackingController {
     
     private ObservableList<BaggageItem> baggageData = FXCollections.observableArrayList();
     
+    // Lookups over baggageData; the flight is a plain field, so edits must call reindex()
+    private final ListIndex<BaggageItem> baggageByTag = new ListIndex<>(baggageData, BaggageItem::getBaggageId);
+    private final ListIndex<BaggageItem> baggageByFlight = new ListIndex<>(baggageData, BaggageItem::getFlight);
+    private final SearchIndex<BaggageItem> baggageSearch =
+        new SearchIndex<>(baggageData, item -> new String[] { item.getBaggageId() });
+    
+    // FX thread only: a projection refresh is running, and bags changed since it started
+    private boolean projectionRefreshing;
+    private boolean projectionStale;
+    
+    // Scans move bags, which reaches this workstation as baggage changes; catch the projection up
+    private final DataService.DataChangeEventListener baggageChangeListener = event -> {
+        if (event.affects(DataService.DataType.BAGGAGE)) {
+            refreshProjection();
+        }
+    };
+    
     @FXML
     public void initialize() {
         setupStatistics();
@@ -91,6 +119,71 @@ public class BaggageTrackingController {
         loadBaggageData();
         createBaggageFlowVisualization();
         setupProcessingTimeChart();
+        refreshProjection();
+        DataService.getInstance().addChangeEventListener(baggageChangeListener);
+        // Stop listening once another module replaces this view
+        baggageTable.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                DataService.getInstance().removeChangeEventListener(baggageChangeListener);
+            }
+        });
+    }
+    
+    /**
+     * Catch the baggage projection up with the tracking events in the background, then show its
+     * bag count and stage timings. Called again while running, it refreshes once more afterwards.
+     */
+    private void refreshProjection() {
+        if (projectionRefreshing) {
+            projectionStale = true;
+            return;
+        }
+        projectionRefreshing = true;
+        BaggageProjection projection = BaggageProjection.getInstance();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                projection.refresh();
+                return projection.getStageTimings();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, BackgroundExecutors.database())
+            .whenComplete((timings, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                projectionRefreshing = false;
+                if (error != null) {
+                    System.err.println("Error refreshing baggage projection: " + error.getMessage());
+                } else {
+                    showStageTimings(projection.getBagCount(), timings);
+                }
+                if (projectionStale) {
+                    projectionStale = false;
+                    refreshProjection();
+                } else if (projection.hasOpenGap() && baggageTable.getScene() != null) {
+                    // Events wait behind a missing id; apply them once it is given up on
+                    CompletableFuture.runAsync(() -> BackgroundExecutors.runOnFxThread(this::refreshProjection),
+                        CompletableFuture.delayedExecutor(BaggageProjection.GAP_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+                }
+            }));
+    }
+    
+    private void showStageTimings(int bags, List<BaggageProjection.StageTiming> timings) {
+        if (timings.isEmpty()) {
+            // No bag has moved on from a status yet; keep the placeholder figures
+            return;
+        }
+        long exits = 0;
+        double seconds = 0;
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName("Processing Time");
+        for (BaggageProjection.StageTiming timing : timings) {
+            exits += timing.getBags();
+            seconds += timing.getAverageSeconds() * timing.getBags();
+            series.getData().add(new XYChart.Data<>(timing.getStatus(), Math.round(timing.getAverageSeconds())));
+        }
+        bagsProcessedValue.setText(String.format("%,d", bags));
+        avgProcessingTimeValue.setText(Math.round(seconds / exits) + " sec");
+        processingTimeChart.getData().setAll(List.of(series));
+        styleProcessingTimes(series);
     }
     
     private void setupStatistics() {
@@ -225,36 +318,57 @@ public class BaggageTrackingController {
     }
     
     private void updateBaggageInDatabase(BaggageItem baggage, int newBookingId) {
-        try {
-            DatabaseConnection db = DatabaseConnection.getInstance();
-            String query = "UPDATE baggage SET booking_id=?, status=?, current_location=?, handling_time=?, weight=? WHERE baggage_tag=?";
-            db.executeUpdate(query, newBookingId, baggage.getStatus(), baggage.getLocation(), baggage.getHandlingTime(), baggage.getWeight(), baggage.getBaggageId());
-            loadBaggageData();
-        } catch (Exception e) {
-            showAlert("Failed to update baggage: " + e.getMessage());
+        DataService.getInstance().updateBookedBaggageAsync(baggage.getBaggageId(), newBookingId, baggage.getWeight(),
+                baggage.getStatus(), baggage.getLocation(), baggage.getHandlingTime())
+            .whenComplete((saved, error) -> BackgroundExecutors.runOnFxThread(() ->
+                baggageSaved(saved, error, "Failed to update baggage")));
+    }
+    
+    /**
+     * Show the outcome of a baggage change made through DataService, which journals it while the
+     * database is unavailable
+     */
+    private void baggageSaved(Boolean saved, Throwable error, String failure) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            showAlert(failure + ": " + cause.getMessage());
+            return;
         }
+        if (!saved) {
+            showAlert(failure + ".");
+        } else if (BaggageScanIngestor.getInstance().isOffline()) {
+            showAlert("The database is unavailable. The change is saved and will be written once it is back.");
+        }
+        loadBaggageData();
     }
     
-    private void addBaggageToDatabase(BaggageItem baggage, int bookingId) {
+    /**
+     * Record a status or location set by hand in the bag's tracking history, like a scan
+     */
+    private void recordManualScan(BaggageItem baggage) {
         try {
-            DatabaseConnection db = DatabaseConnection.getInstance();
-            String query = "INSERT INTO baggage (baggage_tag, booking_id, weight, status, current_location, handling_time) VALUES (?, ?, ?, ?, ?, ?)";
-            db.executeUpdate(query, baggage.getBaggageId(), bookingId, baggage.getWeight(), baggage.getStatus(), baggage.getLocation(), baggage.getHandlingTime());
-            loadBaggageData();
-        } catch (Exception e) {
-            showAlert("Failed to add baggage: " + e.getMessage());
+            BaggageScanIngestor.Scan scan = new BaggageScanIngestor.Scan(baggage.getBaggageId(), baggage.getLocation(),
+                baggage.getStatus(), System.currentTimeMillis());
+            if (!BaggageScanIngestor.getInstance().offer(scan)) {
+                System.err.println("Baggage scan queue full; edit of " + baggage.getBaggageId() + " not in its history");
+            }
+        } catch (IllegalArgumentException e) {
+            showAlert("Location must be at most 50 characters.");
         }
     }
     
+    private void addBaggageToDatabase(BaggageItem baggage, int bookingId) {
+        DataService.getInstance().addBookedBaggageAsync(baggage.getBaggageId(), bookingId, baggage.getWeight(),
+                baggage.getStatus(), baggage.getLocation(), baggage.getHandlingTime())
+            .whenComplete((saved, error) -> BackgroundExecutors.runOnFxThread(() ->
+                baggageSaved(saved, error, "Failed to add baggage")));
+    }
+    
     private void deleteBaggageFromDatabase(String baggageTag) {
-        try {
-            DatabaseConnection db = DatabaseConnection.getInstance();
-            String query = "DELETE FROM baggage WHERE baggage_tag=?";
-            db.executeUpdate(query, baggageTag);
-            loadBaggageData();
-        } catch (Exception e) {
-            showAlert("Failed to delete baggage: " + e.getMessage());
-        }
+        DataService.getInstance().removeBaggageAsync(baggageTag)
+            .whenComplete((removed, error) -> BackgroundExecutors.runOnFxThread(() ->
+                baggageSaved(removed, error, "Failed to delete baggage")));
     }
     
     private void createBaggageFlowVisualization() {
@@ -364,6 +478,10 @@ public class BaggageTrackingController {
         // Update the y-axis label to reflect seconds
         processingTimeChart.getYAxis().setLabel("Processing Time (seconds)");
         
+        styleProcessingTimes(series);
+    }
+    
+    private void styleProcessingTimes(XYChart.Series<String, Number> series) {
         // Apply custom styling to the chart
         for (XYChart.Data<String, Number> data : series.getData()) {
             // Add hover effect to show exact time
@@ -391,10 +509,12 @@ public class BaggageTrackingController {
         
         // Filter the table to show only the matching baggage
         ObservableList<BaggageItem> filteredBaggage = FXCollections.observableArrayList();
-        for (BaggageItem item : baggageData) {
-            if (item.getBaggageId().contains(searchId)) {
-                filteredBaggage.add(item);
-            }
+        BaggageItem exactMatch = baggageByTag.first(searchId);
+        if (exactMatch != null) {
+            filteredBaggage.add(exactMatch);
+        } else {
+            // Partial tag
+            filteredBaggage.addAll(baggageSearch.search(searchId));
         }
         
         if (filteredBaggage.isEmpty()) {
@@ -419,12 +539,8 @@ public class BaggageTrackingController {
         String flightNumber = selectedFlight.split(" - ")[0];
         
         // Filter the table to show only bags for the selected flight
-        ObservableList<BaggageItem> filteredBaggage = FXCollections.observableArrayList();
-        for (BaggageItem item : baggageData) {
-            if (item.getFlight().equals(flightNumber)) {
-                filteredBaggage.add(item);
-            }
-        }
+        ObservableList<BaggageItem> filteredBaggage =
+            FXCollections.observableArrayList(baggageByFlight.get(flightNumber));
         
         baggageTable.setItems(filteredBaggage);
     }
@@ -442,26 +558,66 @@ public class BaggageTrackingController {
         content.append("Status: ").append(baggage.getStatus()).append("\n");
         content.append("Handling Time: ").append(baggage.getHandlingTime()).append("\n\n");
         content.append("Tracking History:").append("\n");
-        content.append("- Check-in: Processed in 20 seconds at Counter 3").append("\n");
-        content.append("- Screening: Processed in 45 seconds at Security Point 2").append("\n");
         
-        if (baggage.getStatus().equals("Sorting") || 
-            baggage.getStatus().equals("Loading") || 
-            baggage.getStatus().equals("Delivered")) {
-            content.append("- Sorting: Processed in 75 seconds at Sorting Area 2").append("\n");
+        // The history is read from the event log in the background; the dialog opens once it is in
+        BaggageProjection projection = BaggageProjection.getInstance();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return projection.queryHistory(baggage.getBaggageId());
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, BackgroundExecutors.database())
+            .whenComplete((history, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    content.append("- Unavailable: ").append(cause.getMessage()).append("\n");
+                } else {
+                    appendTrackingHistory(content, projection, history);
+                }
+                alert.setContentText(content.toString());
+                alert.showAndWait();
+            }));
+    }
+    
+    /**
+     * List a bag's scans from the event log, with how long it spent at each, and its projected state
+     */
+    private void appendTrackingHistory(StringBuilder content, BaggageProjection projection,
+                                       List<BaggageProjection.TrackingEvent> history) {
+        if (history.isEmpty()) {
+            content.append("- No scans recorded yet").append("\n");
+            return;
         }
-        
-        if (baggage.getStatus().equals("Loading") || 
-            baggage.getStatus().equals("Delivered")) {
-            content.append("- Loading: Processed in 90 seconds at Loading Zone A").append("\n");
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < history.size(); i++) {
+            BaggageProjection.TrackingEvent event = history.get(i);
+            content.append("- ").append(event.getStatus()).append(": ");
+            if (i + 1 < history.size()) {
+                content.append("Processed in ").append(formatDuration(history.get(i + 1).getScannedAt() - event.getScannedAt()));
+            } else {
+                content.append("Since ").append(SCAN_TIME_FORMATTER.format(Instant.ofEpochMilli(event.getScannedAt()).atZone(zone)));
+            }
+            content.append(" at ").append(event.getLocation()).append("\n");
         }
-        
-        if (baggage.getStatus().equals("Delivered")) {
-            content.append("- Delivered: Processed in 120 seconds to Aircraft Hold").append("\n");
+        BaggageProjection.BagState state = projection.get(history.get(0).getBaggageId());
+        if (state != null) {
+            content.append("\n").append(state.getScans()).append(" scans, ")
+                .append(formatDuration(state.getLastScanAt() - state.getFirstScanAt())).append(" from first to latest")
+                .append("\n");
         }
-        
-        alert.setContentText(content.toString());
-        alert.showAndWait();
+    }
+    
+    private static String formatDuration(long millis) {
+        long seconds = Math.max(0, millis / 1000);
+        if (seconds < 120) {
+            return seconds + " seconds";
+        }
+        if (seconds < 3600) {
+            return seconds / 60 + " min " + seconds % 60 + " sec";
+        }
+        return seconds / 3600 + " h " + seconds % 3600 / 60 + " min";
     }
     
     private void showAlert(String message) {
@@ -628,6 +784,10 @@ public class BaggageTrackingController {
             return;
         }
 
+        // The dialog edits the item in place
+        String previousStatus = selectedBaggage.getStatus();
+        String previousLocation = selectedBaggage.getLocation();
+
         // Create a custom dialog
         Dialog<BaggageItem> dialog = new Dialog<>();
         dialog.setTitle("Edit Baggage");
@@ -690,6 +850,7 @@ public class BaggageTrackingController {
                 selectedBaggage.setWeight(weightField.getText());
                 // Store the new booking id in the BaggageItem for update
                 selectedBaggage.setFlight(bookingComboBox.getValue().toString()); // for display only
+                baggageByFlight.reindex(selectedBaggage);
                 selectedBaggage.setPassengerName(bookingComboBox.getValue().toString()); // for display only
                 selectedBaggage.bookingIdForUpdate = bookingComboBox.getValue().getBookingId();
                 return selectedBaggage;
@@ -699,7 +860,11 @@ public class BaggageTrackingController {
 
         Optional<BaggageItem> result = dialog.showAndWait();
         if (result.isPresent()) {
-            updateBaggageInDatabase(result.get(), result.get().bookingIdForUpdate);
+            BaggageItem edited = result.get();
+            if (!Objects.equals(previousStatus, edited.getStatus()) || !Objects.equals(previousLocation, edited.getLocation())) {
+                recordManualScan(edited);
+            }
+            updateBaggageInDatabase(edited, edited.bookingIdForUpdate);
         }
     }
     
@@ -807,6 +972,7 @@ public class BaggageTrackingController {
                 // Update the baggage item values
                 baggage.setPassengerName(passengerNameField.getText());
                 baggage.setFlight(flightComboBox.getValue());
+                baggageByFlight.reindex(baggage);
                 baggage.setLocation(locationField.getText());
                 baggage.setStatus(statusComboBox.getValue());
                 baggage.setHandlingTime(handlingTimeField.getText());
@@ -78,6 +78,8 @@ public class BoardingStatusController {
     
     private ObservableList<BoardingFlight> flightData = FXCollections.observableArrayList();
     
+    private final ListIndex<BoardingFlight> flightsByNumber = new ListIndex<>(flightData, BoardingFlight::getFlight);
+    
     @FXML
     public void initialize() {
         setupStatistics();
@@ -202,15 +204,13 @@ public class BoardingStatusController {
     public void refreshBoardingStatus() {
         // In a real app, this would fetch updated data from the server
         // For demo purposes, we'll just update the progress of one flight
-        for (BoardingFlight flight : flightData) {
-            if ("AA1234".equals(flight.getFlight())) {
-                double newProgress = Math.min(1.0, flight.getProgress() + 0.1);
-                flightData.set(flightData.indexOf(flight), 
-                    new BoardingFlight(flight.getFlight(), flight.getDestination(), 
-                        flight.getGate(), flight.getDeparture(), 
-                        newProgress >= 1.0 ? "Complete" : "Boarding", newProgress));
-                break;
-            }
+        BoardingFlight flight = flightsByNumber.first("AA1234");
+        if (flight != null) {
+            double newProgress = Math.min(1.0, flight.getProgress() + 0.1);
+            flightData.set(flightData.indexOf(flight), 
+                new BoardingFlight(flight.getFlight(), flight.getDestination(), 
+                    flight.getGate(), flight.getDeparture(), 
+                    newProgress >= 1.0 ? "Complete" : "Boarding", newProgress));
         }
         
         // Update boarding distribution chart
@@ -274,14 +274,12 @@ public class BoardingStatusController {
     }
     
     private void updateBoardingProgress(String flightNumber) {
-        for (BoardingFlight flight : flightData) {
-            if (flight.getFlight().equals(flightNumber)) {
-                selectedFlightStatus.setText(flight.getStatus() + " - " + 
-                    String.format("%.0f%%", flight.getProgress() * 100) + " complete");
-                overallProgressBar.setProgress(flight.getProgress());
-                overallProgressLabel.setText(String.format("%.0f%%", flight.getProgress() * 100));
-                break;
-            }
+        BoardingFlight flight = flightsByNumber.first(flightNumber);
+        if (flight != null) {
+            selectedFlightStatus.setText(flight.getStatus() + " - " + 
+                String.format("%.0f%%", flight.getProgress() * 100) + " complete");
+            overallProgressBar.setProgress(flight.getProgress());
+            overallProgressLabel.setText(String.format("%.0f%%", flight.getProgress() * 100));
         }
     }
     
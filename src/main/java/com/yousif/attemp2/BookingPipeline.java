@@ -0,0 +1,348 @@
+package com.yousif.attemp2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * BookingPipeline - Stores one or more bookings in a single transaction.
+ *
+ * Flight and passenger ids come from in-memory caches, so a booking for a known passenger is one
+ * batched INSERT plus the commit instead of a round trip per lookup. New passengers are inserted
+ * in one batch first and their generated ids used for the bookings. All seats of a request are
+ * held before anything is written and the whole group is committed or rolled back together, so a
+ * family either gets all its seats or none.
+ */
+public class BookingPipeline {
+    private static final String SELECT_FLIGHT_ID = "SELECT flight_id FROM flights WHERE flight_number = ?";
+    private static final String SELECT_PASSENGER_BY_USER = "SELECT passenger_id FROM passengers WHERE user_id = ?";
+    private static final String INSERT_PASSENGER = "INSERT INTO passengers (user_id, first_name, last_name) VALUES (?, ?, ?)";
+    private static final String INSERT_BOOKING = "INSERT INTO bookings (booking_reference, passenger_id, flight_id, " +
+        "seat_number, booking_status) VALUES (?, ?, ?, ?, 'Confirmed')";
+
+    private static final int MYSQL_FOREIGN_KEY_VIOLATION = 1452;
+
+    private final DatabaseConnection dbConnection;
+    private final SeatAllocator seatAllocator;
+    private final SeatInventoryCache seatInventories;
+
+    private final ConcurrentHashMap<String, Integer> flightIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Integer> passengersByUser = new ConcurrentHashMap<>();
+
+    /**
+     * One seat to book for one passenger
+     */
+    public static final class BookingRequest {
+        private final String flightNumber;
+        private final String seat;
+        private final int userId;
+        private final String firstName;
+        private final String lastName;
+
+        private BookingRequest(String flightNumber, String seat, int userId, String firstName, String lastName) {
+            this.flightNumber = flightNumber;
+            this.seat = seat;
+            this.userId = userId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        /**
+         * Book a seat for a logged-in user; their passenger record is created on first use
+         * @param flightNumber The flight number
+         * @param seat The seat label
+         * @param userData The user
+         * @return The request
+         */
+        public static BookingRequest forUser(String flightNumber, String seat, LoginController.UserData userData) {
+            String[] nameParts = userData.getFullName().split(" ", 2);
+            return new BookingRequest(flightNumber, seat, userData.getUserId(),
+                nameParts[0], nameParts.length > 1 ? nameParts[1] : "");
+        }
+
+        public String getFlightNumber() { return flightNumber; }
+        public String getSeat() { return seat; }
+
+        // In-memory users have no user id; they get a passenger row of their own per booking,
+        // never someone else's with the same name
+        private boolean hasUser() { return userId > 0; }
+        private String nameKey() { return firstName + '\u0000' + lastName; }
+    }
+
+    /**
+     * A stored booking
+     */
+    public static final class BookingConfirmation {
+        private final int bookingId;
+        private final String bookingReference;
+        private final int passengerId;
+        private final String flightNumber;
+        private final String seat;
+
+        BookingConfirmation(int bookingId, String bookingReference, int passengerId, String flightNumber, String seat) {
+            this.bookingId = bookingId;
+            this.bookingReference = bookingReference;
+            this.passengerId = passengerId;
+            this.flightNumber = flightNumber;
+            this.seat = seat;
+        }
+
+        public int getBookingId() { return bookingId; }
+        public String getBookingReference() { return bookingReference; }
+        public int getPassengerId() { return passengerId; }
+        public String getFlightNumber() { return flightNumber; }
+        public String getSeat() { return seat; }
+    }
+
+    public BookingPipeline(DatabaseConnection dbConnection, SeatAllocator seatAllocator,
+                           SeatInventoryCache seatInventories) {
+        this.dbConnection = dbConnection;
+        this.seatAllocator = seatAllocator;
+        this.seatInventories = seatInventories;
+    }
+
+    /**
+     * Remember a flight's database id, so bookings on it don't have to look it up
+     * @param flightNumber The flight number
+     * @param flightId The flight_id column
+     */
+    void rememberFlight(String flightNumber, int flightId) {
+        flightIds.put(flightNumber, flightId);
+    }
+
+    /**
+     * Store bookings, all or none
+     * @param requests The seats to book; a family booking passes one request per member
+     * @return One confirmation per request, in request order
+     * @throws SQLException If a seat is taken, a flight doesn't exist or the bookings could not be stored
+     */
+    public List<BookingConfirmation> book(List<BookingRequest> requests) throws SQLException {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<SeatAllocator.SeatHold> holds = holdSeats(requests);
+        List<BookingConfirmation> confirmations;
+        try {
+            confirmations = store(requests);
+        } catch (SQLException e) {
+            for (SeatAllocator.SeatHold hold : holds) {
+                seatAllocator.release(hold);
+            }
+            throw explain(e, requests);
+        }
+        for (SeatAllocator.SeatHold hold : holds) {
+            seatAllocator.confirm(hold);
+        }
+        return confirmations;
+    }
+
+    private List<SeatAllocator.SeatHold> holdSeats(List<BookingRequest> requests) throws SQLException {
+        List<SeatAllocator.SeatHold> holds = new ArrayList<>(requests.size());
+        try {
+            for (BookingRequest request : requests) {
+                SeatAllocator.SeatHold hold = seatAllocator.hold(request.flightNumber, request.seat,
+                    (request.firstName + " " + request.lastName).trim());
+                if (hold == null) {
+                    throw new SQLException("Seat " + request.seat + " on flight " + request.flightNumber
+                        + " is no longer available");
+                }
+                holds.add(hold);
+            }
+        } catch (SQLException e) {
+            for (SeatAllocator.SeatHold hold : holds) {
+                seatAllocator.release(hold);
+            }
+            throw e;
+        }
+        return holds;
+    }
+
+    private List<BookingConfirmation> store(List<BookingRequest> requests) throws SQLException {
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Map<String, Integer> flights = resolveFlights(conn, requests);
+                Map<BookingRequest, Integer> passengers = resolvePassengers(conn, requests);
+
+                List<String> references = new ArrayList<>(requests.size());
+                List<BookingConfirmation> confirmations = new ArrayList<>(requests.size());
+                try (PreparedStatement stmt = conn.prepareStatement(INSERT_BOOKING, Statement.RETURN_GENERATED_KEYS)) {
+                    Set<String> used = new LinkedHashSet<>();
+                    for (BookingRequest request : requests) {
+                        String reference = newReference(used);
+                        references.add(reference);
+                        stmt.setString(1, reference);
+                        stmt.setInt(2, passengers.get(request));
+                        stmt.setInt(3, flights.get(request.flightNumber));
+                        stmt.setString(4, request.seat);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        for (int i = 0; i < requests.size(); i++) {
+                            BookingRequest request = requests.get(i);
+                            int bookingId = keys.next() ? keys.getInt(1) : -1;
+                            confirmations.add(new BookingConfirmation(bookingId, references.get(i),
+                                passengers.get(request), request.flightNumber, request.seat));
+                        }
+                    }
+                }
+                conn.commit();
+                rememberPassengers(requests, passengers);
+                return confirmations;
+            } catch (SQLException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private Map<String, Integer> resolveFlights(Connection conn, List<BookingRequest> requests) throws SQLException {
+        Map<String, Integer> flights = new LinkedHashMap<>();
+        for (BookingRequest request : requests) {
+            if (flights.containsKey(request.flightNumber)) {
+                continue;
+            }
+            Integer flightId = flightIds.get(request.flightNumber);
+            if (flightId == null) {
+                flightId = queryId(conn, SELECT_FLIGHT_ID, request.flightNumber);
+                if (flightId == null) {
+                    throw new SQLException("Flight " + request.flightNumber + " not found");
+                }
+                flightIds.put(request.flightNumber, flightId);
+            }
+            flights.put(request.flightNumber, flightId);
+        }
+        return flights;
+    }
+
+    /**
+     * Find or create the passenger of each request. A user's cached id is used as it is and a miss
+     * is looked up by user id; passengers still missing are inserted in one batch.
+     */
+    private Map<BookingRequest, Integer> resolvePassengers(Connection conn, List<BookingRequest> requests)
+            throws SQLException {
+        Map<BookingRequest, Integer> passengers = new LinkedHashMap<>();
+        // Requests for the same person share one new passenger row
+        Map<String, List<BookingRequest>> missing = new LinkedHashMap<>();
+        for (BookingRequest request : requests) {
+            Integer passengerId = null;
+            if (request.hasUser()) {
+                passengerId = passengersByUser.get(request.userId);
+                if (passengerId == null) {
+                    passengerId = queryId(conn, SELECT_PASSENGER_BY_USER, request.userId);
+                }
+            }
+            if (passengerId != null) {
+                passengers.put(request, passengerId);
+            } else {
+                String key = request.hasUser() ? "user:" + request.userId : "name:" + request.nameKey();
+                missing.computeIfAbsent(key, k -> new ArrayList<>()).add(request);
+            }
+        }
+        if (missing.isEmpty()) {
+            return passengers;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_PASSENGER, Statement.RETURN_GENERATED_KEYS)) {
+            for (List<BookingRequest> group : missing.values()) {
+                BookingRequest request = group.get(0);
+                if (request.hasUser()) {
+                    stmt.setInt(1, request.userId);
+                } else {
+                    stmt.setNull(1, java.sql.Types.INTEGER);
+                }
+                stmt.setString(2, request.firstName);
+                stmt.setString(3, request.lastName);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (List<BookingRequest> group : missing.values()) {
+                    if (!keys.next()) {
+                        throw new SQLException("Failed to create passenger record");
+                    }
+                    int passengerId = keys.getInt(1);
+                    for (BookingRequest request : group) {
+                        passengers.put(request, passengerId);
+                    }
+                }
+            }
+        }
+        return passengers;
+    }
+
+    // Only after the commit, so a rolled-back passenger row is never cached
+    private void rememberPassengers(List<BookingRequest> requests, Map<BookingRequest, Integer> passengers) {
+        for (BookingRequest request : requests) {
+            if (request.hasUser()) {
+                passengersByUser.put(request.userId, passengers.get(request));
+            }
+        }
+    }
+
+    private static Integer queryId(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Turn constraint violations into messages a passenger can act on, and drop cached state they prove wrong
+     */
+    private SQLException explain(SQLException e, List<BookingRequest> requests) {
+        if (!(e instanceof SQLIntegrityConstraintViolationException)) {
+            return e;
+        }
+        String message = e.getMessage() == null ? "" : e.getMessage();
+        if (message.contains("uq_bookings_active_seat")) {
+            // Booked from another workstation; the cached seats are out of date
+            Set<String> flightNumbers = new LinkedHashSet<>();
+            for (BookingRequest request : requests) {
+                if (flightNumbers.add(request.flightNumber)) {
+                    seatInventories.invalidate(request.flightNumber);
+                }
+            }
+            return new SQLException("One of the selected seats was just booked by someone else", e);
+        }
+        if (e.getErrorCode() == MYSQL_FOREIGN_KEY_VIOLATION) {
+            // A cached flight or passenger id whose row was deleted
+            for (BookingRequest request : requests) {
+                flightIds.remove(request.flightNumber);
+                passengersByUser.remove(request.userId);
+            }
+        }
+        return e;
+    }
+
+    private static String newReference(Set<String> used) {
+        // Same format as before (BK + 6 digits); unique within the batch, and the unique
+        // column rejects a clash with an existing booking
+        String reference;
+        do {
+            reference = String.format("BK%06d", ThreadLocalRandom.current().nextInt(1_000_000));
+        } while (!used.add(reference));
+        return reference;
+    }
+}
@@ -0,0 +1,114 @@
+package com.yousif.attemp2;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BoundedMpscQueue - Fixed-capacity, lock-free queue for many producers and one consumer.
+ *
+ * A ring of slots, each with a sequence number saying whose turn it is (Vyukov's bounded queue).
+ * A producer claims the next position with one CAS on the tail, writes its slot and publishes it
+ * by advancing the slot's sequence; the consumer takes published slots in order and hands each
+ * back to the producers a lap later. Producers never wait on each other or on the consumer, and
+ * offer() fails at once when the ring is full, which is where callers apply backpressure.
+ *
+ * @param <T> Element type
+ */
+public final class BoundedMpscQueue<T> {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    // Written by the consumer only; volatile so size() can be read anywhere
+    private volatile long head;
+
+    /**
+     * @param capacity Maximum number of elements; rounded up to a power of two
+     */
+    public BoundedMpscQueue(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Add an element if there is room. Safe from any thread.
+     * @param element The element, not null
+     * @return false if the queue is full
+     */
+    public boolean offer(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long sequence = sequences.getAcquire(index);
+            if (sequence == position) {
+                if (tail.weakCompareAndSetVolatile(position, position + 1)) {
+                    slots[index] = element;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                // The slot from the previous lap hasn't been consumed yet
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Move up to max elements into a collection, in order. Consumer thread only.
+     * @param into Receives the elements
+     * @param max The most to take
+     * @return The number taken
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> into, int max) {
+        long position = head;
+        int taken = 0;
+        while (taken < max) {
+            int index = (int) position & mask;
+            if (sequences.getAcquire(index) != position + 1) {
+                break;
+            }
+            into.add((T) slots[index]);
+            slots[index] = null;
+            sequences.setRelease(index, position + slots.length);
+            position++;
+            taken++;
+        }
+        head = position;
+        return taken;
+    }
+
+    /**
+     * @return Elements queued or being added; a moment's estimate while producers are active
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(slots.length, tail.get() - head));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
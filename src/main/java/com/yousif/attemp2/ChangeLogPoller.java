@@ -0,0 +1,258 @@
+package com.yousif.attemp2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChangeLogPoller - Tails the change_log table and hands new entries to every subscribed DataService.
+ *
+ * Triggers append an entry for each insert, update and delete of a flight, bag or notification
+ * (migration V006). One background thread per process reads the entries after the last one it
+ * delivered, a primary-key range scan that returns nothing while nothing changes, and delivers them
+ * to all subscribers in change_id order.
+ *
+ * Ids are allocated when a row is inserted but become visible when its transaction commits, so a
+ * later id can be seen before an earlier one. Entries are therefore only delivered up to the first
+ * missing id. A hole that stays open for HOLE_TIMEOUT_MS is most likely a rolled-back transaction;
+ * it is skipped, and subscribers are told they may have missed changes so they can reconcile.
+ *
+ * The poll interval is -Dairport.changelog.interval.ms (default 500).
+ */
+public class ChangeLogPoller {
+    private static final long DEFAULT_INTERVAL_MS = 500;
+    private static final long HOLE_TIMEOUT_MS = 5000;
+    private static final int PAGE_SIZE = 5000;
+
+    // Entries older than a day are purged this often; a workstation that far behind reloads anyway
+    private static final long PURGE_INTERVAL_MS = 60 * 60 * 1000L;
+
+    private static ChangeLogPoller instance;
+
+    /**
+     * Receives change log entries on the poller thread
+     */
+    public interface Subscriber {
+        /**
+         * @param changes New entries in change_id order; may repeat entries up to the subscriber's
+         *                own start position, which it should skip
+         * @param missedChanges True if the poller gave up waiting for an id before these entries,
+         *                      so changes may have been missed
+         * @throws SQLException If the changed rows can't be read; the entries are delivered again
+         */
+        void onChanges(List<Change> changes, boolean missedChanges) throws SQLException;
+    }
+
+    private final DatabaseConnection dbConnection;
+    private final long intervalMillis;
+    private final ScheduledExecutorService thread =
+        Executors.newSingleThreadScheduledExecutor(BackgroundExecutors.daemonThreadFactory("change-log"));
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Poller thread only, except that subscribe() may move it back under the lock
+    private long lastDelivered = -1;
+    private long holeSince;
+    private long lastPurge;
+    private ScheduledFuture<?> task;
+
+    private ChangeLogPoller(DatabaseConnection dbConnection, long intervalMillis) {
+        this.dbConnection = dbConnection;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public static synchronized ChangeLogPoller getInstance() {
+        if (instance == null) {
+            instance = new ChangeLogPoller(DatabaseConnection.getInstance(),
+                Long.getLong("airport.changelog.interval.ms", DEFAULT_INTERVAL_MS));
+        }
+        return instance;
+    }
+
+    /**
+     * Read the newest change_log id
+     * @param conn The connection to use
+     * @return The id, or 0 if the log is empty
+     * @throws SQLException If the query fails, e.g. because the table doesn't exist yet
+     */
+    public static long queryLatestId(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(change_id), 0) FROM change_log");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Start delivering entries after a position to a subscriber, starting the poller if needed
+     * @param subscriber The subscriber
+     * @param afterId The last change_id its data already reflects
+     */
+    public void subscribe(Subscriber subscriber, long afterId) {
+        synchronized (this) {
+            // Never skip entries a subscriber hasn't seen; the others skip what they have
+            if (lastDelivered < 0 || afterId < lastDelivered) {
+                lastDelivered = afterId;
+            }
+            subscribers.add(subscriber);
+            if (task == null) {
+                task = thread.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stop delivering to a subscriber; the poller stops when the last one leaves
+     * @param subscriber The subscriber to remove
+     */
+    public synchronized void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        if (subscribers.isEmpty() && task != null) {
+            task.cancel(false);
+            task = null;
+            lastDelivered = -1;
+        }
+    }
+
+    private void poll() {
+        try {
+            boolean more;
+            do {
+                long after;
+                synchronized (this) {
+                    after = lastDelivered;
+                }
+                List<Change> page = queryAfter(after);
+                more = deliver(after, page) && page.size() == PAGE_SIZE;
+            } while (more);
+            purgeIfDue();
+        } catch (SQLException e) {
+            System.err.println("Error reading change log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deliver the entries of a page that are ready
+     * @return true if the whole page was delivered
+     */
+    private boolean deliver(long after, List<Change> page) {
+        if (page.isEmpty()) {
+            holeSince = 0;
+            return false;
+        }
+        // Deliver the entries that follow on without a gap
+        int ready = 0;
+        long expected = after + 1;
+        while (ready < page.size() && page.get(ready).id == expected) {
+            ready++;
+            expected++;
+        }
+        boolean missed = false;
+        if (ready == page.size()) {
+            holeSince = 0;
+        } else if (ready == 0) {
+            long now = System.currentTimeMillis();
+            if (holeSince == 0) {
+                holeSince = now;
+                return false;
+            }
+            if (now - holeSince < HOLE_TIMEOUT_MS) {
+                return false;
+            }
+            // Give up on the hole and deliver everything read
+            holeSince = 0;
+            ready = page.size();
+            missed = true;
+        } else {
+            holeSince = System.currentTimeMillis();
+        }
+
+        List<Change> changes = Collections.unmodifiableList(new ArrayList<>(page.subList(0, ready)));
+        boolean delivered = true;
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.onChanges(changes, missed);
+            } catch (SQLException | RuntimeException e) {
+                // Deliver again next time; the subscribers that succeeded skip what they have
+                System.err.println("Change log subscriber failed: " + e);
+                delivered = false;
+            }
+        }
+        synchronized (this) {
+            // A subscriber that joined meanwhile moved the position back; read again from there
+            if (!delivered || lastDelivered != after) {
+                return false;
+            }
+            lastDelivered = changes.get(changes.size() - 1).id;
+        }
+        return ready == page.size();
+    }
+
+    private List<Change> queryAfter(long afterId) throws SQLException {
+        List<Change> changes = new ArrayList<>();
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                "SELECT change_id, table_name, row_key, operation FROM change_log " +
+                "WHERE change_id > ? ORDER BY change_id LIMIT " + PAGE_SIZE)) {
+
+            stmt.setLong(1, afterId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                changes.add(new Change(rs.getLong("change_id"), rs.getString("table_name"),
+                    rs.getString("row_key"), rs.getString("operation").charAt(0)));
+            }
+        }
+        return changes;
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MS) {
+            return;
+        }
+        lastPurge = now;
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL '1' DAY")) {
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error purging change log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One change_log entry
+     */
+    public static final class Change {
+        private final long id;
+        private final String tableName;
+        private final String rowKey;
+        private final char operation;
+
+        Change(long id, String tableName, String rowKey, char operation) {
+            this.id = id;
+            this.tableName = tableName;
+            this.rowKey = rowKey;
+            this.operation = operation;
+        }
+
+        public long getId() { return id; }
+        public String getTableName() { return tableName; }
+        public String getRowKey() { return rowKey; }
+
+        /**
+         * @return 'I', 'U' or 'D'
+         */
+        public char getOperation() { return operation; }
+
+        public boolean isDelete() { return operation == 'D'; }
+    }
+}
@@ -0,0 +1,520 @@
+package com.yousif.attemp2;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConnectionPool - Bounded pool of physical JDBC connections.
+ *
+ * Every call to {@link #borrow()} hands out a lease: a Connection proxy whose close()
+ * returns the physical connection to the pool instead of closing it, so the existing
+ * try-with-resources blocks keep working unchanged. Each physical connection also keeps a
+ * {@link StatementCache}, so preparing the same SQL again on a pooled connection is free.
+ */
+public class ConnectionPool {
+    // Connection settings
+    private final String url;
+    private final String user;
+    private final String password;
+
+    // Pool limits
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final int statementCacheSize;
+
+    // Idle connections younger than this are handed out without a validation round-trip
+    private static final long VALIDATION_SKIP_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_INTERVAL_SECONDS = 30;
+
+    // Pool state, guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connectionAvailable = lock.newCondition();
+    private final Deque<PhysicalConnection> idleConnections = new ArrayDeque<>();
+    private int totalConnections;
+    private int peakActive;
+    private boolean closed;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    private final ScheduledExecutorService housekeeper;
+
+    /**
+     * Create a new pool. Connections are opened lazily on first borrow.
+     * @param url The JDBC URL
+     * @param user The database user
+     * @param password The database password
+     * @param maxSize Maximum number of physical connections
+     * @param minIdle Number of idle connections kept open by idle eviction
+     * @param borrowTimeoutMillis How long borrow() waits for a free connection
+     * @param idleTimeoutMillis How long a connection may sit idle before it is closed
+     * @param maxLifetimeMillis Maximum age of a physical connection
+     * @param statementCacheSize Prepared statements cached per connection (0 disables caching)
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis,
+                          int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(maxLifetimeMillis);
+        this.statementCacheSize = statementCacheSize;
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ConnectionPool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::evictIdleConnections,
+            HOUSEKEEPING_INTERVAL_SECONDS, HOUSEKEEPING_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool, waiting up to the borrow timeout if all are in use
+     * @return A leased Connection; closing it returns it to the pool
+     * @throws SQLException If no connection could be obtained
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        PhysicalConnection physical = acquire(start + borrowTimeoutNanos);
+        recordWait(System.nanoTime() - start);
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new Lease(physical));
+    }
+
+    private PhysicalConnection acquire(long deadline) throws SQLException {
+        while (true) {
+            PhysicalConnection candidate;
+            lock.lock();
+            try {
+                while (!closed && idleConnections.isEmpty() && totalConnections >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        borrowTimeouts.incrementAndGet();
+                        throw new SQLTransientConnectionException("Timed out waiting for a database connection ("
+                            + totalConnections + " in use)");
+                    }
+                    try {
+                        connectionAvailable.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("Connection pool has been shut down");
+                }
+                // LIFO: the most recently returned connection is the least likely to be stale
+                candidate = idleConnections.pollFirst();
+                if (candidate == null) {
+                    totalConnections++;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (candidate == null) {
+                return openConnection();
+            }
+            if (isUsable(candidate)) {
+                markActive();
+                return candidate;
+            }
+            discard(candidate);
+        }
+    }
+
+    private PhysicalConnection openConnection() throws SQLException {
+        try {
+            PhysicalConnection physical = new PhysicalConnection(DriverManager.getConnection(url, user, password),
+                new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses, statementCacheEvictions));
+            connectionsCreated.incrementAndGet();
+            markActive();
+            return physical;
+        } catch (SQLException e) {
+            lock.lock();
+            try {
+                totalConnections--;
+                connectionAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PhysicalConnection physical) {
+        long now = System.nanoTime();
+        if (now - physical.createdAt > maxLifetimeNanos) {
+            return false;
+        }
+        if (now - physical.lastUsedAt < VALIDATION_SKIP_NANOS) {
+            return true;
+        }
+        try {
+            if (physical.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("Pooled connection validation failed: " + e.getMessage());
+        }
+        validationFailures.incrementAndGet();
+        return false;
+    }
+
+    private void markActive() {
+        borrowCount.incrementAndGet();
+        lock.lock();
+        try {
+            peakActive = Math.max(peakActive, totalConnections - idleConnections.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Return a physical connection after its lease was closed
+     */
+    private void release(PhysicalConnection physical) {
+        boolean reusable = resetState(physical)
+            && System.nanoTime() - physical.createdAt <= maxLifetimeNanos;
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                physical.lastUsedAt = System.nanoTime();
+                idleConnections.addFirst(physical);
+                connectionAvailable.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(physical);
+    }
+
+    /**
+     * Undo anything a borrower may have left behind on the connection
+     * @return false if the connection is broken and should not be reused
+     */
+    private boolean resetState(PhysicalConnection physical) {
+        physical.statementCache.releaseAll();
+        try {
+            Connection connection = physical.connection;
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (connection.isReadOnly()) {
+                connection.setReadOnly(false);
+            }
+            connection.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection after failed reset: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(PhysicalConnection physical) {
+        closeQuietly(physical);
+        lock.lock();
+        try {
+            totalConnections--;
+            connectionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeQuietly(PhysicalConnection physical) {
+        physical.statementCache.clear();
+        try {
+            physical.connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+        connectionsClosed.incrementAndGet();
+    }
+
+    /**
+     * Close idle connections that exceeded the idle timeout or max lifetime, keeping minIdle open
+     */
+    private void evictIdleConnections() {
+        long now = System.nanoTime();
+        Deque<PhysicalConnection> evicted = new ArrayDeque<>();
+
+        lock.lock();
+        try {
+            // Oldest idle connections sit at the tail of the deque
+            Iterator<PhysicalConnection> iterator = idleConnections.descendingIterator();
+            while (iterator.hasNext()) {
+                PhysicalConnection physical = iterator.next();
+                boolean expired = now - physical.createdAt > maxLifetimeNanos;
+                boolean idleTooLong = now - physical.lastUsedAt > idleTimeoutNanos
+                    && idleConnections.size() > minIdle;
+                if (expired || idleTooLong) {
+                    iterator.remove();
+                    totalConnections--;
+                    evicted.add(physical);
+                }
+            }
+            if (!evicted.isEmpty()) {
+                connectionAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PhysicalConnection physical : evicted) {
+            closeQuietly(physical);
+        }
+    }
+
+    /**
+     * Close every idle connection and refuse further borrows. Leased connections are
+     * closed as they are returned.
+     */
+    public void shutdown() {
+        Deque<PhysicalConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayDeque<>(idleConnections);
+            totalConnections -= idleConnections.size();
+            idleConnections.clear();
+            connectionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PhysicalConnection physical : toClose) {
+            closeQuietly(physical);
+        }
+    }
+
+    /**
+     * Get a snapshot of pool usage and wait-time metrics
+     * @return The current pool statistics
+     */
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            int idle = idleConnections.size();
+            return new PoolStats(totalConnections - idle, idle, maxSize, peakActive,
+                borrowCount.get(), borrowTimeouts.get(), totalWaitNanos.get(), maxWaitNanos.get(),
+                connectionsCreated.get(), connectionsClosed.get(), validationFailures.get(),
+                statementCacheHits.get(), statementCacheMisses.get(), statementCacheEvictions.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A physical JDBC connection with the bookkeeping the pool needs
+     */
+    private static class PhysicalConnection {
+        final Connection connection;
+        final StatementCache statementCache;
+        final long createdAt = System.nanoTime();
+        volatile long lastUsedAt = createdAt;
+
+        PhysicalConnection(Connection connection, StatementCache statementCache) {
+            this.connection = connection;
+            this.statementCache = statementCache;
+        }
+    }
+
+    /**
+     * Connection proxy handed to callers. close() ends the lease; any use afterwards fails
+     * instead of silently touching a connection that now belongs to someone else.
+     */
+    private class Lease implements InvocationHandler {
+        // Cleared by the one close() that returns the connection, whichever thread it runs on
+        private final AtomicReference<PhysicalConnection> leased;
+
+        Lease(PhysicalConnection physical) {
+            this.leased = new AtomicReference<>(physical);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            PhysicalConnection physical = leased.get();
+            switch (method.getName()) {
+                case "close":
+                    PhysicalConnection returned = leased.getAndSet(null);
+                    if (returned != null) {
+                        release(returned);
+                    }
+                    return null;
+                case "isClosed":
+                    return physical == null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (physical == null ? "returned" : physical.connection) + "]";
+                case "unwrap":
+                    // The lease itself, so the physical connection can't outlive it
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (physical == null) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (statementCacheSize > 0 && method.getName().equals("prepareStatement")
+                    && StatementCache.isCacheable(args)) {
+                return physical.statementCache.prepare(physical.connection, (Connection) proxy, args);
+            }
+            try {
+                return method.invoke(physical.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of pool metrics
+     */
+    public static class PoolStats {
+        private final int active;
+        private final int idle;
+        private final int maxSize;
+        private final int peakActive;
+        private final long borrowCount;
+        private final long borrowTimeouts;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long connectionsCreated;
+        private final long connectionsClosed;
+        private final long validationFailures;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+        private final long statementCacheEvictions;
+
+        PoolStats(int active, int idle, int maxSize, int peakActive, long borrowCount, long borrowTimeouts,
+                  long totalWaitNanos, long maxWaitNanos, long connectionsCreated, long connectionsClosed,
+                  long validationFailures, long statementCacheHits, long statementCacheMisses,
+                  long statementCacheEvictions) {
+            this.active = active;
+            this.idle = idle;
+            this.maxSize = maxSize;
+            this.peakActive = peakActive;
+            this.borrowCount = borrowCount;
+            this.borrowTimeouts = borrowTimeouts;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.connectionsCreated = connectionsCreated;
+            this.connectionsClosed = connectionsClosed;
+            this.validationFailures = validationFailures;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+            this.statementCacheEvictions = statementCacheEvictions;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getMaxSize() { return maxSize; }
+        public int getPeakActive() { return peakActive; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getBorrowTimeouts() { return borrowTimeouts; }
+        public long getConnectionsCreated() { return connectionsCreated; }
+        public long getConnectionsClosed() { return connectionsClosed; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+        public long getStatementCacheEvictions() { return statementCacheEvictions; }
+
+        /**
+         * Get the fraction of prepareStatement calls served from the statement cache
+         * @return Hit ratio between 0 and 1
+         */
+        public double getStatementCacheHitRatio() {
+            long lookups = statementCacheHits + statementCacheMisses;
+            return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+        }
+
+        /**
+         * Get the average time callers waited in borrow()
+         * @return Average wait in milliseconds
+         */
+        public double getAverageWaitMillis() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000.0;
+        }
+
+        /**
+         * Get the fraction of the pool currently leased out
+         * @return Usage between 0 and 1
+         */
+        public double getUsage() {
+            return maxSize == 0 ? 0 : (double) active / maxSize;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d idle=%d max=%d peak=%d borrows=%d timeouts=%d avgWait=%.2fms maxWait=%.2fms created=%d closed=%d invalid=%d stmtHits=%d stmtMisses=%d stmtEvictions=%d",
+                active, idle, maxSize, peakActive, borrowCount, borrowTimeouts, getAverageWaitMillis(),
+                getMaxWaitMillis(), connectionsCreated, connectionsClosed, validationFailures,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions);
+        }
+    }
+}
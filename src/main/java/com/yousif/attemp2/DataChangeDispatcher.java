@@ -0,0 +1,176 @@
+package com.yousif.attemp2;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataChangeDispatcher - Delivers DataChangeEvents to listeners, coalescing bursts.
+ *
+ * Events published within one coalescing window (about a frame) are merged and delivered once.
+ * Each listener is called on its own executor, the JavaFX thread by default, and never runs
+ * concurrently with itself: events arriving while it is still busy are merged into its next call.
+ * Publishing is thread-safe and never blocks on listeners.
+ */
+public class DataChangeDispatcher {
+    // About one frame at 60 fps
+    public static final long DEFAULT_COALESCE_MILLIS = 16;
+
+    private static final Executor FX_EXECUTOR = BackgroundExecutors::runOnFxThread;
+
+    private final long coalesceMillis;
+    private final ScheduledExecutorService timer =
+        Executors.newSingleThreadScheduledExecutor(BackgroundExecutors.daemonThreadFactory("data-events"));
+
+    // Copy-on-write: subscribing is rare, delivering happens on every change
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final Object lock = new Object();
+    // Built up in place, so a burst of single-row events costs no more than one big event
+    private DataChangeEvent.Builder pending;
+    private boolean flushScheduled;
+
+    public DataChangeDispatcher() {
+        this(DEFAULT_COALESCE_MILLIS);
+    }
+
+    /**
+     * @param coalesceMillis How long to collect events before delivering them; 0 delivers right away
+     */
+    public DataChangeDispatcher(long coalesceMillis) {
+        this.coalesceMillis = coalesceMillis;
+    }
+
+    /**
+     * Register a listener called on the JavaFX Application Thread
+     * @param listener The listener to register; registering it twice has no effect
+     */
+    public void subscribe(DataService.DataChangeEventListener listener) {
+        subscribe(listener, FX_EXECUTOR);
+    }
+
+    /**
+     * Register a listener called on the given executor, e.g. for work that doesn't touch the UI
+     * @param listener The listener to register; registering it twice has no effect
+     * @param executor Runs the listener calls
+     */
+    public void subscribe(DataService.DataChangeEventListener listener, Executor executor) {
+        subscriptions.addIfAbsent(new Subscription(listener, executor));
+    }
+
+    /**
+     * Remove a registered listener. A delivery already in progress still completes.
+     * @param listener The listener to remove
+     */
+    public void unsubscribe(DataService.DataChangeEventListener listener) {
+        subscriptions.removeIf(subscription -> subscription.listener == listener);
+    }
+
+    /**
+     * Queue an event for delivery at the end of the current coalescing window
+     * @param event The event to publish
+     */
+    public void publish(DataChangeEvent event) {
+        synchronized (lock) {
+            if (pending == null) {
+                pending = new DataChangeEvent.Builder();
+            }
+            pending.addAll(event);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        if (coalesceMillis <= 0) {
+            flush();
+        } else {
+            timer.schedule(this::flush, coalesceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Deliver all queued events now
+     */
+    public void flush() {
+        DataChangeEvent.Builder changes;
+        synchronized (lock) {
+            changes = pending;
+            pending = null;
+            flushScheduled = false;
+        }
+        if (changes == null) {
+            return;
+        }
+        DataChangeEvent event = changes.build();
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Stop the coalescing timer; queued events are dropped
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * One listener and the events waiting for it
+     */
+    private static class Subscription {
+        private final DataService.DataChangeEventListener listener;
+        private final Executor executor;
+
+        private DataChangeEvent pending;
+        private boolean delivering;
+
+        Subscription(DataService.DataChangeEventListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void offer(DataChangeEvent event) {
+            synchronized (this) {
+                pending = pending == null ? event : pending.merge(event);
+                if (delivering) {
+                    return;
+                }
+                delivering = true;
+            }
+            executor.execute(this::deliver);
+        }
+
+        private void deliver() {
+            while (true) {
+                DataChangeEvent event;
+                synchronized (this) {
+                    event = pending;
+                    pending = null;
+                    if (event == null) {
+                        delivering = false;
+                        return;
+                    }
+                }
+                try {
+                    listener.onDataChanged(event);
+                } catch (RuntimeException e) {
+                    System.err.println("Data change listener failed: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        // Same listener means same subscription, whatever the executor
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Subscription && ((Subscription) other).listener == listener;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(listener);
+        }
+    }
+}
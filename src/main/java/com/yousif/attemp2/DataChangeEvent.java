@@ -0,0 +1,249 @@
+package com.yousif.attemp2;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DataChangeEvent - Describes which rows of the shared data changed and how.
+ *
+ * Flights are identified by flight number, baggage items by tag and notifications by their message.
+ * Booking changes are reported per flight, under the flight number, with "seats" as the field.
+ * A data type can also be marked as reloaded, which means its rows were replaced wholesale and
+ * listeners should rebuild whatever they derived from it. Events are immutable; bursts are folded
+ * together with {@link #merge(DataChangeEvent)} before delivery.
+ */
+public final class DataChangeEvent {
+
+    /**
+     * What happened to a single row
+     */
+    public enum ChangeKind {
+        ADDED, UPDATED, REMOVED
+    }
+
+    private final Set<DataService.DataType> reloaded;
+    private final Map<DataService.DataType, Map<String, EntityChange>> changes;
+
+    private DataChangeEvent(Set<DataService.DataType> reloaded,
+                            Map<DataService.DataType, Map<String, EntityChange>> changes) {
+        this.reloaded = reloaded;
+        this.changes = changes;
+    }
+
+    /**
+     * Create an event saying that all rows of a data type were replaced
+     * @param dataType The data type, or ALL for every type
+     * @return The event
+     */
+    public static DataChangeEvent reloaded(DataService.DataType dataType) {
+        return new Builder().reloaded(dataType).build();
+    }
+
+    /**
+     * Check whether listeners should rebuild their view of a data type
+     * @param dataType FLIGHTS, BAGGAGE, NOTIFICATIONS or BOOKINGS
+     * @return true if the rows of that type were replaced
+     */
+    public boolean isReloaded(DataService.DataType dataType) {
+        return reloaded.contains(dataType);
+    }
+
+    /**
+     * Check whether anything of a data type changed
+     * @param dataType FLIGHTS, BAGGAGE, NOTIFICATIONS or BOOKINGS
+     * @return true if the type was reloaded or has row changes
+     */
+    public boolean affects(DataService.DataType dataType) {
+        return reloaded.contains(dataType) || changes.containsKey(dataType);
+    }
+
+    /**
+     * Get the data types touched by this event
+     * @return The reloaded and changed types
+     */
+    public Set<DataService.DataType> getDataTypes() {
+        Set<DataService.DataType> types = EnumSet.noneOf(DataService.DataType.class);
+        types.addAll(reloaded);
+        types.addAll(changes.keySet());
+        return types;
+    }
+
+    /**
+     * Get the row changes of a data type, oldest first
+     * @param dataType FLIGHTS, BAGGAGE, NOTIFICATIONS or BOOKINGS
+     * @return One change per row id
+     */
+    public Collection<EntityChange> getChanges(DataService.DataType dataType) {
+        Map<String, EntityChange> byId = changes.get(dataType);
+        return byId == null ? Collections.emptyList() : Collections.unmodifiableCollection(byId.values());
+    }
+
+    /**
+     * Fold a later event into this one. For each row the result describes the net change:
+     * added then updated is still added, added or updated then removed is removed, and
+     * removed then added again is an update of every field.
+     * @param later The event that happened after this one
+     * @return The combined event
+     */
+    public DataChangeEvent merge(DataChangeEvent later) {
+        return new Builder().addAll(this).addAll(later).build();
+    }
+
+    @Override
+    public String toString() {
+        return "DataChangeEvent{reloaded=" + reloaded + ", changes=" + changes + "}";
+    }
+
+    /**
+     * A change to one row
+     */
+    public static final class EntityChange {
+        private final DataService.DataType dataType;
+        private final String id;
+        private final ChangeKind kind;
+        private final Set<String> fields;
+
+        EntityChange(DataService.DataType dataType, String id, ChangeKind kind, Set<String> fields) {
+            this.dataType = dataType;
+            this.id = id;
+            this.kind = kind;
+            this.fields = fields;
+        }
+
+        public DataService.DataType getDataType() { return dataType; }
+        public String getId() { return id; }
+        public ChangeKind getKind() { return kind; }
+
+        /**
+         * Get the names of the changed properties (e.g. "status", "gate")
+         * @return The changed fields; empty for additions, removals and updates of every field
+         */
+        public Set<String> getFields() { return fields; }
+
+        /**
+         * Check whether a property may have changed
+         * @param field The property name
+         * @return true if the field changed or the change covers every field
+         */
+        public boolean hasChanged(String field) {
+            return kind != ChangeKind.UPDATED || fields.isEmpty() || fields.contains(field);
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + id + (fields.isEmpty() ? "" : " " + fields);
+        }
+    }
+
+    /**
+     * Collects row changes for one event
+     */
+    public static final class Builder {
+        private final EnumSet<DataService.DataType> reloaded = EnumSet.noneOf(DataService.DataType.class);
+        private final Map<DataService.DataType, Map<String, EntityChange>> changes =
+            new EnumMap<>(DataService.DataType.class);
+
+        /**
+         * Mark a data type as replaced wholesale
+         * @param dataType The data type, or ALL for every type
+         * @return This builder
+         */
+        public Builder reloaded(DataService.DataType dataType) {
+            if (dataType == DataService.DataType.ALL) {
+                reloaded.add(DataService.DataType.FLIGHTS);
+                reloaded.add(DataService.DataType.BAGGAGE);
+                reloaded.add(DataService.DataType.NOTIFICATIONS);
+                reloaded.add(DataService.DataType.BOOKINGS);
+            } else {
+                reloaded.add(dataType);
+            }
+            return this;
+        }
+
+        public Builder added(DataService.DataType dataType, String id) {
+            return add(new EntityChange(dataType, id, ChangeKind.ADDED, Collections.emptySet()));
+        }
+
+        public Builder removed(DataService.DataType dataType, String id) {
+            return add(new EntityChange(dataType, id, ChangeKind.REMOVED, Collections.emptySet()));
+        }
+
+        public Builder updated(DataService.DataType dataType, String id, Set<String> fields) {
+            return add(new EntityChange(dataType, id, ChangeKind.UPDATED,
+                Collections.unmodifiableSet(new LinkedHashSet<>(fields))));
+        }
+
+        /**
+         * Record everything in an event, as if its changes had been recorded here one by one
+         * @param event The event to fold in
+         * @return This builder
+         */
+        public Builder addAll(DataChangeEvent event) {
+            reloaded.addAll(event.reloaded);
+            for (Map<String, EntityChange> byId : event.changes.values()) {
+                for (EntityChange change : byId.values()) {
+                    add(change);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Check whether nothing has been recorded yet
+         * @return true if the event would be empty
+         */
+        public boolean isEmpty() {
+            return reloaded.isEmpty() && changes.isEmpty();
+        }
+
+        public DataChangeEvent build() {
+            Map<DataService.DataType, Map<String, EntityChange>> copy = new EnumMap<>(DataService.DataType.class);
+            for (Map.Entry<DataService.DataType, Map<String, EntityChange>> entry : changes.entrySet()) {
+                copy.put(entry.getKey(), Collections.unmodifiableMap(new LinkedHashMap<>(entry.getValue())));
+            }
+            return new DataChangeEvent(Collections.unmodifiableSet(EnumSet.copyOf(reloaded)),
+                Collections.unmodifiableMap(copy));
+        }
+
+        private Builder add(EntityChange change) {
+            Map<String, EntityChange> byId = changesOf(change.dataType);
+            EntityChange earlier = byId.remove(change.id);
+            // Re-inserting keeps the map ordered by each row's latest change
+            byId.put(change.id, earlier == null ? change : combine(earlier, change));
+            return this;
+        }
+
+        private Map<String, EntityChange> changesOf(DataService.DataType dataType) {
+            return changes.computeIfAbsent(dataType, type -> new LinkedHashMap<>());
+        }
+
+        private static EntityChange combine(EntityChange earlier, EntityChange later) {
+            switch (later.kind) {
+                case REMOVED:
+                    return later;
+                case ADDED:
+                    // Removed and added again: every field may differ
+                    return earlier.kind == ChangeKind.REMOVED
+                        ? new EntityChange(later.dataType, later.id, ChangeKind.UPDATED, Collections.emptySet())
+                        : later;
+                default:
+                    if (earlier.kind == ChangeKind.ADDED) {
+                        return earlier;
+                    }
+                    if (earlier.kind == ChangeKind.REMOVED || earlier.fields.isEmpty() || later.fields.isEmpty()) {
+                        return new EntityChange(later.dataType, later.id, ChangeKind.UPDATED, Collections.emptySet());
+                    }
+                    Set<String> fields = new LinkedHashSet<>(earlier.fields);
+                    fields.addAll(later.fields);
+                    return new EntityChange(later.dataType, later.id, ChangeKind.UPDATED,
+                        Collections.unmodifiableSet(fields));
+            }
+        }
+    }
+}
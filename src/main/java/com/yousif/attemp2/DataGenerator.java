@@ -0,0 +1,616 @@
+package com.yousif.attemp2;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.SplittableRandom;
+
+/**
+ * DataGenerator - Fills a database with a large, deterministic airport dataset for development and load testing.
+ *
+ * Recreates the target database (airport_management_dev by default), applies all migrations, and
+ * bulk-loads every table the app reads: users, flights, passengers, bookings, baggage,
+ * baggage_tracking, notifications and service_requests. Rows are sent as batched inserts that the
+ * driver rewrites into multi-row INSERTs, with foreign key checks off for the load; ids are assigned
+ * here, so the data is consistent without them.
+ *
+ * Times are laid out around each flight's departure: departures follow a daily profile over the
+ * week before and the month after today, bookings arrive with an exponential lead time, check-in
+ * and bags fall in the day before departure, tracking events follow each bag through screening,
+ * sorting and loading, and statuses reflect where "now" falls in that timeline. The same seed gives
+ * the same rows for the whole day it is run on.
+ *
+ * Point the app at the result with -Dairport.db.url=jdbc:mysql://localhost:3306/airport_management_dev
+ *
+ * Usage: DataGenerator [scale] [database] [seed]
+ * where scale multiplies the default sizes (1 = 20k users, 10k flights, about 1.2M bookings,
+ * 0.8M bags, 3M tracking events and 0.3M notifications).
+ */
+public class DataGenerator {
+    private static final String DEFAULT_DATABASE = "airport_management_dev";
+    private static final long DEFAULT_SEED = 42;
+
+    // Rows per executeBatch(), i.e. per multi-row INSERT, and per transaction
+    private static final int BATCH_ROWS = 2_000;
+    private static final int COMMIT_ROWS = 50_000;
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private static final String HOME_AIRPORT = "New York (JFK)";
+    private static final String[] AIRPORTS = {
+        "Los Angeles (LAX)", "Chicago (ORD)", "Atlanta (ATL)", "Denver (DEN)", "Miami (MIA)",
+        "San Francisco (SFO)", "Boston (BOS)", "Seattle (SEA)", "Toronto (YYZ)", "London (LHR)",
+        "Paris (CDG)", "Frankfurt (FRA)", "Amsterdam (AMS)", "Madrid (MAD)", "Rome (FCO)",
+        "Zurich (ZRH)", "Istanbul (IST)", "Dubai (DXB)", "Doha (DOH)", "Singapore (SIN)",
+        "Tokyo (HND)", "Hong Kong (HKG)", "Sydney (SYD)"
+    };
+    private static final String[][] AIRLINES = {
+        {"AA", "American Airlines"}, {"DL", "Delta Airlines"}, {"UA", "United Airlines"},
+        {"BA", "British Airways"}, {"LH", "Lufthansa"}, {"AF", "Air France"}, {"KL", "KLM"},
+        {"IB", "Iberia"}, {"AC", "Air Canada"}, {"EK", "Emirates"}, {"QR", "Qatar Airways"},
+        {"TK", "Turkish Airlines"}, {"SQ", "Singapore Airlines"}, {"JL", "Japan Airlines"},
+        {"CX", "Cathay Pacific"}, {"QF", "Qantas"}, {"LX", "Swiss"}, {"B6", "JetBlue"},
+        {"AS", "Alaska Airlines"}, {"WN", "Southwest Airlines"}
+    };
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "David",
+        "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah",
+        "Ahmed", "Fatima", "Wei", "Mei", "Hiroshi", "Yuki", "Carlos", "Sofia", "Luca", "Giulia",
+        "Omar", "Layla", "Arjun", "Priya", "Lars", "Ingrid", "Pierre", "Camille", "Yousif", "Noor"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez",
+        "Martinez", "Wilson", "Anderson", "Taylor", "Thomas", "Moore", "Jackson", "Martin", "Lee",
+        "Khan", "Ali", "Wang", "Li", "Tanaka", "Sato", "Rossi", "Ferrari", "Muller", "Schmidt",
+        "Dubois", "Laurent", "Hansen", "Larsen", "Patel", "Sharma", "Haddad", "Nasser", "Kim", "Park"
+    };
+    private static final String[] NATIONALITIES = {
+        "American", "British", "Canadian", "French", "German", "Italian", "Spanish", "Japanese",
+        "Chinese", "Indian", "Emirati", "Egyptian", "Brazilian", "Australian", "Dutch", "Turkish"
+    };
+    private static final String[] SERVICE_TYPES = {
+        "Special Assistance", "Baggage Assistance", "Language Assistance",
+        "Family Services", "VIP Services", "Information Assistance", "Other"
+    };
+    private static final String[] SERVICE_LOCATIONS = {
+        "Terminal 1", "Terminal 2", "Terminal 3", "Terminal 4", "Terminal 5",
+        "Baggage Claim", "Check-in Area", "Security Checkpoint", "Gate Area"
+    };
+    private static final String[] URGENCIES = {"Low", "Medium", "High", "Urgent"};
+
+    // Relative share of departures per hour of day: morning and evening banks, quiet nights
+    private static final int[] HOURLY_DEPARTURES = {
+        1, 1, 1, 1, 2, 5, 9, 10, 9, 7, 6, 6, 6, 6, 6, 7, 9, 10, 9, 7, 5, 4, 3, 2
+    };
+
+    // Flight status codes, kept per flight to derive booking and notification rows
+    private static final byte ON_TIME = 0;
+    private static final byte DELAYED = 1;
+    private static final byte BOARDING = 2;
+    private static final byte DEPARTED = 3;
+    private static final byte CANCELLED = 4;
+    private static final String[] FLIGHT_STATUSES = {"On Time", "Delayed", "Boarding", "Departed", "Cancelled"};
+
+    private final String databaseName;
+    private final long seed;
+    private final long now;
+    private final int users;
+    private final int flights;
+    private final int passengers;
+
+    // Per flight, indexed by flight_id - 1
+    private final String[] flightNumbers;
+    private final String[] destinations;
+    private final long[] departures;
+    private final long[] arrivals;
+    private final byte[] statuses;
+
+    private Connection conn;
+    private long uncommittedRows;
+
+    public DataGenerator(String databaseName, double scale, long seed) {
+        this.databaseName = databaseName;
+        this.seed = seed;
+        // Anchor the timeline to noon today, so a seed reproduces the same rows all day
+        this.now = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() + 12 * HOUR;
+        this.users = Math.max(2, (int) (20_000 * scale));
+        this.flights = Math.max(1, (int) (10_000 * scale));
+        this.passengers = Math.max(users, (int) (600_000 * scale));
+        this.flightNumbers = new String[flights];
+        this.destinations = new String[flights];
+        this.departures = new long[flights];
+        this.arrivals = new long[flights];
+        this.statuses = new byte[flights];
+    }
+
+    public static void main(String[] args) throws SQLException {
+        double scale = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        String databaseName = args.length > 1 ? args[1] : DEFAULT_DATABASE;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        if (databaseName.equals(DatabaseConnection.DB_NAME) && !Boolean.getBoolean("airport.generator.overwrite")) {
+            System.err.println("Refusing to recreate the application database " + databaseName
+                + "; pass -Dairport.generator.overwrite=true to replace it");
+            System.exit(1);
+        }
+        new DataGenerator(databaseName, scale, seed).run();
+    }
+
+    /**
+     * Recreate the database and load the generated rows
+     * @throws SQLException If the database can't be created or a batch fails
+     */
+    public void run() throws SQLException {
+        try (Connection admin = DriverManager.getConnection(DatabaseConnection.SERVER_URL,
+                DatabaseConnection.DB_USER, DatabaseConnection.DB_PASSWORD);
+             Statement stmt = admin.createStatement()) {
+            stmt.execute("DROP DATABASE IF EXISTS `" + databaseName + "`");
+        }
+        new MigrationRunner(DatabaseConnection.SERVER_URL, databaseName,
+            DatabaseConnection.DB_USER, DatabaseConnection.DB_PASSWORD).migrate();
+
+        // Client-side prepared statements: the driver can then rewrite a whole batch into one INSERT
+        String url = DatabaseConnection.SERVER_URL + databaseName
+            + "?rewriteBatchedStatements=true&useServerPrepStmts=false&cachePrepStmts=true";
+        long start = System.nanoTime();
+        long total = 0;
+        try (Connection connection = DriverManager.getConnection(url, DatabaseConnection.DB_USER,
+                DatabaseConnection.DB_PASSWORD)) {
+            conn = connection;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET SESSION foreign_key_checks = 0");
+            }
+            conn.setAutoCommit(false);
+            try {
+                total += timed("users", this::generateUsers);
+                total += timed("flights", this::generateFlights);
+                total += timed("passengers", this::generatePassengers);
+                total += timed("bookings, baggage, baggage_tracking", this::generateBookings);
+                total += timed("notifications", this::generateNotifications);
+                total += timed("service_requests", this::generateServiceRequests);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET SESSION foreign_key_checks = 1");
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                // The triggers logged every generated row; workstations load a fresh database in full
+                stmt.execute("TRUNCATE TABLE change_log");
+                stmt.execute("ANALYZE TABLE users, flights, passengers, bookings, baggage, baggage_tracking, " +
+                    "notifications, service_requests");
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Loaded %,d rows into %s in %.1f s (%,.0f rows/s)%n",
+            total, databaseName, seconds, total / seconds);
+    }
+
+    private interface TableLoader {
+        long load() throws SQLException;
+    }
+
+    private long timed(String tables, TableLoader loader) throws SQLException {
+        long start = System.nanoTime();
+        long rows = loader.load();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  %-36s %,12d rows %7.1f s %,10.0f rows/s%n", tables, rows, seconds, rows / seconds);
+        return rows;
+    }
+
+    /**
+     * Independent random stream per table, so changing one generator doesn't reshuffle the others
+     */
+    private SplittableRandom random(int stream) {
+        return new SplittableRandom(seed * 1_000_003L + stream);
+    }
+
+    private long generateUsers() throws SQLException {
+        SplittableRandom random = random(1);
+        try (BulkInsert insert = new BulkInsert("users",
+                "user_id", "username", "password", "full_name", "email", "is_admin", "created_at", "last_login")) {
+            // Keep the demo logins of the install script working
+            insert.row(1, "admin", "admin123", "System Administrator", "admin@airport.com", true, ts(now - 700 * DAY), ts(now));
+            insert.row(2, "user", "user123", "John Smith", "john@example.com", false, ts(now - 700 * DAY), ts(now));
+            for (int id = 3; id <= users; id++) {
+                String first = pick(random, FIRST_NAMES);
+                String last = pick(random, LAST_NAMES);
+                String username = (first + "." + last).toLowerCase() + id;
+                long created = now - (long) (random.nextDouble() * 730 * DAY);
+                Timestamp lastLogin = random.nextInt(10) < 6
+                    ? ts(now - (long) (random.nextDouble() * Math.min(60 * DAY, now - created))) : null;
+                insert.row(id, username, "password", first + " " + last, username + "@example.com",
+                    id % 500 == 0, ts(created), lastLogin);
+            }
+            return insert.getRows();
+        }
+    }
+
+    private long generateFlights() throws SQLException {
+        SplittableRandom random = random(2);
+        int hourTotal = 0;
+        for (int weight : HOURLY_DEPARTURES) {
+            hourTotal += weight;
+        }
+        int[] nextNumber = new int[AIRLINES.length];
+        try (BulkInsert insert = new BulkInsert("flights", "flight_id", "flight_number", "airline", "origin",
+                "destination", "departure_time", "arrival_time", "status", "gate", "terminal", "created_at", "updated_at")) {
+            for (int i = 0; i < flights; i++) {
+                int airline = random.nextInt(AIRLINES.length);
+                flightNumbers[i] = AIRLINES[airline][0] + (100 + nextNumber[airline]++);
+
+                String other = pick(random, AIRPORTS);
+                boolean outbound = random.nextBoolean();
+                String origin = outbound ? HOME_AIRPORT : other;
+                destinations[i] = outbound ? other : HOME_AIRPORT;
+
+                // A day between a week ago and a month ahead, an hour from the daily profile
+                long day = now - 12 * HOUR + (random.nextInt(37) - 7) * DAY;
+                int slot = random.nextInt(hourTotal);
+                int hour = 0;
+                while (slot >= HOURLY_DEPARTURES[hour]) {
+                    slot -= HOURLY_DEPARTURES[hour++];
+                }
+                departures[i] = day + hour * HOUR + random.nextInt(12) * 5 * MINUTE;
+                arrivals[i] = departures[i] + blockTime(random);
+                statuses[i] = flightStatus(random, departures[i], arrivals[i]);
+
+                // Gates the app assigns from, so the gate schedule tracks every generated flight
+                String gate = GateSchedule.DEFAULT_GATES.get(random.nextInt(GateSchedule.DEFAULT_GATES.size()));
+                String terminal = gate.substring(0, 1);
+                long created = departures[i] - 90 * DAY;
+                long updated = Math.min(now, departures[i] - (statuses[i] == ON_TIME ? 90 * DAY : 3 * HOUR));
+                insert.row(i + 1, flightNumbers[i], AIRLINES[airline][1], origin, destinations[i],
+                    ts(departures[i]), ts(arrivals[i]), FLIGHT_STATUSES[statuses[i]],
+                    gate, terminal, ts(created), ts(Math.max(created, updated)));
+            }
+            return insert.getRows();
+        }
+    }
+
+    /**
+     * Mostly short hops, some transatlantic, a few long hauls
+     */
+    private static long blockTime(SplittableRandom random) {
+        int roll = random.nextInt(10);
+        if (roll < 6) {
+            return HOUR + random.nextInt(120) * MINUTE;
+        }
+        if (roll < 9) {
+            return 3 * HOUR + random.nextInt(240) * MINUTE;
+        }
+        return 7 * HOUR + random.nextInt(420) * MINUTE;
+    }
+
+    private byte flightStatus(SplittableRandom random, long departure, long arrival) {
+        int roll = random.nextInt(100);
+        if (roll < 2) {
+            return CANCELLED;
+        }
+        if (now >= departure) {
+            return DEPARTED;
+        }
+        if (now >= departure - 45 * MINUTE) {
+            return BOARDING;
+        }
+        // Delays are mostly announced in the last few hours before departure
+        if (departure - now < 6 * HOUR && roll < 20) {
+            return DELAYED;
+        }
+        return roll < 7 ? DELAYED : ON_TIME;
+    }
+
+    private long generatePassengers() throws SQLException {
+        SplittableRandom random = random(3);
+        try (BulkInsert insert = new BulkInsert("passengers", "passenger_id", "user_id", "first_name", "last_name",
+                "passport_number", "nationality", "date_of_birth", "contact_number", "email", "created_at")) {
+            for (int id = 1; id <= passengers; id++) {
+                // The first passengers are the travel profiles of the registered users
+                Integer userId = id <= users ? id : null;
+                String first = pick(random, FIRST_NAMES);
+                String last = pick(random, LAST_NAMES);
+                LocalDate birth = LocalDate.of(1940 + random.nextInt(65), 1 + random.nextInt(12), 1 + random.nextInt(28));
+                insert.row(id, userId, first, last,
+                    String.format("P%08d", random.nextInt(100_000_000)), pick(random, NATIONALITIES),
+                    java.sql.Date.valueOf(birth), String.format("+1%010d", random.nextLong(10_000_000_000L)),
+                    (first + "." + last).toLowerCase() + id + "@mail.example.com",
+                    ts(now - (long) (random.nextDouble() * 730 * DAY)));
+            }
+            return insert.getRows();
+        }
+    }
+
+    /**
+     * Bookings flight by flight, each checked-in booking's bags, and each bag's tracking events
+     */
+    private long generateBookings() throws SQLException {
+        SplittableRandom random = random(4);
+        int capacity = SeatLayout.STANDARD.size();
+        int[] seats = new int[capacity];
+        int bookingId = 0;
+        int bagId = 0;
+        long trackingId = 0;
+        try (BulkInsert bookings = new BulkInsert("bookings", "booking_id", "booking_reference", "passenger_id",
+                 "flight_id", "seat_number", "booking_status", "created_at", "updated_at");
+             BulkInsert baggage = new BulkInsert("baggage", "baggage_id", "baggage_tag", "booking_id", "weight",
+                 "status", "current_location", "handling_time", "created_at", "updated_at");
+             BulkInsert tracking = new BulkInsert("baggage_tracking", "tracking_id", "baggage_id", "location",
+                 "status", "timestamp")) {
+            for (int f = 0; f < flights; f++) {
+                long departure = departures[f];
+                for (int s = 0; s < capacity; s++) {
+                    seats[s] = s;
+                }
+                // Load factor 55-95%; bookings whose lead time puts them in the future don't exist yet
+                int wanted = (int) (capacity * (0.55 + 0.4 * random.nextDouble()));
+                for (int n = 0; n < wanted; n++) {
+                    long lead = 2 * HOUR + (long) (-Math.log(1 - random.nextDouble()) * 21 * DAY);
+                    long created = departure - lead;
+                    // Draw the seat either way, so the seat sequence doesn't depend on "now"
+                    int swap = n + random.nextInt(capacity - n);
+                    int seat = seats[swap];
+                    seats[swap] = seats[n];
+                    seats[n] = seat;
+                    if (created > now) {
+                        continue;
+                    }
+
+                    bookingId++;
+                    // Frequent flyers: a third of the bookings belong to registered users' profiles
+                    int passengerId = random.nextInt(3) == 0
+                        ? 1 + random.nextInt(users) : 1 + random.nextInt(passengers);
+                    String status;
+                    long updated = created;
+                    long checkIn = checkInTime(random, created, departure);
+                    if (statuses[f] == CANCELLED || random.nextInt(100) < 4) {
+                        status = "Cancelled";
+                        updated = Math.min(now, created + (long) (random.nextDouble() * (departure - created)));
+                    } else if (checkIn <= now) {
+                        status = "Checked In";
+                        updated = checkIn;
+                    } else {
+                        status = "Confirmed";
+                    }
+                    bookings.row(bookingId, "GN" + Integer.toString(bookingId, 36).toUpperCase(), passengerId,
+                        f + 1, SeatLayout.STANDARD.label(seat), status, ts(created), ts(updated));
+
+                    if (!"Checked In".equals(status)) {
+                        continue;
+                    }
+                    int bags = bagCount(random);
+                    for (int b = 0; b < bags; b++) {
+                        bagId++;
+                        trackingId = generateBagJourney(random, baggage, tracking, bagId, bookingId, trackingId,
+                            checkIn + b * 20_000L, f);
+                    }
+                }
+            }
+            return bookings.getRows() + baggage.getRows() + tracking.getRows();
+        }
+    }
+
+    /**
+     * Check-in opens a day before departure and closes 40 minutes before; most travellers come late
+     */
+    private static long checkInTime(SplittableRandom random, long created, long departure) {
+        long opens = Math.max(created, departure - DAY);
+        long closes = departure - 40 * MINUTE;
+        if (closes <= opens) {
+            return opens;
+        }
+        // Square root of a uniform skews towards the close
+        double position = Math.sqrt(random.nextDouble());
+        return opens + (long) (position * (closes - opens));
+    }
+
+    private static int bagCount(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 35) {
+            return 0;
+        }
+        if (roll < 80) {
+            return 1;
+        }
+        return roll < 95 ? 2 : 3;
+    }
+
+    /**
+     * Insert one bag and the tracking events that have happened by now
+     * @return The last tracking id used
+     */
+    private long generateBagJourney(SplittableRandom random, BulkInsert baggage, BulkInsert tracking,
+                                    int bagId, int bookingId, long trackingId, long checkIn, int flight)
+            throws SQLException {
+        long departure = departures[flight];
+        long[] times = new long[5];
+        times[0] = checkIn;
+        times[1] = times[0] + (5 + random.nextInt(15)) * MINUTE;
+        times[2] = times[1] + (10 + random.nextInt(20)) * MINUTE;
+        times[3] = Math.max(times[2] + 2 * MINUTE, departure - (10 + random.nextInt(30)) * MINUTE);
+        times[4] = arrivals[flight] + (10 + random.nextInt(30)) * MINUTE;
+        String[] states = {"Checked In", "Screening", "Sorting", "Loading", "Delivered"};
+        String[] locations = {
+            "Check-in Counter " + (1 + random.nextInt(40)),
+            "Security Point " + (1 + random.nextInt(8)),
+            "Sorting Area " + (1 + random.nextInt(5)),
+            "Loading Area",
+            // Bags of arriving flights reach the home carousel; outbound ones leave with the flight
+            HOME_AIRPORT.equals(destinations[flight]) ? "Baggage Claim " + (1 + random.nextInt(12)) : destinations[flight]
+        };
+
+        int reached = 0;
+        for (int stage = 0; stage < times.length && times[stage] <= now; stage++) {
+            tracking.row(++trackingId, bagId, locations[stage], states[stage], ts(times[stage]));
+            reached = stage;
+        }
+        baggage.row(bagId, String.format("BAG%09d", bagId), bookingId, 5 + random.nextInt(2_500) / 100.0,
+            states[reached], locations[reached], (20 + random.nextInt(100)) + " sec",
+            ts(times[0]), ts(times[reached]));
+        return trackingId;
+    }
+
+    /**
+     * Per-user notifications follow a heavy-tailed distribution (most users get a handful, a few
+     * get thousands), plus system-wide notices for delayed, cancelled and boarding flights
+     */
+    private long generateNotifications() throws SQLException {
+        SplittableRandom random = random(5);
+        int id = 0;
+        try (BulkInsert insert = new BulkInsert("notifications", "notification_id", "user_id", "message",
+                "is_read", "created_at")) {
+            for (int userId = 1; userId <= users; userId++) {
+                // Pareto with alpha 1.2 and minimum 2, capped at 5,000
+                int count = (int) Math.min(5_000, 2 / Math.pow(1 - random.nextDouble(), 1 / 1.2));
+                for (int n = 0; n < count; n++) {
+                    int f = random.nextInt(flights);
+                    long created = Math.min(now, departures[f] - (long) (random.nextDouble() * 2 * DAY));
+                    insert.row(++id, userId, userMessage(random, f), created < now - 2 * DAY || random.nextBoolean(),
+                        ts(created));
+                }
+            }
+            for (int f = 0; f < flights; f++) {
+                String message;
+                long created;
+                switch (statuses[f]) {
+                    case DELAYED:
+                        message = "Flight " + flightNumbers[f] + " to " + destinations[f] + " is delayed";
+                        created = departures[f] - (1 + random.nextInt(5)) * HOUR;
+                        break;
+                    case CANCELLED:
+                        message = "Flight " + flightNumbers[f] + " to " + destinations[f] + " has been cancelled";
+                        created = departures[f] - (2 + random.nextInt(24)) * HOUR;
+                        break;
+                    case BOARDING:
+                    case DEPARTED:
+                        message = "Flight " + flightNumbers[f] + " to " + destinations[f] + " is now boarding";
+                        created = departures[f] - 45 * MINUTE;
+                        break;
+                    default:
+                        continue;
+                }
+                if (created <= now) {
+                    insert.row(++id, null, message, false, ts(created));
+                }
+            }
+            return insert.getRows();
+        }
+    }
+
+    private String userMessage(SplittableRandom random, int flight) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return "Your flight " + flightNumbers[flight] + " to " + destinations[flight] + " is on time";
+            case 1:
+                return "Gate change for flight " + flightNumbers[flight] + ": now gate "
+                    + GateSchedule.DEFAULT_GATES.get(random.nextInt(GateSchedule.DEFAULT_GATES.size()));
+            case 2:
+                return "Check-in is open for flight " + flightNumbers[flight];
+            default:
+                return "Your bag for flight " + flightNumbers[flight] + " has been loaded";
+        }
+    }
+
+    private long generateServiceRequests() throws SQLException {
+        SplittableRandom random = random(6);
+        int requests = users * 3 / 10;
+        try (BulkInsert insert = new BulkInsert("service_requests", "request_id", "user_id", "service_type",
+                "location", "urgency", "description", "status", "created_at", "updated_at")) {
+            for (int id = 1; id <= requests; id++) {
+                long created = now - (long) (random.nextDouble() * 90 * DAY);
+                long age = now - created;
+                String status;
+                int roll = random.nextInt(100);
+                if (age < DAY) {
+                    status = roll < 70 ? "Pending" : "In Progress";
+                } else if (age < 7 * DAY) {
+                    status = roll < 20 ? "Pending" : roll < 50 ? "In Progress" : "Completed";
+                } else {
+                    status = roll < 88 ? "Completed" : "Cancelled";
+                }
+                String type = pick(random, SERVICE_TYPES);
+                insert.row(id, 1 + random.nextInt(users), type, pick(random, SERVICE_LOCATIONS),
+                    pick(random, URGENCIES), type + " requested", status, ts(created),
+                    ts("Pending".equals(status) ? created : Math.min(now, created + (long) (random.nextDouble() * 2 * DAY))));
+            }
+            return insert.getRows();
+        }
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static Timestamp ts(long millis) {
+        return new Timestamp(millis);
+    }
+
+    /**
+     * Batches rows of one INSERT statement. Each batch goes to the server as a single multi-row
+     * INSERT (rewriteBatchedStatements), and the transaction is committed every COMMIT_ROWS rows
+     * across all open inserts.
+     */
+    private final class BulkInsert implements AutoCloseable {
+        private final PreparedStatement stmt;
+        private final int columns;
+        private long rows;
+        private int pending;
+
+        BulkInsert(String table, String... columnNames) throws SQLException {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(String.join(", ", columnNames)).append(") VALUES (");
+            for (int i = 0; i < columnNames.length; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            this.stmt = conn.prepareStatement(sql.append(')').toString());
+            this.columns = columnNames.length;
+        }
+
+        void row(Object... values) throws SQLException {
+            if (values.length != columns) {
+                throw new IllegalArgumentException("Expected " + columns + " values, got " + values.length);
+            }
+            for (int i = 0; i < values.length; i++) {
+                stmt.setObject(i + 1, values[i]);
+            }
+            stmt.addBatch();
+            rows++;
+            if (++pending == BATCH_ROWS) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (pending == 0) {
+                return;
+            }
+            stmt.executeBatch();
+            uncommittedRows += pending;
+            pending = 0;
+            if (uncommittedRows >= COMMIT_ROWS) {
+                conn.commit();
+                uncommittedRows = 0;
+            }
+        }
+
+        long getRows() { return rows; }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                stmt.close();
+            }
+        }
+    }
+}
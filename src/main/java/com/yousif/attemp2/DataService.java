@@ -1,15 +1,37 @@
 package com.yousif.attemp2;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * DataService - A singleton service class to manage shared data between admin and user portals
@@ -23,18 +45,163 @@ public class DataService {
     private final ObservableList<String> notifications = FXCollections.observableArrayList();
     private final ObservableList<BaggageItem> baggageItems = FXCollections.observableArrayList();
     
-    // List of data change listeners
-    private final List<DataChangeListener> listeners = new ArrayList<>();
+    // Indexes over the shared lists, kept in sync on add/remove and, through the field listeners
+    // below, when a key field changes. The items themselves carry no JavaFX properties or listeners.
+    private final ListIndex<Flight> flightsByNumber = new ListIndex<>(flights, Flight::getFlightNumber);
+    private final ListIndex<Flight> flightsByStatus = new ListIndex<>(flights, Flight::getStatus);
+    private final ListIndex<Flight> flightsByTerminal = new ListIndex<>(flights, Flight::getTerminal);
+    private final ListIndex<BaggageItem> baggageByTag = new ListIndex<>(baggageItems, BaggageItem::getBaggageId);
+    private final ListIndex<BaggageItem> baggageByFlight = new ListIndex<>(baggageItems, BaggageItem::getFlight);
+    
+    // Free-text search indexes backing search-as-you-type
+    private final SearchIndex<Flight> flightSearch = new SearchIndex<>(flights,
+        flight -> new String[] { flight.getFlightNumber(), flight.getDestination(), flight.getAirline() });
+    private final SearchIndex<BaggageItem> baggageSearch = new SearchIndex<>(baggageItems,
+        item -> new String[] { item.getBaggageId() });
+    
+    // When each gate is taken, for conflict checks and gate planning
+    private final GateSchedule gateSchedule = new GateSchedule(flights, GateSchedule.DEFAULT_GATES);
+    
+    // One shared listener per list, set on each item while it is in the list
+    private final FieldListener<Flight> flightFieldListener = this::flightFieldChanged;
+    private final FieldListener<BaggageItem> baggageFieldListener = this::baggageFieldChanged;
+    
+    // Set while a sync copies fields into flights; the sync reports those changes itself
+    private boolean patchingFlights;
+    
+    // Coalesces change events and delivers them to the registered listeners
+    private final DataChangeDispatcher dispatcher = new DataChangeDispatcher();
+    
+    // Bridges for listeners still using the coarse DataType callback
+    private final Map<DataChangeListener, DataChangeEventListener> legacyListeners = new ConcurrentHashMap<>();
+    
+    // Taken seats per flight, loaded on first use
+    private final SeatInventoryCache seatInventories =
+        new SeatInventoryCache(SeatLayout.STANDARD, this::queryReservedSeats);
+    private final SeatAllocator seatAllocator = new SeatAllocator(seatInventories, SeatAllocator.DEFAULT_HOLD_MILLIS);
+    private final BookingPipeline bookingPipeline;
     
     // Database connection manager
     private final DatabaseConnection dbConnection;
     
+    // Default timeout for the asynchronous API; callers can shorten it with orTimeout()
+    private static final long ASYNC_TIMEOUT_SECONDS = 30;
+    // Bulk imports run for as long as the file takes
+    private static final long IMPORT_TIMEOUT_SECONDS = 600;
+    
+    // Where the next delta refresh starts; null until a full load has captured it
+    private volatile SyncPosition syncPosition;
+    
+    // Deltas spanning more than this fall back to a full reload (tombstones are purged after a day)
+    private static final long MAX_DELTA_AGE_MS = 12 * 60 * 60 * 1000L;
+    
+    // Newest change_log entry the lists reflect; -1 if the database has no change log
+    private volatile long changeLogPosition = -1;
+    
+    // Set while following the change log
+    private ChangeLogPoller.Subscriber changeLogSubscriber;
+    // Runs tasks on the thread that owns the lists; the JavaFX thread unless a headless process says otherwise
+    private Executor listThread = BackgroundExecutors::runOnFxThread;
+    
+    // Keys per IN (...) query when reading changed rows
+    private static final int MAX_KEYS_PER_QUERY = 500;
+    
+    // Also used to replay baggage journaled while the database was unavailable
+    static final String INSERT_BAGGAGE =
+        "INSERT INTO baggage (baggage_tag, booking_id, status, current_location, handling_time) " +
+        "SELECT ?, b.booking_id, ?, ?, ? FROM bookings b " +
+        "JOIN flights f ON b.flight_id = f.flight_id " +
+        "WHERE f.flight_number = ? LIMIT 1";
+    static final String DELETE_BAGGAGE = "DELETE FROM baggage WHERE baggage_tag = ?";
+    private static final String INSERT_BOOKED_BAGGAGE =
+        "INSERT INTO baggage (booking_id, weight, status, current_location, handling_time, baggage_tag) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_BOOKED_BAGGAGE =
+        "UPDATE baggage SET booking_id = ?, weight = ?, status = ?, current_location = ?, handling_time = ? " +
+        "WHERE baggage_tag = ?";
+    
     // Private constructor for singleton pattern
     private DataService() {
         dbConnection = DatabaseConnection.getInstance();
+        bookingPipeline = new BookingPipeline(dbConnection, seatAllocator, seatInventories);
+        // The seat cache only flips flags, so it can run on the dispatcher thread
+        dispatcher.subscribe(seatInventories, Runnable::run);
+        flights.addListener(fieldListenerAttacher(flightFieldListener, Flight::setFieldListener));
+        baggageItems.addListener(fieldListenerAttacher(baggageFieldListener, BaggageItem::setFieldListener));
         loadAllData(); // Load data from database
     }
     
+    /**
+     * Keep a field listener set on exactly the items in a list
+     * @param listener The listener to set on added items
+     * @param setter Sets an item's field listener
+     * @return List listener that sets it on added items and clears it on removed ones
+     */
+    private static <T> ListChangeListener<T> fieldListenerAttacher(FieldListener<T> listener,
+                                                                  BiConsumer<T, FieldListener<T>> setter) {
+        return change -> {
+            while (change.next()) {
+                if (change.wasPermutated() || change.wasUpdated()) {
+                    continue;
+                }
+                for (T item : change.getRemoved()) {
+                    setter.accept(item, null);
+                }
+                for (T item : change.getAddedSubList()) {
+                    setter.accept(item, listener);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Re-file a flight in the indexes whose key includes the changed field, and report edits made
+     * in place (gate assignments, delays) to change listeners such as the API event stream
+     */
+    private void flightFieldChanged(Flight flight, String field) {
+        switch (field) {
+            case "flightNumber":
+                flightsByNumber.reindex(flight);
+                flightSearch.reindex(flight);
+                break;
+            case "destination":
+            case "airline":
+                flightSearch.reindex(flight);
+                break;
+            case "status":
+                flightsByStatus.reindex(flight);
+                gateSchedule.reindex(flight);
+                break;
+            case "terminal":
+                flightsByTerminal.reindex(flight);
+                break;
+            case "gate":
+            case "departureTime":
+                gateSchedule.reindex(flight);
+                break;
+            default:
+                break;
+        }
+        if (!patchingFlights) {
+            notifyDataChanged(new DataChangeEvent.Builder()
+                .updated(DataType.FLIGHTS, flight.getFlightNumber(), Collections.singleton(field)));
+        }
+    }
+    
+    private void baggageFieldChanged(BaggageItem item, String field) {
+        switch (field) {
+            case "baggageId":
+                baggageByTag.reindex(item);
+                baggageSearch.reindex(item);
+                break;
+            case "flight":
+                baggageByFlight.reindex(item);
+                break;
+            default:
+                break;
+        }
+    }
+    
     /**
      * Get the singleton instance of DataService
      * @return The DataService instance
@@ -47,13 +214,46 @@ public class DataService {
     }
     
     /**
-     * Register a listener for data changes
+     * Register a listener for row-level change events, called on the JavaFX thread
+     * @param listener The listener to register
+     */
+    public void addChangeEventListener(DataChangeEventListener listener) {
+        dispatcher.subscribe(listener);
+    }
+    
+    /**
+     * Register a listener for row-level change events, called on the given executor
+     * @param listener The listener to register
+     * @param executor Runs the listener calls, e.g. BackgroundExecutors.database()
+     */
+    public void addChangeEventListener(DataChangeEventListener listener, Executor executor) {
+        dispatcher.subscribe(listener, executor);
+    }
+    
+    /**
+     * Remove a registered change event listener
+     * @param listener The listener to remove
+     */
+    public void removeChangeEventListener(DataChangeEventListener listener) {
+        dispatcher.unsubscribe(listener);
+    }
+    
+    /**
+     * Register a listener for data changes. It is told which data types changed, once per
+     * coalesced burst, on the JavaFX thread.
      * @param listener The listener to register
      */
     public void addDataChangeListener(DataChangeListener listener) {
-        if (!listeners.contains(listener)) {
-            listeners.add(listener);
-        }
+        dispatcher.subscribe(legacyListeners.computeIfAbsent(listener, key -> event -> {
+            if (event.isReloaded(DataType.FLIGHTS) && event.isReloaded(DataType.BAGGAGE)
+                    && event.isReloaded(DataType.NOTIFICATIONS)) {
+                key.onDataChanged(DataType.ALL);
+                return;
+            }
+            for (DataType dataType : event.getDataTypes()) {
+                key.onDataChanged(dataType);
+            }
+        }));
     }
     
     /**
@@ -61,148 +261,1055 @@ public class DataService {
      * @param listener The listener to remove
      */
     public void removeDataChangeListener(DataChangeListener listener) {
-        listeners.remove(listener);
+        DataChangeEventListener bridge = legacyListeners.remove(listener);
+        if (bridge != null) {
+            dispatcher.unsubscribe(bridge);
+        }
+    }
+    
+    /**
+     * Notify all listeners that every row of a data type may have changed
+     * @param dataType The type of data that changed
+     */
+    public void notifyDataChanged(DataType dataType) {
+        dispatcher.publish(DataChangeEvent.reloaded(dataType));
+    }
+    
+    /**
+     * Notify all listeners of row-level changes
+     * @param changes The changes; nothing is sent if empty
+     */
+    private void notifyDataChanged(DataChangeEvent.Builder changes) {
+        if (!changes.isEmpty()) {
+            dispatcher.publish(changes.build());
+        }
+    }
+    
+    /**
+     * Initialize the database and load initial data
+     * @return true if initialization is successful
+     */
+    public boolean initializeDatabase() {
+        return dbConnection.initializeDatabase();
+    }
+    
+    /**
+     * Set the thread that owns the lists, for processes without a JavaFX thread
+     * @param listThread Runs tasks on the thread that modifies the lists and receives change events
+     */
+    public synchronized void setListThread(Executor listThread) {
+        this.listThread = listThread;
+    }
+    
+    /**
+     * Bring the in-memory data up to date with the database.
+     * After the first full load this only fetches flights and baggage changed since the last
+     * sync (by updated_at) plus rows recorded in the deleted_rows tombstone table, and patches
+     * the observable lists in place. Falls back to a full reload if the delta query fails.
+     * The rows are read on the calling thread and patched in on the list thread (see
+     * {@link #setListThread(Executor)}): at once when called on the JavaFX thread or on a list
+     * thread that runs tasks inline, otherwise once that thread gets to it.
+     */
+    public void refreshData() {
+        try {
+            SyncBatch batch = querySync();
+            Executor lists;
+            synchronized (this) {
+                lists = listThread;
+            }
+            lists.execute(() -> applySync(batch));
+        } catch (SQLException e) {
+            System.err.println("Error refreshing data from database: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Discard the in-memory data and reload every row from the database
+     */
+    public void reloadAllData() {
+        loadAllData();
+        notifyDataChanged(DataType.ALL);
+    }
+    
+    /**
+     * Refresh data from the database without blocking the calling thread.
+     * Rows are read on a background thread, the same way as {@link #refreshData()}, and
+     * applied to the observable lists in one batch on the JavaFX thread. If the future is
+     * cancelled or times out first, the lists are left untouched.
+     * @return Future completing once the lists have been updated
+     */
+    public CompletableFuture<Void> refreshDataAsync() {
+        return submitAsync(this::querySync, this::applySync, false).thenApply(batch -> null);
+    }
+    
+    /**
+     * Keep the data up to date with other workstations by following the change log, on the JavaFX thread
+     * @return false if the database has no change log; see {@link #followChangeLog(Executor)}
+     */
+    public boolean followChangeLog() {
+        return followChangeLog(BackgroundExecutors::runOnFxThread);
+    }
+    
+    /**
+     * Keep the data up to date with other workstations by following the change log.
+     * The shared ChangeLogPoller reads new change_log entries; this service then reads the rows they
+     * name, by key, on the poller thread and patches them into the lists on the list thread, in log
+     * order; the list thread is then also the one refreshData() patches on. Entries the lists already reflect (e.g. after a reload) are skipped, so applying the
+     * same entries twice changes nothing. While following, refreshData() isn't needed.
+     * @param listThread Runs tasks on the thread that modifies the lists
+     * @return false if the database has no change log (migration V006 isn't applied); refresh with
+     *         refreshData() instead
+     */
+    public synchronized boolean followChangeLog(Executor listThread) {
+        if (changeLogSubscriber != null) {
+            return true;
+        }
+        long position = changeLogPosition;
+        if (position < 0) {
+            return false;
+        }
+        this.listThread = listThread;
+        changeLogSubscriber = this::onChangeLog;
+        ChangeLogPoller.getInstance().subscribe(changeLogSubscriber, position);
+        return true;
+    }
+    
+    /**
+     * Stop following the change log
+     */
+    public synchronized void stopFollowingChangeLog() {
+        if (changeLogSubscriber != null) {
+            ChangeLogPoller.getInstance().unsubscribe(changeLogSubscriber);
+            changeLogSubscriber = null;
+        }
+    }
+    
+    /**
+     * Read the rows named by new change log entries and queue them for the list thread.
+     * Runs on the poller thread.
+     */
+    private void onChangeLog(List<ChangeLogPoller.Change> changes, boolean missedChanges) throws SQLException {
+        long throughId = changes.get(changes.size() - 1).getId();
+        long position = changeLogPosition;
+        if (throughId <= position) {
+            return;
+        }
+        SyncBatch batch;
+        if (missedChanges) {
+            // Some entry may never arrive; catch up on everything changed since the last sync
+            SyncBatch sync = querySync();
+            batch = new SyncBatch(sync.full, sync.position, throughId, sync.flights, sync.baggageItems,
+                sync.notifications, sync.deletedFlights, sync.deletedBaggage);
+        } else {
+            batch = queryChangeLogBatch(changes, position, throughId);
+        }
+        Executor lists;
+        synchronized (this) {
+            lists = listThread;
+        }
+        lists.execute(() -> applySync(batch));
+    }
+    
+    /**
+     * Read the current state of the rows changed by log entries after a position
+     * @return A delta batch bringing the lists to throughId; rows that no longer exist are deletes
+     */
+    private SyncBatch queryChangeLogBatch(List<ChangeLogPoller.Change> changes, long position, long throughId)
+            throws SQLException {
+        // The last entry per key decides whether the row is gone
+        Map<String, Boolean> flightKeys = new LinkedHashMap<>();
+        Map<String, Boolean> baggageKeys = new LinkedHashMap<>();
+        boolean notificationsChanged = false;
+        for (ChangeLogPoller.Change change : changes) {
+            if (change.getId() <= position) {
+                continue;
+            }
+            switch (change.getTableName()) {
+                case "flights":
+                    flightKeys.put(change.getRowKey(), change.isDelete());
+                    break;
+                case "baggage":
+                    baggageKeys.put(change.getRowKey(), change.isDelete());
+                    break;
+                case "notifications":
+                    notificationsChanged = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        List<Flight> changedFlights = queryFlightsByNumber(keysWhere(flightKeys, false));
+        List<String> deletedFlights = keysWhere(flightKeys, true);
+        Set<String> found = new HashSet<>();
+        for (Flight flight : changedFlights) {
+            found.add(flight.getFlightNumber());
+        }
+        for (String flightNumber : keysWhere(flightKeys, false)) {
+            if (!found.contains(flightNumber)) {
+                // Deleted after the entry was written; its own entry follows
+                deletedFlights.add(flightNumber);
+            }
+        }
+        
+        List<BaggageItem> changedBaggage = queryBaggageByTag(keysWhere(baggageKeys, false));
+        List<String> deletedBaggage = keysWhere(baggageKeys, true);
+        found.clear();
+        for (BaggageItem item : changedBaggage) {
+            found.add(item.getBaggageId());
+        }
+        for (String tag : keysWhere(baggageKeys, false)) {
+            if (!found.contains(tag)) {
+                deletedBaggage.add(tag);
+            }
+        }
+        
+        return new SyncBatch(false, null, throughId, changedFlights, changedBaggage,
+            notificationsChanged ? queryNotifications() : null, deletedFlights, deletedBaggage);
+    }
+    
+    private static List<String> keysWhere(Map<String, Boolean> keys, boolean deleted) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Boolean> entry : keys.entrySet()) {
+            if (entry.getValue() == deleted) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Load all data from database tables
+     */
+    private void loadAllData() {
+        // Take the sync position before reading, so rows changed during the load are fetched again
+        SyncPosition position = querySyncPositionQuietly();
+        long logPosition = queryChangeLogPosition();
+        if (position != null) {
+            purgeOldTombstones();
+        }
+        loadFlightsFromDb();
+        loadBaggageFromDb();
+        loadNotificationsFromDb();
+        syncPosition = position;
+        changeLogPosition = logPosition;
+    }
+    
+    /**
+     * Read what changed since the last sync, or everything if there is no usable sync position
+     * @return The rows to apply
+     * @throws SQLException If even the full reload fails
+     */
+    private SyncBatch querySync() throws SQLException {
+        SyncPosition since = syncPosition;
+        if (since != null) {
+            try {
+                SyncPosition now = querySyncPosition();
+                if (now.timestamp.getTime() - since.timestamp.getTime() > MAX_DELTA_AGE_MS) {
+                    // Tombstones this old may already be purged
+                    return queryFullSync();
+                }
+                return new SyncBatch(false, now, -1,
+                    queryFlights(since.timestamp), queryBaggage(since.timestamp), queryNotifications(),
+                    queryTombstones("flights", since.tombstoneId, now.tombstoneId),
+                    queryTombstones("baggage", since.tombstoneId, now.tombstoneId));
+            } catch (SQLException e) {
+                System.err.println("Delta refresh failed, falling back to full reload: " + e.getMessage());
+            }
+        }
+        
+        return queryFullSync();
+    }
+    
+    private SyncBatch queryFullSync() throws SQLException {
+        SyncPosition now = querySyncPositionQuietly();
+        long logPosition = queryChangeLogPosition();
+        return new SyncBatch(true, now, logPosition, queryFlights(null), queryBaggage(null), queryNotifications(),
+            List.of(), List.of());
+    }
+    
+    /**
+     * Apply a sync batch to the observable lists. Must run on the list thread.
+     * @param batch The rows read by querySync()
+     */
+    private void applySync(SyncBatch batch) {
+        if (batch.full) {
+            flights.setAll(batch.flights);
+            baggageItems.setAll(batch.baggageItems);
+            notifications.setAll(batch.notifications);
+            syncPosition = batch.position;
+            changeLogPosition = batch.changeLogId;
+            notifyDataChanged(DataType.ALL);
+            return;
+        }
+        if (batch.changeLogId >= 0 && batch.changeLogId <= changeLogPosition) {
+            // Read before a reload or an earlier batch that already brought the lists this far
+            return;
+        }
+        
+        DataChangeEvent.Builder changes = new DataChangeEvent.Builder();
+        patchFlights(batch.flights, batch.deletedFlights, changes);
+        patchBaggage(batch.baggageItems, batch.deletedBaggage, changes);
+        if (batch.notifications != null && !notifications.equals(batch.notifications)) {
+            Set<String> previous = new HashSet<>(notifications);
+            Set<String> current = new HashSet<>(batch.notifications);
+            for (String message : batch.notifications) {
+                if (!previous.contains(message)) {
+                    changes.added(DataType.NOTIFICATIONS, message);
+                }
+            }
+            for (String message : notifications) {
+                if (!current.contains(message)) {
+                    changes.removed(DataType.NOTIFICATIONS, message);
+                }
+            }
+            notifications.setAll(batch.notifications);
+        }
+        if (batch.position != null) {
+            syncPosition = batch.position;
+        }
+        if (batch.changeLogId >= 0) {
+            changeLogPosition = batch.changeLogId;
+        }
+        
+        notifyDataChanged(changes);
+    }
+    
+    /**
+     * Patch the flight list in place: update matching flights by flight number, append new ones
+     * and drop deleted ones. Bound table rows refresh through the property listeners.
+     * @param changes Receives one entry per flight that actually changed
+     */
+    private void patchFlights(List<Flight> changed, List<String> deletedFlightNumbers,
+                              DataChangeEvent.Builder changes) {
+        Set<Flight> deleted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String flightNumber : deletedFlightNumbers) {
+            if (deleted.addAll(flightsByNumber.get(flightNumber))) {
+                changes.removed(DataType.FLIGHTS, flightNumber);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            flights.removeAll(deleted);
+        }
+        
+        // Flights added by this batch aren't in the index until addAll() below
+        Map<String, Flight> added = new LinkedHashMap<>();
+        patchingFlights = true;
+        try {
+            for (Flight update : changed) {
+                Flight current = flightsByNumber.first(update.getFlightNumber());
+                if (current == null) {
+                    current = added.get(update.getFlightNumber());
+                }
+                if (current == null) {
+                    added.put(update.getFlightNumber(), update);
+                } else {
+                    Set<String> fields = copyFlightFields(update, current);
+                    if (!fields.isEmpty()) {
+                        changes.updated(DataType.FLIGHTS, current.getFlightNumber(), fields);
+                    }
+                }
+            }
+        } finally {
+            patchingFlights = false;
+        }
+        if (!added.isEmpty()) {
+            flights.addAll(added.values());
+            for (String flightNumber : added.keySet()) {
+                changes.added(DataType.FLIGHTS, flightNumber);
+            }
+        }
+    }
+    
+    /**
+     * Copy the fields that differ; property setters ignore equal values, so only changed cells repaint
+     * @return Names of the changed properties
+     */
+    private static Set<String> copyFlightFields(Flight from, Flight to) {
+        Set<String> fields = new LinkedHashSet<>();
+        if (!Objects.equals(from.getAirline(), to.getAirline())) {
+            to.setAirline(from.getAirline());
+            fields.add("airline");
+        }
+        if (!Objects.equals(from.getOrigin(), to.getOrigin())) {
+            to.setOrigin(from.getOrigin());
+            fields.add("origin");
+        }
+        if (!Objects.equals(from.getDestination(), to.getDestination())) {
+            to.setDestination(from.getDestination());
+            fields.add("destination");
+        }
+        if (!Objects.equals(from.getDepartureTime(), to.getDepartureTime())) {
+            to.setDepartureTime(from.getDepartureTime());
+            fields.add("departureTime");
+        }
+        if (!Objects.equals(from.getArrivalTime(), to.getArrivalTime())) {
+            to.setArrivalTime(from.getArrivalTime());
+            fields.add("arrivalTime");
+        }
+        if (!Objects.equals(from.getStatus(), to.getStatus())) {
+            to.setStatus(from.getStatus());
+            fields.add("status");
+        }
+        if (!Objects.equals(from.getGate(), to.getGate())) {
+            to.setGate(from.getGate());
+            fields.add("gate");
+        }
+        if (!Objects.equals(from.getTerminal(), to.getTerminal())) {
+            to.setTerminal(from.getTerminal());
+            fields.add("terminal");
+        }
+        return fields;
+    }
+    
+    /**
+     * Patch the baggage list in place, keyed by baggage tag
+     * @param changes Receives one entry per baggage item that actually changed
+     */
+    private void patchBaggage(List<BaggageItem> changed, List<String> deletedTags,
+                              DataChangeEvent.Builder changes) {
+        Set<BaggageItem> deleted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String tag : deletedTags) {
+            if (deleted.addAll(baggageByTag.get(tag))) {
+                changes.removed(DataType.BAGGAGE, tag);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            baggageItems.removeAll(deleted);
+        }
+        
+        Map<String, BaggageItem> added = new LinkedHashMap<>();
+        for (BaggageItem update : changed) {
+            BaggageItem current = baggageByTag.first(update.getBaggageId());
+            if (current == null) {
+                current = added.get(update.getBaggageId());
+            }
+            if (current == null) {
+                added.put(update.getBaggageId(), update);
+            } else {
+                Set<String> fields = copyBaggageFields(update, current);
+                if (!fields.isEmpty()) {
+                    changes.updated(DataType.BAGGAGE, current.getBaggageId(), fields);
+                }
+            }
+        }
+        if (!added.isEmpty()) {
+            baggageItems.addAll(added.values());
+            for (String tag : added.keySet()) {
+                changes.added(DataType.BAGGAGE, tag);
+            }
+        }
+    }
+    
+    private static Set<String> copyBaggageFields(BaggageItem from, BaggageItem to) {
+        Set<String> fields = new LinkedHashSet<>();
+        if (!Objects.equals(from.getPassengerName(), to.getPassengerName())) {
+            to.setPassengerName(from.getPassengerName());
+            fields.add("passengerName");
+        }
+        if (!Objects.equals(from.getFlight(), to.getFlight())) {
+            to.setFlight(from.getFlight());
+            fields.add("flight");
+        }
+        if (!Objects.equals(from.getLocation(), to.getLocation())) {
+            to.setLocation(from.getLocation());
+            fields.add("location");
+        }
+        if (!Objects.equals(from.getStatus(), to.getStatus())) {
+            to.setStatus(from.getStatus());
+            fields.add("status");
+        }
+        if (!Objects.equals(from.getHandlingTime(), to.getHandlingTime())) {
+            to.setHandlingTime(from.getHandlingTime());
+            fields.add("handlingTime");
+        }
+        return fields;
+    }
+    
+    /**
+     * Read the current database time and newest tombstone id
+     * @return The position the next delta refresh starts from
+     * @throws SQLException If the query fails (e.g. deleted_rows doesn't exist yet)
+     */
+    private SyncPosition querySyncPosition() throws SQLException {
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                "SELECT CURRENT_TIMESTAMP AS now_ts, " +
+                "(SELECT COALESCE(MAX(tombstone_id), 0) FROM deleted_rows) AS last_tombstone")) {
+            
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return new SyncPosition(rs.getTimestamp("now_ts"), rs.getLong("last_tombstone"));
+        }
+    }
+    
+    /**
+     * Read the newest change_log id
+     * @return The id, or -1 if the database has no change log
+     */
+    private long queryChangeLogPosition() {
+        try (Connection conn = dbConnection.getConnection()) {
+            return ChangeLogPoller.queryLatestId(conn);
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Same as querySyncPosition(), but returns null instead of failing, which disables
+     * delta refresh until the next successful full load
+     */
+    private SyncPosition querySyncPositionQuietly() {
+        try {
+            return querySyncPosition();
+        } catch (SQLException e) {
+            System.err.println("Delta refresh unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Delete tombstones older than a day; a workstation that far behind does a full reload anyway
+     */
+    private void purgeOldTombstones() {
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM deleted_rows WHERE deleted_at < NOW() - INTERVAL '1' DAY")) {
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error purging old tombstones: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Read the keys of rows deleted from a table within a tombstone id range
+     * @param tableName "flights" or "baggage"
+     * @param afterId Exclusive lower bound
+     * @param upToId Inclusive upper bound
+     * @return Deleted flight numbers or baggage tags, oldest first
+     * @throws SQLException If the query fails
+     */
+    private List<String> queryTombstones(String tableName, long afterId, long upToId) throws SQLException {
+        List<String> keys = new ArrayList<>();
+        if (upToId <= afterId) {
+            return keys;
+        }
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                "SELECT row_key FROM deleted_rows WHERE table_name = ? AND tombstone_id > ? " +
+                "AND tombstone_id <= ? ORDER BY tombstone_id")) {
+            
+            stmt.setString(1, tableName);
+            stmt.setLong(2, afterId);
+            stmt.setLong(3, upToId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                keys.add(rs.getString("row_key"));
+            }
+        }
+        return keys;
+    }
+    
+    /**
+     * Run blocking database work on the background executor and apply its result on the
+     * JavaFX thread.
+     * @param dbWork The blocking database call
+     * @param fxUpdate Applies the result to the observable lists
+     * @param applyWhenAbandoned Apply the result even if the caller cancelled or timed out;
+     *                           used for writes, so memory stays in line with the database
+     * @return Future completing with the database result after fxUpdate has run
+     */
+    private <T> CompletableFuture<T> submitAsync(Callable<T> dbWork, Consumer<T> fxUpdate, boolean applyWhenAbandoned) {
+        return submitAsync(dbWork, fxUpdate, applyWhenAbandoned, ASYNC_TIMEOUT_SECONDS);
+    }
+    
+    /**
+     * Like {@link #submitAsync(Callable, Consumer, boolean)}, for work that may run longer
+     * @param timeoutSeconds When to give up on the work and interrupt it
+     */
+    private <T> CompletableFuture<T> submitAsync(Callable<T> dbWork, Consumer<T> fxUpdate, boolean applyWhenAbandoned,
+                                                 long timeoutSeconds) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = BackgroundExecutors.database().submit(() -> {
+            T value;
+            try {
+                value = dbWork.call();
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            BackgroundExecutors.runOnFxThread(() -> {
+                try {
+                    if (applyWhenAbandoned || !result.isDone()) {
+                        fxUpdate.accept(value);
+                    }
+                    result.complete(value);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        });
+        
+        // Interrupt the background work if the caller cancels or the timeout fires
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return result.orTimeout(timeoutSeconds, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Get all flights
+     * @return Observable list of flights
+     */
+    public ObservableList<Flight> getFlights() {
+        return flights;
+    }
+    
+    /**
+     * Get the gate occupancy of the flights; use it on the list thread only
+     * @return The gate schedule, kept up to date as flights change
+     */
+    public GateSchedule getGateSchedule() {
+        return gateSchedule;
+    }
+    
+    /**
+     * Get all baggage items
+     * @return Observable list of baggage items
+     */
+    public ObservableList<BaggageItem> getBaggageItems() {
+        return baggageItems;
+    }
+    
+    /**
+     * Find a flight by its flight number
+     * @param flightNumber The exact flight number, e.g. "AA1234"
+     * @return The flight, or null if there is none
+     */
+    public Flight findFlight(String flightNumber) {
+        return flightsByNumber.first(flightNumber);
+    }
+    
+    /**
+     * Get all flights with the given flight number
+     * @param flightNumber The exact flight number
+     * @return Read-only live view of the matching flights
+     */
+    public Collection<Flight> getFlightsByNumber(String flightNumber) {
+        return flightsByNumber.get(flightNumber);
+    }
+    
+    /**
+     * Get all flights with the given status
+     * @param status The exact status, e.g. "Boarding"
+     * @return Read-only live view of the matching flights
+     */
+    public Collection<Flight> getFlightsByStatus(String status) {
+        return flightsByStatus.get(status);
+    }
+    
+    /**
+     * Get all flights departing from a terminal
+     * @param terminal The terminal letter, e.g. "A"
+     * @return Read-only live view of the matching flights
+     */
+    public Collection<Flight> getFlightsByTerminal(String terminal) {
+        return flightsByTerminal.get(terminal);
+    }
+    
+    /**
+     * Search flights by flight number, destination or airline
+     * @param query Text to look for, ignoring case
+     * @return Flights with a matching field; all flights if the query is empty
+     */
+    public List<Flight> searchFlights(String query) {
+        return flightSearch.search(query);
+    }
+    
+    /**
+     * Search baggage items by part of their tag
+     * @param query Text to look for, ignoring case
+     * @return Baggage items with a matching tag; all items if the query is empty
+     */
+    public List<BaggageItem> searchBaggage(String query) {
+        return baggageSearch.search(query);
+    }
+    
+    /**
+     * Find a baggage item by its tag
+     * @param baggageTag The exact baggage tag
+     * @return The baggage item, or null if there is none
+     */
+    public BaggageItem findBaggage(String baggageTag) {
+        return baggageByTag.first(baggageTag);
+    }
+    
+    /**
+     * Get all baggage items checked onto a flight
+     * @param flightNumber The exact flight number
+     * @return Read-only live view of the matching baggage items
+     */
+    public Collection<BaggageItem> getBaggageForFlight(String flightNumber) {
+        return baggageByFlight.get(flightNumber);
+    }
+    
+    /**
+     * Get all notifications
+     * @return Observable list of notifications
+     */
+    public ObservableList<String> getNotifications() {
+        return notifications;
+    }
+    
+    /**
+     * Add a new flight
+     * @param flight The flight to add
+     */
+    public void addFlight(Flight flight) {
+        // Add to database first
+        if (addFlightToDb(flight)) {
+            // If successful, add to in-memory list
+            flights.add(flight);
+            notifyDataChanged(new DataChangeEvent.Builder().added(DataType.FLIGHTS, flight.getFlightNumber()));
+        }
+    }
+    
+    /**
+     * Remove a flight
+     * @param flight The flight to remove
+     */
+    public void removeFlight(Flight flight) {
+        // Remove from database first
+        if (removeFlightFromDb(flight)) {
+            // If successful, remove from in-memory list
+            flights.remove(flight);
+            notifyDataChanged(new DataChangeEvent.Builder().removed(DataType.FLIGHTS, flight.getFlightNumber()));
+        }
+    }
+    
+    /**
+     * Save a flight edited in place (schedule, status, gate), so other workstations see the edit
+     * @param flight A flight in the flight list
+     * @return true if the row was updated
+     */
+    public boolean updateFlight(Flight flight) {
+        return updateFlightInDb(detachedCopy(flight));
+    }
+    
+    /**
+     * Add a new notification
+     * @param message The notification message
+     */
+    public void addNotification(String message) {
+        // Add to database first
+        if (addNotificationToDb(message)) {
+            // If successful, add to in-memory list
+            notifications.add(message);
+            notifyDataChanged(new DataChangeEvent.Builder().added(DataType.NOTIFICATIONS, message));
+        }
+    }
+    
+    /**
+     * Add a new baggage item
+     * @param item The baggage item to add
+     */
+    public void addBaggageItem(BaggageItem item) {
+        // Add to database first
+        if (addBaggageToDb(item)) {
+            // If successful, add to in-memory list
+            baggageItems.add(item);
+            notifyDataChanged(new DataChangeEvent.Builder().added(DataType.BAGGAGE, item.getBaggageId()));
+        }
+    }
+    
+    /**
+     * Remove a baggage item
+     * @param item The baggage item to remove
+     */
+    public void removeBaggageItem(BaggageItem item) {
+        // Remove from database first
+        if (removeBaggageFromDb(item.getBaggageId())) {
+            // If successful, remove from in-memory list
+            baggageItems.remove(item);
+            notifyDataChanged(new DataChangeEvent.Builder().removed(DataType.BAGGAGE, item.getBaggageId()));
+        }
+    }
+    
+    /**
+     * Add a new flight without blocking the calling thread
+     * @param flight The flight to add
+     * @return Future completing with true once the flight is stored and in the flight list
+     */
+    public CompletableFuture<Boolean> addFlightAsync(Flight flight) {
+        return submitAsync(() -> addFlightToDb(flight), added -> {
+            if (added) {
+                flights.add(flight);
+                notifyDataChanged(new DataChangeEvent.Builder().added(DataType.FLIGHTS, flight.getFlightNumber()));
+            }
+        }, true);
+    }
+    
+    /**
+     * Remove a flight without blocking the calling thread
+     * @param flight The flight to remove
+     * @return Future completing with true once the flight is deleted and out of the flight list
+     */
+    public CompletableFuture<Boolean> removeFlightAsync(Flight flight) {
+        return submitAsync(() -> removeFlightFromDb(flight), removed -> {
+            if (removed) {
+                flights.remove(flight);
+                notifyDataChanged(new DataChangeEvent.Builder().removed(DataType.FLIGHTS, flight.getFlightNumber()));
+            }
+        }, true);
+    }
+    
+    /**
+     * Save a flight edited in place without blocking the calling thread
+     * @param flight A flight in the flight list
+     * @return Future completing with true once the row is updated
+     */
+    public CompletableFuture<Boolean> updateFlightAsync(Flight flight) {
+        // The list copy may change again while the write runs, so write a snapshot of it
+        Flight snapshot = detachedCopy(flight);
+        return submitAsync(() -> updateFlightInDb(snapshot), updated -> { }, true);
+    }
+    
+    /**
+     * Save status changes for many flights in one batch without blocking the calling thread.
+     * Each row is only changed if it still has the status the change started from, so a row
+     * edited meanwhile, here or on another workstation, keeps that edit.
+     * @param updates The changes; the collection is copied
+     * @return Future completing with the number of rows changed, or exceptionally if nothing
+     *         was saved, so the caller can try again
+     */
+    public CompletableFuture<Integer> saveFlightStatusesAsync(Collection<StatusUpdate> updates) {
+        List<StatusUpdate> snapshot = new ArrayList<>(updates);
+        return submitAsync(() -> updateFlightStatusesInDb(snapshot), updated -> { }, true);
+    }
+    
+    /**
+     * Save the gates of many flights in one batch without blocking the calling thread
+     * @param gates New gate by flight number; the map is copied
+     * @return Future completing with the number of rows changed, or exceptionally if nothing was saved
+     */
+    public CompletableFuture<Integer> saveFlightGatesAsync(Map<String, String> gates) {
+        Map<String, String> snapshot = new LinkedHashMap<>(gates);
+        return submitAsync(() -> updateFlightGatesInDb(snapshot), updated -> { }, true);
+    }
+    
+    /**
+     * Import a schedule file (see ScheduleImporter for the formats) in the background. The flights
+     * are upserted in chunked, batched transactions and then patched into the flight list with a
+     * single change event.
+     * @param file The CSV file
+     * @return Future completing on the JavaFX thread with the report, or exceptionally if the file
+     *         can't be read
+     */
+    public CompletableFuture<ScheduleImporter.ImportReport> importScheduleAsync(Path file) {
+        // Written by the import thread, read on the list thread once it is done
+        List<Flight> imported = new ArrayList<>();
+        ScheduleImporter importer = new ScheduleImporter(dbConnection, LocalDate.now());
+        return submitAsync(() -> {
+            try (BufferedReader reader = Files.newBufferedReader(file)) {
+                return importer.importSchedule(reader, imported::addAll);
+            }
+        }, report -> applyImportedFlights(imported), true, IMPORT_TIMEOUT_SECONDS);
     }
     
     /**
-     * Notify all listeners that data has changed
-     * @param dataType The type of data that changed
+     * Patch imported flights into the list with one event; fields the file left out keep their
+     * current value, as they did in the database
      */
-    public void notifyDataChanged(DataType dataType) {
-        for (DataChangeListener listener : listeners) {
-            listener.onDataChanged(dataType);
+    private void applyImportedFlights(List<Flight> imported) {
+        for (Flight flight : imported) {
+            Flight current = flightsByNumber.first(flight.getFlightNumber());
+            if (flight.getStatus() == null) {
+                flight.setStatus(current != null ? current.getStatus() : ScheduleImporter.DEFAULT_STATUS);
+            }
+            if (flight.getGate() == null && current != null) {
+                flight.setGate(current.getGate());
+            }
+            if (flight.getTerminal() == null && current != null) {
+                flight.setTerminal(current.getTerminal());
+            }
         }
+        DataChangeEvent.Builder changes = new DataChangeEvent.Builder();
+        patchFlights(imported, Collections.emptyList(), changes);
+        notifyDataChanged(changes);
     }
     
-    /**
-     * Initialize the database and load initial data
-     * @return true if initialization is successful
-     */
-    public boolean initializeDatabase() {
-        return dbConnection.initializeDatabase();
+    private static Flight detachedCopy(Flight flight) {
+        Flight copy = new Flight(flight.getFlightNumber(), flight.getAirline(), flight.getOrigin(),
+            flight.getDestination(), flight.getDepartureTime(), flight.getArrivalTime(), flight.getStatus());
+        copy.setGate(flight.getGate());
+        copy.setTerminal(flight.getTerminal());
+        return copy;
     }
     
     /**
-     * Reload all data from the database
+     * Add a new notification without blocking the calling thread
+     * @param message The notification message
+     * @return Future completing with true once the notification is stored
      */
-    public void refreshData() {
-        loadAllData();
-        notifyDataChanged(DataType.ALL);
+    public CompletableFuture<Boolean> addNotificationAsync(String message) {
+        return submitAsync(() -> addNotificationToDb(message), added -> {
+            if (added) {
+                notifications.add(message);
+                notifyDataChanged(new DataChangeEvent.Builder().added(DataType.NOTIFICATIONS, message));
+            }
+        }, true);
     }
     
     /**
-     * Load all data from database tables
+     * Add a new baggage item without blocking the calling thread
+     * @param item The baggage item to add
+     * @return Future completing with true once the item is stored and in the baggage list
      */
-    private void loadAllData() {
-        loadFlightsFromDb();
-        loadBaggageFromDb();
-        loadNotificationsFromDb();
+    public CompletableFuture<Boolean> addBaggageItemAsync(BaggageItem item) {
+        return submitAsync(() -> addBaggageToDb(item), added -> {
+            if (added) {
+                baggageItems.add(item);
+                notifyDataChanged(new DataChangeEvent.Builder().added(DataType.BAGGAGE, item.getBaggageId()));
+            }
+        }, true);
     }
     
     /**
-     * Get all flights
-     * @return Observable list of flights
+     * Remove a baggage item without blocking the calling thread
+     * @param item The baggage item to remove
+     * @return Future completing with true once the item is deleted and out of the baggage list
      */
-    public ObservableList<Flight> getFlights() {
-        return flights;
+    public CompletableFuture<Boolean> removeBaggageItemAsync(BaggageItem item) {
+        return submitAsync(() -> removeBaggageFromDb(item.getBaggageId()), removed -> {
+            if (removed) {
+                baggageItems.remove(item);
+                notifyDataChanged(new DataChangeEvent.Builder().removed(DataType.BAGGAGE, item.getBaggageId()));
+            }
+        }, true);
     }
     
     /**
-     * Get all baggage items
-     * @return Observable list of baggage items
+     * Remove a bag by tag without blocking the calling thread
+     * @param baggageTag The bag to remove
+     * @return Future completing with true once the bag is deleted, or journaled while the
+     * database is unavailable, and out of the baggage list
      */
-    public ObservableList<BaggageItem> getBaggageItems() {
-        return baggageItems;
+    public CompletableFuture<Boolean> removeBaggageAsync(String baggageTag) {
+        return submitAsync(() -> removeBaggageFromDb(baggageTag), removed -> {
+            if (removed) {
+                DataChangeEvent.Builder changes = new DataChangeEvent.Builder();
+                patchBaggage(List.of(), List.of(baggageTag), changes);
+                notifyDataChanged(changes);
+            }
+        }, true);
     }
     
     /**
-     * Get all notifications
-     * @return Observable list of notifications
+     * Add a bag to a booking without blocking the calling thread
+     * @return Future completing with true once the bag is stored, or journaled while the database
+     * is unavailable; failing with the database's error if it rejects the bag
      */
-    public ObservableList<String> getNotifications() {
-        return notifications;
+    public CompletableFuture<Boolean> addBookedBaggageAsync(String baggageTag, int bookingId, String weight,
+                                                            String status, String location, String handlingTime) {
+        return saveBookedBaggageAsync(true, baggageTag, bookingId, weight, status, location, handlingTime);
     }
     
     /**
-     * Add a new flight
-     * @param flight The flight to add
+     * Move a bag to another booking or change its details without blocking the calling thread
+     * @return Future completing with true once the change is stored, or journaled while the
+     * database is unavailable, and false if the bag is gone; failing with the database's error
+     * if it rejects the change
      */
-    public void addFlight(Flight flight) {
-        // Add to database first
-        if (addFlightToDb(flight)) {
-            // If successful, add to in-memory list
-            flights.add(flight);
-            notifyDataChanged(DataType.FLIGHTS);
-        }
+    public CompletableFuture<Boolean> updateBookedBaggageAsync(String baggageTag, int bookingId, String weight,
+                                                               String status, String location, String handlingTime) {
+        return saveBookedBaggageAsync(false, baggageTag, bookingId, weight, status, location, handlingTime);
     }
     
-    /**
-     * Remove a flight
-     * @param flight The flight to remove
-     */
-    public void removeFlight(Flight flight) {
-        // Remove from database first
-        if (removeFlightFromDb(flight)) {
-            // If successful, remove from in-memory list
-            flights.remove(flight);
-            notifyDataChanged(DataType.FLIGHTS);
-        }
+    private CompletableFuture<Boolean> saveBookedBaggageAsync(boolean insert, String baggageTag, int bookingId, String weight,
+                                                              String status, String location, String handlingTime) {
+        return submitAsync(() -> {
+            if (!saveBookedBaggageInDb(insert, baggageTag, bookingId, weight, status, location, handlingTime)) {
+                return null;
+            }
+            // Read the bag back with its passenger and flight; nothing to read while it is journaled
+            try {
+                return BaggageScanIngestor.getInstance().isOffline() ? List.<BaggageItem>of() : queryBaggageByTag(List.of(baggageTag));
+            } catch (SQLException e) {
+                System.err.println("Error reading saved baggage " + baggageTag + ": " + e.getMessage());
+                return List.<BaggageItem>of();
+            }
+        }, stored -> {
+            if (stored != null && !stored.isEmpty()) {
+                DataChangeEvent.Builder changes = new DataChangeEvent.Builder();
+                patchBaggage(stored, List.of(), changes);
+                notifyDataChanged(changes);
+            }
+        }, true).thenApply(stored -> stored != null);
     }
     
     /**
-     * Add a new notification
-     * @param message The notification message
+     * Load flights from database
      */
-    public void addNotification(String message) {
-        // Add to database first
-        if (addNotificationToDb(message)) {
-            // If successful, add to in-memory list
-            notifications.add(message);
-            notifyDataChanged(DataType.NOTIFICATIONS);
+    private void loadFlightsFromDb() {
+        try {
+            flights.setAll(queryFlights(null));
+        } catch (SQLException e) {
+            System.err.println("Error loading flights from database: " + e.getMessage());
+            e.printStackTrace();
+            
+            // If database load fails, add some sample data
+            if (flights.isEmpty()) {
+                addSampleFlights();
+            }
         }
     }
     
     /**
-     * Add a new baggage item
-     * @param item The baggage item to add
+     * Read flights from the database
+     * @param changedSince Only read flights updated at or after this time; null reads all
+     * @return The flights, in table order
+     * @throws SQLException If the query fails
      */
-    public void addBaggageItem(BaggageItem item) {
-        // Add to database first
-        if (addBaggageToDb(item)) {
-            // If successful, add to in-memory list
-            baggageItems.add(item);
-            notifyDataChanged(DataType.BAGGAGE);
-        }
+    private List<Flight> queryFlights(Timestamp changedSince) throws SQLException {
+        return changedSince == null ? queryFlights("", List.of())
+            : queryFlights(" WHERE updated_at >= ?", List.of(changedSince));
     }
     
     /**
-     * Remove a baggage item
-     * @param item The baggage item to remove
+     * Read flights by flight number
+     * @param flightNumbers The flight numbers; unknown ones are left out of the result
+     * @return The flights found
+     * @throws SQLException If a query fails
      */
-    public void removeBaggageItem(BaggageItem item) {
-        // Remove from database first
-        if (removeBaggageFromDb(item)) {
-            // If successful, remove from in-memory list
-            baggageItems.remove(item);
-            notifyDataChanged(DataType.BAGGAGE);
+    private List<Flight> queryFlightsByNumber(List<String> flightNumbers) throws SQLException {
+        List<Flight> result = new ArrayList<>();
+        for (int from = 0; from < flightNumbers.size(); from += MAX_KEYS_PER_QUERY) {
+            List<String> keys = flightNumbers.subList(from, Math.min(flightNumbers.size(), from + MAX_KEYS_PER_QUERY));
+            result.addAll(queryFlights(" WHERE flight_number IN (" + placeholders(keys.size()) + ")", keys));
         }
+        return result;
     }
     
-    /**
-     * Load flights from database
-     */
-    private void loadFlightsFromDb() {
-        flights.clear();
+    private List<Flight> queryFlights(String condition, List<?> parameters) throws SQLException {
+        List<Flight> result = new ArrayList<>();
+        String sql = "SELECT flight_id, flight_number, airline, origin, destination, " +
+                     "departure_time, arrival_time, status, gate, terminal FROM flights" + condition;
         
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(
-                "SELECT flight_id, flight_number, airline, origin, destination, " +
-                "departure_time, arrival_time, status, gate, terminal FROM flights")) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
                 String flightNumber = rs.getString("flight_number");
+                bookingPipeline.rememberFlight(flightNumber, rs.getInt("flight_id"));
                 String airline = rs.getString("airline");
                 String origin = rs.getString("origin");
                 String destination = rs.getString("destination");
@@ -217,35 +1324,70 @@ public class DataService {
                 flight.setGate(gate);
                 flight.setTerminal(terminal);
                 
-                flights.add(flight);
+                result.add(flight);
             }
-            
+        }
+        return result;
+    }
+    
+    /**
+     * Load baggage items from database
+     */
+    private void loadBaggageFromDb() {
+        try {
+            baggageItems.setAll(queryBaggage(null));
         } catch (SQLException e) {
-            System.err.println("Error loading flights from database: " + e.getMessage());
+            System.err.println("Error loading baggage from database: " + e.getMessage());
             e.printStackTrace();
             
             // If database load fails, add some sample data
-            if (flights.isEmpty()) {
-                addSampleFlights();
+            if (baggageItems.isEmpty()) {
+                addSampleBaggage();
             }
         }
     }
     
     /**
-     * Load baggage items from database
+     * Read baggage items with their passenger and flight from the database
+     * @param changedSince Only read baggage rows updated at or after this time; null reads all
+     * @return The baggage items
+     * @throws SQLException If the query fails
      */
-    private void loadBaggageFromDb() {
-        baggageItems.clear();
+    private List<BaggageItem> queryBaggage(Timestamp changedSince) throws SQLException {
+        return changedSince == null ? queryBaggage("", List.of())
+            : queryBaggage(" WHERE b.updated_at >= ?", List.of(changedSince));
+    }
+    
+    /**
+     * Read baggage items by tag
+     * @param tags The baggage tags; unknown ones are left out of the result
+     * @return The baggage items found
+     * @throws SQLException If a query fails
+     */
+    private List<BaggageItem> queryBaggageByTag(List<String> tags) throws SQLException {
+        List<BaggageItem> result = new ArrayList<>();
+        for (int from = 0; from < tags.size(); from += MAX_KEYS_PER_QUERY) {
+            List<String> keys = tags.subList(from, Math.min(tags.size(), from + MAX_KEYS_PER_QUERY));
+            result.addAll(queryBaggage(" WHERE b.baggage_tag IN (" + placeholders(keys.size()) + ")", keys));
+        }
+        return result;
+    }
+    
+    private List<BaggageItem> queryBaggage(String condition, List<?> parameters) throws SQLException {
+        List<BaggageItem> result = new ArrayList<>();
+        String sql = "SELECT b.baggage_tag, p.first_name, p.last_name, f.flight_number, " +
+                     "b.current_location, b.status, b.handling_time " +
+                     "FROM baggage b " +
+                     "JOIN bookings bk ON b.booking_id = bk.booking_id " +
+                     "JOIN passengers p ON bk.passenger_id = p.passenger_id " +
+                     "JOIN flights f ON bk.flight_id = f.flight_id" + condition;
         
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(
-                "SELECT b.baggage_tag, p.first_name, p.last_name, f.flight_number, " +
-                "b.current_location, b.status, b.handling_time " +
-                "FROM baggage b " +
-                "JOIN bookings bk ON b.booking_id = bk.booking_id " +
-                "JOIN passengers p ON bk.passenger_id = p.passenger_id " +
-                "JOIN flights f ON bk.flight_id = f.flight_id")) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -259,25 +1401,40 @@ public class DataService {
                 BaggageItem item = new BaggageItem(baggageTag, passengerName, flightNumber, 
                                                location, status, handlingTime);
                 
-                baggageItems.add(item);
+                result.add(item);
             }
-            
+        }
+        return result;
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    /**
+     * Load notifications from database
+     */
+    private void loadNotificationsFromDb() {
+        try {
+            notifications.setAll(queryNotifications());
         } catch (SQLException e) {
-            System.err.println("Error loading baggage from database: " + e.getMessage());
+            System.err.println("Error loading notifications from database: " + e.getMessage());
             e.printStackTrace();
             
             // If database load fails, add some sample data
-            if (baggageItems.isEmpty()) {
-                addSampleBaggage();
+            if (notifications.isEmpty()) {
+                addSampleNotifications();
             }
         }
     }
     
     /**
-     * Load notifications from database
+     * Read the latest notifications from the database
+     * @return Up to 20 notification messages, newest first
+     * @throws SQLException If the query fails
      */
-    private void loadNotificationsFromDb() {
-        notifications.clear();
+    private List<String> queryNotifications() throws SQLException {
+        List<String> result = new ArrayList<>();
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(
@@ -286,18 +1443,10 @@ public class DataService {
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
-                notifications.add(rs.getString("message"));
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error loading notifications from database: " + e.getMessage());
-            e.printStackTrace();
-            
-            // If database load fails, add some sample data
-            if (notifications.isEmpty()) {
-                addSampleNotifications();
+                result.add(rs.getString("message"));
             }
         }
+        return result;
     }
     
     /**
@@ -332,6 +1481,106 @@ public class DataService {
         }
     }
     
+    /**
+     * Write a flight's editable fields to its row, found by flight number
+     * @param flight The flight to save
+     * @return true if successful
+     */
+    private boolean updateFlightInDb(Flight flight) {
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE flights SET airline = ?, origin = ?, destination = ?, departure_time = ?, " +
+                "arrival_time = ?, status = ?, gate = ?, terminal = ? WHERE flight_number = ?")) {
+            
+            stmt.setString(1, flight.getAirline());
+            stmt.setString(2, flight.getOrigin());
+            stmt.setString(3, flight.getDestination());
+            stmt.setTimestamp(4, Timestamp.valueOf(flight.getDepartureTime()));
+            stmt.setTimestamp(5, Timestamp.valueOf(flight.getArrivalTime()));
+            stmt.setString(6, flight.getStatus());
+            stmt.setString(7, flight.getGate());
+            stmt.setString(8, flight.getTerminal());
+            stmt.setString(9, flight.getFlightNumber());
+            
+            return stmt.executeUpdate() > 0;
+            
+        } catch (SQLException e) {
+            System.err.println("Error updating flight in database: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Write flight status changes in one batched transaction
+     * @param updates The changes; rows no longer in their expected status are left alone
+     * @return The number of rows changed
+     * @throws SQLException If the update fails; nothing is saved
+     */
+    private int updateFlightStatusesInDb(List<StatusUpdate> updates) throws SQLException {
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE flights SET status = ? WHERE flight_number = ? AND status = ?")) {
+                
+                for (StatusUpdate update : updates) {
+                    stmt.setString(1, update.getStatus());
+                    stmt.setString(2, update.getFlightNumber());
+                    stmt.setString(3, update.getExpectedStatus());
+                    stmt.addBatch();
+                }
+                int changed = 0;
+                for (int count : stmt.executeBatch()) {
+                    changed += Math.max(count, 0);
+                }
+                conn.commit();
+                return changed;
+            } catch (SQLException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Write flight gates, and the terminals they are in, in one batched transaction
+     * @param gates New gate by flight number
+     * @return The number of rows changed
+     * @throws SQLException If the update fails; nothing is saved
+     */
+    private int updateFlightGatesInDb(Map<String, String> gates) throws SQLException {
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE flights SET gate = ?, terminal = ? WHERE flight_number = ?")) {
+                
+                for (Map.Entry<String, String> entry : gates.entrySet()) {
+                    stmt.setString(1, entry.getValue());
+                    stmt.setString(2, entry.getValue().substring(0, 1));
+                    stmt.setString(3, entry.getKey());
+                    stmt.addBatch();
+                }
+                int changed = 0;
+                for (int count : stmt.executeBatch()) {
+                    changed += Math.max(count, 0);
+                }
+                conn.commit();
+                return changed;
+            } catch (SQLException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            }
+        }
+    }
+    
     /**
      * Remove a flight from the database
      * @param flight The flight to remove
@@ -377,19 +1626,20 @@ public class DataService {
     }
     
     /**
-     * Add a baggage item to the database
+     * Add a baggage item to the database, or to the baggage journal while the database is unavailable
      * @param item The baggage item to add
      * @return true if successful
      */
     private boolean addBaggageToDb(BaggageItem item) {
+        BaggageScanIngestor journal = BaggageScanIngestor.getInstance();
+        if (journal.isOffline()) {
+            // Keep the order of the changes still waiting in the journal
+            return journal.journalBagAdded(item);
+        }
         // This is a simplified implementation
         // In a real app, you'd need to handle the relationships properly
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(
-                "INSERT INTO baggage (baggage_tag, booking_id, status, current_location, handling_time) " +
-                "SELECT ?, b.booking_id, ?, ?, ? FROM bookings b " +
-                "JOIN flights f ON b.flight_id = f.flight_id " +
-                "WHERE f.flight_number = ? LIMIT 1")) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_BAGGAGE)) {
             
             stmt.setString(1, item.getBaggageId());
             stmt.setString(2, item.getStatus());
@@ -401,6 +1651,10 @@ public class DataService {
             return rowsAffected > 0;
             
         } catch (SQLException e) {
+            if (BaggageScanIngestor.isConnectionFailure(e)) {
+                System.err.println("Database unavailable, journaling new baggage " + item.getBaggageId());
+                return journal.journalBagAdded(item);
+            }
             System.err.println("Error adding baggage to database: " + e.getMessage());
             e.printStackTrace();
             return false;
@@ -408,27 +1662,73 @@ public class DataService {
     }
     
     /**
-     * Remove a baggage item from the database
-     * @param item The baggage item to remove
+     * Remove a baggage item from the database, or journal the removal while the database is unavailable
+     * @param baggageTag The baggage item to remove
      * @return true if successful
      */
-    private boolean removeBaggageFromDb(BaggageItem item) {
+    private boolean removeBaggageFromDb(String baggageTag) {
+        BaggageScanIngestor journal = BaggageScanIngestor.getInstance();
+        if (journal.isOffline()) {
+            return journal.journalBagRemoved(baggageTag);
+        }
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(
-                "DELETE FROM baggage WHERE baggage_tag = ?")) {
+             PreparedStatement stmt = conn.prepareStatement(DELETE_BAGGAGE)) {
             
-            stmt.setString(1, item.getBaggageId());
+            stmt.setString(1, baggageTag);
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
             
         } catch (SQLException e) {
+            if (BaggageScanIngestor.isConnectionFailure(e)) {
+                System.err.println("Database unavailable, journaling removal of baggage " + baggageTag);
+                return journal.journalBagRemoved(baggageTag);
+            }
             System.err.println("Error removing baggage from database: " + e.getMessage());
             e.printStackTrace();
             return false;
         }
     }
     
+    /**
+     * Add or update a bag on a booking, or journal the change while the database is unavailable
+     * @return true if stored or journaled, false if the bag to update is gone
+     * @throws SQLException If the database rejects the change
+     */
+    private boolean saveBookedBaggageInDb(boolean insert, String baggageTag, int bookingId, String weight,
+                                          String status, String location, String handlingTime) throws SQLException {
+        BaggageScanIngestor journal = BaggageScanIngestor.getInstance();
+        if (journal.isOffline()) {
+            return journal.journalBagSaved(insert, baggageTag, bookingId, weight, status, location, handlingTime);
+        }
+        try (Connection conn = dbConnection.getConnection()) {
+            return writeBookedBaggage(conn, insert, baggageTag, bookingId, weight, status, location, handlingTime) > 0;
+        } catch (SQLException e) {
+            if (!BaggageScanIngestor.isConnectionFailure(e)) {
+                throw e;
+            }
+            System.err.println("Database unavailable, journaling baggage " + baggageTag);
+            return journal.journalBagSaved(insert, baggageTag, bookingId, weight, status, location, handlingTime);
+        }
+    }
+    
+    /**
+     * Insert or update a bag's row on a booking; also replays the change from the baggage journal
+     * @return Rows changed
+     */
+    static int writeBookedBaggage(Connection conn, boolean insert, String baggageTag, int bookingId, String weight,
+                                  String status, String location, String handlingTime) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(insert ? INSERT_BOOKED_BAGGAGE : UPDATE_BOOKED_BAGGAGE)) {
+            stmt.setInt(1, bookingId);
+            stmt.setString(2, weight);
+            stmt.setString(3, status);
+            stmt.setString(4, location);
+            stmt.setString(5, handlingTime);
+            stmt.setString(6, baggageTag);
+            return stmt.executeUpdate();
+        }
+    }
+    
     /**
      * Add sample flights (used as fallback when database is unavailable)
      */
@@ -471,11 +1771,79 @@ public class DataService {
         notifications.add("Baggage claim for BA4567 is at carousel 3");
     }
     
+    /**
+     * Database time and tombstone id a delta refresh continues from
+     */
+    private static class SyncPosition {
+        final Timestamp timestamp;
+        final long tombstoneId;
+        
+        SyncPosition(Timestamp timestamp, long tombstoneId) {
+            this.timestamp = timestamp;
+            this.tombstoneId = tombstoneId;
+        }
+    }
+    
+    /**
+     * Rows read by a refresh, applied to the observable lists in one batch.
+     * A full batch replaces the lists; a delta batch is patched in by key.
+     * Change log batches leave the sync position alone (null) and may leave out the
+     * notifications (null) when they didn't change.
+     */
+    private static class SyncBatch {
+        final boolean full;
+        final SyncPosition position;
+        // The change_log position the batch brings the lists to; -1 if it doesn't track the log
+        final long changeLogId;
+        final List<Flight> flights;
+        final List<BaggageItem> baggageItems;
+        final List<String> notifications;
+        final List<String> deletedFlights;
+        final List<String> deletedBaggage;
+        
+        SyncBatch(boolean full, SyncPosition position, long changeLogId, List<Flight> flights,
+                  List<BaggageItem> baggageItems, List<String> notifications,
+                  List<String> deletedFlights, List<String> deletedBaggage) {
+            this.full = full;
+            this.position = position;
+            this.changeLogId = changeLogId;
+            this.flights = flights;
+            this.baggageItems = baggageItems;
+            this.notifications = notifications;
+            this.deletedFlights = deletedFlights;
+            this.deletedBaggage = deletedBaggage;
+        }
+    }
+    
+    /**
+     * A flight status change to save with saveFlightStatusesAsync()
+     */
+    public static final class StatusUpdate {
+        private final String flightNumber;
+        private final String expectedStatus;
+        private final String status;
+        
+        /**
+         * @param flightNumber The flight
+         * @param expectedStatus The status the row must still have to be changed
+         * @param status The new status
+         */
+        public StatusUpdate(String flightNumber, String expectedStatus, String status) {
+            this.flightNumber = flightNumber;
+            this.expectedStatus = expectedStatus;
+            this.status = status;
+        }
+        
+        public String getFlightNumber() { return flightNumber; }
+        public String getExpectedStatus() { return expectedStatus; }
+        public String getStatus() { return status; }
+    }
+    
     /**
      * Data types for change notifications
      */
     public enum DataType {
-        FLIGHTS, BAGGAGE, NOTIFICATIONS, ALL
+        FLIGHTS, BAGGAGE, NOTIFICATIONS, BOOKINGS, ALL
     }
     
     /**
@@ -484,6 +1852,13 @@ public class DataService {
     public interface DataChangeListener {
         void onDataChanged(DataType dataType);
     }
+    
+    /**
+     * Interface for listeners that want to know which rows changed
+     */
+    public interface DataChangeEventListener {
+        void onDataChanged(DataChangeEvent event);
+    }
 
     // --- Service Requests ---
     /**
@@ -604,9 +1979,88 @@ public class DataService {
     /**
      * Get all reserved seats for a given flight number
      * @param flightNumber The flight number
-     * @return List of reserved seat numbers (e.g., "12A", "14C")
+     * @return List of reserved seat numbers (e.g., "A12", "C14")
+     * @throws SQLException If the seats can't be read
+     */
+    public List<String> getReservedSeatsForFlight(String flightNumber) throws SQLException {
+        return getSeatInventory(flightNumber).getTakenSeats();
+    }
+    
+    /**
+     * Get the seat inventory of a flight. The first call per flight reads the database; after
+     * that the cached bitset is returned immediately and refreshed in the background when stale.
+     * @param flightNumber The flight number
+     * @return The seat inventory
+     * @throws SQLException If the seats aren't cached and can't be read; nothing is cached then, so
+     * the next call tries again
+     */
+    public SeatInventory getSeatInventory(String flightNumber) throws SQLException {
+        return seatInventories.get(flightNumber);
+    }
+    
+    /**
+     * Like {@link #getSeatInventory(String)}, reading the database in the background when the
+     * flight's seats aren't cached yet
+     * @param flightNumber The flight number
+     * @return Future completing on the JavaFX thread with the seat inventory, or failing if the
+     * seats can't be read
+     */
+    public CompletableFuture<SeatInventory> getSeatInventoryAsync(String flightNumber) {
+        return submitAsync(() -> getSeatInventory(flightNumber), inventory -> { }, false);
+    }
+    
+    /**
+     * Store bookings in one transaction, all or none. Seats are held while the rows are inserted,
+     * so concurrent bookings in this application can't get the same seat, and the unique index on
+     * bookings (flight_id, active_seat) rejects a clash with another workstation.
+     * @param requests One request per seat; several for a group or family booking
+     * @return The stored bookings, in request order
+     * @throws SQLException If a seat is taken or the bookings could not be stored
      */
-    public List<String> getReservedSeatsForFlight(String flightNumber) {
+    public List<BookingPipeline.BookingConfirmation> book(List<BookingPipeline.BookingRequest> requests)
+            throws SQLException {
+        List<BookingPipeline.BookingConfirmation> confirmations = bookingPipeline.book(requests);
+        DataChangeEvent.Builder changes = new DataChangeEvent.Builder();
+        for (BookingPipeline.BookingConfirmation confirmation : confirmations) {
+            changes.updated(DataType.BOOKINGS, confirmation.getFlightNumber(), Set.of("seats"));
+        }
+        notifyDataChanged(changes);
+        return confirmations;
+    }
+    
+    /**
+     * Count the passengers connecting between flights: booked on a flight arriving since a day ago
+     * and on a later departure, within a day, from its destination. Runs in the background.
+     * @return Future completing on the JavaFX thread with the connections
+     */
+    public CompletableFuture<List<RotationGraph.Connection>> queryConnectionsAsync() {
+        return submitAsync(this::queryConnections, connections -> { }, false);
+    }
+    
+    private List<RotationGraph.Connection> queryConnections() throws SQLException {
+        List<RotationGraph.Connection> connections = new ArrayList<>();
+        String sql = "SELECT f1.flight_number AS inbound, f2.flight_number AS outbound, COUNT(*) AS passengers " +
+            "FROM bookings b1 " +
+            "JOIN flights f1 ON f1.flight_id = b1.flight_id " +
+            "JOIN bookings b2 ON b2.passenger_id = b1.passenger_id AND b2.booking_id <> b1.booking_id " +
+            "JOIN flights f2 ON f2.flight_id = b2.flight_id " +
+            "WHERE f1.arrival_time >= ? AND f2.origin = f1.destination " +
+            "AND f2.departure_time > f1.arrival_time AND f2.departure_time <= f1.arrival_time + INTERVAL '1' DAY " +
+            "AND b1.booking_status <> 'Cancelled' AND b2.booking_status <> 'Cancelled' " +
+            "GROUP BY f1.flight_number, f2.flight_number";
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                connections.add(new RotationGraph.Connection(rs.getString("inbound"), rs.getString("outbound"),
+                    rs.getInt("passengers")));
+            }
+        }
+        return connections;
+    }
+    
+    private List<String> queryReservedSeats(String flightNumber) throws SQLException {
         List<String> reservedSeats = new ArrayList<>();
         String sql = "SELECT b.seat_number FROM bookings b JOIN flights f ON b.flight_id = f.flight_id WHERE f.flight_number = ? AND b.seat_number IS NOT NULL AND b.booking_status IN ('Confirmed', 'Checked In')";
         try (Connection conn = dbConnection.getConnection();
@@ -616,8 +2070,6 @@ public class DataService {
             while (rs.next()) {
                 reservedSeats.add(rs.getString("seat_number"));
             }
-        } catch (SQLException e) {
-            System.err.println("Error fetching reserved seats: " + e.getMessage());
         }
         return reservedSeats;
     }
@@ -1,13 +1,9 @@
 package com.yousif.attemp2;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 
 /**
  * DatabaseConnection - Singleton class to manage database connections
@@ -16,14 +12,31 @@ public class DatabaseConnection {
     // Singleton instance
     private static DatabaseConnection instance;
     
-    // Database configuration
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/airport_management";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "Yousifxzz@#223";
+    // Database configuration (package-private for tools such as IndexBenchmark and DataGenerator)
+    static final String SERVER_URL = "jdbc:mysql://localhost:3306/";
+    static final String DB_NAME = "airport_management";
+    // Server-side prepared statements, so cached statements skip the parse/plan step on reuse;
+    // batched inserts are sent as one multi-row statement.
+    // The airport.db.* system properties point the app at another database (the benchmarks use H2)
+    private static final String DB_URL = System.getProperty("airport.db.url",
+        SERVER_URL + DB_NAME + "?useServerPrepStmts=true&rewriteBatchedStatements=true");
+    static final String DB_USER = System.getProperty("airport.db.user", "root");
+    static final String DB_PASSWORD = System.getProperty("airport.db.password", "Yousifxzz@#223");
     private static final String DB_DRIVER = "com.mysql.cj.jdbc.Driver";
     
-    // Connection object
-    private Connection connection;
+    // Connection pool configuration
+    private static final int POOL_MAX_SIZE = 10;
+    private static final int POOL_MIN_IDLE = 2;
+    private static final long POOL_BORROW_TIMEOUT_MS = 10_000;
+    private static final long POOL_IDLE_TIMEOUT_MS = 5 * 60_000;
+    private static final long POOL_MAX_LIFETIME_MS = 30 * 60_000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    
+    // Pool of physical connections shared by all callers
+    private final ConnectionPool connectionPool;
+    
+    // Latency, row and error statistics of every statement run through getConnection()
+    private final QueryMetrics queryMetrics = new QueryMetrics();
     
     // Private constructor for singleton pattern
     private DatabaseConnection() {
@@ -34,6 +47,8 @@ public class DatabaseConnection {
             System.err.println("MySQL JDBC Driver not found: " + e.getMessage());
             e.printStackTrace();
         }
+        connectionPool = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD, POOL_MAX_SIZE, POOL_MIN_IDLE,
+            POOL_BORROW_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_MAX_LIFETIME_MS, STATEMENT_CACHE_SIZE);
     }
     
     /**
@@ -48,97 +63,62 @@ public class DatabaseConnection {
     }
     
     /**
-     * Get a connection to the database
+     * Borrow a connection from the pool. Each call returns its own lease, and closing it
+     * (e.g. with try-with-resources) hands the connection back to the pool.
+     * Statements created from it are timed in the query metrics.
      * @return A Connection object
      * @throws SQLException If the connection cannot be established
      */
     public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-            } catch (SQLException e) {
-                System.err.println("Failed to connect to database: " + e.getMessage());
-                throw e;
-            }
+        long start = System.nanoTime();
+        try {
+            Connection connection = connectionPool.borrow();
+            queryMetrics.recordConnectionWait(System.nanoTime() - start);
+            return queryMetrics.instrument(connection);
+        } catch (SQLException e) {
+            System.err.println("Failed to connect to database: " + e.getMessage());
+            throw e;
         }
-        return connection;
     }
     
     /**
-     * Close the database connection
+     * Get pool usage, wait-time and statement cache metrics
+     * @return A snapshot of the connection pool statistics
+     */
+    public ConnectionPool.PoolStats getPoolStats() {
+        return connectionPool.getStats();
+    }
+    
+    /**
+     * Get per-statement latency, row and error statistics and the slow-query log
+     * @return The live query metrics
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+    
+    /**
+     * Close all pooled database connections
      */
     public void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
+        connectionPool.shutdown();
     }
     
     /**
-     * Initialize the database by executing the SQL script
-     * @return true if initialization was successful, false otherwise
+     * Create the database if needed and apply any pending schema migrations.
+     * Existing data is kept; see MigrationRunner.
+     * @return true if the schema is up to date, false otherwise
      */
     public boolean initializeDatabase() {
-        Connection conn = null;
-        Statement stmt = null;
-        
         try {
-            // First try to connect to MySQL server without specifying database
-            String rootUrl = "jdbc:mysql://localhost:3306/";
-            conn = DriverManager.getConnection(rootUrl, DB_USER, DB_PASSWORD);
-            
-            // Read SQL script from file
-            InputStream inputStream = getClass().getResourceAsStream("/com/yousif/attemp2/airport_management_database.sql");
-            if (inputStream == null) {
-                // Try loading from alternative location
-                inputStream = getClass().getResourceAsStream("/airport_management_database.sql");
-            }
-            
-            if (inputStream == null) {
-                System.err.println("Could not find SQL initialization script");
-                return false;
-            }
-            
-            // Read script content
-            StringBuilder scriptContent = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    scriptContent.append(line).append("\n");
-                }
-            }
-            
-            // Split script into separate statements
-            String[] statements = scriptContent.toString().split(";");
-            
-            // Execute each statement
-            stmt = conn.createStatement();
-            for (String statement : statements) {
-                String trimmedStatement = statement.trim();
-                if (!trimmedStatement.isEmpty()) {
-                    stmt.execute(trimmedStatement + ";");
-                }
-            }
-            
-            System.out.println("Database initialized successfully");
+            MigrationRunner runner = new MigrationRunner(SERVER_URL, DB_NAME, DB_USER, DB_PASSWORD);
+            int applied = runner.migrate();
+            System.out.println("Database schema up to date (" + applied + " migration(s) applied)");
             return true;
-            
-        } catch (SQLException | IOException e) {
+        } catch (SQLException e) {
             System.err.println("Error initializing database: " + e.getMessage());
             e.printStackTrace();
             return false;
-        } finally {
-            // Close resources
-            try {
-                if (stmt != null) stmt.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
     }
     
@@ -147,8 +127,7 @@ public class DatabaseConnection {
      * @return true if the connection is successful, false otherwise
      */
     public boolean testConnection() {
-        try {
-            Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
             boolean isValid = conn.isValid(5); // Test if connection is valid with 5 sec timeout
             return isValid;
         } catch (SQLException e) {
@@ -158,22 +137,27 @@ public class DatabaseConnection {
     }
     
     /**
-     * Execute a SELECT query and return the result set
+     * Execute a SELECT query and return the result set.
+     * The rows are copied into memory so the pooled connection is returned right away;
+     * callers don't need to close the returned ResultSet.
      * @param query The SQL query to execute
      * @param params Optional parameters for the prepared statement
      * @return ResultSet containing the query results
      * @throws SQLException If there is an error executing the query
      */
-    public java.sql.ResultSet executeQuery(String query, Object... params) throws SQLException {
-        var conn = getConnection();
-        var stmt = conn.prepareStatement(query);
-        
-        // Set parameters if any
-        for (int i = 0; i < params.length; i++) {
-            stmt.setObject(i + 1, params[i]);
+    public ResultSet executeQuery(String query, Object... params) throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            // Set parameters if any
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return DetachedResultSet.copyOf(rs);
+            }
         }
-        
-        return stmt.executeQuery();
     }
     
     /**
@@ -184,14 +168,15 @@ public class DatabaseConnection {
      * @throws SQLException If there is an error executing the query
      */
     public int executeUpdate(String query, Object... params) throws SQLException {
-        var conn = getConnection();
-        var stmt = conn.prepareStatement(query);
-        
-        // Set parameters if any
-        for (int i = 0; i < params.length; i++) {
-            stmt.setObject(i + 1, params[i]);
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            
+            // Set parameters if any
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            
+            return stmt.executeUpdate();
         }
-        
-        return stmt.executeUpdate();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.yousif.attemp2;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.util.Callback;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Function;
+
+/**
+ * DatabaseMetricsController - Admin view of per-statement query latency, the slow-query log and pool usage
+ */
+public class DatabaseMetricsController {
+    @FXML private VBox root;
+    @FXML private Label poolLabel;
+    @FXML private Label waitLabel;
+    @FXML private Spinner<Integer> slowThresholdSpinner;
+    @FXML private TableView<QueryMetrics.StatementStats> statementsTable;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> callsCol;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> errorsCol;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> rowsCol;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> meanCol;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> p50Col;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> p95Col;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> p99Col;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> maxCol;
+    @FXML private TableColumn<QueryMetrics.StatementStats, Number> totalCol;
+    @FXML private TableColumn<QueryMetrics.StatementStats, String> sqlCol;
+    @FXML private TableView<QueryMetrics.SlowQuery> slowTable;
+    @FXML private TableColumn<QueryMetrics.SlowQuery, String> slowAtCol;
+    @FXML private TableColumn<QueryMetrics.SlowQuery, Number> slowMillisCol;
+    @FXML private TableColumn<QueryMetrics.SlowQuery, String> slowThreadCol;
+    @FXML private TableColumn<QueryMetrics.SlowQuery, String> slowSqlCol;
+
+    private final DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+    private final QueryMetrics metrics = dbConnection.getQueryMetrics();
+    private final ObservableList<QueryMetrics.StatementStats> statements = FXCollections.observableArrayList();
+    private final ObservableList<QueryMetrics.SlowQuery> slowQueries = FXCollections.observableArrayList();
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    private Timeline refreshTimeline;
+
+    @FXML
+    public void initialize() {
+        setupTables();
+        slowThresholdSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(
+            1, 60_000, (int) metrics.getSlowQueryThresholdMillis(), 50));
+        slowThresholdSpinner.valueProperty().addListener((obs, oldValue, newValue) -> {
+            if (newValue != null) {
+                metrics.setSlowQueryThresholdMillis(newValue);
+            }
+        });
+
+        refreshMetrics();
+        refreshTimeline = new Timeline(new KeyFrame(Duration.seconds(2), event -> refreshMetrics()));
+        refreshTimeline.setCycleCount(Timeline.INDEFINITE);
+        refreshTimeline.play();
+        // Stop refreshing once another module replaces this view
+        root.parentProperty().addListener((obs, oldParent, newParent) -> {
+            if (newParent == null) {
+                refreshTimeline.stop();
+            }
+        });
+    }
+
+    private void setupTables() {
+        numberColumn(callsCol, QueryMetrics.StatementStats::getCalls, "%d");
+        numberColumn(errorsCol, QueryMetrics.StatementStats::getErrors, "%d");
+        numberColumn(rowsCol, QueryMetrics.StatementStats::getRows, "%d");
+        numberColumn(meanCol, stats -> stats.getLatency().getMeanMillis(), "%.2f");
+        numberColumn(p50Col, stats -> stats.getLatency().getPercentileMillis(50), "%.2f");
+        numberColumn(p95Col, stats -> stats.getLatency().getPercentileMillis(95), "%.2f");
+        numberColumn(p99Col, stats -> stats.getLatency().getPercentileMillis(99), "%.2f");
+        numberColumn(maxCol, stats -> stats.getLatency().getMaxMillis(), "%.2f");
+        numberColumn(totalCol, QueryMetrics.StatementStats::getTotalMillis, "%.1f");
+        sqlCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getSql()));
+        statementsTable.setItems(statements);
+
+        slowAtCol.setCellValueFactory(cell -> new SimpleStringProperty(formatter.format(cell.getValue().getAt())));
+        numberColumn(slowMillisCol, QueryMetrics.SlowQuery::getMillis, "%.2f");
+        slowThreadCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getThread()));
+        slowSqlCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            (cell.getValue().isFailed() ? "FAILED " : "") + cell.getValue().getSql()));
+        slowTable.setItems(slowQueries);
+    }
+
+    private <S> void numberColumn(TableColumn<S, Number> column, Function<S, Number> value, String format) {
+        column.setCellValueFactory(cell -> new SimpleObjectProperty<>(value.apply(cell.getValue())));
+        Callback<TableColumn<S, Number>, TableCell<S, Number>> cellFactory = col -> new TableCell<S, Number>() {
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format(format, item));
+            }
+        };
+        column.setCellFactory(cellFactory);
+    }
+
+    @FXML
+    private void refreshMetrics() {
+        ConnectionPool.PoolStats pool = dbConnection.getPoolStats();
+        poolLabel.setText(String.format("Pool: %d active, %d idle of %d (peak %d), %d timeouts, statement cache hit ratio %.0f%%",
+            pool.getActive(), pool.getIdle(), pool.getMaxSize(), pool.getPeakActive(), pool.getBorrowTimeouts(),
+            pool.getStatementCacheHitRatio() * 100));
+        LatencyHistogram wait = metrics.getConnectionWait();
+        waitLabel.setText(String.format("Connection wait: %d borrows, mean %.2f ms, p99 %.2f ms, max %.2f ms (since %s)",
+            wait.getCount(), wait.getMeanMillis(), wait.getPercentileMillis(99), wait.getMaxMillis(),
+            formatter.format(metrics.getSince())));
+
+        // Keep the user's sort order across refreshes
+        statements.setAll(metrics.getStatementStats());
+        statementsTable.sort();
+        statementsTable.refresh();
+        slowQueries.setAll(metrics.getSlowQueries());
+    }
+
+    @FXML
+    private void resetMetrics() {
+        metrics.reset();
+        refreshMetrics();
+    }
+
+    @FXML
+    private void dumpMetrics() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Dump Query Metrics");
+        chooser.setInitialFileName("query-metrics-"
+            + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + ".txt");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text files", "*.txt"));
+        File file = chooser.showSaveDialog(root.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            metrics.dump(file.toPath());
+            showAlert(Alert.AlertType.INFORMATION, "Query Metrics", "Metrics written to " + file.getAbsolutePath());
+        } catch (IOException e) {
+            showAlert(Alert.AlertType.ERROR, "Error", "Failed to write metrics: " + e.getMessage());
+        }
+    }
+
+    private void showAlert(Alert.AlertType type, String title, String content) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,116 @@
+package com.yousif.attemp2;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DelayImpact - What a delay update changed downstream, as computed by DelayPropagationEngine
+ */
+public final class DelayImpact {
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    // Flights listed in full by describe(); the rest are counted
+    private static final int LISTED_FLIGHTS = 10;
+
+    private final List<FlightEstimate> changedFlights;
+    private final int passengersNowMissing;
+    private final int passengersRecovered;
+    private final int missedPassengers;
+    private final long elapsedMicros;
+
+    DelayImpact(List<FlightEstimate> changedFlights, int passengersNowMissing, int passengersRecovered,
+                int missedPassengers, long elapsedMicros) {
+        this.changedFlights = Collections.unmodifiableList(changedFlights);
+        this.passengersNowMissing = passengersNowMissing;
+        this.passengersRecovered = passengersRecovered;
+        this.missedPassengers = missedPassengers;
+        this.elapsedMicros = elapsedMicros;
+    }
+
+    /**
+     * @return The flights whose estimated departure changed, the delayed flights themselves
+     *         included, by estimated departure
+     */
+    public List<FlightEstimate> getChangedFlights() { return changedFlights; }
+
+    /**
+     * @return Passengers who now miss a connection they made before
+     */
+    public int getPassengersNowMissing() { return passengersNowMissing; }
+
+    /**
+     * @return Passengers who now make a connection they missed before
+     */
+    public int getPassengersRecovered() { return passengersRecovered; }
+
+    /**
+     * @return Passengers missing a connection across the whole schedule, after the update
+     */
+    public int getMissedPassengers() { return missedPassengers; }
+
+    /**
+     * @return How long the update took to compute
+     */
+    public long getElapsedMicros() { return elapsedMicros; }
+
+    /**
+     * @return Whether any other flight or connection was affected
+     */
+    public boolean hasKnockOn() {
+        return changedFlights.size() > 1 || passengersNowMissing > 0 || passengersRecovered > 0;
+    }
+
+    /**
+     * @return A summary for operators, one line per affected flight
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        int listed = 0;
+        for (FlightEstimate estimate : changedFlights) {
+            if (listed++ == LISTED_FLIGHTS) {
+                text.append("... and ").append(changedFlights.size() - LISTED_FLIGHTS).append(" more flights\n");
+                break;
+            }
+            text.append(estimate.flightNumber).append(": estimated ")
+                .append(estimate.estimatedDeparture.format(TIME_FORMATTER))
+                .append(" (+").append(estimate.delayMinutes).append(" min)\n");
+        }
+        text.append(passengersNowMissing).append(" passengers now miss their connection");
+        if (passengersRecovered > 0) {
+            text.append(", ").append(passengersRecovered).append(" make theirs again");
+        }
+        text.append(" (").append(missedPassengers).append(" missing connections in total)");
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "DelayImpact{flights=" + changedFlights.size() + ", nowMissing=" + passengersNowMissing
+            + ", recovered=" + passengersRecovered + ", missed=" + missedPassengers + ", " + elapsedMicros + "us}";
+    }
+
+    /**
+     * A flight's new estimated departure
+     */
+    public static final class FlightEstimate {
+        private final String flightNumber;
+        private final LocalDateTime estimatedDeparture;
+        private final long delayMinutes;
+
+        FlightEstimate(String flightNumber, LocalDateTime estimatedDeparture, long delayMinutes) {
+            this.flightNumber = flightNumber;
+            this.estimatedDeparture = estimatedDeparture;
+            this.delayMinutes = delayMinutes;
+        }
+
+        public String getFlightNumber() { return flightNumber; }
+        public LocalDateTime getEstimatedDeparture() { return estimatedDeparture; }
+
+        /**
+         * @return Minutes after the departure time the graph was built with
+         */
+        public long getDelayMinutes() { return delayMinutes; }
+    }
+}
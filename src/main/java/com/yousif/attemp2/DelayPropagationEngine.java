@@ -0,0 +1,282 @@
+package com.yousif.attemp2;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DelayPropagationEngine - Pushes delays through a RotationGraph and keeps estimated times and
+ * missed connections up to date.
+ *
+ * A flight leaves at the later of its own estimate and its inbound aircraft's estimated arrival
+ * plus the minimum turn, and arrives as late as it leaves. A connection is missed when the
+ * arriving leg lands less than MIN_CONNECTION_MILLIS before the departing leg leaves.
+ *
+ * Updates are incremental: only the rotation downstream of a changed flight is walked, stopping
+ * where the delay is absorbed by slack in the turn, and only the connections of flights whose
+ * estimate changed are checked again. Rotations are disjoint chains, so when many flights change
+ * at once (a ground stop, a reload) the chains are walked in parallel with fork-join, and the
+ * connection checks of the changed flights fanned out the same way. Small updates stay on the
+ * calling thread.
+ */
+public class DelayPropagationEngine {
+    public static final long MIN_CONNECTION_MILLIS = 45 * 60 * 1000L;
+
+    // Below this many chains or flights, work isn't split further
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    private final RotationGraph graph;
+    private final ForkJoinPool pool;
+
+    // Delay entered for each flight itself, and the resulting estimates
+    private final long[] ownDelay;
+    private final long[] estimatedDeparture;
+    private final long[] estimatedArrival;
+
+    // 1 where a connection is currently missed
+    private final AtomicIntegerArray missed;
+    private int missedPassengers;
+
+    /**
+     * @param graph The flights and how they depend on each other
+     */
+    public DelayPropagationEngine(RotationGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param graph The flights and how they depend on each other
+     * @param pool Runs the parallel parts of large updates
+     */
+    public DelayPropagationEngine(RotationGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+        int n = graph.size();
+        ownDelay = new long[n];
+        estimatedDeparture = graph.departures.clone();
+        estimatedArrival = graph.arrivals.clone();
+        missed = new AtomicIntegerArray(graph.connectionCount());
+        for (int e = 0; e < graph.connectionCount(); e++) {
+            if (isMissed(e)) {
+                missed.set(e, 1);
+                missedPassengers += graph.connectionPassengers[e];
+            }
+        }
+    }
+
+    /**
+     * Set a flight's own estimated departure and propagate the change
+     * @param flightNumber The flight
+     * @param estimatedDeparture Its new estimated departure
+     * @return What changed as a result
+     */
+    public DelayImpact update(String flightNumber, LocalDateTime estimatedDeparture) {
+        return update(Collections.singletonMap(flightNumber, estimatedDeparture));
+    }
+
+    /**
+     * Set the estimated departures of several flights and propagate the changes together
+     * @param departures New estimated departure by flight number; unknown flights are ignored
+     * @return What changed as a result
+     */
+    public synchronized DelayImpact update(Map<String, LocalDateTime> departures) {
+        long started = System.nanoTime();
+        boolean[] seeds = new boolean[graph.size()];
+        List<Integer> seeded = new ArrayList<>();
+        for (Map.Entry<String, LocalDateTime> entry : departures.entrySet()) {
+            int node = graph.indexOf(entry.getKey());
+            if (node >= 0) {
+                ownDelay[node] = RotationGraph.toMillis(entry.getValue()) - graph.departures[node];
+                if (!seeds[node]) {
+                    seeds[node] = true;
+                    seeded.add(node);
+                }
+            }
+        }
+
+        // Walk each affected chain once, from its first changed flight
+        List<Integer> roots = new ArrayList<>();
+        for (int seed : seeded) {
+            boolean upstreamSeed = false;
+            for (int leg = graph.previous[seed]; leg >= 0 && !upstreamSeed; leg = graph.previous[leg]) {
+                upstreamSeed = seeds[leg];
+            }
+            if (!upstreamSeed) {
+                roots.add(seed);
+            }
+        }
+        ConcurrentLinkedQueue<Integer> changedQueue = new ConcurrentLinkedQueue<>();
+        run(new ChainTask(roots, 0, roots.size(), seeds, changedQueue), roots.size());
+        int[] changed = changedQueue.stream().mapToInt(Integer::intValue).toArray();
+
+        LongAdder nowMissed = new LongAdder();
+        LongAdder recovered = new LongAdder();
+        run(new ConnectionTask(changed, 0, changed.length, nowMissed, recovered), changed.length);
+        missedPassengers += (int) (nowMissed.sum() - recovered.sum());
+
+        // Sorted on the raw times; converting them is the costly part
+        long[] byDeparture = new long[changed.length];
+        for (int i = 0; i < changed.length; i++) {
+            byDeparture[i] = estimatedDeparture[changed[i]];
+        }
+        Integer[] order = new Integer[changed.length];
+        for (int i = 0; i < changed.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(byDeparture[a], byDeparture[b]));
+        ZoneId zone = ZoneId.systemDefault();
+        List<DelayImpact.FlightEstimate> estimates = new ArrayList<>(changed.length);
+        for (int i : order) {
+            int node = changed[i];
+            estimates.add(new DelayImpact.FlightEstimate(graph.flightNumbers[node],
+                toLocal(byDeparture[i], zone), (byDeparture[i] - graph.departures[node]) / 60_000));
+        }
+        return new DelayImpact(estimates, (int) nowMissed.sum(), (int) recovered.sum(), missedPassengers,
+            (System.nanoTime() - started) / 1000);
+    }
+
+    /**
+     * @param flightNumber A flight
+     * @return Its current estimated departure, or null if it isn't in the graph
+     */
+    public synchronized LocalDateTime getEstimatedDeparture(String flightNumber) {
+        int node = graph.indexOf(flightNumber);
+        return node < 0 ? null : toLocal(estimatedDeparture[node], ZoneId.systemDefault());
+    }
+
+    /**
+     * @return Passengers currently set to miss a connection
+     */
+    public synchronized int getMissedPassengers() {
+        return missedPassengers;
+    }
+
+    private void run(RecursiveAction task, int size) {
+        // Small updates aren't worth handing to the pool
+        if (size > SEQUENTIAL_THRESHOLD) {
+            pool.invoke(task);
+        } else {
+            task.invoke();
+        }
+    }
+
+    /**
+     * Recompute the estimates along one rotation, from a flight to the end, skipping ahead from
+     * where a delay is absorbed to the next flight with a change of its own
+     */
+    private void walkChain(int root, boolean[] seeds, ConcurrentLinkedQueue<Integer> changed) {
+        int leg = root;
+        while (leg >= 0) {
+            long departure = graph.departures[leg] + ownDelay[leg];
+            int inbound = graph.previous[leg];
+            if (inbound >= 0) {
+                departure = Math.max(departure, estimatedArrival[inbound] + RotationGraph.MIN_TURN_MILLIS);
+            }
+            // Never earlier than scheduled
+            departure = Math.max(departure, graph.departures[leg]);
+            if (departure != estimatedDeparture[leg]) {
+                estimatedDeparture[leg] = departure;
+                estimatedArrival[leg] = graph.arrivals[leg] + (departure - graph.departures[leg]);
+                changed.add(leg);
+                leg = graph.next[leg];
+                continue;
+            }
+            do {
+                leg = graph.next[leg];
+            } while (leg >= 0 && !seeds[leg]);
+        }
+    }
+
+    private boolean isMissed(int edge) {
+        return estimatedArrival[graph.connectionFrom[edge]] + MIN_CONNECTION_MILLIS
+            > estimatedDeparture[graph.connectionTo[edge]];
+    }
+
+    private void recheck(int edge, LongAdder nowMissed, LongAdder recovered) {
+        // Both legs may have changed; the flag decides which task counts the edge
+        int state = isMissed(edge) ? 1 : 0;
+        if (missed.compareAndSet(edge, 1 - state, state)) {
+            (state == 1 ? nowMissed : recovered).add(graph.connectionPassengers[edge]);
+        }
+    }
+
+    private static LocalDateTime toLocal(long millis, ZoneId zone) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    // Fork/join tasks are never serialized, so neither task defines a serialVersionUID
+    @SuppressWarnings("serial")
+    private final class ChainTask extends RecursiveAction {
+        private final List<Integer> roots;
+        private final int from;
+        private final int to;
+        private final boolean[] seeds;
+        private final ConcurrentLinkedQueue<Integer> changed;
+
+        ChainTask(List<Integer> roots, int from, int to, boolean[] seeds, ConcurrentLinkedQueue<Integer> changed) {
+            this.roots = roots;
+            this.from = from;
+            this.to = to;
+            this.seeds = seeds;
+            this.changed = changed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    walkChain(roots.get(i), seeds, changed);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChainTask(roots, from, middle, seeds, changed),
+                new ChainTask(roots, middle, to, seeds, changed));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class ConnectionTask extends RecursiveAction {
+        private final int[] nodes;
+        private final int from;
+        private final int to;
+        private final LongAdder nowMissed;
+        private final LongAdder recovered;
+
+        ConnectionTask(int[] nodes, int from, int to, LongAdder nowMissed, LongAdder recovered) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.nowMissed = nowMissed;
+            this.recovered = recovered;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    for (int edge : graph.connectionsOut[nodes[i]]) {
+                        recheck(edge, nowMissed, recovered);
+                    }
+                    for (int edge : graph.connectionsIn[nodes[i]]) {
+                        recheck(edge, nowMissed, recovered);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ConnectionTask(nodes, from, middle, nowMissed, recovered),
+                new ConnectionTask(nodes, middle, to, nowMissed, recovered));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.yousif.attemp2;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * DetachedResultSet - Read-only, forward-only copy of a ResultSet held in memory.
+ *
+ * DatabaseConnection.executeQuery() returns one of these so the pooled connection can be
+ * returned immediately, even though callers never close the ResultSet they get back.
+ * Columns are looked up by label, so aliases such as "COUNT(*) as flight_count" work.
+ */
+class DetachedResultSet implements InvocationHandler {
+    private final ResultSetMetaData metaData;
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final List<Object[]> rows = new ArrayList<>();
+    private int cursor = -1;
+    private boolean lastWasNull;
+    private boolean closed;
+
+    private DetachedResultSet(ResultSet source) throws SQLException {
+        metaData = source.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        int[] types = new int[columnCount];
+        for (int i = 1; i <= columnCount; i++) {
+            types[i - 1] = metaData.getColumnType(i);
+            // First occurrence wins, like the driver does for duplicate labels
+            columnIndexes.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        while (source.next()) {
+            Object[] row = new Object[columnCount];
+            for (int i = 1; i <= columnCount; i++) {
+                row[i - 1] = readValue(source, i, types[i - 1]);
+            }
+            rows.add(row);
+        }
+    }
+
+    /**
+     * Copy all remaining rows of a ResultSet into memory
+     * @param source The live ResultSet; it is not closed by this method
+     * @return A ResultSet that no longer needs the originating connection
+     * @throws SQLException If reading the source fails
+     */
+    static ResultSet copyOf(ResultSet source) throws SQLException {
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[] { ResultSet.class },
+            new DetachedResultSet(source));
+    }
+
+    private static Object readValue(ResultSet source, int column, int type) throws SQLException {
+        // Keep the java.sql temporal types callers already expect from the driver
+        switch (type) {
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return source.getTimestamp(column);
+            case Types.DATE:
+                return source.getDate(column);
+            case Types.TIME:
+                return source.getTime(column);
+            default:
+                return source.getObject(column);
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "next":
+                checkOpen();
+                if (cursor < rows.size()) {
+                    cursor++;
+                }
+                return cursor < rows.size();
+            case "close":
+                closed = true;
+                return null;
+            case "isClosed":
+                return closed;
+            case "wasNull":
+                return lastWasNull;
+            case "getMetaData":
+                return metaData;
+            case "findColumn":
+                return columnIndex(args[0]);
+            case "getRow":
+                return cursor >= 0 && cursor < rows.size() ? cursor + 1 : 0;
+            case "isBeforeFirst":
+                return cursor == -1 && !rows.isEmpty();
+            case "isAfterLast":
+                return cursor >= rows.size() && !rows.isEmpty();
+            case "getType":
+                return ResultSet.TYPE_FORWARD_ONLY;
+            case "getConcurrency":
+                return ResultSet.CONCUR_READ_ONLY;
+            case "getWarnings":
+            case "getStatement":
+                return null;
+            case "clearWarnings":
+                return null;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "DetachedResultSet[" + rows.size() + " rows]";
+            default:
+                break;
+        }
+
+        if (name.startsWith("get") && args != null && args.length >= 1) {
+            Object value = currentValue(args[0]);
+            return convert(value, method.getReturnType(), args.length > 1 ? args[1] : null);
+        }
+        throw new SQLFeatureNotSupportedException(name + " is not supported on a detached result set");
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed");
+        }
+    }
+
+    private int columnIndex(Object column) throws SQLException {
+        if (column instanceof Integer) {
+            int index = (Integer) column;
+            if (index < 1 || index > metaData.getColumnCount()) {
+                throw new SQLException("Column index out of range: " + index);
+            }
+            return index;
+        }
+        Integer index = columnIndexes.get(String.valueOf(column).toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new SQLException("Column '" + column + "' not found");
+        }
+        return index;
+    }
+
+    private Object currentValue(Object column) throws SQLException {
+        checkOpen();
+        if (cursor < 0 || cursor >= rows.size()) {
+            throw new SQLException("No current row");
+        }
+        Object value = rows.get(cursor)[columnIndex(column) - 1];
+        lastWasNull = value == null;
+        return value;
+    }
+
+    private static Object convert(Object value, Class<?> type, Object extraArgument) throws SQLException {
+        if (type == Object.class) {
+            if (extraArgument instanceof Class) {
+                return convert(value, (Class<?>) extraArgument, null);
+            }
+            return value;
+        }
+        if (type == String.class) {
+            return value == null ? null : String.valueOf(value);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            if (value == null) return type == boolean.class ? false : null;
+            if (value instanceof Boolean) return value;
+            if (value instanceof Number) return ((Number) value).intValue() != 0;
+            return "true".equalsIgnoreCase(value.toString()) || "1".equals(value.toString());
+        }
+        if (type == int.class || type == Integer.class) {
+            return value == null ? (type == int.class ? 0 : null) : toNumber(value).intValue();
+        }
+        if (type == long.class || type == Long.class) {
+            return value == null ? (type == long.class ? 0L : null) : toNumber(value).longValue();
+        }
+        if (type == double.class || type == Double.class) {
+            return value == null ? (type == double.class ? 0d : null) : toNumber(value).doubleValue();
+        }
+        if (type == float.class || type == Float.class) {
+            return value == null ? (type == float.class ? 0f : null) : toNumber(value).floatValue();
+        }
+        if (type == short.class || type == Short.class) {
+            return value == null ? (type == short.class ? (short) 0 : null) : toNumber(value).shortValue();
+        }
+        if (type == BigDecimal.class) {
+            if (value == null || value instanceof BigDecimal) return value;
+            return new BigDecimal(value.toString());
+        }
+        if (type == Timestamp.class) {
+            if (value == null || value instanceof Timestamp) return value;
+            if (value instanceof LocalDateTime) return Timestamp.valueOf((LocalDateTime) value);
+            if (value instanceof Date) return new Timestamp(((Date) value).getTime());
+        }
+        if (type == Date.class) {
+            if (value == null || value instanceof Date) return value;
+            if (value instanceof Timestamp) return Date.valueOf(((Timestamp) value).toLocalDateTime().toLocalDate());
+            if (value instanceof LocalDate) return Date.valueOf((LocalDate) value);
+        }
+        if (type == Time.class) {
+            if (value == null || value instanceof Time) return value;
+            if (value instanceof Timestamp) return Time.valueOf(((Timestamp) value).toLocalDateTime().toLocalTime());
+        }
+        if (type == LocalDateTime.class && value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+        throw new SQLException("Cannot convert " + value.getClass().getSimpleName() + " to " + type.getSimpleName());
+    }
+
+    private static Number toNumber(Object value) throws SQLException {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        try {
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Value '" + value + "' is not numeric", e);
+        }
+    }
+}
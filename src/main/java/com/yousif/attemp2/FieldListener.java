@@ -0,0 +1,20 @@
+package com.yousif.attemp2;
+
+/**
+ * FieldListener - Told when a field of a model object (Flight, BaggageItem) changes.
+ *
+ * Model objects keep their data in plain fields and only create JavaFX properties when a view asks
+ * for one, so this is how headless code follows changes. It fires for changes made through the
+ * setters and through a property created later, on the thread that made the change.
+ *
+ * @param <T> The type of the model object
+ */
+@FunctionalInterface
+public interface FieldListener<T> {
+    /**
+     * Called after a field has been set to a different value
+     * @param item The changed object
+     * @param field Name of the field, the same as its property, e.g. "status"
+     */
+    void fieldChanged(T item, String field);
+}
@@ -0,0 +1,66 @@
+package com.yousif.attemp2;
+
+import javafx.beans.property.ObjectPropertyBase;
+import javafx.beans.property.StringPropertyBase;
+
+/**
+ * FieldProperties - JavaFX properties that model objects create on first use from a plain field.
+ *
+ * Once created, the property holds the value. Every change is reported to the owner's callback,
+ * whether it comes from set(), a binding, or a bidirectional binding with a control.
+ */
+final class FieldProperties {
+    private FieldProperties() {
+    }
+
+    static final class StringField extends StringPropertyBase {
+        private final Object bean;
+        private final String name;
+        private final Runnable onChange;
+
+        StringField(Object bean, String name, String initialValue, Runnable onChange) {
+            super(initialValue);
+            this.bean = bean;
+            this.name = name;
+            this.onChange = onChange;
+        }
+
+        @Override
+        protected void invalidated() {
+            // Validate again at once, or a second change before anyone reads the value goes unreported
+            get();
+            onChange.run();
+        }
+
+        @Override
+        public Object getBean() { return bean; }
+
+        @Override
+        public String getName() { return name; }
+    }
+
+    static final class ObjectField<T> extends ObjectPropertyBase<T> {
+        private final Object bean;
+        private final String name;
+        private final Runnable onChange;
+
+        ObjectField(Object bean, String name, T initialValue, Runnable onChange) {
+            super(initialValue);
+            this.bean = bean;
+            this.name = name;
+            this.onChange = onChange;
+        }
+
+        @Override
+        protected void invalidated() {
+            get();
+            onChange.run();
+        }
+
+        @Override
+        public Object getBean() { return bean; }
+
+        @Override
+        public String getName() { return name; }
+    }
+}
@@ -1,63 +1,83 @@
 package com.yousif.attemp2;
 
 import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Objects;
 
+/**
+ * Flight - A scheduled flight.
+ *
+ * Fields are plain values; the JavaFX property for a field is only created when a view asks for
+ * it, so headless code (DataService without a UI, tools, benchmarks) carries no property objects.
+ * Changes made either way are reported to the {@link FieldListener}, if one is set.
+ */
 public class Flight {
-    private final StringProperty flightNumber;
-    private final StringProperty airline;
-    private final StringProperty origin;
-    private final StringProperty destination;
-    private final ObjectProperty<LocalDateTime> departureTime;
-    private final ObjectProperty<LocalDateTime> arrivalTime;
-    private final StringProperty gate;
-    private final StringProperty status;
-    private StringProperty terminal;
+    private String flightNumber;
+    private String airline;
+    private String origin;
+    private String destination;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private String gate;
+    private String status;
+    private String terminal;
     private double price;
     
+    // Created on first use by the matching xxxProperty() method
+    private StringProperty flightNumberProperty;
+    private StringProperty airlineProperty;
+    private StringProperty originProperty;
+    private StringProperty destinationProperty;
+    private ObjectProperty<LocalDateTime> departureTimeProperty;
+    private ObjectProperty<LocalDateTime> arrivalTimeProperty;
+    private StringProperty gateProperty;
+    private StringProperty statusProperty;
+    private StringProperty terminalProperty;
+    
+    private FieldListener<? super Flight> fieldListener;
+    
     // Formatter for time strings
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
     
     // Original constructor
     public Flight(String flightNumber, String destination, String time, String gate, String status) {
-        this.flightNumber = new SimpleStringProperty(flightNumber);
-        this.airline = new SimpleStringProperty("");
-        this.origin = new SimpleStringProperty("");
-        this.destination = new SimpleStringProperty(destination);
-        this.departureTime = new SimpleObjectProperty<>(LocalDateTime.now());
-        this.arrivalTime = new SimpleObjectProperty<>(LocalDateTime.now());
-        this.gate = new SimpleStringProperty(gate);
-        this.status = new SimpleStringProperty(status);
-        this.terminal = new SimpleStringProperty(gate.length() > 0 ? gate.substring(0, 1) : "A");
+        this.flightNumber = flightNumber;
+        this.airline = "";
+        this.origin = "";
+        this.destination = destination;
+        this.departureTime = LocalDateTime.now();
+        this.arrivalTime = LocalDateTime.now();
+        this.gate = gate;
+        this.status = status;
+        this.terminal = gate.length() > 0 ? gate.substring(0, 1) : "A";
     }
     
     // Extended constructor for user portal
     public Flight(String flightNumber, String airline, String origin, String destination, 
                  LocalDateTime departureTime, LocalDateTime arrivalTime, String status) {
-        this.flightNumber = new SimpleStringProperty(flightNumber);
-        this.airline = new SimpleStringProperty(airline);
-        this.origin = new SimpleStringProperty(origin);
-        this.destination = new SimpleStringProperty(destination);
-        this.departureTime = new SimpleObjectProperty<>(departureTime);
-        this.arrivalTime = new SimpleObjectProperty<>(arrivalTime);
-        this.gate = new SimpleStringProperty("");
-        this.status = new SimpleStringProperty(status);
-        this.terminal = new SimpleStringProperty("A");
+        this.flightNumber = flightNumber;
+        this.airline = airline;
+        this.origin = origin;
+        this.destination = destination;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.gate = "";
+        this.status = status;
+        this.terminal = "A";
         this.price = 199.99; // Default price
     }
     
     // Constructor for flight schedule changes (used in FlightOperationsController)
     public Flight(String flightNumber, String airline, String destination, String departureText, 
                   String status, String terminal, String gate) {
-        this.flightNumber = new SimpleStringProperty(flightNumber);
-        this.airline = new SimpleStringProperty(airline);
-        this.origin = new SimpleStringProperty("");
-        this.destination = new SimpleStringProperty(destination);
+        this.flightNumber = flightNumber;
+        this.airline = airline;
+        this.origin = "";
+        this.destination = destination;
         
         // Parse the departure time from string format HH:mm
         LocalDateTime parsedTime;
@@ -74,89 +94,158 @@ public class Flight {
             parsedTime = LocalDateTime.now();
         }
         
-        this.departureTime = new SimpleObjectProperty<>(parsedTime);
-        this.arrivalTime = new SimpleObjectProperty<>(parsedTime.plusHours(2)); // Default 2-hour flight
-        this.gate = new SimpleStringProperty(gate);
-        this.status = new SimpleStringProperty(status);
-        this.terminal = new SimpleStringProperty(terminal);
+        this.departureTime = parsedTime;
+        this.arrivalTime = parsedTime.plusHours(2); // Default 2-hour flight
+        this.gate = gate;
+        this.status = status;
+        this.terminal = terminal;
+    }
+    
+    /**
+     * Set the listener told about field changes, replacing any previous one.
+     * DataService sets this on the flights in its list to keep its indexes current.
+     * @param listener The listener, or null to remove it
+     */
+    void setFieldListener(FieldListener<? super Flight> listener) {
+        this.fieldListener = listener;
+    }
+    
+    private void fieldChanged(String field) {
+        if (fieldListener != null) {
+            fieldListener.fieldChanged(this, field);
+        }
     }
     
     // Flight Number
     public String getFlightNumber() {
-        return flightNumber.get();
+        return flightNumberProperty != null ? flightNumberProperty.get() : flightNumber;
     }
     
     public void setFlightNumber(String value) {
-        flightNumber.set(value);
+        if (flightNumberProperty != null) {
+            flightNumberProperty.set(value);
+        } else if (!Objects.equals(flightNumber, value)) {
+            flightNumber = value;
+            fieldChanged("flightNumber");
+        }
     }
     
     public StringProperty flightNumberProperty() {
-        return flightNumber;
+        if (flightNumberProperty == null) {
+            flightNumberProperty = new FieldProperties.StringField(this, "flightNumber", flightNumber,
+                () -> fieldChanged("flightNumber"));
+        }
+        return flightNumberProperty;
     }
     
     // Airline
     public String getAirline() {
-        return airline.get();
+        return airlineProperty != null ? airlineProperty.get() : airline;
     }
     
     public void setAirline(String value) {
-        airline.set(value);
+        if (airlineProperty != null) {
+            airlineProperty.set(value);
+        } else if (!Objects.equals(airline, value)) {
+            airline = value;
+            fieldChanged("airline");
+        }
     }
     
     public StringProperty airlineProperty() {
-        return airline;
+        if (airlineProperty == null) {
+            airlineProperty = new FieldProperties.StringField(this, "airline", airline,
+                () -> fieldChanged("airline"));
+        }
+        return airlineProperty;
     }
     
     // Origin
     public String getOrigin() {
-        return origin.get();
+        return originProperty != null ? originProperty.get() : origin;
     }
     
     public void setOrigin(String value) {
-        origin.set(value);
+        if (originProperty != null) {
+            originProperty.set(value);
+        } else if (!Objects.equals(origin, value)) {
+            origin = value;
+            fieldChanged("origin");
+        }
     }
     
     public StringProperty originProperty() {
-        return origin;
+        if (originProperty == null) {
+            originProperty = new FieldProperties.StringField(this, "origin", origin,
+                () -> fieldChanged("origin"));
+        }
+        return originProperty;
     }
     
     // Destination
     public String getDestination() {
-        return destination.get();
+        return destinationProperty != null ? destinationProperty.get() : destination;
     }
     
     public void setDestination(String value) {
-        destination.set(value);
+        if (destinationProperty != null) {
+            destinationProperty.set(value);
+        } else if (!Objects.equals(destination, value)) {
+            destination = value;
+            fieldChanged("destination");
+        }
     }
     
     public StringProperty destinationProperty() {
-        return destination;
+        if (destinationProperty == null) {
+            destinationProperty = new FieldProperties.StringField(this, "destination", destination,
+                () -> fieldChanged("destination"));
+        }
+        return destinationProperty;
     }
     
     // Departure Time
     public LocalDateTime getDepartureTime() {
-        return departureTime.get();
+        return departureTimeProperty != null ? departureTimeProperty.get() : departureTime;
     }
     
     public void setDepartureTime(LocalDateTime value) {
-        departureTime.set(value);
+        if (departureTimeProperty != null) {
+            departureTimeProperty.set(value);
+        } else if (!Objects.equals(departureTime, value)) {
+            departureTime = value;
+            fieldChanged("departureTime");
+        }
     }
     
     public ObjectProperty<LocalDateTime> departureTimeProperty() {
-        return departureTime;
+        if (departureTimeProperty == null) {
+            departureTimeProperty = new FieldProperties.ObjectField<>(this, "departureTime", departureTime,
+                () -> fieldChanged("departureTime"));
+        }
+        return departureTimeProperty;
     }
     
     // Arrival Time
     public LocalDateTime getArrivalTime() {
-        return arrivalTime.get();
+        return arrivalTimeProperty != null ? arrivalTimeProperty.get() : arrivalTime;
     }
     
     public void setArrivalTime(LocalDateTime value) {
-        arrivalTime.set(value);
+        if (arrivalTimeProperty != null) {
+            arrivalTimeProperty.set(value);
+        } else if (!Objects.equals(arrivalTime, value)) {
+            arrivalTime = value;
+            fieldChanged("arrivalTime");
+        }
     }
     
     public ObjectProperty<LocalDateTime> arrivalTimeProperty() {
-        return arrivalTime;
+        if (arrivalTimeProperty == null) {
+            arrivalTimeProperty = new FieldProperties.ObjectField<>(this, "arrivalTime", arrivalTime,
+                () -> fieldChanged("arrivalTime"));
+        }
+        return arrivalTimeProperty;
     }
     
     // Time (legacy support)
@@ -164,7 +253,7 @@ public class Flight {
      * Get the departure time formatted as HH:mm
      */
     public String getTime() {
-        return departureTime.get().format(TIME_FORMATTER);
+        return getDepartureTime().format(TIME_FORMATTER);
     }
     
     public void setTime(String value) {
@@ -172,16 +261,21 @@ public class Flight {
     }
     
     public StringProperty timeProperty() {
-        return new SimpleStringProperty(departureTime.get().toString());
+        return new SimpleStringProperty(getDepartureTime().toString());
     }
     
     // Gate
     public String getGate() {
-        return gate.get();
+        return gateProperty != null ? gateProperty.get() : gate;
     }
     
     public void setGate(String value) {
-        gate.set(value);
+        if (gateProperty != null) {
+            gateProperty.set(value);
+        } else if (!Objects.equals(gate, value)) {
+            gate = value;
+            fieldChanged("gate");
+        }
         // Also update terminal
         if (value != null && !value.isEmpty()) {
             setTerminal(value.substring(0, 1));
@@ -189,45 +283,60 @@ public class Flight {
     }
     
     public StringProperty gateProperty() {
-        return gate;
+        if (gateProperty == null) {
+            gateProperty = new FieldProperties.StringField(this, "gate", gate,
+                () -> fieldChanged("gate"));
+        }
+        return gateProperty;
     }
     
     // Terminal
     public String getTerminal() {
-        return terminal.get();
+        return terminalProperty != null ? terminalProperty.get() : terminal;
     }
     
     public void setTerminal(String value) {
-        if (terminal == null) {
-            terminal = new SimpleStringProperty(value);
-        } else {
-            terminal.set(value);
+        if (terminalProperty != null) {
+            terminalProperty.set(value);
+        } else if (!Objects.equals(terminal, value)) {
+            terminal = value;
+            fieldChanged("terminal");
         }
     }
     
     public StringProperty terminalProperty() {
-        if (terminal == null) {
-            terminal = new SimpleStringProperty(getGate().length() > 0 ? getGate().substring(0, 1) : "A");
+        if (terminalProperty == null) {
+            terminalProperty = new FieldProperties.StringField(this, "terminal", terminal,
+                () -> fieldChanged("terminal"));
         }
-        return terminal;
+        return terminalProperty;
     }
     
     // Status
     public String getStatus() {
-        return status.get();
+        return statusProperty != null ? statusProperty.get() : status;
     }
     
     public void setStatus(String value) {
-        status.set(value);
+        if (statusProperty != null) {
+            statusProperty.set(value);
+        } else if (!Objects.equals(status, value)) {
+            status = value;
+            fieldChanged("status");
+        }
     }
     
     public StringProperty statusProperty() {
-        return status;
+        if (statusProperty == null) {
+            statusProperty = new FieldProperties.StringField(this, "status", status,
+                () -> fieldChanged("status"));
+        }
+        return statusProperty;
     }
     
     // Convenience method for getting formatted departure time
     public String getDeparture() {
-        return departureTime.get().format(TIME_FORMATTER);
+        return getDepartureTime().format(TIME_FORMATTER);
     }
 
     public double getPrice() {
@@ -237,4 +346,4 @@ public class Flight {
     public void setPrice(double price) {
         this.price = price;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,375 @@
+package com.yousif.attemp2;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FlightEventStream - Server-sent events stream of flight changes, served by ApiServer at /api/events.
+ *
+ * Each change to a flight becomes one "flight" event whose data is a JSON object:
+ *   {"change":"updated","flightNumber":"AA100","terminal":"A","fields":{"gate":"A3","status":"Boarding"}}
+ *   {"change":"added","flightNumber":"AA100","terminal":"A","flight":{...the whole flight...}}
+ *   {"change":"removed","flightNumber":"AA100","terminal":"A"}
+ * An updated event lists only the fields that changed, with their new values, and carries
+ * "previousTerminal" when the flight moved terminals. A "resync" event tells the client that events
+ * were lost and it should fetch /api/flights again.
+ *
+ * ?terminal=A keeps the events of flights in (or leaving) terminal A; ?flight=AA100,BA200 keeps the
+ * events of those flights. Clients resume with the Last-Event-ID header that EventSource sends on
+ * reconnect, or with ?lastEventId=: events still in the history are replayed, older positions get a
+ * resync. Event ids start from the server start time, so a position from before a restart is older.
+ *
+ * Events are published on the thread that owns the DataService lists and never block it: each client
+ * has a bounded queue, and a client that falls that far behind is disconnected. Its EventSource
+ * reconnects with the last id it received and catches up from the history.
+ */
+public class FlightEventStream {
+    // Recent events kept for clients that reconnect
+    private static final int HISTORY_SIZE = 4096;
+
+    // Events queued per client before it counts as too slow
+    private static final int CLIENT_QUEUE_SIZE = 256;
+
+    // Each connected client holds a handler thread (a platform thread before Java 21)
+    private static final int MAX_CLIENTS = 500;
+
+    // Comment lines keep proxies and idle timeouts from closing quiet streams
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final long RETRY_MILLIS = 2000;
+
+    private static final byte[] HEARTBEAT = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    // Queued in place of the events of a client that fell behind
+    private static final Event DISCONNECT = new Event(0, "disconnect", null, null, null, "");
+
+    private final ArrayDeque<Event> history = new ArrayDeque<>();
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private long nextId = System.currentTimeMillis() * 1000;
+
+    /**
+     * Publish the differences between two versions of the flights. Runs on the thread that owns
+     * the DataService lists and returns without waiting for any client.
+     * @param before The flights by number before the change
+     * @param after The flights by number after the change
+     * @param changed The flight numbers that may differ, or null to compare them all
+     */
+    void publish(Map<String, ApiServer.FlightView> before, Map<String, ApiServer.FlightView> after,
+                 Collection<String> changed) {
+        List<Change> changes = new ArrayList<>();
+        if (changed == null) {
+            for (ApiServer.FlightView old : before.values()) {
+                diff(old, after.get(old.flightNumber), changes);
+            }
+            for (ApiServer.FlightView flight : after.values()) {
+                if (!before.containsKey(flight.flightNumber)) {
+                    diff(null, flight, changes);
+                }
+            }
+        } else {
+            for (String flightNumber : new HashSet<>(changed)) {
+                diff(before.get(flightNumber), after.get(flightNumber), changes);
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        synchronized (history) {
+            for (Change change : changes) {
+                Event event = new Event(nextId++, "flight", change.flight.flightNumber, change.flight.terminal,
+                    change.previousTerminal, change.data);
+                history.addLast(event);
+                if (history.size() > HISTORY_SIZE) {
+                    history.removeFirst();
+                }
+                for (Client client : clients) {
+                    if (client.accepts(event) && !client.queue.offer(event)) {
+                        drop(client);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Disconnect every client
+     */
+    void close() {
+        synchronized (history) {
+            for (Client client : clients) {
+                drop(client);
+            }
+        }
+    }
+
+    /**
+     * Serve one event stream until the client goes away. Blocks the handler thread throughout.
+     * @param exchange The GET /api/events request
+     * @throws IOException If the response can't be started
+     */
+    void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            Map<String, String> query = ApiServer.parseQuery(exchange.getRequestURI().getRawQuery());
+            Client client = new Client(query.get("terminal"), query.get("flight"));
+            String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+            if (lastEventId == null) {
+                lastEventId = query.get("lastEventId");
+            }
+
+            // Register and copy the replay under one lock, so no event is missed or sent twice
+            List<Event> replay = null;
+            synchronized (history) {
+                if (clients.size() < MAX_CLIENTS) {
+                    replay = replayAfter(lastEventId, client);
+                    clients.add(client);
+                }
+            }
+            if (replay == null) {
+                sendError(exchange, 503, "Too many event streams");
+                return;
+            }
+            try {
+                stream(exchange, client, replay);
+            } catch (IOException e) {
+                // The client went away
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                clients.remove(client);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void stream(HttpExchange exchange, Client client, List<Event> replay)
+            throws IOException, InterruptedException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "text/event-stream; charset=utf-8");
+        headers.set("Cache-Control", "no-cache");
+        ApiServer.allowConfiguredOrigin(exchange);
+        // Stop reverse proxies from buffering the stream
+        headers.set("X-Accel-Buffering", "no");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = exchange.getResponseBody();
+        out.write(("retry: " + RETRY_MILLIS + "\n\n").getBytes(StandardCharsets.UTF_8));
+        for (Event event : replay) {
+            out.write(event.bytes);
+        }
+        out.flush();
+
+        List<Event> batch = new ArrayList<>();
+        while (true) {
+            Event event = client.queue.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+            if (event == null) {
+                out.write(HEARTBEAT);
+                out.flush();
+                continue;
+            }
+            // Write whatever else is queued in the same chunk
+            batch.add(event);
+            client.queue.drainTo(batch);
+            for (Event queued : batch) {
+                if (queued == DISCONNECT) {
+                    return;
+                }
+                out.write(queued.bytes);
+            }
+            batch.clear();
+            out.flush();
+        }
+    }
+
+    // Called with the history lock held
+    private List<Event> replayAfter(String lastEventId, Client client) {
+        List<Event> replay = new ArrayList<>();
+        if (lastEventId == null) {
+            return replay;
+        }
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            after = -1;
+        }
+        long oldest = history.isEmpty() ? nextId : history.peekFirst().id;
+        if (after < oldest - 1 || after >= nextId) {
+            // Older than the history, or from before a restart
+            replay.add(new Event(nextId - 1, "resync", null, null, null, "{}"));
+            return replay;
+        }
+        for (Event event : history) {
+            if (event.id > after && client.accepts(event)) {
+                replay.add(event);
+            }
+        }
+        return replay;
+    }
+
+    // Called with the history lock held
+    private void drop(Client client) {
+        clients.remove(client);
+        client.queue.clear();
+        client.queue.offer(DISCONNECT);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = new JsonWriter().beginObject().field("error", message).endObject().toBytes();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void diff(ApiServer.FlightView old, ApiServer.FlightView flight, List<Change> changes) {
+        if (old == null && flight == null) {
+            return;
+        }
+        if (flight == null) {
+            changes.add(new Change(old, null, new JsonWriter().beginObject()
+                .field("change", "removed")
+                .field("flightNumber", old.flightNumber)
+                .field("terminal", old.terminal)
+                .endObject()));
+            return;
+        }
+        if (old == null) {
+            JsonWriter json = new JsonWriter(512).beginObject()
+                .field("change", "added")
+                .field("flightNumber", flight.flightNumber)
+                .field("terminal", flight.terminal)
+                .name("flight");
+            changes.add(new Change(flight, null, flight.write(json).endObject()));
+            return;
+        }
+
+        List<String[]> fields = new ArrayList<>(2);
+        compare(fields, "airline", old.airline, flight.airline);
+        compare(fields, "origin", old.origin, flight.origin);
+        compare(fields, "destination", old.destination, flight.destination);
+        compare(fields, "departureTime", text(old.departureTime), text(flight.departureTime));
+        compare(fields, "arrivalTime", text(old.arrivalTime), text(flight.arrivalTime));
+        compare(fields, "status", old.status, flight.status);
+        compare(fields, "gate", old.gate, flight.gate);
+        compare(fields, "terminal", old.terminal, flight.terminal);
+        if (fields.isEmpty()) {
+            return;
+        }
+        String previousTerminal = Objects.equals(old.terminal, flight.terminal) ? null : old.terminal;
+        JsonWriter json = new JsonWriter().beginObject()
+            .field("change", "updated")
+            .field("flightNumber", flight.flightNumber)
+            .field("terminal", flight.terminal);
+        if (previousTerminal != null) {
+            json.field("previousTerminal", previousTerminal);
+        }
+        json.name("fields").beginObject();
+        for (String[] field : fields) {
+            json.field(field[0], field[1]);
+        }
+        changes.add(new Change(flight, previousTerminal, json.endObject().endObject()));
+    }
+
+    private static void compare(List<String[]> fields, String name, String before, String after) {
+        if (!Objects.equals(before, after)) {
+            fields.add(new String[] { name, after });
+        }
+    }
+
+    private static String text(LocalDateTime time) {
+        return time == null ? null : time.toString();
+    }
+
+    /**
+     * A flight change waiting for its event id
+     */
+    private static final class Change {
+        final ApiServer.FlightView flight;
+        final String previousTerminal;
+        final String data;
+
+        Change(ApiServer.FlightView flight, String previousTerminal, JsonWriter data) {
+            this.flight = flight;
+            this.previousTerminal = previousTerminal;
+            this.data = data.toString();
+        }
+    }
+
+    /**
+     * One event, encoded once in the text/event-stream format for every client
+     */
+    private static final class Event {
+        final long id;
+        final String flightNumber;
+        final String terminal;
+        final String previousTerminal;
+        final byte[] bytes;
+
+        Event(long id, String type, String flightNumber, String terminal, String previousTerminal, String data) {
+            this.id = id;
+            this.flightNumber = flightNumber;
+            this.terminal = terminal;
+            this.previousTerminal = previousTerminal;
+            // JsonWriter escapes line breaks, so the data fits on one line
+            this.bytes = ("id: " + id + "\nevent: " + type + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * One connected stream: its filter and the events waiting to be written to it
+     */
+    private static final class Client {
+        final String terminal;
+        final Set<String> flightNumbers;
+        final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(CLIENT_QUEUE_SIZE);
+
+        Client(String terminal, String flights) {
+            this.terminal = terminal;
+            if (flights == null) {
+                this.flightNumbers = null;
+            } else {
+                this.flightNumbers = new HashSet<>();
+                for (String flightNumber : flights.split(",")) {
+                    if (!flightNumber.isBlank()) {
+                        flightNumbers.add(flightNumber.trim().toUpperCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+
+        boolean accepts(Event event) {
+            if (event.flightNumber == null) {
+                // Resyncs go to everyone
+                return true;
+            }
+            if (terminal != null && !terminal.equalsIgnoreCase(event.terminal)
+                    && !terminal.equalsIgnoreCase(event.previousTerminal)) {
+                return false;
+            }
+            return flightNumbers == null || flightNumbers.contains(event.flightNumber.toUpperCase(Locale.ROOT));
+        }
+    }
+}
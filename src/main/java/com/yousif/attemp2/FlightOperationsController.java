@@ -9,15 +9,21 @@ import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.GridPane;
 import javafx.geometry.Insets;
+import javafx.stage.FileChooser;
 import org.kordamp.ikonli.javafx.FontIcon;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.util.Duration;
+import java.io.File;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.time.LocalTime;
 
 public class FlightOperationsController {
@@ -103,8 +109,31 @@ public class FlightOperationsController {
     // Reference to the shared data service
     private final DataService dataService = DataService.getInstance();
     
-    // Add real-time status updates
-    private Timeline statusTimeline;
+    // Flight fields the rotation graph is built from. Status only matters for cancellations,
+    // which are checked separately so status ticks don't rebuild the graph
+    private static final Set<String> ROTATION_FIELDS =
+        Set.of("flightNumber", "airline", "origin", "destination", "departureTime", "arrivalTime");
+    
+    // Rotations and connections, for the knock-on effect of delays; built once the bookings are read
+    // and again whenever the schedule it was built from changes
+    private CompletableFuture<DelayPropagationEngine> delayEngine;
+    // Flights changed while the engine was being built; build it once more when done
+    private boolean delayEngineStale;
+    // The schedule the engine measures delays against, by flight number. Delays entered here
+    // move the flights' times but not these; other edits to the times replace them. FX thread only
+    private final Map<String, Flight> scheduled = new HashMap<>();
+    // Estimated departures pushed through the engine, replayed into each rebuilt engine. FX thread only
+    private final Map<String, LocalDateTime> estimates = new HashMap<>();
+    
+    // Redraws the table when statuses change, e.g. as FlightStatusScheduler moves flights along
+    private final DataService.DataChangeEventListener flightChangeListener = event -> {
+        if (event.affects(DataService.DataType.FLIGHTS)) {
+            flightTable.refresh();
+            if (changesSchedule(event)) {
+                rebuildDelayEngine();
+            }
+        }
+    };
     
     @FXML
     public void initialize() {
@@ -112,12 +141,19 @@ public class FlightOperationsController {
         setupTableColumns();
         loadFlightData();
         updateGateStatistics();
-        startRealTimeStatusUpdates();
+        rebuildDelayEngine();
+        dataService.addChangeEventListener(flightChangeListener);
+        // Stop listening once another module replaces this view
+        flightTable.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                dataService.removeChangeEventListener(flightChangeListener);
+            }
+        });
     }
     
     private void setupFilters() {
         // Setup status filter options
-        statusFilter.getItems().addAll("All", "Available for Reservation", "On Time", "Delayed", "Boarding", "Departed", "Cancelled");
+        statusFilter.getItems().addAll("All", "Available for Reservation", "On Time", "Delayed", "Boarding", "Gate Closed", "Departed", "Cancelled");
         statusFilter.setValue("All");
         
         // Setup terminal filter options
@@ -204,8 +240,9 @@ public class FlightOperationsController {
     }
     
     private void updateGateStatistics() {
-        int total = 45;
-        int occupied = dataService.getFlights().size();
+        GateSchedule schedule = dataService.getGateSchedule();
+        int total = schedule.getGates().size();
+        int occupied = schedule.occupiedCount(System.currentTimeMillis());
         int available = total - occupied;
         
         totalGatesValue.setText(String.valueOf(total));
@@ -221,7 +258,25 @@ public class FlightOperationsController {
         
         ObservableList<Flight> filteredData = FXCollections.observableArrayList();
         
-        for (Flight flight : dataService.getFlights()) {
+        // Start from the smallest indexed bucket instead of scanning every flight
+        Collection<Flight> candidates = dataService.getFlights();
+        if (!searchText.isEmpty()) {
+            candidates = dataService.searchFlights(searchText);
+        }
+        if (!"All".equals(status)) {
+            Collection<Flight> byStatus = dataService.getFlightsByStatus(status);
+            if (byStatus.size() < candidates.size()) {
+                candidates = byStatus;
+            }
+        }
+        if (!"All".equals(terminal)) {
+            Collection<Flight> byTerminal = dataService.getFlightsByTerminal(terminal.substring(terminal.length() - 1));
+            if (byTerminal.size() < candidates.size()) {
+                candidates = byTerminal;
+            }
+        }
+        
+        for (Flight flight : candidates) {
             boolean matchesSearch = searchText.isEmpty() || 
                 flight.getFlightNumber().toLowerCase().contains(searchText) || 
                 flight.getDestination().toLowerCase().contains(searchText) ||
@@ -340,25 +395,6 @@ public class FlightOperationsController {
                             }
                         }
                         
-                        // Add to database
-                        DatabaseConnection db = DatabaseConnection.getInstance();
-                        String query = "INSERT INTO flights " +
-                            "(flight_number, airline, origin, destination, departure_time, arrival_time, status, gate, terminal, price) " +
-                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-                            
-                        db.executeUpdate(query,
-                            newFlight.getFlightNumber(),
-                            newFlight.getAirline(),
-                            newFlight.getOrigin(),
-                            newFlight.getDestination(),
-                            java.sql.Timestamp.valueOf(newFlight.getDepartureTime()),
-                            java.sql.Timestamp.valueOf(newFlight.getArrivalTime()),
-                            newFlight.getStatus(),
-                            newFlight.getGate(),
-                            newFlight.getTerminal(),
-                            newFlight.getPrice()
-                        );
-                        
                         return newFlight;
                     } catch (Exception e) {
                         showAlert("Invalid input: " + e.getMessage());
@@ -369,17 +405,45 @@ public class FlightOperationsController {
             });
             
             Optional<Flight> result = dialog.showAndWait();
-            result.ifPresent(flight -> {
-                dataService.addFlight(flight);
-                loadFlightData(); // Refresh the table
-                showInfoAlert("Flight added successfully and is now available for booking in the user portal.");
-            });
+            // Stored by DataService off the FX thread
+            result.ifPresent(flight -> dataService.addFlightAsync(flight)
+                .whenComplete((added, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                    if (error != null || !Boolean.TRUE.equals(added)) {
+                        Throwable cause = error != null && error.getCause() != null ? error.getCause() : error;
+                        showAlert("Could not add flight " + flight.getFlightNumber()
+                            + (cause != null ? ": " + cause.getMessage() : ""));
+                        return;
+                    }
+                    loadFlightData(); // Refresh the table
+                    showInfoAlert("Flight added successfully and is now available for booking in the user portal.");
+                })));
             
         } catch (Exception e) {
             showAlert("Error adding flight: " + e.getMessage());
         }
     }
     
+    @FXML
+    private void importSchedule() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Flight Schedule");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        File file = fileChooser.showOpenDialog(flightTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        dataService.importScheduleAsync(file.toPath()).whenComplete((report, error) ->
+            BackgroundExecutors.runOnFxThread(() -> {
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    showAlert("Could not import " + file.getName() + ": " + cause.getMessage());
+                    return;
+                }
+                updateGateStatistics();
+                showInfoAlert("Imported " + file.getName() + "\n" + report.describe());
+            }));
+    }
+    
     @FXML
     private void deleteFlight() {
         Flight selectedFlight = flightTable.getSelectionModel().getSelectedItem();
@@ -391,12 +455,19 @@ public class FlightOperationsController {
             
             Optional<ButtonType> result = confirmAlert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                dataService.removeFlight(selectedFlight);
-                totalFlightsLabel.setText("Total: " + dataService.getFlights().size() + " flights");
-                updateGateStatistics();
-                
-                // Notify users about the deleted flight
-                dataService.addNotification("Flight cancelled: " + selectedFlight.getFlightNumber() + " to " + selectedFlight.getDestination());
+                dataService.removeFlightAsync(selectedFlight)
+                    .whenComplete((removed, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                        if (error != null || !Boolean.TRUE.equals(removed)) {
+                            Throwable cause = error != null && error.getCause() != null ? error.getCause() : error;
+                            showAlert("Could not delete flight " + selectedFlight.getFlightNumber()
+                                + (cause != null ? ": " + cause.getMessage() : ""));
+                            return;
+                        }
+                        totalFlightsLabel.setText("Total: " + dataService.getFlights().size() + " flights");
+                        updateGateStatistics();
+                        // Notify users about the deleted flight
+                        dataService.addNotificationAsync("Flight cancelled: " + selectedFlight.getFlightNumber() + " to " + selectedFlight.getDestination());
+                    }));
             }
         } else {
             Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -425,27 +496,10 @@ public class FlightOperationsController {
             grid.setVgap(10);
             grid.setPadding(new Insets(20, 150, 10, 10));
             
-            // Gate ComboBox
+            // Gate ComboBox, offering the gates free for the flight's whole turnaround
             ComboBox<String> gateComboBox = new ComboBox<>();
-            List<String> availableGates = new ArrayList<>();
-            for (char terminal : new char[]{'A', 'B', 'C', 'D'}) {
-                for (int i = 1; i <= 20; i++) {
-                    String gate = terminal + String.valueOf(i);
-                    boolean isOccupied = false;
-                    
-                    // Check if gate is already occupied
-                    for (Flight flight : dataService.getFlights()) {
-                        if (flight != selectedFlight && flight.getGate().equals(gate)) {
-                            isOccupied = true;
-                            break;
-                        }
-                    }
-                    
-                    if (!isOccupied) {
-                        availableGates.add(gate);
-                    }
-                }
-            }
+            GateSchedule schedule = dataService.getGateSchedule();
+            List<String> availableGates = schedule.freeGates(selectedFlight);
             
             gateComboBox.getItems().addAll(availableGates);
             gateComboBox.setValue(selectedFlight.getGate());
@@ -455,6 +509,12 @@ public class FlightOperationsController {
             grid.add(new Label("New Gate:"), 0, 1);
             grid.add(gateComboBox, 1, 1);
             
+            List<Flight> conflicts = schedule.conflicts(selectedFlight);
+            if (!conflicts.isEmpty()) {
+                grid.add(new Label("Conflicts with:"), 0, 2);
+                grid.add(new Label(flightNumbers(conflicts)), 1, 2);
+            }
+            
             dialog.getDialogPane().setContent(grid);
             
             dialog.setResultConverter(dialogButton -> {
@@ -467,6 +527,7 @@ public class FlightOperationsController {
             Optional<String> result = dialog.showAndWait();
             result.ifPresent(newGate -> {
                 selectedFlight.setGate(newGate);
+                dataService.updateFlightAsync(selectedFlight);
                 flightTable.refresh();
                 updateGateStatistics();
             });
@@ -519,8 +580,14 @@ public class FlightOperationsController {
             Optional<Integer> result = dialog.showAndWait();
             result.ifPresent(delayMinutes -> {
                 if (delayMinutes > 0) {
+                    reportDelayImpact(selectedFlight.getFlightNumber(),
+                        selectedFlight.getDepartureTime().plusMinutes(delayMinutes), true);
+                    // Moving the times also moves the flight's boarding and departure transitions
+                    selectedFlight.setDepartureTime(selectedFlight.getDepartureTime().plusMinutes(delayMinutes));
+                    selectedFlight.setArrivalTime(selectedFlight.getArrivalTime().plusMinutes(delayMinutes));
                     selectedFlight.setStatus("Delayed");
-                    // You could add departure time adjustment here
+                    dataService.updateFlightAsync(selectedFlight);
+                    resolveGateConflicts(selectedFlight);
                     flightTable.refresh();
                 }
             });
@@ -570,7 +637,7 @@ public class FlightOperationsController {
             
             // Status ComboBox
             ComboBox<String> statusComboBox = new ComboBox<>();
-            statusComboBox.getItems().addAll("Available for Reservation", "On Time", "Delayed", "Boarding", "Departed", "Cancelled");
+            statusComboBox.getItems().addAll("Available for Reservation", "On Time", "Delayed", "Boarding", "Gate Closed", "Departed", "Cancelled");
             statusComboBox.setValue(selectedFlight.getStatus());
             
             grid.add(new Label("Flight Number:"), 0, 0);
@@ -603,12 +670,17 @@ public class FlightOperationsController {
             
             Optional<Flight> result = dialog.showAndWait();
             result.ifPresent(updatedFlight -> {
-                int index = dataService.getFlights().indexOf(selectedFlight);
-                if (index >= 0) {
-                    // Since Flight is immutable for some properties, we need to replace it
-                    dataService.getFlights().set(index, updatedFlight);
-                    flightTable.refresh();
-                }
+                // Edit in place, keeping the flight's duration, so the indexes and the database follow
+                java.time.Duration shift = java.time.Duration.between(
+                    selectedFlight.getDepartureTime(), updatedFlight.getDepartureTime());
+                // A new schedule, not a delay: show its effect, then rebuild on it once the change lands
+                reportDelayImpact(selectedFlight.getFlightNumber(), updatedFlight.getDepartureTime(), false);
+                selectedFlight.setDepartureTime(updatedFlight.getDepartureTime());
+                selectedFlight.setArrivalTime(selectedFlight.getArrivalTime().plus(shift));
+                selectedFlight.setStatus(updatedFlight.getStatus());
+                dataService.updateFlightAsync(selectedFlight);
+                resolveGateConflicts(selectedFlight);
+                flightTable.refresh();
             });
         } else {
             Alert alert = new Alert(Alert.AlertType.WARNING);
@@ -619,29 +691,165 @@ public class FlightOperationsController {
         }
     }
     
-    // Add real-time status updates
-    private void startRealTimeStatusUpdates() {
-        statusTimeline = new Timeline(new KeyFrame(Duration.minutes(2), event -> {
-            for (Flight flight : dataService.getFlights()) {
-                switch (flight.getStatus()) {
-                    case "Available for Reservation":
-                        flight.setStatus("On Time");
-                        break;
-                    case "On Time":
-                        flight.setStatus("Boarding");
-                        break;
-                    case "Boarding":
-                        flight.setStatus("Departed");
-                        break;
-                    default:
-                        // Do nothing for Departed, Delayed, Cancelled
-                        break;
-                }
+    /**
+     * Build the delay engine from the scheduled times and current connections and replay the
+     * estimates entered so far, or, if a build is still running, build again once it is done
+     */
+    private void rebuildDelayEngine() {
+        if (delayEngine != null && !delayEngine.isDone()) {
+            delayEngineStale = true;
+            return;
+        }
+        List<Flight> schedule = new ArrayList<>();
+        for (Flight flight : dataService.getFlights()) {
+            schedule.add(scheduled.computeIfAbsent(flight.getFlightNumber(), number -> scheduleOf(flight)));
+        }
+        Map<String, LocalDateTime> replay = new HashMap<>(estimates);
+        delayEngine = dataService.queryConnectionsAsync()
+            .thenApply(connections -> {
+                DelayPropagationEngine engine = new DelayPropagationEngine(RotationGraph.build(schedule, connections));
+                engine.update(replay);
+                return engine;
+            })
+            .exceptionally(e -> {
+                System.err.println("Delay propagation unavailable: " + e.getMessage());
+                return null;
+            });
+        delayEngine.thenRun(() -> BackgroundExecutors.runOnFxThread(() -> {
+            if (delayEngineStale) {
+                delayEngineStale = false;
+                rebuildDelayEngine();
             }
-            flightTable.refresh();
         }));
-        statusTimeline.setCycleCount(Timeline.INDEFINITE);
-        statusTimeline.play();
+    }
+    
+    private static Flight scheduleOf(Flight flight) {
+        return new Flight(flight.getFlightNumber(), flight.getAirline(), flight.getOrigin(), flight.getDestination(),
+            flight.getDepartureTime(), flight.getArrivalTime(), flight.getStatus());
+    }
+    
+    /**
+     * Take the schedule changes in an event that didn't come from a delay entered here into the
+     * scheduled times
+     * @return Whether the engine needs rebuilding
+     */
+    private boolean changesSchedule(DataChangeEvent event) {
+        if (event.isReloaded(DataService.DataType.FLIGHTS)) {
+            return true;
+        }
+        boolean changed = false;
+        for (DataChangeEvent.EntityChange change : event.getChanges(DataService.DataType.FLIGHTS)) {
+            String flightNumber = change.getId();
+            Flight flight = dataService.findFlight(flightNumber);
+            if (change.getKind() != DataChangeEvent.ChangeKind.UPDATED || flight == null) {
+                scheduled.remove(flightNumber);
+                estimates.remove(flightNumber);
+                changed = true;
+                continue;
+            }
+            Flight schedule = scheduled.get(flightNumber);
+            if (schedule == null) {
+                continue;
+            }
+            boolean estimated = flight.getDepartureTime() != null
+                && flight.getDepartureTime().equals(estimates.get(flightNumber));
+            boolean rescheduled = false;
+            for (String field : ROTATION_FIELDS) {
+                rescheduled |= change.hasChanged(field) && !estimated;
+            }
+            rescheduled |= change.hasChanged("status")
+                && "Cancelled".equals(flight.getStatus()) != "Cancelled".equals(schedule.getStatus());
+            if (rescheduled) {
+                scheduled.put(flightNumber, scheduleOf(flight));
+                estimates.remove(flightNumber);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+    
+    /**
+     * Push a flight's new departure time through its aircraft's later legs and its passengers'
+     * connections, and show operators the knock-on effect
+     * @param estimate Whether it's a delay, measured against the schedule from now on, rather
+     * than a new schedule
+     */
+    private void reportDelayImpact(String flightNumber, LocalDateTime departure, boolean estimate) {
+        if (estimate) {
+            estimates.put(flightNumber, departure);
+        }
+        delayEngine.thenAccept(engine -> {
+            if (engine == null || departure == null) {
+                return;
+            }
+            DelayImpact impact = engine.update(flightNumber, departure);
+            if (impact.hasKnockOn()) {
+                BackgroundExecutors.runOnFxThread(() ->
+                    showInfoAlert("Knock-on effect of the change to " + flightNumber + ":\n" + impact.describe()));
+            }
+        });
+    }
+    
+    @FXML
+    private void autoAssignGates() {
+        // Plan today's departures that haven't started boarding
+        LocalDate today = LocalDate.now();
+        List<Flight> todays = new ArrayList<>();
+        for (Flight flight : dataService.getFlights()) {
+            if (flight.getDepartureTime() != null && flight.getDepartureTime().toLocalDate().equals(today)) {
+                todays.add(flight);
+            }
+        }
+        GateAllocator.Plan plan = GateAllocator.plan(dataService.getGateSchedule(), todays);
+        applyGatePlan(plan);
+        
+        StringBuilder message = new StringBuilder("Planned gates for " + todays.size() + " flights today: "
+            + plan.getChanges().size() + " moved.");
+        if (!plan.getUnassigned().isEmpty()) {
+            message.append("\nNo free gate for: ").append(flightNumbers(plan.getUnassigned()));
+        }
+        showInfoAlert(message.toString());
+    }
+    
+    /**
+     * Move flights off a gate that a time change made them share, telling the user what moved
+     */
+    private void resolveGateConflicts(Flight flight) {
+        GateAllocator.Plan plan = GateAllocator.resolve(dataService.getGateSchedule(), flight);
+        if (plan.isEmpty()) {
+            return;
+        }
+        applyGatePlan(plan);
+        
+        StringBuilder message = new StringBuilder("Flight " + flight.getFlightNumber() + " now clashed at its gate.");
+        for (Map.Entry<Flight, String> change : plan.getChanges().entrySet()) {
+            message.append("\n").append(change.getKey().getFlightNumber()).append(" moved to gate ").append(change.getValue());
+        }
+        if (!plan.getUnassigned().isEmpty()) {
+            message.append("\nNo free gate for: ").append(flightNumbers(plan.getUnassigned()));
+        }
+        showInfoAlert(message.toString());
+    }
+    
+    private void applyGatePlan(GateAllocator.Plan plan) {
+        Map<String, String> gates = new LinkedHashMap<>();
+        for (Map.Entry<Flight, String> change : plan.getChanges().entrySet()) {
+            change.getKey().setGate(change.getValue());
+            gates.put(change.getKey().getFlightNumber(), change.getValue());
+        }
+        if (!gates.isEmpty()) {
+            dataService.saveFlightGatesAsync(gates);
+        }
+        flightTable.refresh();
+        updateGateStatistics();
+    }
+    
+    private static String flightNumbers(List<Flight> flights) {
+        StringBuilder numbers = new StringBuilder();
+        for (Flight flight : flights) {
+            numbers.append(numbers.length() == 0 ? "" : ", ").append(flight.getFlightNumber());
+        }
+        return numbers.toString();
     }
     
     // Helper methods to convert between time formats and provide compatibility
@@ -673,7 +881,7 @@ public class FlightOperationsController {
         
         // Status ComboBox
         ComboBox<String> statusComboBox = new ComboBox<>();
-        statusComboBox.getItems().addAll("Available for Reservation", "On Time", "Delayed", "Boarding", "Departed", "Cancelled");
+        statusComboBox.getItems().addAll("Available for Reservation", "On Time", "Delayed", "Boarding", "Gate Closed", "Departed", "Cancelled");
         statusComboBox.setValue(flight.getStatus());
         
         // Gate ComboBox
@@ -747,7 +955,7 @@ public class FlightOperationsController {
             return null;
         });
         
-        dialog.showAndWait();
+        dialog.showAndWait().ifPresent(dataService::updateFlightAsync);
     }
     
     private void showAlert(String message) {
@@ -0,0 +1,243 @@
+package com.yousif.attemp2;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * FlightStatusScheduler - Moves flights through their departure statuses as the clock passes
+ * fixed offsets from each flight's departure time:
+ *
+ *   departure - 3h      check-in opens   Available for Reservation -> On Time
+ *   departure - 40min   Boarding
+ *   departure - 10min   Gate Closed
+ *   departure           Departed
+ *
+ * Each flight has one timer, for its next transition, in a TimingWheel ticking once a second, so
+ * a tick costs the same with 20k flights as with 20. Statuses only move forward; a transition
+ * that was missed (e.g. while the app was closed) is caught up at once, skipping straight to the
+ * latest one due, and Cancelled and Departed flights are left alone. A flight whose departure time
+ * or status is edited, e.g. by a delay, is rescheduled as soon as the change event arrives.
+ *
+ * Statuses are set through the flight setters, so views and the API event stream see them, and
+ * each tick's changes are saved in one batched update.
+ *
+ * Timers and flights are only touched on the list thread.
+ */
+public class FlightStatusScheduler implements DataService.DataChangeEventListener {
+    private static final long TICK_MILLIS = 1000;
+
+    private enum Transition {
+        CHECK_IN_OPEN(-180, "On Time"),
+        BOARDING(-40, "Boarding"),
+        GATE_CLOSED(-10, "Gate Closed"),
+        DEPARTED(0, "Departed");
+
+        private final long offsetMinutes;
+        private final String status;
+
+        Transition(long offsetMinutes, String status) {
+            this.offsetMinutes = offsetMinutes;
+            this.status = status;
+        }
+    }
+
+    // Progress through the day; a flight only moves to a status ranked above its current one
+    private static final Map<String, Integer> RANKS = Map.of(
+        "Available for Reservation", 0,
+        "On Time", 1,
+        "Delayed", 1,
+        "Boarding", 2,
+        "Gate Closed", 3,
+        "Departed", 4,
+        "Cancelled", 4);
+
+    private final DataService dataService;
+    private final Executor listThread;
+    private final ScheduledExecutorService ticker =
+        Executors.newSingleThreadScheduledExecutor(BackgroundExecutors.daemonThreadFactory("flight-status"));
+    private final AtomicBoolean tickQueued = new AtomicBoolean();
+
+    // List thread only
+    private TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+    private final Map<String, TimingWheel.Timer<String>> timers = new HashMap<>();
+    private Map<String, DataService.StatusUpdate> unsaved = new LinkedHashMap<>();
+    private boolean saving;
+
+    /**
+     * @param dataService The service whose flights to update
+     * @param listThread Runs tasks on the thread that modifies the lists
+     */
+    public FlightStatusScheduler(DataService dataService, Executor listThread) {
+        this.dataService = dataService;
+        this.listThread = listThread;
+    }
+
+    /**
+     * Schedule every loaded flight and start the clock
+     */
+    public void start() {
+        dataService.addChangeEventListener(this, listThread);
+        listThread.execute(this::scheduleAll);
+        ticker.scheduleAtFixedRate(() -> {
+            // Don't pile up ticks while the list thread is busy; one tick catches up on all of them
+            if (tickQueued.compareAndSet(false, true)) {
+                listThread.execute(this::tick);
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the clock and save the transitions applied since the last save
+     */
+    public void stop() {
+        ticker.shutdownNow();
+        dataService.removeChangeEventListener(this);
+        listThread.execute(this::save);
+    }
+
+    /**
+     * @return The number of flights waiting for a transition
+     */
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    @Override
+    public void onDataChanged(DataChangeEvent event) {
+        if (event.isReloaded(DataService.DataType.FLIGHTS)) {
+            scheduleAll();
+            return;
+        }
+        for (DataChangeEvent.EntityChange change : event.getChanges(DataService.DataType.FLIGHTS)) {
+            if (change.getKind() != DataChangeEvent.ChangeKind.UPDATED || change.hasChanged("departureTime")
+                    || change.hasChanged("status") || change.hasChanged("flightNumber")) {
+                schedule(change.getId());
+            }
+        }
+    }
+
+    private void scheduleAll() {
+        wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+        timers.clear();
+        for (Flight flight : dataService.getFlights()) {
+            schedule(flight);
+        }
+    }
+
+    private void schedule(String flightNumber) {
+        Flight flight = dataService.findFlight(flightNumber);
+        if (flight != null) {
+            schedule(flight);
+        } else {
+            wheel.cancel(timers.remove(flightNumber));
+        }
+    }
+
+    /**
+     * Set the flight's timer for its next transition, replacing any earlier one
+     */
+    private void schedule(Flight flight) {
+        String flightNumber = flight.getFlightNumber();
+        wheel.cancel(timers.remove(flightNumber));
+        Transition next = nextTransition(flight);
+        if (next != null) {
+            timers.put(flightNumber, wheel.schedule(dueAt(flight, next), flightNumber));
+        }
+    }
+
+    private void tick() {
+        tickQueued.set(false);
+        wheel.advanceTo(System.currentTimeMillis(), this::fire);
+        save();
+    }
+
+    private void fire(String flightNumber) {
+        timers.remove(flightNumber);
+        Flight flight = dataService.findFlight(flightNumber);
+        if (flight == null) {
+            return;
+        }
+        // Apply the latest transition that is due, skipping any missed in between
+        long now = System.currentTimeMillis();
+        Transition due = null;
+        for (Transition transition = nextTransition(flight); transition != null && dueAt(flight, transition) <= now;
+                transition = transitionAfter(transition)) {
+            due = transition;
+        }
+        if (due != null) {
+            queueSave(new DataService.StatusUpdate(flightNumber, flight.getStatus(), due.status));
+            flight.setStatus(due.status);
+        }
+        schedule(flight);
+    }
+
+    /**
+     * Queue a change for the next save, merged with any unsaved change of the same flight
+     */
+    private void queueSave(DataService.StatusUpdate update) {
+        unsaved.merge(update.getFlightNumber(), update, (earlier, later) -> new DataService.StatusUpdate(
+            later.getFlightNumber(), earlier.getExpectedStatus(), later.getStatus()));
+    }
+
+    /**
+     * Save the queued changes. One batch at a time, so a later batch can't be overwritten by an
+     * earlier one that commits after it; changes made meanwhile go in the next batch.
+     */
+    private void save() {
+        if (saving || unsaved.isEmpty()) {
+            return;
+        }
+        saving = true;
+        Map<String, DataService.StatusUpdate> batch = unsaved;
+        unsaved = new LinkedHashMap<>();
+        dataService.saveFlightStatusesAsync(batch.values()).whenComplete((changed, error) ->
+            listThread.execute(() -> {
+                saving = false;
+                if (error != null) {
+                    // Try again with the next tick, ahead of the changes queued since
+                    System.err.println("Error saving flight statuses, will retry: " + error);
+                    Map<String, DataService.StatusUpdate> queued = unsaved;
+                    unsaved = batch;
+                    queued.values().forEach(this::queueSave);
+                }
+            }));
+    }
+
+    /**
+     * @return The first transition that would move the flight forward, or null if none would
+     */
+    private static Transition nextTransition(Flight flight) {
+        int rank = rank(flight.getStatus());
+        if (rank >= rank("Departed") || flight.getDepartureTime() == null) {
+            return null;
+        }
+        for (Transition transition : Transition.values()) {
+            if (rank(transition.status) > rank) {
+                return transition;
+            }
+        }
+        return null;
+    }
+
+    private static Transition transitionAfter(Transition transition) {
+        Transition[] all = Transition.values();
+        return transition.ordinal() + 1 < all.length ? all[transition.ordinal() + 1] : null;
+    }
+
+    private static int rank(String status) {
+        return RANKS.getOrDefault(status, 0);
+    }
+
+    private static long dueAt(Flight flight, Transition transition) {
+        LocalDateTime at = flight.getDepartureTime().plusMinutes(transition.offsetMinutes);
+        return at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
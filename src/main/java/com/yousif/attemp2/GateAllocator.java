@@ -0,0 +1,204 @@
+package com.yousif.attemp2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * GateAllocator - Plans gate assignments against a GateSchedule.
+ *
+ * Flights are placed in order of when they take their gate (interval partitioning). Each keeps
+ * its current gate if that is free, and otherwise gets the free gate in its terminal that has
+ * been idle the shortest time, which packs the schedule and leaves whole gates free for
+ * disruptions. Flights already boarding or gone are never moved, and block their gates like any
+ * flight outside the plan. Free checks go through per-gate interval trees covering only the
+ * planned time window, so a full day of 1,500 movements over 80 gates plans in milliseconds.
+ *
+ * Plans are computed, not applied: the caller sets the gates on the list thread, so the
+ * schedule and the change events follow.
+ */
+public final class GateAllocator {
+
+    // Statuses of flights whose gate can still change
+    private static final Set<String> MOVABLE = Set.of("Available for Reservation", "On Time", "Delayed");
+
+    private GateAllocator() {
+    }
+
+    /**
+     * Plan gates for a set of flights, e.g. a day's schedule
+     * @param schedule The current gate occupancy
+     * @param flights The flights to place; those that can't move, or hold no gate, are ignored
+     * @return The gate changes, and the flights no gate could take
+     */
+    public static Plan plan(GateSchedule schedule, Collection<Flight> flights) {
+        List<Flight> toPlan = new ArrayList<>();
+        for (Flight flight : flights) {
+            if (isMovable(flight)) {
+                toPlan.add(flight);
+            }
+        }
+        return solve(schedule, toPlan);
+    }
+
+    /**
+     * Resolve the clashes a flight has at its gate after its time changed, e.g. by a delay.
+     * Moves the flight to a free gate in its terminal if there is one, and otherwise plans
+     * again only the flights at its gate from the first clash on.
+     * @param schedule The current gate occupancy, already reflecting the change
+     * @param changed The flight whose time changed
+     * @return The gate changes; empty if nothing clashes
+     */
+    public static Plan resolve(GateSchedule schedule, Flight changed) {
+        List<Flight> conflicts = schedule.conflicts(changed);
+        if (conflicts.isEmpty()) {
+            return new Plan(Collections.emptyMap(), Collections.emptyList());
+        }
+        if (isMovable(changed)) {
+            String gate = bestFreeGate(schedule, changed);
+            if (gate != null) {
+                return new Plan(Collections.singletonMap(changed, gate), Collections.emptyList());
+            }
+        }
+
+        // Plan the rest of the day at this gate again, starting with the earliest clash
+        long from = GateSchedule.occupancyStart(changed);
+        for (Flight flight : conflicts) {
+            from = Math.min(from, GateSchedule.occupancyStart(flight));
+        }
+        List<Flight> toPlan = new ArrayList<>();
+        for (Flight flight : schedule.occupants(changed.getGate(), from, Long.MAX_VALUE, null)) {
+            if (isMovable(flight)) {
+                toPlan.add(flight);
+            }
+        }
+        return solve(schedule, toPlan);
+    }
+
+    private static boolean isMovable(Flight flight) {
+        return GateSchedule.occupiesGate(flight) && MOVABLE.contains(flight.getStatus());
+    }
+
+    /**
+     * The free gate in the flight's terminal that has been idle the shortest time
+     */
+    private static String bestFreeGate(GateSchedule schedule, Flight flight) {
+        long start = GateSchedule.occupancyStart(flight);
+        String best = null;
+        long bestIdleSince = Long.MIN_VALUE;
+        for (String gate : schedule.getGates()) {
+            if (!inTerminal(gate, flight) || !schedule.isFree(gate, flight)) {
+                continue;
+            }
+            long idleSince = Long.MIN_VALUE;
+            for (Flight before : schedule.occupants(gate, start - GateSchedule.TURNAROUND_MILLIS
+                    - GateSchedule.BUFFER_MILLIS, start, flight)) {
+                idleSince = Math.max(idleSince, GateSchedule.occupancyEnd(before));
+            }
+            if (best == null || idleSince > bestIdleSince) {
+                best = gate;
+                bestIdleSince = idleSince;
+            }
+        }
+        return best;
+    }
+
+    private static Plan solve(GateSchedule schedule, List<Flight> toPlan) {
+        if (toPlan.isEmpty()) {
+            return new Plan(Collections.emptyMap(), Collections.emptyList());
+        }
+        toPlan.sort(Comparator.comparingLong(GateSchedule::occupancyStart));
+        long windowStart = GateSchedule.occupancyStart(toPlan.get(0));
+        long windowEnd = Long.MIN_VALUE;
+        for (Flight flight : toPlan) {
+            windowEnd = Math.max(windowEnd, GateSchedule.occupancyEnd(flight));
+        }
+
+        // Occupancy within the window of every flight outside the plan
+        Map<Flight, Boolean> planned = new IdentityHashMap<>();
+        for (Flight flight : toPlan) {
+            planned.put(flight, Boolean.TRUE);
+        }
+        Map<String, IntervalTree<Flight>> trees = new LinkedHashMap<>();
+        for (String gate : schedule.getGates()) {
+            IntervalTree<Flight> tree = new IntervalTree<>();
+            for (Flight flight : schedule.occupants(gate, windowStart, windowEnd, null)) {
+                if (!planned.containsKey(flight)) {
+                    tree.add(GateSchedule.occupancyStart(flight), GateSchedule.occupancyEnd(flight), flight);
+                }
+            }
+            trees.put(gate, tree);
+        }
+
+        Map<Flight, String> changes = new LinkedHashMap<>();
+        List<Flight> unassigned = new ArrayList<>();
+        for (Flight flight : toPlan) {
+            long start = GateSchedule.occupancyStart(flight);
+            long end = GateSchedule.occupancyEnd(flight);
+            String gate = flight.getGate();
+            if (gate == null || !trees.containsKey(gate) || trees.get(gate).findAny(start, end) != null) {
+                gate = null;
+                long bestIdleSince = Long.MIN_VALUE;
+                for (Map.Entry<String, IntervalTree<Flight>> candidate : trees.entrySet()) {
+                    IntervalTree<Flight> tree = candidate.getValue();
+                    if (!inTerminal(candidate.getKey(), flight) || tree.findAny(start, end) != null) {
+                        continue;
+                    }
+                    long idleSince = tree.latestEndBefore(start);
+                    if (gate == null || idleSince > bestIdleSince) {
+                        gate = candidate.getKey();
+                        bestIdleSince = idleSince;
+                    }
+                }
+            }
+            if (gate == null) {
+                unassigned.add(flight);
+                continue;
+            }
+            trees.get(gate).add(start, end, flight);
+            if (!gate.equals(flight.getGate())) {
+                changes.put(flight, gate);
+            }
+        }
+        return new Plan(changes, unassigned);
+    }
+
+    /**
+     * A flight with a terminal only goes to gates in it; one without may go anywhere
+     */
+    private static boolean inTerminal(String gate, Flight flight) {
+        String terminal = flight.getTerminal();
+        return terminal == null || terminal.isEmpty() || gate.startsWith(terminal);
+    }
+
+    /**
+     * The outcome of planning
+     */
+    public static final class Plan {
+        private final Map<Flight, String> changes;
+        private final List<Flight> unassigned;
+
+        private Plan(Map<Flight, String> changes, List<Flight> unassigned) {
+            this.changes = Collections.unmodifiableMap(changes);
+            this.unassigned = Collections.unmodifiableList(unassigned);
+        }
+
+        /**
+         * @return New gate by flight, for the flights that move
+         */
+        public Map<Flight, String> getChanges() { return changes; }
+
+        /**
+         * @return Flights no free gate in their terminal could take; they keep their gate
+         */
+        public List<Flight> getUnassigned() { return unassigned; }
+
+        public boolean isEmpty() { return changes.isEmpty() && unassigned.isEmpty(); }
+    }
+}
@@ -0,0 +1,248 @@
+package com.yousif.attemp2;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GateSchedule - When each gate is occupied, kept up to date as the flight list changes.
+ *
+ * A flight occupies its gate from TURNAROUND_MILLIS before departure (the aircraft is on stand
+ * and boarding) until BUFFER_MILLIS after it, unless it is cancelled. Each gate keeps its
+ * flights in an IntervalTree, so whether a gate is free, and which flights clash with one, is
+ * answered in O(log n). Like ListIndex, flights are re-filed with {@link #reindex(Flight)} after
+ * their gate, departure time or status changes in place, and the schedule must only be used from
+ * the thread that modifies the list.
+ */
+public class GateSchedule {
+    public static final long TURNAROUND_MILLIS = 60 * 60 * 1000L;
+    public static final long BUFFER_MILLIS = 15 * 60 * 1000L;
+
+    /**
+     * The gates offered for assignment: A1-A20 to D1-D20
+     */
+    public static final List<String> DEFAULT_GATES = defaultGates();
+
+    private final ObservableList<Flight> source;
+    private final List<String> gates;
+    private final Map<String, IntervalTree<Flight>> occupancy = new LinkedHashMap<>();
+
+    // Where each flight is filed, so it can be unfiled after its fields changed
+    private final Map<Flight, IntervalTree.Entry<Flight>> entries = new IdentityHashMap<>();
+    private final Map<Flight, String> filedGates = new IdentityHashMap<>();
+
+    private final ListChangeListener<Flight> listListener = this::onListChanged;
+
+    /**
+     * @param source The flights to follow
+     * @param gates The gates flights can be assigned to; flights at other gates are still tracked
+     */
+    public GateSchedule(ObservableList<Flight> source, List<String> gates) {
+        this.source = source;
+        this.gates = Collections.unmodifiableList(new ArrayList<>(gates));
+        for (String gate : gates) {
+            occupancy.put(gate, new IntervalTree<>());
+        }
+        for (Flight flight : source) {
+            file(flight);
+        }
+        source.addListener(listListener);
+    }
+
+    /**
+     * @return The gates flights can be assigned to
+     */
+    public List<String> getGates() {
+        return gates;
+    }
+
+    /**
+     * Check whether a flight holds a gate at all
+     * @param flight The flight
+     * @return true unless it is cancelled or has no departure time
+     */
+    public static boolean occupiesGate(Flight flight) {
+        return flight.getDepartureTime() != null && !"Cancelled".equals(flight.getStatus());
+    }
+
+    /**
+     * @param flight A flight with a departure time
+     * @return When it takes its gate, in epoch millis
+     */
+    public static long occupancyStart(Flight flight) {
+        return toMillis(flight.getDepartureTime()) - TURNAROUND_MILLIS;
+    }
+
+    /**
+     * @param flight A flight with a departure time
+     * @return When it frees its gate, in epoch millis
+     */
+    public static long occupancyEnd(Flight flight) {
+        return toMillis(flight.getDepartureTime()) + BUFFER_MILLIS;
+    }
+
+    /**
+     * Find the flights whose time at a flight's gate overlaps its own
+     * @param flight The flight
+     * @return The clashing flights, by start; empty if it has no gate
+     */
+    public List<Flight> conflicts(Flight flight) {
+        String gate = flight.getGate();
+        if (!hasGate(gate) || !occupiesGate(flight)) {
+            return Collections.emptyList();
+        }
+        return occupants(gate, occupancyStart(flight), occupancyEnd(flight), flight);
+    }
+
+    /**
+     * Check whether a gate is free for the whole of a flight's time there
+     * @param gate The gate
+     * @param flight The flight; its own occupancy doesn't count
+     * @return true if no other flight holds the gate meanwhile
+     */
+    public boolean isFree(String gate, Flight flight) {
+        IntervalTree<Flight> tree = occupancy.get(gate);
+        if (tree == null) {
+            return true;
+        }
+        long start = occupancyStart(flight);
+        long end = occupancyEnd(flight);
+        IntervalTree.Entry<Flight> clash = tree.findAny(start, end);
+        // The flight may be the clash it finds; only then is a full search needed
+        return clash == null || (clash.getValue() == flight && occupants(gate, start, end, flight).isEmpty());
+    }
+
+    /**
+     * List the assignable gates free for a flight's whole time at the gate
+     * @param flight The flight
+     * @return The free gates, in gate order
+     */
+    public List<String> freeGates(Flight flight) {
+        List<String> free = new ArrayList<>();
+        for (String gate : gates) {
+            if (isFree(gate, flight)) {
+                free.add(gate);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Find the flights holding a gate at some point in a time range
+     * @param gate The gate
+     * @param start Inclusive start, epoch millis
+     * @param end Exclusive end, epoch millis
+     * @param exclude A flight to leave out, or null
+     * @return The flights, by start
+     */
+    public List<Flight> occupants(String gate, long start, long end, Flight exclude) {
+        IntervalTree<Flight> tree = occupancy.get(gate);
+        if (tree == null) {
+            return Collections.emptyList();
+        }
+        List<Flight> found = new ArrayList<>();
+        for (IntervalTree.Entry<Flight> entry : tree.findAll(start, end)) {
+            if (entry.getValue() != exclude) {
+                found.add(entry.getValue());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Count the assignable gates held by a flight at a moment
+     * @param time Epoch millis
+     * @return The number of occupied gates
+     */
+    public int occupiedCount(long time) {
+        int occupied = 0;
+        for (String gate : gates) {
+            if (occupancy.get(gate).findAny(time, time + 1) != null) {
+                occupied++;
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Re-file a flight whose gate, departure time or status was changed in place
+     * @param flight The flight; ignored if it isn't in the list
+     */
+    public void reindex(Flight flight) {
+        if (filedGates.containsKey(flight)) {
+            unfile(flight);
+            file(flight);
+        }
+    }
+
+    /**
+     * Stop following the source list
+     */
+    public void dispose() {
+        source.removeListener(listListener);
+        entries.clear();
+        filedGates.clear();
+        occupancy.clear();
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void onListChanged(ListChangeListener.Change<? extends Flight> change) {
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) {
+                continue;
+            }
+            for (Flight flight : change.getRemoved()) {
+                unfile(flight);
+            }
+            for (Flight flight : change.getAddedSubList()) {
+                file(flight);
+            }
+        }
+    }
+
+    private void file(Flight flight) {
+        String gate = flight.getGate();
+        filedGates.put(flight, gate);
+        if (hasGate(gate) && occupiesGate(flight)) {
+            entries.put(flight, occupancy.computeIfAbsent(gate, key -> new IntervalTree<>())
+                .add(occupancyStart(flight), occupancyEnd(flight), flight));
+        }
+    }
+
+    private void unfile(Flight flight) {
+        String gate = filedGates.remove(flight);
+        IntervalTree.Entry<Flight> entry = entries.remove(flight);
+        if (entry != null) {
+            IntervalTree<Flight> tree = occupancy.get(gate);
+            tree.remove(entry);
+            if (tree.isEmpty() && !gates.contains(gate)) {
+                occupancy.remove(gate);
+            }
+        }
+    }
+
+    private static boolean hasGate(String gate) {
+        return gate != null && !gate.isEmpty();
+    }
+
+    private static List<String> defaultGates() {
+        List<String> gates = new ArrayList<>();
+        for (char terminal = 'A'; terminal <= 'D'; terminal++) {
+            for (int i = 1; i <= 20; i++) {
+                gates.add(terminal + String.valueOf(i));
+            }
+        }
+        return Collections.unmodifiableList(gates);
+    }
+}
@@ -0,0 +1,325 @@
+package com.yousif.attemp2;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * IndexBenchmark - Measures the latency of the app's hot-path queries before and after the index migration.
+ *
+ * Creates a scratch database (airport_management_bench by default, dropped first), migrates it up
+ * to the version before the indexes, seeds a large deterministic dataset, times each query, then
+ * applies the index migration and times the same queries with the same parameters again.
+ *
+ * Usage: IndexBenchmark [scale] [database]
+ * where scale multiplies the default row counts (1 = 20k flights, 500k bookings, 400k bags).
+ */
+public class IndexBenchmark {
+    private static final int VERSION_BEFORE_INDEXES = 2;
+    // Later migrations add constraints the random seed data doesn't satisfy (V005: unique seats)
+    private static final int VERSION_WITH_INDEXES = 3;
+
+    private static final int WARMUP_RUNS = 50;
+    private static final int MEASURED_RUNS = 500;
+    private static final int BATCH_SIZE = 1000;
+    private static final long SEED = 42;
+
+    private final String databaseName;
+    private final int users;
+    private final int passengers;
+    private final int flights;
+    private final int bookings;
+    private final int bags;
+    private final int notifications;
+
+    public IndexBenchmark(String databaseName, double scale) {
+        this.databaseName = databaseName;
+        this.users = (int) (10_000 * scale);
+        this.passengers = (int) (200_000 * scale);
+        this.flights = (int) (20_000 * scale);
+        this.bookings = (int) (500_000 * scale);
+        this.bags = (int) (400_000 * scale);
+        this.notifications = (int) (200_000 * scale);
+    }
+
+    public static void main(String[] args) throws SQLException {
+        double scale = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        String databaseName = args.length > 1 ? args[1] : "airport_management_bench";
+        new IndexBenchmark(databaseName, scale).run();
+    }
+
+    /**
+     * Seed the scratch database and print before/after latencies
+     * @throws SQLException If the database can't be prepared or a query fails
+     */
+    public void run() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DatabaseConnection.SERVER_URL,
+                DatabaseConnection.DB_USER, DatabaseConnection.DB_PASSWORD);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP DATABASE IF EXISTS `" + databaseName + "`");
+        }
+
+        MigrationRunner runner = new MigrationRunner(DatabaseConnection.SERVER_URL, databaseName,
+            DatabaseConnection.DB_USER, DatabaseConnection.DB_PASSWORD);
+        runner.migrate(VERSION_BEFORE_INDEXES);
+
+        String url = DatabaseConnection.SERVER_URL + databaseName
+            + "?rewriteBatchedStatements=true&useServerPrepStmts=true";
+        try (Connection conn = DriverManager.getConnection(url, DatabaseConnection.DB_USER,
+                DatabaseConnection.DB_PASSWORD)) {
+            long start = System.nanoTime();
+            seed(conn);
+            System.out.printf("Seeded %,d flights, %,d passengers, %,d bookings, %,d bags in %.1f s%n",
+                flights, passengers, bookings, bags, (System.nanoTime() - start) / 1e9);
+
+            analyze(conn);
+            Map<String, double[]> before = measure(conn);
+
+            int applied = runner.migrate(VERSION_WITH_INDEXES);
+            System.out.println("Applied " + applied + " migration(s)");
+
+            analyze(conn);
+            Map<String, double[]> after = measure(conn);
+
+            printReport(before, after);
+        }
+    }
+
+    private void seed(Connection conn) throws SQLException {
+        Random random = new Random(SEED);
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO users (username, password, full_name, email) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= users; i++) {
+                    stmt.setString(1, "user" + i);
+                    stmt.setString(2, "secret");
+                    stmt.setString(3, "User " + i);
+                    stmt.setString(4, "user" + i + "@example.com");
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO passengers (user_id, first_name, last_name) VALUES (?, ?, ?)")) {
+                for (int i = 1; i <= passengers; i++) {
+                    // One passenger in four belongs to a registered user
+                    if (i % 4 == 0) {
+                        stmt.setInt(1, 1 + random.nextInt(users));
+                    } else {
+                        stmt.setNull(1, java.sql.Types.INTEGER);
+                    }
+                    stmt.setString(2, "First" + random.nextInt(2_000));
+                    stmt.setString(3, "Last" + random.nextInt(20_000));
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            long now = System.currentTimeMillis();
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO flights (flight_number, airline, origin, destination, departure_time, " +
+                    "arrival_time, status, gate, terminal) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                String[] statuses = {"On Time", "Delayed", "Boarding", "Departed", "Cancelled"};
+                for (int i = 1; i <= flights; i++) {
+                    long departure = now + (long) random.nextInt(30 * 24 * 60) * 60_000L;
+                    char terminal = (char) ('A' + random.nextInt(4));
+                    stmt.setString(1, flightNumber(i));
+                    stmt.setString(2, "Airline " + (i % 40));
+                    stmt.setString(3, "Origin " + random.nextInt(200));
+                    stmt.setString(4, "Destination " + random.nextInt(200));
+                    stmt.setTimestamp(5, new Timestamp(departure));
+                    stmt.setTimestamp(6, new Timestamp(departure + 3 * 3_600_000L));
+                    stmt.setString(7, statuses[random.nextInt(statuses.length)]);
+                    stmt.setString(8, terminal + String.valueOf(1 + random.nextInt(30)));
+                    stmt.setString(9, String.valueOf(terminal));
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO bookings (booking_reference, passenger_id, flight_id, seat_number, booking_status) " +
+                    "VALUES (?, ?, ?, ?, ?)")) {
+                String[] statuses = {"Confirmed", "Confirmed", "Checked In", "Cancelled"};
+                for (int i = 1; i <= bookings; i++) {
+                    stmt.setString(1, "R" + Integer.toString(i, 36).toUpperCase());
+                    stmt.setInt(2, 1 + random.nextInt(passengers));
+                    stmt.setInt(3, 1 + random.nextInt(flights));
+                    stmt.setString(4, (1 + random.nextInt(30)) + String.valueOf((char) ('A' + random.nextInt(6))));
+                    stmt.setString(5, statuses[random.nextInt(statuses.length)]);
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO baggage (baggage_tag, booking_id, weight, status, current_location, handling_time) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= bags; i++) {
+                    stmt.setString(1, String.format("BAG%09d", i));
+                    stmt.setInt(2, 1 + random.nextInt(bookings));
+                    stmt.setDouble(3, 5 + random.nextInt(2_500) / 100.0);
+                    stmt.setString(4, "In Transit");
+                    stmt.setString(5, "Sorting Area " + (1 + random.nextInt(5)));
+                    stmt.setString(6, (20 + random.nextInt(100)) + " sec");
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO notifications (user_id, message, created_at) VALUES (?, ?, ?)")) {
+                for (int i = 1; i <= notifications; i++) {
+                    stmt.setInt(1, 1 + random.nextInt(users));
+                    stmt.setString(2, "Notification " + i);
+                    stmt.setTimestamp(3, new Timestamp(now - (long) random.nextInt(90 * 24 * 60) * 60_000L));
+                    addBatch(stmt, i);
+                }
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static void addBatch(PreparedStatement stmt, int row) throws SQLException {
+        stmt.addBatch();
+        if (row % BATCH_SIZE == 0) {
+            stmt.executeBatch();
+        }
+    }
+
+    private static String flightNumber(int index) {
+        return String.valueOf((char) ('A' + index % 26)) + (char) ('A' + (index / 26) % 26) + index;
+    }
+
+    private static void analyze(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE TABLE users, passengers, flights, bookings, baggage, notifications");
+        }
+    }
+
+    /**
+     * Time each hot-path query; parameters come from a fixed seed so both runs see the same values
+     * @return Sorted latencies in microseconds per query
+     */
+    private Map<String, double[]> measure(Connection conn) throws SQLException {
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (HotQuery query : hotQueries()) {
+            Random random = new Random(SEED);
+            try (PreparedStatement stmt = conn.prepareStatement(query.sql)) {
+                double[] micros = new double[MEASURED_RUNS];
+                for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+                    query.binder.bind(stmt, random);
+                    long start = System.nanoTime();
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            // Drain the rows, as the screens do
+                        }
+                    }
+                    if (run >= WARMUP_RUNS) {
+                        micros[run - WARMUP_RUNS] = (System.nanoTime() - start) / 1_000.0;
+                    }
+                }
+                Arrays.sort(micros);
+                results.put(query.name, micros);
+            }
+        }
+        return results;
+    }
+
+    private List<HotQuery> hotQueries() {
+        List<HotQuery> queries = new ArrayList<>();
+        queries.add(new HotQuery("flight by number",
+            "SELECT flight_id FROM flights WHERE flight_number = ?",
+            (stmt, random) -> stmt.setString(1, flightNumber(1 + random.nextInt(flights)))));
+        queries.add(new HotQuery("reserved seats for flight",
+            "SELECT b.seat_number FROM bookings b JOIN flights f ON b.flight_id = f.flight_id " +
+            "WHERE f.flight_number = ? AND b.seat_number IS NOT NULL " +
+            "AND b.booking_status IN ('Confirmed', 'Checked In')",
+            (stmt, random) -> stmt.setString(1, flightNumber(1 + random.nextInt(flights)))));
+        queries.add(new HotQuery("passenger of user",
+            "SELECT passenger_id FROM passengers WHERE user_id = ?",
+            (stmt, random) -> stmt.setInt(1, 1 + random.nextInt(users))));
+        queries.add(new HotQuery("bookings by passenger name",
+            "SELECT f.flight_number FROM bookings b JOIN flights f ON b.flight_id = f.flight_id " +
+            "JOIN passengers p ON b.passenger_id = p.passenger_id WHERE p.first_name = ? AND p.last_name = ?",
+            (stmt, random) -> {
+                stmt.setString(1, "First" + random.nextInt(2_000));
+                stmt.setString(2, "Last" + random.nextInt(20_000));
+            }));
+        queries.add(new HotQuery("baggage of user",
+            "SELECT b.*, p.first_name, p.last_name, f.flight_number FROM baggage b " +
+            "JOIN bookings bk ON b.booking_id = bk.booking_id " +
+            "JOIN passengers p ON bk.passenger_id = p.passenger_id " +
+            "JOIN flights f ON bk.flight_id = f.flight_id " +
+            "WHERE p.user_id = ? ORDER BY b.handling_time DESC",
+            (stmt, random) -> stmt.setInt(1, 1 + random.nextInt(users))));
+        queries.add(new HotQuery("baggage on booking",
+            "SELECT baggage_tag FROM baggage WHERE booking_id = ?",
+            (stmt, random) -> stmt.setInt(1, 1 + random.nextInt(bookings))));
+        queries.add(new HotQuery("notifications of user",
+            "SELECT notification_id, message, is_read, created_at FROM notifications " +
+            "WHERE user_id = ? ORDER BY created_at DESC",
+            (stmt, random) -> stmt.setInt(1, 1 + random.nextInt(users))));
+        queries.add(new HotQuery("latest notifications",
+            "SELECT message FROM notifications ORDER BY created_at DESC LIMIT 20",
+            (stmt, random) -> { }));
+        return queries;
+    }
+
+    private static void printReport(Map<String, double[]> before, Map<String, double[]> after) {
+        System.out.println();
+        System.out.printf("%-28s %12s %12s %12s %12s %9s%n",
+            "query (us)", "p50 before", "p95 before", "p50 after", "p95 after", "speedup");
+        for (Map.Entry<String, double[]> entry : before.entrySet()) {
+            double[] old = entry.getValue();
+            double[] current = after.get(entry.getKey());
+            double oldMedian = percentile(old, 50);
+            double newMedian = percentile(current, 50);
+            System.out.printf("%-28s %12.0f %12.0f %12.0f %12.0f %8.1fx%n", entry.getKey(),
+                oldMedian, percentile(old, 95), newMedian, percentile(current, 95), oldMedian / newMedian);
+        }
+    }
+
+    private static double percentile(double[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Binds random parameters for one execution
+     */
+    private interface ParameterBinder {
+        void bind(PreparedStatement stmt, Random random) throws SQLException;
+    }
+
+    private static class HotQuery {
+        final String name;
+        final String sql;
+        final ParameterBinder binder;
+
+        HotQuery(String name, String sql, ParameterBinder binder) {
+            this.name = name;
+            this.sql = sql;
+            this.binder = binder;
+        }
+    }
+}
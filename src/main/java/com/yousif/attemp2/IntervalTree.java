@@ -0,0 +1,269 @@
+package com.yousif.attemp2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IntervalTree - Set of half-open intervals [start, end) answering "what overlaps this?" in
+ * O(log n).
+ *
+ * An AVL tree ordered by start, where each node also records the largest end in its subtree. A
+ * search skips every subtree whose largest end is at or before the query start, and every right
+ * subtree once the node start is at or past the query end, so finding one overlap takes O(log n)
+ * and finding all k of them O(log n + k). Intervals may overlap each other and repeat.
+ *
+ * Not thread-safe.
+ * @param <T> The value stored with each interval
+ */
+public final class IntervalTree<T> {
+    private Node<T> root;
+    private long nextSeq;
+    private int size;
+
+    /**
+     * Add an interval
+     * @param start Inclusive start
+     * @param end Exclusive end; must be after start
+     * @param value The value to store with it
+     * @return Handle for remove()
+     */
+    public Entry<T> add(long start, long end, T value) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Empty interval [" + start + ", " + end + ")");
+        }
+        Node<T> node = new Node<>(start, end, nextSeq++, value);
+        root = insert(root, node);
+        size++;
+        return node;
+    }
+
+    /**
+     * Remove an interval added earlier
+     * @param entry The handle returned by add()
+     * @return false if it had already been removed
+     */
+    public boolean remove(Entry<T> entry) {
+        Node<T> node = (Node<T>) entry;
+        if (!node.inTree) {
+            return false;
+        }
+        root = delete(root, node);
+        node.inTree = false;
+        size--;
+        return true;
+    }
+
+    /**
+     * Find any one interval overlapping a range
+     * @param start Inclusive start of the range
+     * @param end Exclusive end of the range
+     * @return An overlapping interval, or null if none overlaps
+     */
+    public Entry<T> findAny(long start, long end) {
+        Node<T> node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) {
+                return node;
+            }
+            // Anything overlapping on the left must end after start; if nothing there does, go right
+            if (node.left != null && node.left.maxEnd > start) {
+                node = node.left;
+            } else if (node.start < end) {
+                node = node.right;
+            } else {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find every interval overlapping a range
+     * @param start Inclusive start of the range
+     * @param end Exclusive end of the range
+     * @return The overlapping intervals, ordered by start
+     */
+    public List<Entry<T>> findAll(long start, long end) {
+        List<Entry<T>> found = new ArrayList<>();
+        collect(root, start, end, found);
+        return found;
+    }
+
+    /**
+     * Find the interval that ends last among those starting before a time
+     * @param time The time
+     * @return The latest end of an interval starting before it, or Long.MIN_VALUE if none does
+     */
+    public long latestEndBefore(long time) {
+        long latest = Long.MIN_VALUE;
+        Node<T> node = root;
+        while (node != null) {
+            if (node.start < time) {
+                // This node and its whole left subtree start before the time
+                latest = Math.max(latest, Math.max(node.end, maxEnd(node.left)));
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return latest;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static <T> void collect(Node<T> node, long start, long end, List<Entry<T>> found) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, found);
+        if (node.start < end) {
+            if (start < node.end) {
+                found.add(node);
+            }
+            collect(node.right, start, end, found);
+        }
+    }
+
+    private static <T> Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            added.inTree = true;
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private static <T> Node<T> delete(Node<T> node, Node<T> removed) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(removed, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, removed);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, removed);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Replace with the smallest node on the right
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private static <T> Node<T> deleteMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return rebalance(node);
+    }
+
+    private static <T> int compare(Node<T> a, Node<T> b) {
+        int cmp = Long.compare(a.start, b.start);
+        return cmp != 0 ? cmp : Long.compare(a.seq, b.seq);
+    }
+
+    private static <T> Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static <T> int height(Node<T> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <T> long maxEnd(Node<T> node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+
+    /**
+     * An interval in the tree
+     * @param <T> The value type
+     */
+    public interface Entry<T> {
+        long getStart();
+        long getEnd();
+        T getValue();
+    }
+
+    private static final class Node<T> implements Entry<T> {
+        private final long start;
+        private final long end;
+        private final long seq;
+        private final T value;
+        private Node<T> left;
+        private Node<T> right;
+        private int height = 1;
+        private long maxEnd;
+        private boolean inTree;
+
+        private Node(long start, long end, long seq, T value) {
+            this.start = start;
+            this.end = end;
+            this.seq = seq;
+            this.value = value;
+            this.maxEnd = end;
+        }
+
+        @Override public long getStart() { return start; }
+        @Override public long getEnd() { return end; }
+        @Override public T getValue() { return value; }
+    }
+}
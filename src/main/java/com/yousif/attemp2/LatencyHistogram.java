@@ -0,0 +1,124 @@
+package com.yousif.attemp2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram - Lock-free latency histogram with bounded relative error, in the style of HdrHistogram.
+ *
+ * Values are recorded in microseconds into log-linear buckets: each power of two is split into
+ * 16 sub-buckets, so any percentile is reported within about 6% of the true value whatever the
+ * range (1 µs to days), in a fixed 5 KB per histogram. Recording is a few shifts and one atomic
+ * increment, cheap enough to run on every statement.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values from 2^MAX_MAGNITUDE µs (about 12 days) up are clamped into the last bucket
+    private static final int MAX_MAGNITUDE = 40;
+    private static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private volatile long maxMicros;
+
+    /**
+     * Record one duration
+     * @param nanos The duration in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        counts.incrementAndGet(bucketOf(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+        if (micros > maxMicros) {
+            synchronized (this) {
+                if (micros > maxMicros) {
+                    maxMicros = micros;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of recorded values
+     * @return Count
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Get the mean of the recorded values
+     * @return Mean in milliseconds, 0 if nothing was recorded
+     */
+    public double getMeanMillis() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : totalMicros.sum() / 1000.0 / count;
+    }
+
+    /**
+     * Get the largest recorded value
+     * @return Maximum in milliseconds
+     */
+    public double getMaxMillis() {
+        return maxMicros / 1000.0;
+    }
+
+    /**
+     * Get the value below which a given fraction of the recorded values fall
+     * @param percentile e.g. 99.9
+     * @return The value in milliseconds, 0 if nothing was recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                // Midpoint of the bucket, but never above the largest value actually seen
+                return Math.min((lowerBound(i) + upperBound(i)) / 2.0, maxMicros) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude >= MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return ((long) (bucket % SUB_BUCKETS + SUB_BUCKETS + 1) << shift) - 1;
+    }
+}
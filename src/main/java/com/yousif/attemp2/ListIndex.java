@@ -0,0 +1,169 @@
+package com.yousif.attemp2;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * ListIndex - Hash index over an ObservableList, kept up to date as the list changes.
+ *
+ * Items are filed under the key returned by the key extractor. Several items may share a key.
+ * Items can be re-filed with {@link #reindex(Object)} after their key field is changed in place.
+ * Like the list it indexes, an index must only be used from the thread that modifies the list
+ * (normally the JavaFX Application Thread).
+ *
+ * @param <T> The type of the indexed items
+ */
+public class ListIndex<T> {
+    private final ObservableList<T> source;
+    private final Function<T, String> keyExtractor;
+
+    private final Map<String, Set<T>> buckets = new HashMap<>();
+
+    // Key each item is currently filed under, so it can be unfiled after the key has changed
+    private final Map<T, String> filedKeys = new IdentityHashMap<>();
+
+    private final ListChangeListener<T> listListener = this::onListChanged;
+
+    /**
+     * Index a list by a key
+     * @param source The list to index
+     * @param keyExtractor Returns the key of an item (null keys are not indexed)
+     */
+    public ListIndex(ObservableList<T> source, Function<T, String> keyExtractor) {
+        this.source = source;
+        this.keyExtractor = keyExtractor;
+
+        for (T item : source) {
+            add(item);
+        }
+        source.addListener(listListener);
+    }
+
+    /**
+     * Get the first item filed under a key
+     * @param key The key to look up
+     * @return The item, or null if none has this key
+     */
+    public T first(String key) {
+        Set<T> bucket = buckets.get(key);
+        return bucket == null ? null : bucket.iterator().next();
+    }
+
+    /**
+     * Get all items filed under a key
+     * @param key The key to look up
+     * @return Read-only live view of the matching items, in the order they were indexed
+     */
+    public Collection<T> get(String key) {
+        Set<T> bucket = buckets.get(key);
+        return bucket == null ? Collections.emptySet() : Collections.unmodifiableSet(bucket);
+    }
+
+    /**
+     * Count the items filed under a key
+     * @param key The key to look up
+     * @return The number of matching items
+     */
+    public int count(String key) {
+        Set<T> bucket = buckets.get(key);
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    /**
+     * Check whether any item has the given key
+     * @param key The key to look up
+     * @return true if at least one item matches
+     */
+    public boolean containsKey(String key) {
+        return buckets.containsKey(key);
+    }
+
+    /**
+     * Get all distinct keys currently in the index
+     * @return Read-only live view of the keys
+     */
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(buckets.keySet());
+    }
+
+    /**
+     * Re-file an item whose key was changed in place
+     * @param item The item to re-file; ignored if it isn't in the list
+     */
+    public void reindex(T item) {
+        if (filedKeys.containsKey(item)) {
+            refile(item, keyExtractor.apply(item));
+        }
+    }
+
+    /**
+     * Stop following the source list
+     */
+    public void dispose() {
+        source.removeListener(listListener);
+        filedKeys.clear();
+        buckets.clear();
+    }
+
+    private void onListChanged(ListChangeListener.Change<? extends T> change) {
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) {
+                // Same items, same keys
+                continue;
+            }
+            for (T item : change.getRemoved()) {
+                remove(item);
+            }
+            for (T item : change.getAddedSubList()) {
+                add(item);
+            }
+        }
+    }
+
+    private void add(T item) {
+        String key = keyExtractor.apply(item);
+        filedKeys.put(item, key);
+        file(key, item);
+    }
+
+    private void remove(T item) {
+        unfile(filedKeys.remove(item), item);
+    }
+
+    private void refile(T item, String newKey) {
+        String oldKey = filedKeys.put(item, newKey);
+        if (!Objects.equals(oldKey, newKey)) {
+            unfile(oldKey, item);
+            file(newKey, item);
+        }
+    }
+
+    private void file(String key, T item) {
+        if (key != null) {
+            buckets.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(item);
+        }
+    }
+
+    private void unfile(String key, T item) {
+        if (key == null) {
+            return;
+        }
+        Set<T> bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(item);
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+}
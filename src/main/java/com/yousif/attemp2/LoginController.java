@@ -10,6 +10,7 @@ import javafx.scene.Parent;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * LoginController - Handles the login functionality
@@ -88,9 +89,24 @@ public class LoginController {
             return;
         }
         
-        // Check credentials against database
-        UserData userData = getUserFromDatabase(username, password);
-        
+        // Check credentials against database without blocking the UI
+        CompletableFuture
+            .supplyAsync(() -> getUserFromDatabase(username, password), BackgroundExecutors.database())
+            .whenComplete((userData, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                if (error != null) {
+                    showError("Login failed: " + error.getMessage());
+                } else {
+                    completeLogin(username, userData);
+                }
+            }));
+    }
+    
+    /**
+     * Open the selected portal once the credentials have been checked
+     * @param username The username that was entered
+     * @param userData The matching user, or null if the credentials were invalid
+     */
+    private void completeLogin(String username, UserData userData) {
         if (userData != null) {
             // Login successful - show appropriate application
             try {
@@ -108,7 +124,7 @@ public class LoginController {
                 }
                 
                 // Update last login time in database
-                updateLastLoginTime(username);
+                CompletableFuture.runAsync(() -> updateLastLoginTime(username), BackgroundExecutors.database());
                 
             } catch (IOException e) {
                 showError("Failed to load application: " + e.getMessage());
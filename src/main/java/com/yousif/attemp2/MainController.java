@@ -48,6 +48,9 @@ public class MainController {
     @FXML
     private Button adminServicesBtn;
     
+    @FXML
+    private Button dbMetricsBtn;
+    
     private Button currentActiveButton;
 
     @FXML
@@ -111,6 +114,12 @@ public class MainController {
         setActiveButton(adminServicesBtn);
     }
     
+    @FXML
+    private void showDatabaseMetrics() {
+        loadModule("database-metrics-view.fxml");
+        setActiveButton(dbMetricsBtn);
+    }
+    
     @FXML
     private void logout() {
         try {
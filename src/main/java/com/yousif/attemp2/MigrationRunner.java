@@ -0,0 +1,351 @@
+package com.yousif.attemp2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MigrationRunner - Brings a database schema up to date with versioned SQL scripts.
+ *
+ * Scripts live in /com/yousif/attemp2/migrations and are named V&lt;version&gt;__&lt;description&gt;.sql.
+ * Each applied script is recorded in schema_migrations with a SHA-256 checksum, so running the
+ * runner again only applies what's new, and a script edited after it was applied is reported
+ * instead of silently ignored. A database created before migrations existed (it has tables but
+ * no history) is recorded as being at the baseline version. Concurrent runners are serialized
+ * with a MySQL named lock.
+ */
+public class MigrationRunner {
+    private static final String MIGRATIONS_PATH = "/com/yousif/attemp2/migrations/";
+
+    // In version order; add new scripts at the end
+    private static final List<String> MIGRATIONS = List.of(
+        "V001__baseline_schema.sql",
+        "V002__deleted_rows_tombstones.sql",
+        "V003__hot_path_indexes.sql",
+        "V004__service_requests.sql",
+        "V005__unique_active_seat.sql",
+        "V006__change_log.sql",
+        "V007__baggage_tracking_history_index.sql"
+    );
+
+    // Scripts up to this version describe what the old install script created
+    private static final int BASELINE_VERSION = 1;
+
+    private static final String LOCK_NAME = "schema_migrations_lock";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    // Errors meaning a statement's object already exists (table, column, index, trigger).
+    // A migration that failed part-way can then be re-run without manual cleanup.
+    private static final Set<Integer> ALREADY_EXISTS_ERRORS = Set.of(1050, 1060, 1061, 1359);
+
+    private final String serverUrl;
+    private final String databaseName;
+    private final String user;
+    private final String password;
+
+    /**
+     * @param serverUrl JDBC URL of the MySQL server without a database, e.g. "jdbc:mysql://localhost:3306/"
+     * @param databaseName The database to migrate; created if it doesn't exist
+     * @param user Database user
+     * @param password Database password
+     */
+    public MigrationRunner(String serverUrl, String databaseName, String user, String password) {
+        this.serverUrl = serverUrl;
+        this.databaseName = databaseName;
+        this.user = user;
+        this.password = password;
+    }
+
+    /**
+     * Apply all pending migrations
+     * @return The number of migrations applied
+     * @throws SQLException If a migration fails or an applied one no longer matches its checksum
+     */
+    public int migrate() throws SQLException {
+        return migrate(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Apply pending migrations up to and including a version
+     * @param targetVersion The last version to apply
+     * @return The number of migrations applied
+     * @throws SQLException If a migration fails or an applied one no longer matches its checksum
+     */
+    public int migrate(int targetVersion) throws SQLException {
+        List<Migration> migrations = loadMigrations();
+
+        try (Connection conn = DriverManager.getConnection(serverUrl, user, password)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE DATABASE IF NOT EXISTS `" + databaseName + "`");
+            }
+            conn.setCatalog(databaseName);
+
+            acquireLock(conn);
+            try {
+                createHistoryTable(conn);
+                Map<Integer, String> applied = queryAppliedChecksums(conn);
+
+                if (applied.isEmpty() && hasExistingSchema(conn)) {
+                    for (Migration migration : migrations) {
+                        if (migration.version <= BASELINE_VERSION) {
+                            recordMigration(conn, migration, 0, "baseline");
+                            applied.put(migration.version, migration.checksum);
+                        }
+                    }
+                    System.out.println("Existing schema recorded at baseline version " + BASELINE_VERSION);
+                }
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    String appliedChecksum = applied.get(migration.version);
+                    if (appliedChecksum != null) {
+                        if (!appliedChecksum.equals(migration.checksum)) {
+                            throw new SQLException("Migration " + migration.script + " was modified after it was "
+                                + "applied (checksum " + appliedChecksum + ", now " + migration.checksum + ")");
+                        }
+                        continue;
+                    }
+                    if (migration.version > targetVersion) {
+                        break;
+                    }
+                    apply(conn, migration);
+                    count++;
+                }
+                return count;
+            } finally {
+                releaseLock(conn);
+            }
+        }
+    }
+
+    /**
+     * Get the highest applied version
+     * @return The current schema version, or 0 if no migration has been applied
+     * @throws SQLException If the history can't be read
+     */
+    public int currentVersion() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(serverUrl, user, password)) {
+            conn.setCatalog(databaseName);
+            createHistoryTable(conn);
+            int version = 0;
+            for (Integer applied : queryAppliedChecksums(conn).keySet()) {
+                version = Math.max(version, applied);
+            }
+            return version;
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        // MySQL commits DDL implicitly, so a migration can't be rolled back as a whole
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : splitStatements(migration.sql)) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_EXISTS_ERRORS.contains(e.getErrorCode())) {
+                        throw new SQLException("Migration " + migration.script + " failed: " + e.getMessage(),
+                            e.getSQLState(), e.getErrorCode(), e);
+                    }
+                    System.out.println("Skipping statement in " + migration.script + ": " + e.getMessage());
+                }
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        recordMigration(conn, migration, elapsedMillis, "applied");
+        System.out.println("Applied migration " + migration.script + " in " + elapsedMillis + " ms");
+    }
+
+    private static void createHistoryTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                "version INT PRIMARY KEY, " +
+                "description VARCHAR(200) NOT NULL, " +
+                "script VARCHAR(200) NOT NULL, " +
+                "checksum CHAR(64) NOT NULL, " +
+                "execution_ms BIGINT NOT NULL, " +
+                "outcome VARCHAR(20) NOT NULL, " +
+                "installed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    private static Map<Integer, String> queryAppliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT version, checksum FROM schema_migrations");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private boolean hasExistingSchema(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = ? AND table_name = 'flights'")) {
+            stmt.setString(1, databaseName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private static void recordMigration(Connection conn, Migration migration, long elapsedMillis, String outcome)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_migrations (version, description, script, checksum, execution_ms, outcome) " +
+                "VALUES (?, ?, ?, ?, ?, ?)")) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setString(3, migration.script);
+            stmt.setString(4, migration.checksum);
+            stmt.setLong(5, elapsedMillis);
+            stmt.setString(6, outcome);
+            stmt.executeUpdate();
+        }
+    }
+
+    private void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, databaseName + "." + LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another migration run to finish");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, databaseName + "." + LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            // The lock is released anyway when the connection closes
+            System.err.println("Error releasing migration lock: " + e.getMessage());
+        }
+    }
+
+    private static List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+        for (String script : MIGRATIONS) {
+            try (InputStream in = MigrationRunner.class.getResourceAsStream(MIGRATIONS_PATH + script)) {
+                if (in == null) {
+                    throw new SQLException("Migration script not found: " + script);
+                }
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                in.transferTo(buffer);
+                // Normalize line endings so a checkout with CRLF doesn't change the checksum
+                String sql = buffer.toString(StandardCharsets.UTF_8).replace("\r\n", "\n");
+                migrations.add(new Migration(script, sql));
+            } catch (IOException e) {
+                throw new SQLException("Could not read migration script " + script, e);
+            }
+        }
+        return migrations;
+    }
+
+    /**
+     * Split a script into statements on semicolons outside quotes and comments.
+     * Comments are dropped. Scripts must not use DELIMITER, so trigger bodies have to be
+     * single statements.
+     * @param script The SQL script
+     * @return The statements, without the trailing semicolons
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        int length = script.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : 0;
+
+            if (quote != 0) {
+                current.append(c);
+                if (c == '\\' && quote != '`' && next != 0) {
+                    current.append(next);
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                current.append(c);
+            } else if ((c == '-' && next == '-') || c == '#') {
+                while (i < length && script.charAt(i) != '\n') {
+                    i++;
+                }
+                current.append('\n');
+            } else if (c == '/' && next == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+                current.append(' ');
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java runtime ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * One versioned script
+     */
+    private static class Migration {
+        final int version;
+        final String description;
+        final String script;
+        final String sql;
+        final String checksum;
+
+        Migration(String script, String sql) {
+            int separator = script.indexOf("__");
+            this.version = Integer.parseInt(script.substring(1, separator));
+            this.description = script.substring(separator + 2, script.length() - ".sql".length()).replace('_', ' ');
+            this.script = script;
+            this.sql = sql;
+            this.checksum = sha256(sql);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.yousif.attemp2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * PassengerFlowModel - Headless state and update step of the passenger flow simulation.
+ *
+ * Passengers walk from the entrance through check-in, security, gate and boarding, spending a
+ * fixed number of frames being processed at each. The model knows nothing about the canvas or
+ * timers, so SimulationController just drives step() and draws the result, and the update loop
+ * can be exercised at scale outside the UI.
+ */
+public class PassengerFlowModel {
+    public static final String CHECK_IN = "checkin";
+    public static final String SECURITY = "security";
+    public static final String GATE = "gate";
+    public static final String BOARDING = "boarding";
+    public static final String COMPLETE = "complete";
+
+    private static final double SPEED = 5.0;
+    private static final double ARRIVAL_DISTANCE = 5.0;
+
+    private final double[][] zoneCentres;
+    private final List<Passenger> passengers = new ArrayList<>();
+    private final int[] stageCounts = new int[4];
+    private int totalCreated;
+    private int totalProcessed;
+
+    /**
+     * Create a model over four zones, each given as {x, y, width, height}
+     * @param checkInZone Check-in zone
+     * @param securityZone Security zone
+     * @param gateZone Gate zone
+     * @param boardingZone Boarding zone
+     */
+    public PassengerFlowModel(int[] checkInZone, int[] securityZone, int[] gateZone, int[] boardingZone) {
+        this.zoneCentres = new double[][] {
+            centreOf(checkInZone), centreOf(securityZone), centreOf(gateZone), centreOf(boardingZone)
+        };
+    }
+
+    private static double[] centreOf(int[] zone) {
+        return new double[] {zone[0] + zone[2] / 2, zone[1] + zone[3] / 2};
+    }
+
+    /**
+     * Add a passenger heading for check-in
+     * @param x Start x
+     * @param y Start y
+     * @return The new passenger
+     */
+    public Passenger spawn(double x, double y) {
+        Passenger passenger = new Passenger(x, y, CHECK_IN);
+        passengers.add(passenger);
+        totalCreated++;
+        return passenger;
+    }
+
+    /**
+     * Advance every passenger by one frame and recount the queues
+     */
+    public void step() {
+        Arrays.fill(stageCounts, 0);
+
+        Iterator<Passenger> iterator = passengers.iterator();
+        while (iterator.hasNext()) {
+            Passenger passenger = iterator.next();
+            int stage = stageOf(passenger.getDestination());
+            if (stage < 0) {
+                // Remove passenger who completed boarding
+                iterator.remove();
+                totalProcessed++;
+                continue;
+            }
+            moveTowards(passenger, zoneCentres[stage][0], zoneCentres[stage][1]);
+            stageCounts[stage]++;
+
+            if (passenger.isAtDestination()) {
+                processAtDestination(passenger, stage);
+            }
+        }
+    }
+
+    /**
+     * Remove all passengers and zero the totals
+     */
+    public void reset() {
+        passengers.clear();
+        Arrays.fill(stageCounts, 0);
+        totalCreated = 0;
+        totalProcessed = 0;
+    }
+
+    private void moveTowards(Passenger passenger, double targetX, double targetY) {
+        double dx = targetX - passenger.getX();
+        double dy = targetY - passenger.getY();
+        double distance = Math.sqrt(dx * dx + dy * dy);
+
+        if (distance < ARRIVAL_DISTANCE) {
+            passenger.setAtDestination(true);
+            return;
+        }
+
+        passenger.setX(passenger.getX() + (dx / distance) * SPEED);
+        passenger.setY(passenger.getY() + (dy / distance) * SPEED);
+    }
+
+    private void processAtDestination(Passenger passenger, int stage) {
+        passenger.incrementProcessingTime();
+
+        // Move to next checkpoint when processing is complete
+        if (passenger.getProcessingTime() >= processingFrames(passenger.getDestination())) {
+            passenger.setProcessingTime(0);
+            passenger.setAtDestination(false);
+            passenger.setDestination(stage == 3 ? COMPLETE : stageName(stage + 1));
+        }
+    }
+
+    /**
+     * Get the number of frames a passenger spends being processed at a checkpoint
+     * @param destination Checkpoint name
+     * @return Frames (each about 0.1 seconds), 10 for anything unknown
+     */
+    public static int processingFrames(String destination) {
+        switch (destination) {
+            case CHECK_IN: return 30;
+            case SECURITY: return 50;
+            case GATE: return 20;
+            default: return 10;
+        }
+    }
+
+    private static int stageOf(String destination) {
+        switch (destination) {
+            case CHECK_IN: return 0;
+            case SECURITY: return 1;
+            case GATE: return 2;
+            case BOARDING: return 3;
+            default: return -1;
+        }
+    }
+
+    private static String stageName(int stage) {
+        switch (stage) {
+            case 0: return CHECK_IN;
+            case 1: return SECURITY;
+            case 2: return GATE;
+            default: return BOARDING;
+        }
+    }
+
+    /**
+     * Get the number of passengers heading for or being processed at a checkpoint, as of the last step
+     * @param destination Checkpoint name
+     * @return Count, 0 for unknown names
+     */
+    public int getQueueLength(String destination) {
+        int stage = stageOf(destination);
+        return stage < 0 ? 0 : stageCounts[stage];
+    }
+
+    public List<Passenger> getPassengers() { return passengers; }
+
+    public int getTotalCreated() { return totalCreated; }
+
+    public int getTotalProcessed() { return totalProcessed; }
+
+    /**
+     * A simulated passenger and where they are heading
+     */
+    public static class Passenger {
+        private double x;
+        private double y;
+        private String destination;
+        private boolean atDestination;
+        private int processingTime;
+
+        public Passenger(double x, double y, String destination) {
+            this.x = x;
+            this.y = y;
+            this.destination = destination;
+        }
+
+        public double getX() { return x; }
+        public void setX(double x) { this.x = x; }
+
+        public double getY() { return y; }
+        public void setY(double y) { this.y = y; }
+
+        public String getDestination() { return destination; }
+        public void setDestination(String destination) { this.destination = destination; }
+
+        public boolean isAtDestination() { return atDestination; }
+        public void setAtDestination(boolean atDestination) { this.atDestination = atDestination; }
+
+        public int getProcessingTime() { return processingTime; }
+        public void setProcessingTime(int processingTime) { this.processingTime = processingTime; }
+        public void incrementProcessingTime() { this.processingTime++; }
+    }
+}
@@ -0,0 +1,417 @@
+package com.yousif.attemp2;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * QueryMetrics - Per-statement latency, row and error statistics for every query the app runs.
+ *
+ * {@link #instrument(Connection)} wraps a connection so the statements it creates time each
+ * execute call and count the rows read from their result sets. Statistics are kept per normalized
+ * SQL text: whitespace collapsed and literals replaced by '?', so a query built by string
+ * concatenation still lands in one entry. Executions slower than the threshold are also kept in
+ * a short slow-query log with the time and thread they ran on.
+ */
+public class QueryMetrics {
+    private static final long DEFAULT_SLOW_QUERY_MILLIS = 200;
+    private static final int SLOW_LOG_SIZE = 200;
+    // Distinct statements tracked; more would only come from SQL built with unusual literals
+    private static final int MAX_STATEMENTS = 500;
+    private static final String OTHER_STATEMENTS = "(other statements)";
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final ConcurrentHashMap<String, StatementStats> statements = new ConcurrentHashMap<>();
+    // Raw SQL to normalized SQL; the raw strings are mostly constants, so this stays small
+    private final ConcurrentHashMap<String, String> normalized = new ConcurrentHashMap<>();
+    private final LatencyHistogram connectionWait = new LatencyHistogram();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private volatile long slowQueryNanos = DEFAULT_SLOW_QUERY_MILLIS * 1_000_000;
+    private volatile LocalDateTime since = LocalDateTime.now();
+
+    /**
+     * Statistics for one normalized statement
+     */
+    public static class StatementStats {
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+
+        StatementStats(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() { return sql; }
+        public LatencyHistogram getLatency() { return latency; }
+        public long getCalls() { return latency.getCount(); }
+        public long getErrors() { return errors.sum(); }
+        public long getRows() { return rows.sum(); }
+        public long getSlowCount() { return slow.sum(); }
+
+        /**
+         * Get the time spent in this statement altogether
+         * @return Total milliseconds
+         */
+        public double getTotalMillis() {
+            return latency.getMeanMillis() * latency.getCount();
+        }
+    }
+
+    /**
+     * One execution that took longer than the slow-query threshold
+     */
+    public static class SlowQuery {
+        private final String sql;
+        private final double millis;
+        private final LocalDateTime at;
+        private final String thread;
+        private final boolean failed;
+
+        SlowQuery(String sql, double millis, LocalDateTime at, String thread, boolean failed) {
+            this.sql = sql;
+            this.millis = millis;
+            this.at = at;
+            this.thread = thread;
+            this.failed = failed;
+        }
+
+        public String getSql() { return sql; }
+        public double getMillis() { return millis; }
+        public LocalDateTime getAt() { return at; }
+        public String getThread() { return thread; }
+        public boolean isFailed() { return failed; }
+    }
+
+    /**
+     * Wrap a connection so every statement created from it is measured
+     * @param connection The connection, e.g. a pool lease
+     * @return A connection that behaves the same but records statistics
+     */
+    public Connection instrument(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+    }
+
+    /**
+     * Record how long a caller waited for a pooled connection
+     * @param nanos The wait in nanoseconds
+     */
+    public void recordConnectionWait(long nanos) {
+        connectionWait.recordNanos(nanos);
+    }
+
+    public LatencyHistogram getConnectionWait() {
+        return connectionWait;
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryNanos / 1_000_000;
+    }
+
+    public void setSlowQueryThresholdMillis(long millis) {
+        slowQueryNanos = millis * 1_000_000;
+    }
+
+    public LocalDateTime getSince() {
+        return since;
+    }
+
+    /**
+     * Get the statistics of every statement seen, slowest in total first
+     * @return A snapshot list; the entries keep updating
+     */
+    public List<StatementStats> getStatementStats() {
+        List<StatementStats> result = new ArrayList<>(statements.values());
+        result.sort(Comparator.comparingDouble(StatementStats::getTotalMillis).reversed());
+        return result;
+    }
+
+    /**
+     * Get the recent slow executions, newest first
+     * @return A copy of the slow-query log
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    /**
+     * Forget all statistics gathered so far
+     */
+    public void reset() {
+        statements.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+        since = LocalDateTime.now();
+    }
+
+    /**
+     * Write all statistics as a plain-text report
+     * @param file The file to write; replaced if it exists
+     * @throws IOException If the file can't be written
+     */
+    public void dump(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.printf("Query metrics from %s to %s%n", TIME_FORMAT.format(since), TIME_FORMAT.format(LocalDateTime.now()));
+            out.printf("Connection wait: n=%d mean=%.2fms p50=%.2fms p99=%.2fms max=%.2fms%n%n",
+                connectionWait.getCount(), connectionWait.getMeanMillis(), connectionWait.getPercentileMillis(50),
+                connectionWait.getPercentileMillis(99), connectionWait.getMaxMillis());
+
+            out.printf("%10s %7s %10s %9s %9s %9s %9s %9s %11s  %s%n",
+                "calls", "errors", "rows", "mean ms", "p50 ms", "p95 ms", "p99 ms", "max ms", "total ms", "sql");
+            for (StatementStats stats : getStatementStats()) {
+                LatencyHistogram latency = stats.getLatency();
+                out.printf("%10d %7d %10d %9.2f %9.2f %9.2f %9.2f %9.2f %11.1f  %s%n",
+                    stats.getCalls(), stats.getErrors(), stats.getRows(), latency.getMeanMillis(),
+                    latency.getPercentileMillis(50), latency.getPercentileMillis(95),
+                    latency.getPercentileMillis(99), latency.getMaxMillis(), stats.getTotalMillis(), stats.getSql());
+            }
+
+            out.printf("%nSlow queries (over %d ms), newest first%n", getSlowQueryThresholdMillis());
+            for (SlowQuery slow : getSlowQueries()) {
+                out.printf("%s %9.2f ms %-24s %s%s%n", TIME_FORMAT.format(slow.getAt()), slow.getMillis(),
+                    slow.getThread(), slow.isFailed() ? "FAILED " : "", slow.getSql());
+            }
+        }
+    }
+
+    private StatementStats statsFor(String sql) {
+        String key = normalized.get(sql);
+        if (key == null) {
+            key = normalize(sql);
+            if (normalized.size() < MAX_STATEMENTS * 4) {
+                normalized.put(sql, key);
+            }
+        }
+        StatementStats stats = statements.get(key);
+        if (stats == null) {
+            if (statements.size() >= MAX_STATEMENTS) {
+                key = OTHER_STATEMENTS;
+            }
+            stats = statements.computeIfAbsent(key, StatementStats::new);
+        }
+        return stats;
+    }
+
+    private void record(StatementStats stats, long nanos, boolean failed) {
+        stats.latency.recordNanos(nanos);
+        if (failed) {
+            stats.errors.increment();
+        }
+        if (nanos >= slowQueryNanos) {
+            stats.slow.increment();
+            SlowQuery slow = new SlowQuery(stats.sql, nanos / 1_000_000.0, LocalDateTime.now(),
+                Thread.currentThread().getName(), failed);
+            synchronized (slowQueries) {
+                slowQueries.addFirst(slow);
+                if (slowQueries.size() > SLOW_LOG_SIZE) {
+                    slowQueries.removeLast();
+                }
+            }
+        }
+    }
+
+    /**
+     * Collapse whitespace and replace string and number literals with '?'
+     * @param sql The SQL as executed
+     * @return The statement's shape, shared by every execution with different values
+     */
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        boolean space = false;
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = out.length() > 0;
+                continue;
+            }
+            if (space) {
+                out.append(' ');
+                space = false;
+            }
+            if (c == '\'' || c == '"') {
+                // Skip to the closing quote; doubled or backslash-escaped quotes stay inside
+                int j = i + 1;
+                while (j < length) {
+                    char d = sql.charAt(j);
+                    if (d == '\\') {
+                        j += 2;
+                    } else if (d == c && j + 1 < length && sql.charAt(j + 1) == c) {
+                        j += 2;
+                    } else if (d == c) {
+                        break;
+                    } else {
+                        j++;
+                    }
+                }
+                out.append('?');
+                i = j;
+            } else if (Character.isDigit(c) && (i == 0 || !isIdentifierChar(sql.charAt(i - 1)))) {
+                int j = i;
+                while (j + 1 < length && (Character.isDigit(sql.charAt(j + 1)) || sql.charAt(j + 1) == '.')) {
+                    j++;
+                }
+                out.append('?');
+                i = j;
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '`';
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Wraps the statements a connection creates
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement":
+                    return wrap(PreparedStatement.class, QueryMetrics.invoke(connection, method, args), (String) args[0]);
+                case "prepareCall":
+                    return wrap(CallableStatement.class, QueryMetrics.invoke(connection, method, args), (String) args[0]);
+                case "createStatement":
+                    return wrap(Statement.class, QueryMetrics.invoke(connection, method, args), null);
+                default:
+                    return QueryMetrics.invoke(connection, method, args);
+            }
+        }
+
+        private Object wrap(Class<?> type, Object statement, String sql) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                new StatementHandler((Statement) statement, sql));
+        }
+    }
+
+    /**
+     * Times execute calls and wraps their result sets to count rows
+     */
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        // Null for plain Statements, whose SQL comes with each execute call
+        private final String preparedSql;
+        private StatementStats lastStats;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getResultSet":
+                    return countRows(QueryMetrics.invoke(statement, method, args), lastStats);
+                default:
+                    break;
+            }
+            if (!name.startsWith("execute")) {
+                return QueryMetrics.invoke(statement, method, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            StatementStats stats = statsFor(sql == null ? "(batch)" : sql);
+            lastStats = stats;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryMetrics.invoke(statement, method, args);
+            } catch (Throwable t) {
+                record(stats, System.nanoTime() - start, true);
+                throw t;
+            }
+            record(stats, System.nanoTime() - start, false);
+
+            if (result instanceof Integer || result instanceof Long) {
+                stats.rows.add(Math.max(0, ((Number) result).longValue()));
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    stats.rows.add(Math.max(0, count));
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    stats.rows.add(Math.max(0, count));
+                }
+            }
+            return countRows(result, stats);
+        }
+
+        private Object countRows(Object result, StatementStats stats) {
+            if (!(result instanceof ResultSet) || stats == null) {
+                return result;
+            }
+            ResultSet resultSet = (ResultSet) result;
+            return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "next":
+                            Object hasRow = QueryMetrics.invoke(resultSet, method, args);
+                            if (Boolean.TRUE.equals(hasRow)) {
+                                stats.rows.increment();
+                            }
+                            return hasRow;
+                        default:
+                            return QueryMetrics.invoke(resultSet, method, args);
+                    }
+                });
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.yousif.attemp2;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * RotationGraph - Which flights depend on which: the aircraft rotation and passenger connections.
+ *
+ * The schema doesn't record which aircraft flies a flight, so rotations are inferred from the
+ * schedule the way a turn plan would be drawn up: an aircraft arriving at a station flies its
+ * airline's earliest unclaimed departure from there at least MIN_TURN_MILLIS later, if one leaves
+ * within MAX_GROUND_MILLIS. Every flight thus has at most one previous and one next leg, and the
+ * rotations are disjoint chains. Connections come from bookings: passengers booked on an arriving
+ * flight and on a later departure from its destination.
+ *
+ * The graph is immutable and copies what it needs from the flights, so it can be used off the
+ * list thread.
+ */
+public final class RotationGraph {
+    public static final long MIN_TURN_MILLIS = 45 * 60 * 1000L;
+    public static final long MAX_GROUND_MILLIS = 6 * 60 * 60 * 1000L;
+
+    final String[] flightNumbers;
+    final long[] departures;
+    final long[] arrivals;
+    // Rotation links by node index; -1 where there is none
+    final int[] next;
+    final int[] previous;
+    // Connection edges: arriving leg, departing leg and passengers booked on both
+    final int[] connectionFrom;
+    final int[] connectionTo;
+    final int[] connectionPassengers;
+    // Connection edges by node, as the arriving and as the departing leg
+    final int[][] connectionsOut;
+    final int[][] connectionsIn;
+
+    private final Map<String, Integer> indexByNumber;
+
+    private RotationGraph(String[] flightNumbers, long[] departures, long[] arrivals, int[] next, int[] previous,
+                          int[] connectionFrom, int[] connectionTo, int[] connectionPassengers,
+                          Map<String, Integer> indexByNumber) {
+        this.flightNumbers = flightNumbers;
+        this.departures = departures;
+        this.arrivals = arrivals;
+        this.next = next;
+        this.previous = previous;
+        this.connectionFrom = connectionFrom;
+        this.connectionTo = connectionTo;
+        this.connectionPassengers = connectionPassengers;
+        this.indexByNumber = indexByNumber;
+        this.connectionsOut = group(connectionFrom, flightNumbers.length);
+        this.connectionsIn = group(connectionTo, flightNumbers.length);
+    }
+
+    /**
+     * Build the graph from the current schedule. Call on the list thread.
+     * @param flights The flights; cancelled ones and those without times are left out
+     * @param connections Passenger counts per connection, e.g. from DataService.queryConnectionsAsync()
+     * @return The graph
+     */
+    public static RotationGraph build(Collection<Flight> flights, Collection<Connection> connections) {
+        List<Flight> included = new ArrayList<>();
+        Map<String, Integer> indexByNumber = new HashMap<>();
+        for (Flight flight : flights) {
+            if (flight.getDepartureTime() != null && flight.getArrivalTime() != null
+                    && !"Cancelled".equals(flight.getStatus())
+                    && indexByNumber.putIfAbsent(flight.getFlightNumber(), included.size()) == null) {
+                included.add(flight);
+            }
+        }
+        int n = included.size();
+        String[] numbers = new String[n];
+        long[] departures = new long[n];
+        long[] arrivals = new long[n];
+        for (int i = 0; i < n; i++) {
+            Flight flight = included.get(i);
+            numbers[i] = flight.getFlightNumber();
+            departures[i] = toMillis(flight.getDepartureTime());
+            arrivals[i] = toMillis(flight.getArrivalTime());
+        }
+
+        // Departures by airline and station, in time order, for the turn matching
+        Map<String, TreeMap<Long, ArrayDeque<Integer>>> departing = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Flight flight = included.get(i);
+            departing.computeIfAbsent(flight.getAirline() + '|' + flight.getOrigin(), key -> new TreeMap<>())
+                .computeIfAbsent(departures[i], key -> new ArrayDeque<>()).add(i);
+        }
+        Integer[] byArrival = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byArrival[i] = i;
+        }
+        Arrays.sort(byArrival, (a, b) -> Long.compare(arrivals[a], arrivals[b]));
+
+        int[] next = new int[n];
+        int[] previous = new int[n];
+        Arrays.fill(next, -1);
+        Arrays.fill(previous, -1);
+        for (int i : byArrival) {
+            Flight flight = included.get(i);
+            TreeMap<Long, ArrayDeque<Integer>> station = departing.get(flight.getAirline() + '|' + flight.getDestination());
+            if (station == null) {
+                continue;
+            }
+            Map.Entry<Long, ArrayDeque<Integer>> slot = station.ceilingEntry(arrivals[i] + MIN_TURN_MILLIS);
+            if (slot == null || slot.getKey() > arrivals[i] + MAX_GROUND_MILLIS) {
+                continue;
+            }
+            int successor = slot.getValue().poll();
+            if (slot.getValue().isEmpty()) {
+                station.remove(slot.getKey());
+            }
+            next[i] = successor;
+            previous[successor] = i;
+        }
+
+        List<int[]> edges = new ArrayList<>();
+        for (Connection connection : connections) {
+            Integer from = indexByNumber.get(connection.inbound);
+            Integer to = indexByNumber.get(connection.outbound);
+            if (from != null && to != null && connection.passengers > 0) {
+                edges.add(new int[] { from, to, connection.passengers });
+            }
+        }
+        int[] connectionFrom = new int[edges.size()];
+        int[] connectionTo = new int[edges.size()];
+        int[] connectionPassengers = new int[edges.size()];
+        for (int e = 0; e < edges.size(); e++) {
+            connectionFrom[e] = edges.get(e)[0];
+            connectionTo[e] = edges.get(e)[1];
+            connectionPassengers[e] = edges.get(e)[2];
+        }
+        return new RotationGraph(numbers, departures, arrivals, next, previous,
+            connectionFrom, connectionTo, connectionPassengers, indexByNumber);
+    }
+
+    /**
+     * @return The number of flights in the graph
+     */
+    public int size() {
+        return flightNumbers.length;
+    }
+
+    /**
+     * @return The number of connections with passengers booked on both legs
+     */
+    public int connectionCount() {
+        return connectionFrom.length;
+    }
+
+    /**
+     * @param flightNumber A flight number
+     * @return Its node index, or -1 if the flight isn't in the graph
+     */
+    int indexOf(String flightNumber) {
+        Integer index = indexByNumber.get(flightNumber);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Get the flights the same aircraft flies after a flight
+     * @param flightNumber The flight
+     * @return The following legs, in order; empty if none or the flight isn't in the graph
+     */
+    public List<String> getRotationAfter(String flightNumber) {
+        List<String> legs = new ArrayList<>();
+        int index = indexOf(flightNumber);
+        for (int leg = index < 0 ? -1 : next[index]; leg >= 0; leg = next[leg]) {
+            legs.add(flightNumbers[leg]);
+        }
+        return legs;
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Edge indices per node, from an array giving each edge's node
+     */
+    private static int[][] group(int[] nodeOfEdge, int nodes) {
+        int[] counts = new int[nodes];
+        for (int node : nodeOfEdge) {
+            counts[node]++;
+        }
+        int[][] grouped = new int[nodes][];
+        for (int i = 0; i < nodes; i++) {
+            grouped[i] = new int[counts[i]];
+        }
+        for (int e = nodeOfEdge.length - 1; e >= 0; e--) {
+            int node = nodeOfEdge[e];
+            grouped[node][--counts[node]] = e;
+        }
+        return grouped;
+    }
+
+    /**
+     * Passengers booked on an arriving flight and a later departure from its destination
+     */
+    public static final class Connection {
+        private final String inbound;
+        private final String outbound;
+        private final int passengers;
+
+        public Connection(String inbound, String outbound, int passengers) {
+            this.inbound = inbound;
+            this.outbound = outbound;
+            this.passengers = passengers;
+        }
+
+        public String getInbound() { return inbound; }
+        public String getOutbound() { return outbound; }
+        public int getPassengers() { return passengers; }
+    }
+}
@@ -0,0 +1,539 @@
+package com.yousif.attemp2;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * ScheduleImporter - Loads a flight schedule file into the flights table in bulk.
+ *
+ * Two CSV formats are read, told apart by their header line; columns may come in any order:
+ * <ul>
+ *   <li>Flights: flight_number, airline, origin, destination, departure_time, arrival_time and
+ *       optionally status, gate and terminal, with times as yyyy-MM-dd HH:mm.</li>
+ *   <li>Seasonal: flight_number, airline, origin, destination, period_start, period_end, days,
+ *       departure, arrival and optionally gate and terminal; one line per service, flying on the
+ *       days of the week given as digits (1 = Monday, '.' or '-' for gaps) within the period,
+ *       with arrival as HH:mm plus +1 when it lands the next day. Flights are identified by their
+ *       number alone, so a service is loaded as its next operation from the import date on.</li>
+ * </ul>
+ *
+ * The file is streamed in chunks of CHUNK_ROWS lines. Each chunk is validated in parallel while
+ * the one before it is written, so memory stays bounded by a few chunks whatever the file size.
+ * A chunk is upserted by flight number in its own transaction: the numbers already stored are
+ * read with one query, then the rows are updated and inserted with batched statements (rewritten
+ * into multi-row statements by the driver). Columns left out or blank keep the stored value.
+ * Rejected rows are reported with their line and reason and don't stop the import; a chunk that
+ * fails to write does, leaving the chunks before it committed.
+ *
+ * Usage: ScheduleImporter file
+ */
+public class ScheduleImporter {
+    // Lines per validation chunk and per transaction
+    static final int CHUNK_ROWS = 1_000;
+
+    // Status of new flights whose row gives none: the column default
+    public static final String DEFAULT_STATUS = "On Time";
+
+    // Rejections kept for the report; the rest are only counted
+    private static final int REPORTED_REJECTIONS = 100;
+
+    // Statuses that fit the 20-character column
+    private static final Set<String> STATUSES = Set.of("On Time", "Delayed", "Boarding", "Gate Closed", "Departed",
+        "Cancelled");
+    private static final Pattern FLIGHT_NUMBER = Pattern.compile("[A-Z0-9]{2,3}[0-9]{1,4}[A-Z]?");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss]");
+
+    private static final List<String> FLIGHT_COLUMNS = List.of("flight_number", "airline", "origin", "destination",
+        "departure_time", "arrival_time");
+    private static final List<String> SEASONAL_COLUMNS = List.of("flight_number", "airline", "origin", "destination",
+        "period_start", "period_end", "days", "departure", "arrival");
+
+    private static final String UPDATE_FLIGHT = "UPDATE flights SET airline = ?, origin = ?, destination = ?, " +
+        "departure_time = ?, arrival_time = ?, status = COALESCE(?, status), gate = COALESCE(?, gate), " +
+        "terminal = COALESCE(?, terminal) WHERE flight_number = ?";
+    private static final String INSERT_FLIGHT = "INSERT INTO flights (flight_number, airline, origin, destination, " +
+        "departure_time, arrival_time, status, gate, terminal) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * The file formats read
+     */
+    public enum Format {
+        FLIGHTS, SEASONAL
+    }
+
+    private final DatabaseConnection dbConnection;
+    private final LocalDate importDate;
+
+    /**
+     * @param dbConnection Where to store the flights
+     * @param importDate Seasonal services are loaded as their first operation on or after this date
+     */
+    public ScheduleImporter(DatabaseConnection dbConnection, LocalDate importDate) {
+        this.dbConnection = dbConnection;
+        this.importDate = importDate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ScheduleImporter file");
+            System.exit(2);
+        }
+        ScheduleImporter importer = new ScheduleImporter(DatabaseConnection.getInstance(), LocalDate.now());
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]))) {
+            System.out.println(importer.importSchedule(reader, flights -> { }).describe());
+        }
+    }
+
+    /**
+     * Import a schedule file
+     * @param reader The file, starting with its header line; read to the end but not closed
+     * @param committed Receives the flights of each chunk once it is committed, with columns the
+     *                  file left out or blank as null
+     * @return The outcome; check {@link ImportReport#getFailure()} for a write that failed
+     * @throws IOException If the file can't be read, or its header names neither format
+     */
+    public ImportReport importSchedule(BufferedReader reader, Consumer<List<Flight>> committed) throws IOException {
+        long started = System.nanoTime();
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IOException("The schedule file is empty");
+        }
+        // Spreadsheets often save CSV with a byte order mark
+        List<String> names = splitCsv(headerLine.startsWith("\uFEFF") ? headerLine.substring(1) : headerLine);
+        if (names == null) {
+            throw new IOException("Unterminated quote in the header: " + headerLine);
+        }
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        Format format;
+        if (header.keySet().containsAll(FLIGHT_COLUMNS)) {
+            format = Format.FLIGHTS;
+        } else if (header.keySet().containsAll(SEASONAL_COLUMNS)) {
+            format = Format.SEASONAL;
+        } else {
+            throw new IOException("Unrecognised schedule header, expected the columns " + FLIGHT_COLUMNS
+                + " or " + SEASONAL_COLUMNS + ": " + headerLine);
+        }
+
+        ImportReport report = new ImportReport(format);
+        int[] lineNumber = { 1 };
+        List<String> chunk = readChunk(reader, lineNumber);
+        int chunkStart = 2;
+        CompletableFuture<Object[]> validating = validateAsync(chunk, header, format);
+        try (Connection conn = dbConnection.getConnection()) {
+            while (!chunk.isEmpty()) {
+                Object[] rows = validating.join();
+                // Read and validate the next chunk while this one is written
+                int nextStart = lineNumber[0] + 1;
+                List<String> next = readChunk(reader, lineNumber);
+                validating = validateAsync(next, header, format);
+
+                Map<String, Flight> flights = new LinkedHashMap<>();
+                for (int i = 0; i < rows.length; i++) {
+                    if (rows[i] == null) {
+                        continue;
+                    }
+                    report.rowsRead++;
+                    if (rows[i] instanceof Flight) {
+                        Flight flight = (Flight) rows[i];
+                        // A later row for the same flight replaces an earlier one
+                        flights.remove(flight.getFlightNumber());
+                        flights.put(flight.getFlightNumber(), flight);
+                    } else {
+                        report.reject(chunkStart + i, (String) rows[i]);
+                    }
+                }
+                if (!flights.isEmpty()) {
+                    try {
+                        upsert(conn, flights, report);
+                    } catch (SQLException e) {
+                        report.failure = "Stopped at line " + chunkStart + ": " + e.getMessage();
+                        System.err.println("Error importing schedule: " + e.getMessage());
+                        break;
+                    }
+                    committed.accept(new ArrayList<>(flights.values()));
+                }
+                chunk = next;
+                chunkStart = nextStart;
+            }
+        } catch (SQLException e) {
+            report.failure = "Could not connect: " + e.getMessage();
+            System.err.println("Error importing schedule: " + e.getMessage());
+        }
+        report.elapsedNanos = System.nanoTime() - started;
+        return report;
+    }
+
+    private static List<String> readChunk(BufferedReader reader, int[] lineNumber) throws IOException {
+        List<String> lines = new ArrayList<>(CHUNK_ROWS);
+        String line;
+        while (lines.size() < CHUNK_ROWS && (line = reader.readLine()) != null) {
+            lineNumber[0]++;
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Parse a chunk on the common pool, in parallel
+     * @return Per line, the Flight, the reason it was rejected, or null for a blank line
+     */
+    private CompletableFuture<Object[]> validateAsync(List<String> lines, Map<String, Integer> header, Format format) {
+        if (lines.isEmpty()) {
+            return CompletableFuture.completedFuture(new Object[0]);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            Object[] rows = new Object[lines.size()];
+            IntStream.range(0, rows.length).parallel().forEach(i -> rows[i] = parse(lines.get(i), header, format));
+            return rows;
+        });
+    }
+
+    private Object parse(String line, Map<String, Integer> header, Format format) {
+        if (line.isBlank()) {
+            return null;
+        }
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            return "Unterminated quote";
+        }
+        String flightNumber = field(fields, header, "flight_number");
+        if (flightNumber == null || !FLIGHT_NUMBER.matcher(flightNumber.toUpperCase(Locale.ROOT)).matches()) {
+            return "Invalid flight number: " + flightNumber;
+        }
+        flightNumber = flightNumber.toUpperCase(Locale.ROOT);
+        String airline = field(fields, header, "airline");
+        String origin = field(fields, header, "origin");
+        String destination = field(fields, header, "destination");
+        if (airline == null || airline.length() > 50) {
+            return "Missing or too long airline";
+        }
+        if (origin == null || destination == null || origin.length() > 100 || destination.length() > 100) {
+            return "Missing or too long origin or destination";
+        }
+        if (origin.equalsIgnoreCase(destination)) {
+            return "Origin and destination are the same";
+        }
+        String gate = field(fields, header, "gate");
+        if (gate != null && gate.length() > 5) {
+            return "Gate longer than 5 characters: " + gate;
+        }
+        String terminal = field(fields, header, "terminal");
+        if (terminal == null && gate != null) {
+            terminal = gate.substring(0, 1);
+        }
+        if (terminal != null && terminal.length() != 1) {
+            return "Terminal must be one letter: " + terminal;
+        }
+        String status = format == Format.FLIGHTS ? field(fields, header, "status") : null;
+        if (status != null && !STATUSES.contains(status)) {
+            return "Unknown status: " + status;
+        }
+
+        LocalDateTime departure;
+        LocalDateTime arrival;
+        try {
+            if (format == Format.FLIGHTS) {
+                departure = parseDateTime(required(fields, header, "departure_time"));
+                arrival = parseDateTime(required(fields, header, "arrival_time"));
+            } else {
+                LocalDate date = nextOperation(fields, header);
+                if (date == null) {
+                    return "No operation left in the period";
+                }
+                departure = date.atTime(LocalTime.parse(required(fields, header, "departure")));
+                arrival = parseArrival(date, required(fields, header, "arrival"));
+            }
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return "Invalid time or period: " + e.getMessage();
+        }
+        if (!arrival.isAfter(departure)) {
+            return "Arrival is not after departure";
+        }
+
+        Flight flight = new Flight(flightNumber, airline, origin, destination, departure, arrival, status);
+        flight.setGate(gate);
+        flight.setTerminal(terminal == null ? null : terminal.toUpperCase(Locale.ROOT));
+        return flight;
+    }
+
+    /**
+     * The first day of a seasonal service's period it flies on, from the import date on
+     * @return null if it doesn't fly again
+     */
+    private LocalDate nextOperation(List<String> fields, Map<String, Integer> header) {
+        LocalDate start = LocalDate.parse(required(fields, header, "period_start"));
+        LocalDate end = LocalDate.parse(required(fields, header, "period_end"));
+        String days = required(fields, header, "days");
+        boolean[] flies = new boolean[8];
+        boolean any = false;
+        for (char c : days.toCharArray()) {
+            if (c >= '1' && c <= '7') {
+                flies[c - '0'] = true;
+                any = true;
+            } else if (c != '.' && c != '-' && c != ' ') {
+                throw new IllegalArgumentException("days must be digits 1-7: " + days);
+            }
+        }
+        if (!any) {
+            throw new IllegalArgumentException("no days of operation");
+        }
+        LocalDate date = start.isBefore(importDate) ? importDate : start;
+        for (int i = 0; i < 7 && !date.isAfter(end); i++, date = date.plusDays(1)) {
+            if (flies[date.getDayOfWeek().getValue()]) {
+                return date;
+            }
+        }
+        return null;
+    }
+
+    private static LocalDateTime parseDateTime(String text) {
+        return LocalDateTime.parse(text.replace('T', ' '), DATE_TIME);
+    }
+
+    /**
+     * Parse HH:mm with an optional +N days
+     */
+    private static LocalDateTime parseArrival(LocalDate date, String text) {
+        int plus = text.indexOf('+');
+        if (plus < 0) {
+            return date.atTime(LocalTime.parse(text));
+        }
+        return date.plusDays(Integer.parseInt(text.substring(plus + 1).trim()))
+            .atTime(LocalTime.parse(text.substring(0, plus).trim()));
+    }
+
+    /**
+     * @return The trimmed field, or null if the column is missing or the field blank
+     */
+    private static String field(List<String> fields, Map<String, Integer> header, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String required(List<String> fields, Map<String, Integer> header, String column) {
+        String value = field(fields, header, column);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + column);
+        }
+        return value;
+    }
+
+    /**
+     * Split a CSV line, with double quotes around fields containing commas and "" for a quote
+     * @return The fields, or null if a quote isn't closed
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Update the stored flights and insert the rest, in one transaction
+     */
+    private static void upsert(Connection conn, Map<String, Flight> flights, ImportReport report) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            Set<String> existing = new HashSet<>();
+            StringBuilder sql = new StringBuilder("SELECT flight_number FROM flights WHERE flight_number IN (");
+            for (int i = 0; i < flights.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql.append(')').toString())) {
+                int index = 1;
+                for (String flightNumber : flights.keySet()) {
+                    stmt.setString(index++, flightNumber);
+                }
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    existing.add(rs.getString(1));
+                }
+            }
+
+            int updated = 0;
+            int inserted = 0;
+            try (PreparedStatement update = conn.prepareStatement(UPDATE_FLIGHT);
+                 PreparedStatement insert = conn.prepareStatement(INSERT_FLIGHT)) {
+                for (Flight flight : flights.values()) {
+                    if (existing.contains(flight.getFlightNumber())) {
+                        update.setString(1, flight.getAirline());
+                        update.setString(2, flight.getOrigin());
+                        update.setString(3, flight.getDestination());
+                        update.setTimestamp(4, Timestamp.valueOf(flight.getDepartureTime()));
+                        update.setTimestamp(5, Timestamp.valueOf(flight.getArrivalTime()));
+                        update.setString(6, flight.getStatus());
+                        update.setString(7, flight.getGate());
+                        update.setString(8, flight.getTerminal());
+                        update.setString(9, flight.getFlightNumber());
+                        update.addBatch();
+                        updated++;
+                    } else {
+                        insert.setString(1, flight.getFlightNumber());
+                        insert.setString(2, flight.getAirline());
+                        insert.setString(3, flight.getOrigin());
+                        insert.setString(4, flight.getDestination());
+                        insert.setTimestamp(5, Timestamp.valueOf(flight.getDepartureTime()));
+                        insert.setTimestamp(6, Timestamp.valueOf(flight.getArrivalTime()));
+                        insert.setString(7, flight.getStatus() == null ? DEFAULT_STATUS : flight.getStatus());
+                        insert.setString(8, flight.getGate());
+                        insert.setString(9, flight.getTerminal());
+                        insert.addBatch();
+                        inserted++;
+                    }
+                }
+                if (updated > 0) {
+                    update.executeBatch();
+                }
+                if (inserted > 0) {
+                    insert.executeBatch();
+                }
+            }
+            conn.commit();
+            report.updated += updated;
+            report.inserted += inserted;
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * The outcome of an import
+     */
+    public static final class ImportReport {
+        private final Format format;
+        private int rowsRead;
+        private int inserted;
+        private int updated;
+        private int rejected;
+        private final List<String> rejections = new ArrayList<>();
+        private String failure;
+        private long elapsedNanos;
+
+        private ImportReport(Format format) {
+            this.format = format;
+        }
+
+        private void reject(int line, String reason) {
+            if (rejected++ < REPORTED_REJECTIONS) {
+                rejections.add("Line " + line + ": " + reason);
+            }
+        }
+
+        public Format getFormat() { return format; }
+
+        /**
+         * @return Data rows read, blank lines not counted
+         */
+        public int getRowsRead() { return rowsRead; }
+        public int getInserted() { return inserted; }
+        public int getUpdated() { return updated; }
+        public int getRejected() { return rejected; }
+
+        /**
+         * @return The first rejected rows, with their line and reason
+         */
+        public List<String> getRejections() { return Collections.unmodifiableList(rejections); }
+
+        /**
+         * @return Why the import stopped early, or null if it read the whole file
+         */
+        public String getFailure() { return failure; }
+
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rowsRead * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return A summary for operators, with the first rejected rows
+         */
+        public String describe() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%d rows in %.1f s (%.0f rows/s): %d added, %d updated, %d rejected",
+                rowsRead, elapsedNanos / 1e9, getRowsPerSecond(), inserted, updated, rejected));
+            if (failure != null) {
+                text.append("\n").append(failure);
+            }
+            int listed = 0;
+            for (String rejection : rejections) {
+                if (listed++ == 10) {
+                    text.append("\n... and ").append(rejected - 10).append(" more rejected rows");
+                    break;
+                }
+                text.append("\n").append(rejection);
+            }
+            return text.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "ImportReport{" + format + ", rows=" + rowsRead + ", inserted=" + inserted + ", updated=" + updated
+                + ", rejected=" + rejected + ", " + getElapsedMillis() + "ms" + (failure == null ? "" : ", " + failure) + "}";
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.yousif.attemp2;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * SearchIndex - Case-insensitive substring search over an ObservableList, kept up to date as the list changes.
+ *
+ * Every item gets a row id and each trigram (three consecutive characters) of its searchable text
+ * maps to a posting list of row ids. A query is answered by intersecting the posting lists of its
+ * trigrams, starting with the shortest, and checking the few remaining candidates with contains().
+ * Queries shorter than three characters have no trigram and fall back to scanning the stored text.
+ *
+ * Row ids only ever grow, so posting lists stay sorted by appending. Removed or changed items leave
+ * stale ids behind; the postings are rebuilt once stale ids outnumber live ones. Like the list it
+ * indexes, a search index must only be used from the thread that modifies the list.
+ *
+ * @param <T> The type of the indexed items
+ */
+public class SearchIndex<T> {
+    private static final int MIN_COMPACT_SIZE = 1024;
+
+    // Separates fields so a match can't span two of them
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final ObservableList<T> source;
+    private final Function<T, String[]> fieldsExtractor;
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    // Row id -> item and its normalized text; null once the row is stale
+    private final List<T> rows = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    private final Map<T, Integer> rowIds = new IdentityHashMap<>();
+    private int staleRows;
+
+    private final ListChangeListener<T> listListener = this::onListChanged;
+
+    /**
+     * Index a list by its searchable fields
+     * @param source The list to index
+     * @param fieldsExtractor Returns the searchable fields of an item (null fields are skipped)
+     */
+    public SearchIndex(ObservableList<T> source, Function<T, String[]> fieldsExtractor) {
+        this.source = source;
+        this.fieldsExtractor = fieldsExtractor;
+
+        for (T item : source) {
+            index(item);
+        }
+        source.addListener(listListener);
+    }
+
+    /**
+     * Find all items with a field containing the query, ignoring case
+     * @param query The text to look for
+     * @return The matching items, oldest indexed first; every item if the query is empty
+     */
+    public List<T> search(String query) {
+        String needle = normalize(query);
+        List<T> matches = new ArrayList<>();
+        if (needle.isEmpty()) {
+            for (T item : rows) {
+                if (item != null) {
+                    matches.add(item);
+                }
+            }
+            return matches;
+        }
+        if (needle.length() < 3) {
+            for (int id = 0; id < rows.size(); id++) {
+                String text = texts.get(id);
+                if (text != null && text.contains(needle)) {
+                    matches.add(rows.get(id));
+                }
+            }
+            return matches;
+        }
+
+        PostingList[] lists = new PostingList[needle.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            PostingList list = postings.get(trigram(needle, i));
+            if (list == null) {
+                return matches;
+            }
+            lists[i] = list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        PostingList shortest = lists[0];
+        for (int i = 0; i < shortest.size; i++) {
+            int id = shortest.ids[i];
+            String text = texts.get(id);
+            if (text == null || !containsAll(lists, id) || !text.contains(needle)) {
+                continue;
+            }
+            matches.add(rows.get(id));
+        }
+        return matches;
+    }
+
+    /**
+     * Get the number of items in the index
+     * @return The number of live rows
+     */
+    public int size() {
+        return rowIds.size();
+    }
+
+    /**
+     * Re-index an item whose fields were changed in place
+     * @param item The item to re-index; ignored if it isn't in the list
+     */
+    public void reindex(T item) {
+        if (rowIds.containsKey(item)) {
+            unindex(item);
+            index(item);
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Stop following the source list
+     */
+    public void dispose() {
+        source.removeListener(listListener);
+        clear();
+    }
+
+    private void onListChanged(ListChangeListener.Change<? extends T> change) {
+        while (change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) {
+                // Same items, same text
+                continue;
+            }
+            if (change.getRemovedSize() == rowIds.size() && change.getList().size() == change.getAddedSize()) {
+                // setAll()/clear(): drop everything at once rather than item by item
+                clear();
+            } else {
+                for (T item : change.getRemoved()) {
+                    unindex(item);
+                }
+            }
+            for (T item : change.getAddedSubList()) {
+                index(item);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    private void index(T item) {
+        String text = buildText(item);
+        int id = rows.size();
+        rows.add(item);
+        texts.add(text);
+        rowIds.put(item, id);
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long key = trigram(text, i);
+            if (key >= 0) {
+                postings.computeIfAbsent(key, k -> new PostingList()).add(id);
+            }
+        }
+    }
+
+    private void unindex(T item) {
+        Integer id = rowIds.remove(item);
+        if (id != null) {
+            rows.set(id, null);
+            texts.set(id, null);
+            staleRows++;
+        }
+    }
+
+    private void clear() {
+        postings.clear();
+        rows.clear();
+        texts.clear();
+        rowIds.clear();
+        staleRows = 0;
+    }
+
+    private void compactIfNeeded() {
+        if (staleRows < MIN_COMPACT_SIZE || staleRows < rowIds.size()) {
+            return;
+        }
+        List<T> live = new ArrayList<>(rowIds.size());
+        for (T item : rows) {
+            if (item != null) {
+                live.add(item);
+            }
+        }
+        clear();
+        for (T item : live) {
+            index(item);
+        }
+    }
+
+    private String buildText(T item) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fieldsExtractor.apply(item)) {
+            if (field == null) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(FIELD_SEPARATOR);
+            }
+            text.append(normalize(field));
+        }
+        return text.toString();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Packs three chars into one key; -1 if the trigram spans a field separator
+    private static long trigram(String text, int start) {
+        char a = text.charAt(start);
+        char b = text.charAt(start + 1);
+        char c = text.charAt(start + 2);
+        if (a == FIELD_SEPARATOR || b == FIELD_SEPARATOR || c == FIELD_SEPARATOR) {
+            return -1;
+        }
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static boolean containsAll(PostingList[] lists, int id) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sorted, append-only list of row ids
+     */
+    private static class PostingList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            // The same trigram can occur more than once in a text
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
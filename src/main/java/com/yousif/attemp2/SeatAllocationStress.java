@@ -0,0 +1,163 @@
+package com.yousif.attemp2;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SeatAllocationStress - Hammers the seat allocator from many threads and counts double allocations.
+ *
+ * Runs without a database: a map of active bookings per seat stands in for the bookings table and
+ * its unique (flight_id, active_seat) index, and is also what the seat loader reads, so cache
+ * reloads race with the bookings as they would against MySQL. Worker threads hold random seats,
+ * then store and confirm them, abandon them to expiry, release them, or cancel earlier bookings,
+ * while another thread keeps invalidating the cache. A booking that finds its seat already
+ * active in the table is a double allocation the in-memory holds let through; there must be none.
+ *
+ * Usage: SeatAllocationStress [threads] [seconds] [flights]
+ */
+public class SeatAllocationStress {
+    // Abandoned holds expire during the run, but a hold outlives its own insert as the real
+    // two-minute hold does; a hold that expires mid-insert is left to the unique index
+    private static final long HOLD_MILLIS = 2000;
+
+    private final int threads;
+    private final long durationMillis;
+    private final List<String> flightNumbers;
+
+    // Active bookings per "flight/seat"; more than one is a double allocation
+    private final ConcurrentHashMap<String, AtomicInteger> table = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Boolean>> seatsByFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder booked = new LongAdder();
+    private final LongAdder unavailable = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder doubleAllocations = new LongAdder();
+
+    public SeatAllocationStress(int threads, long durationMillis, int flights) {
+        this.threads = threads;
+        this.durationMillis = durationMillis;
+        String[] numbers = new String[flights];
+        for (int i = 0; i < flights; i++) {
+            numbers[i] = "ST" + (100 + i);
+            seatsByFlight.put(numbers[i], new ConcurrentHashMap<>());
+        }
+        this.flightNumbers = List.of(numbers);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        int flights = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        boolean clean = new SeatAllocationStress(threads, seconds * 1000, flights).run();
+        System.exit(clean ? 0 : 1);
+    }
+
+    /**
+     * Run the workers and print the outcome counts
+     * @return true if no seat was allocated twice
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public boolean run() throws InterruptedException {
+        SeatLayout layout = SeatLayout.STANDARD;
+        SeatInventoryCache cache = new SeatInventoryCache(layout,
+            flightNumber -> List.copyOf(seatsByFlight.get(flightNumber).keySet()));
+        SeatAllocator allocator = new SeatAllocator(cache, HOLD_MILLIS);
+        long deadline = System.currentTimeMillis() + durationMillis;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    work(layout, cache, allocator, deadline);
+                } finally {
+                    done.countDown();
+                }
+            }, "seat-stress-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        Thread invalidator = new Thread(() -> {
+            while (System.currentTimeMillis() < deadline) {
+                cache.invalidateAll();
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "seat-stress-invalidator");
+        invalidator.setDaemon(true);
+        invalidator.start();
+
+        long start = System.nanoTime();
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        allocator.shutdown();
+
+        System.out.printf("%d threads, %d flights, %.1f s%n", threads, flightNumbers.size(), seconds);
+        System.out.printf("Booked:             %,12d  (%,.0f/s)%n", booked.sum(), booked.sum() / seconds);
+        System.out.printf("Seat unavailable:   %,12d%n", unavailable.sum());
+        System.out.printf("Released:           %,12d%n", released.sum());
+        System.out.printf("Left to expire:     %,12d%n", abandoned.sum());
+        System.out.printf("Cancelled:          %,12d%n", cancelled.sum());
+        System.out.printf("Double allocations: %,12d%n", doubleAllocations.sum());
+        return doubleAllocations.sum() == 0;
+    }
+
+    private void work(SeatLayout layout, SeatInventoryCache cache, SeatAllocator allocator, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long iteration = 0;
+        while ((++iteration & 0xFF) != 0 || System.currentTimeMillis() < deadline) {
+            String flightNumber = flightNumbers.get(random.nextInt(flightNumbers.size()));
+            String seat = layout.label(random.nextInt(layout.size()));
+            int action = random.nextInt(100);
+
+            if (action < 20) {
+                cancel(cache, flightNumber, seat);
+                continue;
+            }
+
+            SeatAllocator.SeatHold hold;
+            try {
+                hold = allocator.hold(flightNumber, seat, Thread.currentThread().getName());
+            } catch (java.sql.SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            if (hold == null) {
+                unavailable.increment();
+            } else if (action < 25) {
+                allocator.release(hold);
+                released.increment();
+            } else if (action < 27) {
+                abandoned.increment();
+            } else {
+                // Insert the booking row; the unique index would reject a second active booking
+                String key = flightNumber + "/" + seat;
+                if (table.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet() > 1) {
+                    doubleAllocations.increment();
+                }
+                seatsByFlight.get(flightNumber).put(seat, Boolean.TRUE);
+                allocator.confirm(hold);
+                booked.increment();
+            }
+        }
+    }
+
+    private void cancel(SeatInventoryCache cache, String flightNumber, String seat) {
+        String key = flightNumber + "/" + seat;
+        AtomicInteger active = table.get(key);
+        // Cancel only if booked: UPDATE ... WHERE booking_status = 'Confirmed' affects one row or none
+        if (active != null && active.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+            seatsByFlight.get(flightNumber).remove(seat);
+            cache.seatReleased(flightNumber, seat);
+            cancelled.increment();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.yousif.attemp2;
+
+import java.sql.SQLException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SeatAllocator - Holds seats while their bookings are stored, so two passengers can't get the same seat.
+ *
+ * A booking takes a hold first: a compare-and-set on the flight's seat inventory that only one
+ * caller can win for a free seat. The booking row is then stored and the hold confirmed, or the
+ * hold released if storing failed. Holds that are neither confirmed nor released expire, so a
+ * crashed or abandoned booking can't block a seat for good. The inventory only covers this
+ * application; the unique index on bookings (flight_id, active_seat) catches clashes with other
+ * workstations.
+ */
+public class SeatAllocator {
+    // Long enough for a slow database round trip, short enough that an abandoned seat comes back quickly
+    public static final long DEFAULT_HOLD_MILLIS = 120_000;
+
+    /**
+     * Lifecycle of a hold; only HELD can change, and only once
+     */
+    public enum HoldState {
+        HELD, CONFIRMED, RELEASED, EXPIRED
+    }
+
+    private final SeatInventoryCache inventories;
+    private final long holdMillis;
+    private final ScheduledThreadPoolExecutor expiryTimer;
+    private final AtomicInteger activeHolds = new AtomicInteger();
+
+    /**
+     * @param inventories The seat inventories to allocate from
+     * @param holdMillis How long a hold lasts before it expires
+     */
+    public SeatAllocator(SeatInventoryCache inventories, long holdMillis) {
+        this.inventories = inventories;
+        this.holdMillis = holdMillis;
+        this.expiryTimer = new ScheduledThreadPoolExecutor(1, BackgroundExecutors.daemonThreadFactory("seat-holds"));
+        // Confirmed holds cancel their expiry; drop those tasks instead of keeping them until they fire
+        this.expiryTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Hold a seat
+     * @param flightNumber The flight number
+     * @param seat The seat label
+     * @param holder Who the seat is held for, for diagnostics
+     * @return The hold, or null if the seat is already booked or held
+     * @throws SQLException If the flight's seats aren't cached and can't be loaded
+     */
+    public SeatHold hold(String flightNumber, String seat, String holder) throws SQLException {
+        SeatInventory inventory = inventories.get(flightNumber);
+        if (!inventory.hold(seat)) {
+            return null;
+        }
+        SeatHold hold = new SeatHold(inventory, seat, holder, System.currentTimeMillis() + holdMillis);
+        activeHolds.incrementAndGet();
+        hold.expiry = expiryTimer.schedule(() -> expire(hold), holdMillis, TimeUnit.MILLISECONDS);
+        return hold;
+    }
+
+    /**
+     * Mark a held seat as booked. Call once the booking row is stored.
+     * @param hold The hold
+     * @return true if the hold was still active; false if it had expired, in which case the seat
+     *         is marked as booked anyway since the stored booking is what counts
+     */
+    public boolean confirm(SeatHold hold) {
+        if (finish(hold, HoldState.CONFIRMED)) {
+            hold.inventory.confirmHold(hold.seat);
+            return true;
+        }
+        if (hold.getState() == HoldState.EXPIRED) {
+            hold.inventory.markTaken(hold.seat);
+        }
+        return false;
+    }
+
+    /**
+     * Give a held seat back without booking it
+     * @param hold The hold
+     * @return true if the hold was active and the seat is free again
+     */
+    public boolean release(SeatHold hold) {
+        if (finish(hold, HoldState.RELEASED)) {
+            hold.inventory.releaseHold(hold.seat);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of holds neither confirmed, released nor expired yet
+     * @return Active hold count
+     */
+    public int getActiveHoldCount() {
+        return activeHolds.get();
+    }
+
+    /**
+     * Stop the expiry timer. Holds still active stay held.
+     */
+    public void shutdown() {
+        expiryTimer.shutdownNow();
+    }
+
+    private void expire(SeatHold hold) {
+        if (finish(hold, HoldState.EXPIRED)) {
+            hold.inventory.releaseHold(hold.seat);
+        }
+    }
+
+    private boolean finish(SeatHold hold, HoldState outcome) {
+        if (!hold.state.compareAndSet(HoldState.HELD, outcome)) {
+            return false;
+        }
+        activeHolds.decrementAndGet();
+        ScheduledFuture<?> expiry = hold.expiry;
+        if (expiry != null && outcome != HoldState.EXPIRED) {
+            expiry.cancel(false);
+        }
+        return true;
+    }
+
+    /**
+     * One seat held for one booking
+     */
+    public static final class SeatHold {
+        private final SeatInventory inventory;
+        private final String seat;
+        private final String holder;
+        private final long expiresAt;
+        private final AtomicReference<HoldState> state = new AtomicReference<>(HoldState.HELD);
+        private volatile ScheduledFuture<?> expiry;
+
+        SeatHold(SeatInventory inventory, String seat, String holder, long expiresAt) {
+            this.inventory = inventory;
+            this.seat = seat;
+            this.holder = holder;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getFlightNumber() { return inventory.getFlightNumber(); }
+        public String getSeat() { return seat; }
+        public String getHolder() { return holder; }
+        public long getExpiresAt() { return expiresAt; }
+        public HoldState getState() { return state.get(); }
+
+        @Override
+        public String toString() {
+            return "Seat " + seat + " on " + getFlightNumber() + " for " + holder + " (" + getState() + ")";
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.yousif.attemp2;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SeatInventory - Which seats of one flight are booked or held, as bitsets over the cabin layout.
+ *
+ * Both bitsets live in one immutable state swapped with compare-and-set, so reads never lock and
+ * concurrent updates from the FX thread and background tasks can't lose each other's seats.
+ * A seat is taken when it is booked or held; only a successful compare-and-set can take it, so two
+ * callers can never both get the same free seat. Booked seats are only freed by reloading from
+ * the database: a cancellation can't tell its booking apart from a newer one for the same seat.
+ * Seat labels that don't fit the layout are ignored.
+ */
+public class SeatInventory {
+    private final String flightNumber;
+    private final SeatLayout layout;
+    private final AtomicReference<State> state;
+    private volatile long loadedAt;
+    private volatile boolean stale;
+
+    /**
+     * @param flightNumber The flight this inventory belongs to
+     * @param layout The cabin layout
+     * @param bookedSeats Labels of the seats already booked
+     */
+    public SeatInventory(String flightNumber, SeatLayout layout, Collection<String> bookedSeats) {
+        this.flightNumber = flightNumber;
+        this.layout = layout;
+        this.state = new AtomicReference<>(new State(toWords(bookedSeats), new long[wordCount()]));
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    public String getFlightNumber() { return flightNumber; }
+    public SeatLayout getLayout() { return layout; }
+    public long getLoadedAt() { return loadedAt; }
+
+    /**
+     * Check whether the database may have changed since this inventory was loaded
+     * @return true if the inventory should be reloaded
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    void markStale() {
+        stale = true;
+    }
+
+    void clearStale() {
+        stale = false;
+    }
+
+    /**
+     * Check whether a seat is taken
+     * @param seat The seat label, e.g. "C14"
+     * @return true if booked or held; labels outside the layout count as taken so they can't be offered
+     */
+    public boolean isTaken(String seat) {
+        int index = layout.indexOf(seat);
+        return index < 0 || isTaken(index);
+    }
+
+    /**
+     * Check whether a seat is taken
+     * @param index The seat index in the layout
+     * @return true if booked or held
+     */
+    public boolean isTaken(int index) {
+        State current = state.get();
+        return ((current.booked[index >> 6] | current.held[index >> 6]) & (1L << index)) != 0;
+    }
+
+    /**
+     * Check whether a seat is held for a booking in progress
+     * @param seat The seat label
+     * @return true if held
+     */
+    public boolean isHeld(String seat) {
+        int index = layout.indexOf(seat);
+        return index >= 0 && (state.get().held[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Get the number of taken seats
+     * @return Booked plus held seat count
+     */
+    public int getTakenCount() {
+        return snapshot().cardinality();
+    }
+
+    /**
+     * Get the number of free seats
+     * @return Free seat count
+     */
+    public int getFreeCount() {
+        return layout.size() - getTakenCount();
+    }
+
+    /**
+     * Get the labels of all free seats, row by row
+     * @return Free seat labels
+     */
+    public List<String> getFreeSeats() {
+        BitSet bits = snapshot();
+        List<String> seats = new ArrayList<>(layout.size() - bits.cardinality());
+        for (int index = bits.nextClearBit(0); index < layout.size(); index = bits.nextClearBit(index + 1)) {
+            seats.add(layout.label(index));
+        }
+        return seats;
+    }
+
+    /**
+     * Get the labels of all taken seats, row by row
+     * @return Booked and held seat labels
+     */
+    public List<String> getTakenSeats() {
+        BitSet bits = snapshot();
+        List<String> seats = new ArrayList<>(bits.cardinality());
+        for (int index = bits.nextSetBit(0); index >= 0; index = bits.nextSetBit(index + 1)) {
+            seats.add(layout.label(index));
+        }
+        return seats;
+    }
+    /**
+     * Find the first run of free seats next to each other in one row, without an aisle between them
+     * @param count How many seats are needed
+     * @return Their labels, front of the cabin first; empty if no row has that many free together
+     */
+    public List<String> findSeatsTogether(int count) {
+        List<String> seats = new ArrayList<>(Math.max(count, 0));
+        if (count <= 0) {
+            return seats;
+        }
+        BitSet bits = snapshot();
+        int size = layout.size();
+        int index = 0;
+        while (index < size) {
+            int free = bits.nextClearBit(index);
+            if (free >= size) {
+                break;
+            }
+            int blockEnd = layout.blockEnd(free);
+            int nextTaken = bits.nextSetBit(free);
+            int runEnd = nextTaken < 0 || nextTaken > blockEnd ? blockEnd : nextTaken;
+            if (runEnd - free >= count) {
+                for (int seat = free; seat < free + count; seat++) {
+                    seats.add(layout.label(seat));
+                }
+                return seats;
+            }
+            index = runEnd;
+        }
+        return seats;
+    }
+
+    /**
+     * Hold a free seat while its booking is being stored
+     * @param seat The seat label
+     * @return true if the seat was free and is now held by this call
+     */
+    public boolean hold(String seat) {
+        int index = layout.indexOf(seat);
+        return index >= 0 && update(index, SeatChange.HOLD);
+    }
+
+    /**
+     * Turn a held seat into a booked one
+     * @param seat The seat label
+     * @return true if the seat was held and is now booked
+     */
+    public boolean confirmHold(String seat) {
+        int index = layout.indexOf(seat);
+        return index >= 0 && update(index, SeatChange.CONFIRM);
+    }
+
+    /**
+     * Release a held seat without booking it
+     * @param seat The seat label
+     * @return true if the seat was held and is now free
+     */
+    public boolean releaseHold(String seat) {
+        int index = layout.indexOf(seat);
+        return index >= 0 && update(index, SeatChange.RELEASE);
+    }
+
+    /**
+     * Mark a seat as booked, whether or not it was held
+     * @param seat The seat label
+     * @return true if the seat wasn't booked before
+     */
+    public boolean markTaken(String seat) {
+        int index = layout.indexOf(seat);
+        return index >= 0 && update(index, SeatChange.BOOK);
+    }
+
+    /**
+     * Get a copy of the taken bits
+     * @return Bit i is set if seat index i is booked or held
+     */
+    public BitSet snapshot() {
+        State current = state.get();
+        long[] words = current.booked.clone();
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= current.held[i];
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Get a token identifying the current seat state, to pass to {@link #reload} later
+     * @return The current state
+     */
+    Object version() {
+        return state.get();
+    }
+
+    /**
+     * Replace the booked seats with a fresh copy from the database, keeping the holds.
+     * Fails if any seat changed since {@code version} was taken, because the copy may predate that change.
+     * @param version The token from {@link #version()} taken before the database was read
+     * @param bookedSeats The booked seats read from the database
+     * @return true if the inventory was replaced
+     */
+    boolean reload(Object version, Collection<String> bookedSeats) {
+        State expected = (State) version;
+        if (!state.compareAndSet(expected, new State(toWords(bookedSeats), expected.held))) {
+            return false;
+        }
+        loadedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    private boolean update(int index, SeatChange change) {
+        int word = index >> 6;
+        long mask = 1L << index;
+        while (true) {
+            State current = state.get();
+            boolean booked = (current.booked[word] & mask) != 0;
+            boolean held = (current.held[word] & mask) != 0;
+            long[] nextBooked = current.booked;
+            long[] nextHeld = current.held;
+            switch (change) {
+                case HOLD:
+                    if (booked || held) {
+                        return false;
+                    }
+                    nextHeld = flip(current.held, word, mask);
+                    break;
+                case CONFIRM:
+                    if (!held) {
+                        return false;
+                    }
+                    nextHeld = flip(current.held, word, mask);
+                    nextBooked = booked ? current.booked : flip(current.booked, word, mask);
+                    break;
+                case RELEASE:
+                    if (!held) {
+                        return false;
+                    }
+                    nextHeld = flip(current.held, word, mask);
+                    break;
+                case BOOK:
+                    if (booked) {
+                        return false;
+                    }
+                    nextBooked = flip(current.booked, word, mask);
+                    nextHeld = held ? flip(current.held, word, mask) : current.held;
+                    break;
+            }
+            if (state.compareAndSet(current, new State(nextBooked, nextHeld))) {
+                return true;
+            }
+        }
+    }
+
+    private static long[] flip(long[] words, int word, long mask) {
+        long[] next = words.clone();
+        next[word] ^= mask;
+        return next;
+    }
+
+    private long[] toWords(Collection<String> seats) {
+        long[] words = new long[wordCount()];
+        for (String seat : seats) {
+            int index = layout.indexOf(seat);
+            if (index >= 0) {
+                words[index >> 6] |= 1L << index;
+            }
+        }
+        return words;
+    }
+
+    private int wordCount() {
+        return (layout.size() + 63) / 64;
+    }
+
+    private enum SeatChange {
+        HOLD, CONFIRM, RELEASE, BOOK
+    }
+
+    /**
+     * Booked and held bits; never modified once published
+     */
+    private static final class State {
+        final long[] booked;
+        final long[] held;
+
+        State(long[] booked, long[] held) {
+            this.booked = booked;
+            this.held = held;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.yousif.attemp2;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SeatInventoryCache - Seat inventories per flight, loaded once and then kept current in memory.
+ *
+ * Bookings made through DataService update the cached inventory directly. Anything the cache
+ * can't see (other workstations, full reloads) only marks inventories stale: a stale or old
+ * inventory is still returned straight away, so seat dialogs never wait, and a fresh copy is
+ * loaded in the background for the next caller.
+ */
+public class SeatInventoryCache implements DataService.DataChangeEventListener {
+    // Inventories older than this are refreshed in the background on their next use
+    private static final long MAX_AGE_MS = 60_000;
+
+    /**
+     * Reads the taken seats of a flight from the database
+     */
+    public interface SeatLoader {
+        List<String> loadTakenSeats(String flightNumber) throws SQLException;
+    }
+
+    private final SeatLayout layout;
+    private final SeatLoader loader;
+    private final ConcurrentHashMap<String, SeatInventory> inventories = new ConcurrentHashMap<>();
+    private final Set<String> reloading = ConcurrentHashMap.newKeySet();
+
+    public SeatInventoryCache(SeatLayout layout, SeatLoader loader) {
+        this.layout = layout;
+        this.loader = loader;
+    }
+
+    /**
+     * Get the seat inventory of a flight, loading it on first use
+     * @param flightNumber The flight number
+     * @return The inventory; possibly slightly stale, in which case a reload is already under way
+     * @throws SQLException If the inventory isn't cached and can't be loaded
+     */
+    public SeatInventory get(String flightNumber) throws SQLException {
+        SeatInventory inventory = inventories.get(flightNumber);
+        if (inventory == null) {
+            SeatInventory loaded = new SeatInventory(flightNumber, layout, loader.loadTakenSeats(flightNumber));
+            inventory = inventories.putIfAbsent(flightNumber, loaded);
+            return inventory == null ? loaded : inventory;
+        }
+        if (inventory.isStale() || System.currentTimeMillis() - inventory.getLoadedAt() > MAX_AGE_MS) {
+            reloadInBackground(flightNumber, inventory);
+        }
+        return inventory;
+    }
+
+    /**
+     * Record a seat booked by this application
+     * @param flightNumber The flight number
+     * @param seat The seat label
+     */
+    public void seatTaken(String flightNumber, String seat) {
+        SeatInventory inventory = inventories.get(flightNumber);
+        if (inventory != null) {
+            inventory.markTaken(seat);
+        }
+    }
+
+    /**
+     * Record a seat released by this application, e.g. by a cancellation. The seat is freed by the
+     * next reload rather than here: by the time this runs, a reload may already have freed it and
+     * someone else booked it again.
+     * @param flightNumber The flight number
+     * @param seat The seat label
+     */
+    public void seatReleased(String flightNumber, String seat) {
+        invalidate(flightNumber);
+    }
+
+    /**
+     * Mark one flight's inventory as out of date
+     * @param flightNumber The flight number
+     */
+    public void invalidate(String flightNumber) {
+        SeatInventory inventory = inventories.get(flightNumber);
+        if (inventory != null) {
+            inventory.markStale();
+        }
+    }
+
+    /**
+     * Mark every cached inventory as out of date
+     */
+    public void invalidateAll() {
+        for (SeatInventory inventory : inventories.values()) {
+            inventory.markStale();
+        }
+    }
+
+    /**
+     * Keep the cache in step with the data service. Seat changes made through DataService are
+     * already applied, so per-flight booking events are ignored; reloads mark inventories stale
+     * and deleted flights are dropped.
+     */
+    @Override
+    public void onDataChanged(DataChangeEvent event) {
+        if (event.isReloaded(DataService.DataType.FLIGHTS) || event.isReloaded(DataService.DataType.BOOKINGS)) {
+            invalidateAll();
+        }
+        for (DataChangeEvent.EntityChange change : event.getChanges(DataService.DataType.FLIGHTS)) {
+            if (change.getKind() == DataChangeEvent.ChangeKind.REMOVED) {
+                inventories.remove(change.getId());
+            }
+        }
+    }
+
+    private void reloadInBackground(String flightNumber, SeatInventory current) {
+        if (!reloading.add(flightNumber)) {
+            return;
+        }
+        BackgroundExecutors.database().execute(() -> {
+            // Cleared first, so an invalidation that arrives during the read isn't lost
+            current.clearStale();
+            try {
+                Object version = current.version();
+                // A seat taken or freed during the read may be missing from it; retry on the next use then
+                if (!current.reload(version, loader.loadTakenSeats(flightNumber))) {
+                    current.markStale();
+                }
+            } catch (SQLException e) {
+                current.markStale();
+                System.err.println("Error reloading seats for flight " + flightNumber + ": " + e.getMessage());
+            } finally {
+                reloading.remove(flightNumber);
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.yousif.attemp2;
+
+import java.util.Locale;
+
+/**
+ * SeatLayout - Cabin layout mapping seat labels to dense indexes.
+ *
+ * Seats are numbered row by row: index = (row - 1) * seatsPerRow + position of the seat letter.
+ * Labels are written letter first ("C14"), as the booking dialogs always have; "14C" is accepted too.
+ * Aisles split each row into blocks, and seats "together" must be in the same block.
+ */
+public final class SeatLayout {
+    // Layout the booking dialogs have always offered: rows 1-26, seats A-F, aisle between C and D
+    public static final SeatLayout STANDARD = new SeatLayout(26, "ABCDEF", 3);
+
+    // 40 rows of 3-4-3, 400 seats
+    public static final SeatLayout WIDE_BODY = new SeatLayout(40, "ABCDEFGHJK", 3, 7);
+
+    private final int rows;
+    private final String letters;
+    private final int[] aisleAfter;
+
+    /**
+     * @param rows Number of seat rows, numbered from 1
+     * @param letters Seat letters from window to window, e.g. "ABCDEF"
+     * @param aisleAfter Number of seats left of each aisle, e.g. 3 for an aisle between C and D
+     */
+    public SeatLayout(int rows, String letters, int... aisleAfter) {
+        this.rows = rows;
+        this.letters = letters.toUpperCase(Locale.ROOT);
+        this.aisleAfter = aisleAfter.clone();
+    }
+
+    public int getRows() { return rows; }
+    public int getSeatsPerRow() { return letters.length(); }
+
+    /**
+     * Get the number of seats in the cabin
+     * @return rows times seats per row
+     */
+    public int size() {
+        return rows * letters.length();
+    }
+
+    /**
+     * Convert a seat label to its index
+     * @param label e.g. "C14" or "14C", case-insensitive
+     * @return The seat index, or -1 if the label isn't a seat in this layout
+     */
+    public int indexOf(String label) {
+        if (label == null) {
+            return -1;
+        }
+        String seat = label.trim().toUpperCase(Locale.ROOT);
+        if (seat.length() < 2) {
+            return -1;
+        }
+        char letter;
+        String digits;
+        if (Character.isLetter(seat.charAt(0))) {
+            letter = seat.charAt(0);
+            digits = seat.substring(1);
+        } else {
+            letter = seat.charAt(seat.length() - 1);
+            digits = seat.substring(0, seat.length() - 1);
+        }
+        int position = letters.indexOf(letter);
+        if (position < 0 || digits.isEmpty() || digits.length() > 3) {
+            return -1;
+        }
+        for (int i = 0; i < digits.length(); i++) {
+            if (!Character.isDigit(digits.charAt(i))) {
+                return -1;
+            }
+        }
+        int row = Integer.parseInt(digits);
+        if (row < 1 || row > rows) {
+            return -1;
+        }
+        return (row - 1) * letters.length() + position;
+    }
+
+    /**
+     * Convert a seat index to its label
+     * @param index The seat index
+     * @return e.g. "C14"
+     */
+    public String label(int index) {
+        return letters.charAt(index % letters.length()) + String.valueOf(index / letters.length() + 1);
+    }
+
+    /**
+     * Get the index of the first seat in the same block (between aisles) as a seat
+     * @param index The seat index
+     * @return The first index of the block
+     */
+    int blockStart(int index) {
+        int position = index % letters.length();
+        int start = 0;
+        for (int aisle : aisleAfter) {
+            if (position >= aisle) {
+                start = aisle;
+            }
+        }
+        return index - position + start;
+    }
+
+    /**
+     * Get the index just past the last seat in the same block as a seat
+     * @param index The seat index
+     * @return The exclusive end index of the block
+     */
+    int blockEnd(int index) {
+        int position = index % letters.length();
+        int end = letters.length();
+        for (int i = aisleAfter.length - 1; i >= 0; i--) {
+            if (position < aisleAfter[i]) {
+                end = aisleAfter[i];
+            }
+        }
+        return index - position + end;
+    }
+}
@@ -0,0 +1,352 @@
+package com.yousif.attemp2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+/**
+ * SegmentJournal - Durable, append-only log of records in memory-mapped segment files.
+ *
+ * A record is its length, the CRC32 of its bytes and the bytes themselves, written into the
+ * mapped segment, so appending is a memory copy and force() flushes a whole group to disk at
+ * once. A full segment is flushed and sealed and the next one mapped. One appender and one
+ * consumer can work at the same time: the consumer reads records in order from where it last
+ * committed, and commit() saves that position in a checkpoint file and deletes the segments
+ * before it, so the journal only holds what hasn't been applied yet.
+ *
+ * On open the segments are scanned; a record that is cut short or fails its CRC (a crash while
+ * writing) ends the journal there, and the consumer starts again at the checkpoint. Records
+ * applied but not yet committed when the process stopped are read again, so consumers should
+ * tolerate seeing a record twice.
+ */
+public final class SegmentJournal implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 16 << 20;
+
+    // Length and CRC in front of every record
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Segments applied but still mapped, which some platforms won't delete yet
+    private final List<Path> obsolete = new ArrayList<>();
+    private final CRC32 appendCrc = new CRC32();
+    private final CRC32 readCrc = new CRC32();
+
+    // Appender side, guarded by this
+    private Segment current;
+    private boolean closed;
+
+    // Consumer side
+    private Segment reading;
+    private int readOffset;
+    private volatile long committed;
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        // Published by the appender after the record bytes, so a reader never sees half a record
+        volatile int end;
+        // Set once end is final and the next segment exists
+        volatile boolean sealed;
+        // Appender side: records before this offset are on disk
+        int flushed;
+
+        Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    private SegmentJournal(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Open the journal in a directory, creating it if needed, and recover what is in it
+     * @param directory Where the segment files live
+     * @param segmentBytes Size of a new segment file
+     * @return The journal, positioned to read the first record not yet committed
+     * @throws IOException If the files can't be read or created
+     */
+    public static SegmentJournal open(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 1024) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        Files.createDirectories(directory);
+        SegmentJournal journal = new SegmentJournal(directory, segmentBytes);
+        journal.recover();
+        return journal;
+    }
+
+    /**
+     * @return The position of a record: its segment in the high 32 bits, its offset in the low
+     */
+    private static long position(long segment, int offset) {
+        return (segment << 32) | offset;
+    }
+
+    private void recover() throws IOException {
+        long checkpoint = readCheckpoint();
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring unexpected journal file: " + file);
+                }
+            }
+        }
+        ids.sort(null);
+        long firstId = checkpoint >>> 32;
+        for (long id : ids) {
+            if (id < firstId) {
+                Files.deleteIfExists(segmentPath(id));
+                continue;
+            }
+            Segment segment = new Segment(id, segmentPath(id), map(segmentPath(id), 0));
+            segment.end = scan(segment);
+            segments.put(id, segment);
+        }
+        if (segments.isEmpty()) {
+            segments.put(firstId, createSegment(firstId));
+        }
+        for (Segment segment : segments.values()) {
+            segment.sealed = true;
+        }
+        current = segments.lastEntry().getValue();
+        current.sealed = false;
+        current.flushed = current.end;
+        // Clear anything past the last good record so a stale one can't reappear after new appends
+        ByteBuffer buffer = current.buffer;
+        for (int i = current.end; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+
+        reading = segments.firstEntry().getValue();
+        readOffset = reading.id == firstId ? Math.min((int) checkpoint, reading.end) : 0;
+        committed = position(reading.id, readOffset);
+    }
+
+    /**
+     * @return Offset just past the last intact record
+     */
+    private int scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        byte[] bytes = new byte[256];
+        while (offset + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.capacity() - offset - HEADER_BYTES) {
+                break;
+            }
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(offset + HEADER_BYTES, bytes, 0, length);
+            readCrc.reset();
+            readCrc.update(bytes, 0, length);
+            if ((int) readCrc.getValue() != buffer.getInt(offset + 4)) {
+                System.err.println("Journal " + segment.path + " damaged at offset " + offset + "; later records dropped");
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%019d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long length = size > 0 ? size : channel.size();
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        Path path = segmentPath(id);
+        return new Segment(id, path, map(path, segmentBytes));
+    }
+
+    /**
+     * Add a record at the end of the journal. It is durable after the next force().
+     * @param record The record bytes, not empty
+     * @throws IOException If a new segment can't be created
+     */
+    public synchronized void append(byte[] record) throws IOException {
+        if (closed) {
+            throw new IOException("Journal closed");
+        }
+        if (record.length == 0 || record.length > segmentBytes - HEADER_BYTES) {
+            throw new IllegalArgumentException("Record size out of range: " + record.length);
+        }
+        Segment segment = current;
+        int offset = segment.end;
+        if (offset + HEADER_BYTES + record.length > segment.buffer.capacity()) {
+            Segment next = createSegment(segment.id + 1);
+            flush(segment);
+            segments.put(next.id, next);
+            segment.sealed = true;
+            current = segment = next;
+            offset = 0;
+        }
+        appendCrc.reset();
+        appendCrc.update(record);
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putInt(offset + 4, (int) appendCrc.getValue());
+        buffer.put(offset + HEADER_BYTES, record);
+        buffer.putInt(offset, record.length);
+        segment.end = offset + HEADER_BYTES + record.length;
+    }
+
+    /**
+     * Flush appended records to disk
+     */
+    public synchronized void force() {
+        if (!closed) {
+            flush(current);
+        }
+    }
+
+    private static void flush(Segment segment) {
+        int end = segment.end;
+        if (end > segment.flushed) {
+            segment.buffer.force(segment.flushed, end - segment.flushed);
+            segment.flushed = end;
+        }
+    }
+
+    /**
+     * Read the next records after those already read. Consumer thread only.
+     * @param into Receives the records, in order
+     * @param ends Receives the position after each record, to commit; its length is the most to read
+     * @return The number of records read
+     */
+    public int poll(List<byte[]> into, long[] ends) {
+        int count = 0;
+        while (count < ends.length) {
+            Segment segment = reading;
+            if (readOffset >= segment.end) {
+                if (!segment.sealed) {
+                    break;
+                }
+                // Sealed is set after the final end, so read end again before moving on
+                if (readOffset >= segment.end) {
+                    reading = segments.get(segment.id + 1);
+                    readOffset = 0;
+                }
+                continue;
+            }
+            int length = segment.buffer.getInt(readOffset);
+            byte[] record = new byte[length];
+            segment.buffer.get(readOffset + HEADER_BYTES, record);
+            readOffset += HEADER_BYTES + length;
+            into.add(record);
+            ends[count++] = position(segment.id, readOffset);
+        }
+        return count;
+    }
+
+    /**
+     * Record that everything up to a position has been applied, and drop the segments before it.
+     * Consumer thread only.
+     * @param position A position from poll()
+     * @throws IOException If the checkpoint can't be saved
+     */
+    public void commit(long position) throws IOException {
+        if (position <= committed) {
+            return;
+        }
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(position).array());
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        committed = position;
+        Iterator<Map.Entry<Long, Segment>> applied = segments.headMap(position >>> 32).entrySet().iterator();
+        while (applied.hasNext()) {
+            obsolete.add(applied.next().getValue().path);
+            applied.remove();
+        }
+        obsolete.removeIf(path -> {
+            try {
+                Files.deleteIfExists(path);
+                return true;
+            } catch (IOException e) {
+                // Still mapped; try again on a later commit, or on the next open
+                return false;
+            }
+        });
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != Long.BYTES) {
+            throw new IOException("Journal checkpoint damaged: " + file);
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    /**
+     * @return Bytes appended but not yet committed, records and headers
+     */
+    public long getBacklogBytes() {
+        long position = committed;
+        long backlog = 0;
+        for (Segment segment : segments.tailMap(position >>> 32).values()) {
+            backlog += segment.end - (segment.id == position >>> 32 ? (int) position : 0);
+        }
+        return backlog;
+    }
+
+    /**
+     * @return Segment files in use
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flush and stop accepting appends. The mappings are released once unreachable.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            flush(current);
+            closed = true;
+        }
+    }
+}
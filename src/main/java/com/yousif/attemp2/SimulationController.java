@@ -60,10 +60,6 @@ public class SimulationController {
     private GraphicsContext gc;
     private AnimationTimer animationTimer;
     private Timeline passengerGeneratorTimeline;
-    private List<Passenger> passengers = new ArrayList<>();
-    private Map<String, Integer> checkpointCounts = new HashMap<>();
-    private int totalPassengersProcessed = 0;
-    private int totalPassengersCreated = 0;
     private int simulationTimeSeconds = 0;
     private XYChart.Series<Number, Number> flowRateSeries;
     private ObservableList<SimulationMetric> metrics = FXCollections.observableArrayList();
@@ -74,6 +70,8 @@ public class SimulationController {
     private final int[] gateZone = {290, 100, 100, 150};
     private final int[] boardingZone = {420, 100, 100, 150};
     
+    private final PassengerFlowModel model = new PassengerFlowModel(checkInZone, securityZone, gateZone, boardingZone);
+    
     @FXML
     public void initialize() {
         setupUI();
@@ -204,12 +202,6 @@ public class SimulationController {
     private void startSimulation() {
         resetSimulation();
         
-        // Initialize checkpoint counts
-        checkpointCounts.put("checkin", 0);
-        checkpointCounts.put("security", 0);
-        checkpointCounts.put("gate", 0);
-        checkpointCounts.put("boarding", 0);
-        
         // Start passenger generator
         int passengerRate = (int) passengerRateSlider.getValue();
         passengerGeneratorTimeline = new Timeline(
@@ -243,7 +235,7 @@ public class SimulationController {
                     // Add data point to chart every 5 seconds
                     if (simulationTimeSeconds % 5 == 0) {
                         flowRateSeries.getData().add(new XYChart.Data<>(
-                            simulationTimeSeconds, totalPassengersProcessed));
+                            simulationTimeSeconds, model.getTotalProcessed()));
                     }
                 }
                 
@@ -279,10 +271,7 @@ public class SimulationController {
         stopSimulation();
         
         // Reset data
-        passengers.clear();
-        checkpointCounts.clear();
-        totalPassengersProcessed = 0;
-        totalPassengersCreated = 0;
+        model.reset();
         simulationTimeSeconds = 0;
         
         // Reset UI
@@ -300,142 +289,36 @@ public class SimulationController {
     }
     
     private void generatePassenger() {
-        // Create new passenger at entrance
-        Passenger passenger = new Passenger(
-            10, // Start at entrance
-            simulationCanvas.getHeight() / 2,
-            "checkin" // First destination
-        );
-        passengers.add(passenger);
-        totalPassengersCreated++;
+        // Create new passenger at entrance, heading for check-in
+        model.spawn(10, simulationCanvas.getHeight() / 2);
         
         // Update metric
-        updateMetric("Total Passengers", String.valueOf(totalPassengersCreated));
+        updateMetric("Total Passengers", String.valueOf(model.getTotalCreated()));
     }
     
     private void updateSimulation() {
-        // Reset counts for this frame
-        checkpointCounts.put("checkin", 0);
-        checkpointCounts.put("security", 0);
-        checkpointCounts.put("gate", 0);
-        checkpointCounts.put("boarding", 0);
-        
-        // Update passenger positions and statuses
-        Iterator<Passenger> iterator = passengers.iterator();
-        while (iterator.hasNext()) {
-            Passenger passenger = iterator.next();
-            
-            // Update passenger position based on destination
-            switch (passenger.getDestination()) {
-                case "checkin":
-                    moveTowards(passenger, checkInZone[0] + checkInZone[2]/2, checkInZone[1] + checkInZone[3]/2);
-                    checkpointCounts.put("checkin", checkpointCounts.get("checkin") + 1);
-                    break;
-                case "security":
-                    moveTowards(passenger, securityZone[0] + securityZone[2]/2, securityZone[1] + securityZone[3]/2);
-                    checkpointCounts.put("security", checkpointCounts.get("security") + 1);
-                    break;
-                case "gate":
-                    moveTowards(passenger, gateZone[0] + gateZone[2]/2, gateZone[1] + gateZone[3]/2);
-                    checkpointCounts.put("gate", checkpointCounts.get("gate") + 1);
-                    break;
-                case "boarding":
-                    moveTowards(passenger, boardingZone[0] + boardingZone[2]/2, boardingZone[1] + boardingZone[3]/2);
-                    checkpointCounts.put("boarding", checkpointCounts.get("boarding") + 1);
-                    break;
-                case "complete":
-                    // Remove passenger who completed boarding
-                    iterator.remove();
-                    totalPassengersProcessed++;
-                    break;
-            }
-            
-            // Process passenger at destination
-            if (passenger.isAtDestination()) {
-                processPassengerAtDestination(passenger);
-            }
-        }
+        // Move passengers and recount the queues
+        model.step();
         
         // Update metrics
-        updateMetric("Check-in Queue", String.valueOf(checkpointCounts.get("checkin")));
-        updateMetric("Security Queue", String.valueOf(checkpointCounts.get("security")));
-        updateMetric("Gate Queue", String.valueOf(checkpointCounts.get("gate")));
-        updateMetric("Boarded", String.valueOf(checkpointCounts.get("boarding")));
+        updateMetric("Check-in Queue", String.valueOf(model.getQueueLength(PassengerFlowModel.CHECK_IN)));
+        updateMetric("Security Queue", String.valueOf(model.getQueueLength(PassengerFlowModel.SECURITY)));
+        updateMetric("Gate Queue", String.valueOf(model.getQueueLength(PassengerFlowModel.GATE)));
+        updateMetric("Boarded", String.valueOf(model.getQueueLength(PassengerFlowModel.BOARDING)));
         
         // Calculate processing rate (passengers per minute)
         if (simulationTimeSeconds > 0) {
-            double rate = (double) totalPassengersProcessed / (simulationTimeSeconds / 60.0);
+            double rate = (double) model.getTotalProcessed() / (simulationTimeSeconds / 60.0);
             updateMetric("Processing Rate", String.format("%.1f /min", rate));
         }
     }
     
-    private void moveTowards(Passenger passenger, double targetX, double targetY) {
-        double dx = targetX - passenger.getX();
-        double dy = targetY - passenger.getY();
-        double distance = Math.sqrt(dx*dx + dy*dy);
-        
-        if (distance < 5) {
-            // Passenger has reached destination
-            passenger.setAtDestination(true);
-            return;
-        }
-        
-        // Move towards destination
-        double speed = 5.0;
-        passenger.setX(passenger.getX() + (dx / distance) * speed);
-        passenger.setY(passenger.getY() + (dy / distance) * speed);
-    }
-    
-    private void processPassengerAtDestination(Passenger passenger) {
-        // Process time at each checkpoint
-        passenger.incrementProcessingTime();
-        
-        // Different processing times for different checkpoints
-        int processingTimeRequired = 0;
-        switch (passenger.getDestination()) {
-            case "checkin":
-                processingTimeRequired = 30; // 30 frames (~3 seconds)
-                break;
-            case "security":
-                processingTimeRequired = 50; // 50 frames (~5 seconds)
-                break;
-            case "gate":
-                processingTimeRequired = 20; // 20 frames (~2 seconds)
-                break;
-            case "boarding":
-                processingTimeRequired = 10; // 10 frames (~1 second)
-                break;
-        }
-        
-        // Move to next checkpoint when processing is complete
-        if (passenger.getProcessingTime() >= processingTimeRequired) {
-            passenger.setProcessingTime(0);
-            passenger.setAtDestination(false);
-            
-            // Set next destination
-            switch (passenger.getDestination()) {
-                case "checkin":
-                    passenger.setDestination("security");
-                    break;
-                case "security":
-                    passenger.setDestination("gate");
-                    break;
-                case "gate":
-                    passenger.setDestination("boarding");
-                    break;
-                case "boarding":
-                    passenger.setDestination("complete");
-                    break;
-            }
-        }
-    }
-    
     private void drawSimulation() {
         // Redraw layout
         drawAirportLayout();
         
         // Draw passengers
-        for (Passenger passenger : passengers) {
+        for (PassengerFlowModel.Passenger passenger : model.getPassengers()) {
             // Different colors based on destination
             Color passengerColor;
             switch (passenger.getDestination()) {
@@ -477,15 +360,8 @@ public class SimulationController {
         }
     }
     
-    private void drawProcessingIndicator(Passenger passenger) {
-        int maxProcessingTime;
-        switch(passenger.getDestination()) {
-            case "checkin": maxProcessingTime = 30; break;
-            case "security": maxProcessingTime = 50; break;
-            case "gate": maxProcessingTime = 20; break;
-            case "boarding": maxProcessingTime = 10; break;
-            default: maxProcessingTime = 10;
-        }
+    private void drawProcessingIndicator(PassengerFlowModel.Passenger passenger) {
+        int maxProcessingTime = PassengerFlowModel.processingFrames(passenger.getDestination());
         
         double progress = (double) passenger.getProcessingTime() / maxProcessingTime;
         double arcSize = 8.0;
@@ -516,39 +392,6 @@ public class SimulationController {
         }
     }
     
-    // Inner class for passengers
-    private static class Passenger {
-        private double x;
-        private double y;
-        private String destination;
-        private boolean atDestination;
-        private int processingTime;
-        
-        public Passenger(double x, double y, String destination) {
-            this.x = x;
-            this.y = y;
-            this.destination = destination;
-            this.atDestination = false;
-            this.processingTime = 0;
-        }
-        
-        public double getX() { return x; }
-        public void setX(double x) { this.x = x; }
-        
-        public double getY() { return y; }
-        public void setY(double y) { this.y = y; }
-        
-        public String getDestination() { return destination; }
-        public void setDestination(String destination) { this.destination = destination; }
-        
-        public boolean isAtDestination() { return atDestination; }
-        public void setAtDestination(boolean atDestination) { this.atDestination = atDestination; }
-        
-        public int getProcessingTime() { return processingTime; }
-        public void setProcessingTime(int processingTime) { this.processingTime = processingTime; }
-        public void incrementProcessingTime() { this.processingTime++; }
-    }
-    
     // Inner class for metrics table
     public static class SimulationMetric {
         private final SimpleStringProperty name;
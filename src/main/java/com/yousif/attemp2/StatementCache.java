@@ -0,0 +1,260 @@
+package com.yousif.attemp2;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StatementCache - LRU cache of prepared statements for one pooled connection, keyed by SQL text.
+ *
+ * Callers keep writing {@code try (PreparedStatement stmt = conn.prepareStatement(sql))};
+ * closing the statement only clears its parameters so the next prepare of the same SQL
+ * reuses the already parsed (server-side) statement. Every checkout gets its own proxy, so a
+ * borrower closing its statement twice can't release it from under the next borrower.
+ */
+class StatementCache {
+    private final int capacity;
+    private final Map<String, CachedStatement> statements;
+
+    // Counters shared by all caches of the pool
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    /**
+     * Create a cache for one physical connection
+     * @param capacity Maximum number of statements kept open
+     * @param hits Counter incremented on every cache hit
+     * @param misses Counter incremented on every cache miss
+     * @param evictions Counter incremented when a statement is pushed out of the cache
+     */
+    StatementCache(int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                StatementCache.this.evictions.incrementAndGet();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Check whether a prepareStatement call can be served from the cache
+     * @param args The arguments passed to Connection.prepareStatement
+     * @return true for prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys)
+     */
+    static boolean isCacheable(Object[] args) {
+        if (args == null || !(args[0] instanceof String)) {
+            return false;
+        }
+        return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+    }
+
+    /**
+     * Get a prepared statement for the given SQL, reusing a cached one when it is free
+     * @param connection The physical connection the statement belongs to
+     * @param lease The pooled connection the borrower holds, returned by getConnection()
+     * @param args The arguments passed to Connection.prepareStatement
+     * @return A PreparedStatement whose close() returns it to the cache
+     * @throws SQLException If the statement cannot be prepared
+     */
+    PreparedStatement prepare(Connection connection, Connection lease, Object[] args) throws SQLException {
+        String sql = (String) args[0];
+        String key = args.length == 1 ? sql : args[1] + "|" + sql;
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.incrementAndGet();
+            return cached.checkOut(lease);
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement physical = args.length == 1
+            ? connection.prepareStatement(sql)
+            : connection.prepareStatement(sql, (Integer) args[1]);
+
+        if (cached != null) {
+            // Same SQL already in use on this connection (nested use); don't cache a second copy
+            return new Checkout(null, physical, lease).proxy;
+        }
+        cached = new CachedStatement(physical);
+        statements.put(key, cached);
+        return cached.checkOut(lease);
+    }
+
+    /**
+     * Return every statement a borrower forgot to close. Called when the connection lease ends.
+     */
+    void releaseAll() {
+        for (CachedStatement cached : statements.values()) {
+            if (cached.inUse) {
+                cached.release();
+            }
+        }
+    }
+
+    /**
+     * Close all cached statements
+     */
+    void clear() {
+        List<CachedStatement> all = new ArrayList<>(statements.values());
+        statements.clear();
+        for (CachedStatement cached : all) {
+            cached.evict();
+        }
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * A cached physical statement and its current checkout
+     */
+    private static class CachedStatement {
+        private final PreparedStatement physical;
+        private Checkout current;
+        private boolean inUse;
+        private boolean evicted;
+        private ResultSet lastResultSet;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        PreparedStatement checkOut(Connection lease) {
+            inUse = true;
+            current = new Checkout(this, physical, lease);
+            return current.proxy;
+        }
+
+        /**
+         * Reset the statement so the next borrower starts clean
+         */
+        void release() {
+            inUse = false;
+            if (current != null) {
+                // The borrower's proxy stays closed even if the statement is checked out again
+                current.closed = true;
+                current = null;
+            }
+            try {
+                if (lastResultSet != null) {
+                    lastResultSet.close();
+                    lastResultSet = null;
+                }
+                physical.clearParameters();
+                physical.clearBatch();
+                physical.clearWarnings();
+            } catch (SQLException e) {
+                System.err.println("Error resetting cached statement: " + e.getMessage());
+                evict();
+            }
+            if (evicted) {
+                closePhysical();
+            }
+        }
+
+        /**
+         * Drop the statement from the cache; it is closed now or as soon as its user releases it
+         */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The proxy one borrower holds. Once closed it stays closed: a second close() does nothing
+     * and any other call fails, whoever holds the statement now.
+     */
+    private static class Checkout implements InvocationHandler {
+        // Null for a statement that isn't cached; closing it closes the physical statement
+        private final CachedStatement owner;
+        private final PreparedStatement physical;
+        private final Connection lease;
+        private final PreparedStatement proxy;
+        private boolean closed;
+
+        Checkout(CachedStatement owner, PreparedStatement physical, Connection lease) {
+            this.owner = owner;
+            this.physical = physical;
+            this.lease = lease;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                this);
+        }
+
+        @Override
+        public Object invoke(Object proxyInstance, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (owner != null) {
+                            owner.release();
+                        } else {
+                            physical.close();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxyInstance == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxyInstance);
+                case "toString":
+                    return "CachedStatement[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("PreparedStatement has already been closed");
+            }
+            if (method.getName().equals("getConnection")) {
+                // The borrower's lease, not the physical connection behind it
+                return lease;
+            }
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof ResultSet && owner != null) {
+                    owner.lastResultSet = (ResultSet) result;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.yousif.attemp2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * TimingWheel - Hierarchical timing wheel for large numbers of timers (Varghese and Lauck).
+ *
+ * Four levels of 64 slots each. Level 0 slots are one tick wide, level 1 slots 64 ticks, and so on,
+ * so with one-second ticks the wheel spans about 194 days; later deadlines wait in the top level and
+ * are placed again each time it turns. A timer sits in the slot its deadline falls in on the lowest
+ * level that reaches it, and moves down a level when the slot above comes round. Scheduling and
+ * cancelling are O(1), and each tick only touches the timers that are due or moving down.
+ *
+ * Not thread-safe: use it from one thread.
+ * @param <T> The payload handed back when a timer fires
+ */
+public final class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final long tickMillis;
+    private final Timer<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis Length of one tick; deadlines are rounded up to whole ticks
+     * @param startMillis The current time; ticks up to and including it count as processed
+     */
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        this.slots = newSlots();
+        for (Timer<T>[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Timer<>(0, null);
+                level[i].prev = level[i];
+                level[i].next = level[i];
+            }
+        }
+    }
+
+    // Generic arrays can't be created directly; every slot only ever holds Timer<T>
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Timer<T>[][] newSlots() {
+        return new Timer[LEVELS][SLOTS];
+    }
+
+    /**
+     * Schedule a timer
+     * @param deadlineMillis When it should fire; a deadline already passed fires on the next tick
+     * @param payload Handed to the consumer of advance() when it fires
+     * @return The timer, for cancel()
+     */
+    public Timer<T> schedule(long deadlineMillis, T payload) {
+        long ticks = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Timer<T> timer = new Timer<>(Math.max(ticks, currentTick + 1), payload);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancel a timer; does nothing if it already fired or was cancelled
+     * @param timer The timer returned by schedule()
+     */
+    public void cancel(Timer<T> timer) {
+        if (timer != null && timer.isScheduled()) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Fire every timer due by a time
+     * @param nowMillis The current time
+     * @param action Called with the payload of each due timer, in deadline order across ticks;
+     *               it may schedule and cancel timers
+     * @return The number of timers fired
+     */
+    public int advanceTo(long nowMillis, Consumer<? super T> action) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        int fired = 0;
+        List<Timer<T>> due = new ArrayList<>();
+        while (currentTick < nowTick) {
+            currentTick++;
+            cascade();
+            Timer<T> head = slots[0][(int) (currentTick & SLOT_MASK)];
+            while (head.next != head) {
+                Timer<T> timer = head.next;
+                unlink(timer);
+                due.add(timer);
+            }
+            size -= due.size();
+            // Collected first so the action can reschedule into this slot without looping forever
+            for (Timer<T> timer : due) {
+                action.accept(timer.payload);
+            }
+            fired += due.size();
+            due.clear();
+        }
+        return fired;
+    }
+
+    /**
+     * @return The number of timers waiting to fire
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Move the timers of each higher-level slot that has just come round down a level
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if (((currentTick >> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                return;
+            }
+            Timer<T> head = slots[level][(int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK)];
+            Timer<T> timer = head.next;
+            head.next = head;
+            head.prev = head;
+            while (timer != head) {
+                Timer<T> next = timer.next;
+                place(timer);
+                timer = next;
+            }
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long ticks = timer.deadlineTick;
+        long delta = ticks - currentTick;
+        if (delta >= SPAN) {
+            // Beyond the wheel: park in the farthest top-level slot and place again when it comes round
+            ticks = currentTick + SPAN - 1;
+            delta = SPAN - 1;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        Timer<T> head = slots[level][(int) ((ticks >> (SLOT_BITS * level)) & SLOT_MASK)];
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    /**
+     * A scheduled timer
+     * @param <T> The payload type
+     */
+    public static final class Timer<T> {
+        private final long deadlineTick;
+        private final T payload;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        public T getPayload() { return payload; }
+
+        /**
+         * @return true until the timer fires or is cancelled
+         */
+        public boolean isScheduled() { return next != null; }
+    }
+}
@@ -56,6 +56,56 @@ public class UserBaggageController implements UserBaseController {
         loadBaggageData();
     }
     
+    /**
+     * Patch the baggage table with changed rows instead of reloading it
+     * @param event The changes published by the data service
+     */
+    public void applyChanges(DataChangeEvent event) {
+        if (event.isReloaded(DataService.DataType.BAGGAGE)) {
+            loadBaggageData();
+            return;
+        }
+        
+        for (DataChangeEvent.EntityChange change : event.getChanges(DataService.DataType.BAGGAGE)) {
+            String baggageTag = change.getId();
+            switch (change.getKind()) {
+                case ADDED:
+                    // Only the database knows whether a new bag belongs to this user
+                    loadBaggageData();
+                    return;
+                case REMOVED:
+                    baggageItems.removeIf(item -> baggageTag.equals(item.getBaggageId()));
+                    break;
+                default:
+                    BaggageItem source = dataService.findBaggage(baggageTag);
+                    if (source == null) {
+                        break;
+                    }
+                    for (BaggageItem item : baggageItems) {
+                        if (baggageTag.equals(item.getBaggageId())) {
+                            if (change.hasChanged("flight")) {
+                                item.setFlight(source.getFlight());
+                            }
+                            if (change.hasChanged("location")) {
+                                item.setLocation(source.getLocation());
+                            }
+                            if (change.hasChanged("status")) {
+                                item.setStatus(source.getStatus());
+                            }
+                            if (change.hasChanged("handlingTime")) {
+                                item.setHandlingTime(source.getHandlingTime());
+                            }
+                        }
+                    }
+                    break;
+            }
+        }
+        
+        if (noBaggageMessage != null) {
+            noBaggageMessage.setVisible(baggageItems.isEmpty());
+        }
+    }
+    
     @Override
     public void setUserData(LoginController.UserData userData) {
         this.userData = userData;
@@ -11,7 +11,10 @@ import java.io.FileWriter;
 import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class UserBookingController implements UserBaseController {
     
@@ -185,21 +188,10 @@ public class UserBookingController implements UserBaseController {
         dialog.getDialogPane().getButtonTypes().addAll(bookButtonType, ButtonType.CANCEL);
         
         ComboBox<String> seatCombo = new ComboBox<>();
-        java.util.List<String> reservedSeats = getReservedSeatsForFlight(flight.getFlightNumber());
-        java.util.List<String> availableSeats = new java.util.ArrayList<>();
-        
-        // Generate available seats (A1-F26)
-        for (char row = 'A'; row <= 'F'; row++) {
-            for (int col = 1; col <= 26; col++) {
-                String seat = row + String.valueOf(col);
-                if (!reservedSeats.contains(seat)) {
-                    availableSeats.add(seat);
-                }
-            }
-        }
-        
-        seatCombo.getItems().addAll(availableSeats);
-        seatCombo.setPromptText("Select Seat");
+        // Free seats from the seat inventory (A1-F26), read in the background on first use
+        seatCombo.setPromptText("Loading seats...");
+        seatCombo.setDisable(true);
+        loadFreeSeats(flight, seatCombo);
         
         dialog.getDialogPane().setContent(seatCombo);
         dialog.setResultConverter(dialogButton -> {
@@ -210,101 +202,59 @@ public class UserBookingController implements UserBaseController {
         });
         
         Optional<String> result = dialog.showAndWait();
-        result.ifPresent(seat -> {
-            try {
-                String bookingRef = createBooking(flight, seat);
-                if (bookingRef != null) {
+        result.ifPresent(seat -> CompletableFuture
+            .supplyAsync(() -> {
+                try {
+                    return createBooking(flight, seat);
+                } catch (java.sql.SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, BackgroundExecutors.database())
+            .whenComplete((bookingRef, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    cause.printStackTrace();
+                    showAlert(Alert.AlertType.ERROR, "Error", 
+                             "Failed to book flight: " + cause.getMessage());
+                } else if (bookingRef != null) {
                     showAlert(Alert.AlertType.INFORMATION, "Success", 
                              "Flight booked successfully!\nBooking Reference: " + bookingRef);
                     // Refresh both tables
                     loadBookings();
                     loadFlightData();
                 }
-            } catch (Exception e) {
-                showAlert(Alert.AlertType.ERROR, "Error", 
-                         "Failed to book flight: " + e.getMessage());
-            }
-        });
+            })));
     }
     
-    private java.util.List<String> getReservedSeatsForFlight(String flightNumber) {
-        java.util.List<String> reservedSeats = new java.util.ArrayList<>();
-        try {
-            DatabaseConnection db = DatabaseConnection.getInstance();
-            String query = "SELECT b.seat_number FROM bookings b " +
-                         "JOIN flights f ON b.flight_id = f.flight_id " +
-                         "WHERE f.flight_number = ? AND b.booking_status != 'Cancelled'";
-            java.sql.ResultSet rs = db.executeQuery(query, flightNumber);
-            while (rs.next()) {
-                reservedSeats.add(rs.getString("seat_number"));
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return reservedSeats;
+    private void loadFreeSeats(Flight flight, ComboBox<String> seatCombo) {
+        DataService.getInstance().getSeatInventoryAsync(flight.getFlightNumber())
+            .whenComplete((inventory, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                if (error != null) {
+                    System.err.println("Error loading seats: " + error.getMessage());
+                    seatCombo.setPromptText("Seats unavailable");
+                    return;
+                }
+                seatCombo.getItems().setAll(inventory.getFreeSeats());
+                seatCombo.setPromptText("Select Seat");
+                seatCombo.setDisable(false);
+            }));
     }
     
-    private String createBooking(Flight flight, String seat) {
+    /**
+     * Create a booking in the database. Runs on a background thread, so it must not touch the UI.
+     * @param flight The flight to book
+     * @param seat The selected seat
+     * @return The new booking reference, or null if no user is logged in
+     * @throws java.sql.SQLException If the booking could not be stored
+     */
+    private String createBooking(Flight flight, String seat) throws java.sql.SQLException {
         if (userData == null) return null;
         
-        try {
-            DatabaseConnection db = DatabaseConnection.getInstance();
-            String[] nameParts = userData.getFullName().split(" ", 2);
-            String firstName = nameParts[0];
-            String lastName = nameParts.length > 1 ? nameParts[1] : "";
-            
-            // First, ensure we have a passenger record
-            String findPassenger = "SELECT passenger_id FROM passengers WHERE user_id = ?";
-            java.sql.ResultSet rs = db.executeQuery(findPassenger, userData.getUserId());
-            int passengerId = -1;
-            
-            if (rs.next()) {
-                passengerId = rs.getInt("passenger_id");
-            } else {
-                // Create passenger record if it doesn't exist
-                String insertPassenger = "INSERT INTO passengers (user_id, first_name, last_name) VALUES (?, ?, ?)";
-                db.executeUpdate(insertPassenger, userData.getUserId(), firstName, lastName);
-                
-                // Get the new passenger_id
-                rs = db.executeQuery(findPassenger, userData.getUserId());
-                if (rs.next()) {
-                    passengerId = rs.getInt("passenger_id");
-                }
-            }
-            
-            if (passengerId == -1) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to create or find passenger record");
-                return null;
-            }
-            
-            // Get flight_id
-            String findFlight = "SELECT flight_id FROM flights WHERE flight_number = ?";
-            rs = db.executeQuery(findFlight, flight.getFlightNumber());
-            int flightId = -1;
-            if (rs.next()) {
-                flightId = rs.getInt("flight_id");
-            }
-            if (flightId == -1) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Flight not found");
-                return null;
-            }
-            
-            // Create booking reference (format: BK + 6 digits)
-            String bookingRef = String.format("BK%06d", (int)(Math.random() * 1000000));
-            
-            // Insert booking
-            String insertBooking = "INSERT INTO bookings (booking_reference, passenger_id, flight_id, seat_number, booking_status) VALUES (?, ?, ?, ?, 'Confirmed')";
-            db.executeUpdate(insertBooking, bookingRef, passengerId, flightId, seat);
-            
-            // Refresh the bookings table
-            loadBookings();
-            
-            return bookingRef;
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to create booking: " + e.getMessage());
-            return null;
-        }
+        // Passenger and flight ids come from the pipeline's caches; one transaction stores everything
+        BookingPipeline.BookingRequest request =
+            BookingPipeline.BookingRequest.forUser(flight.getFlightNumber(), seat, userData);
+        return dataService.book(List.of(request)).get(0).getBookingReference();
     }
     
     private void downloadTicket(Booking booking) {
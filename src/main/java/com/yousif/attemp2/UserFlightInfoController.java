@@ -9,6 +9,9 @@ import javafx.scene.layout.VBox;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class UserFlightInfoController implements UserBaseController {
     
@@ -149,12 +152,17 @@ public class UserFlightInfoController implements UserBaseController {
             return;
         }
         
-        // Find the flight in the data service
-        Flight foundFlight = null;
-        for (Flight flight : dataService.getFlights()) {
-            if (flight.getFlightNumber().equalsIgnoreCase(flightNumber)) {
-                foundFlight = flight;
-                break;
+        // Find the flight in the data service; flight numbers are normally stored upper-case
+        Flight foundFlight = dataService.findFlight(flightNumber);
+        if (foundFlight == null) {
+            foundFlight = dataService.findFlight(flightNumber.toUpperCase());
+        }
+        if (foundFlight == null) {
+            for (Flight flight : dataService.getFlights()) {
+                if (flight.getFlightNumber().equalsIgnoreCase(flightNumber)) {
+                    foundFlight = flight;
+                    break;
+                }
             }
         }
         
@@ -193,6 +201,38 @@ public class UserFlightInfoController implements UserBaseController {
         loadFlightData();
     }
     
+    /**
+     * Patch the flight tables with changed rows instead of reloading them
+     * @param event The changes published by the data service
+     */
+    public void applyChanges(DataChangeEvent event) {
+        if (event.isReloaded(DataService.DataType.FLIGHTS)) {
+            loadFlightData();
+            return;
+        }
+        
+        for (DataChangeEvent.EntityChange change : event.getChanges(DataService.DataType.FLIGHTS)) {
+            String flightNumber = change.getId();
+            switch (change.getKind()) {
+                case ADDED:
+                    for (Flight flight : dataService.getFlightsByNumber(flightNumber)) {
+                        if (!flights.contains(flight)) {
+                            flights.add(flight);
+                        }
+                    }
+                    break;
+                case REMOVED:
+                    java.util.Collection<Flight> remaining = dataService.getFlightsByNumber(flightNumber);
+                    flights.removeIf(flight -> flightNumber.equals(flight.getFlightNumber()) && !remaining.contains(flight));
+                    myFlights.removeIf(flight -> flightNumber.equals(flight.getFlightNumber()) && !remaining.contains(flight));
+                    break;
+                default:
+                    // Rows share their Flight objects with the data service, so bound cells are already current
+                    break;
+            }
+        }
+    }
+    
     @Override
     public void setUserData(LoginController.UserData userData) {
         this.userData = userData;
@@ -228,14 +268,12 @@ public class UserFlightInfoController implements UserBaseController {
                                "JOIN passengers p ON b.passenger_id = p.passenger_id " +
                                "WHERE p.first_name = ? AND p.last_name = ?";
                 java.sql.ResultSet rs = db.executeQuery(query, firstName, lastName);
-                java.util.List<String> userFlightNumbers = new java.util.ArrayList<>();
+                java.util.Set<String> userFlightNumbers = new java.util.LinkedHashSet<>();
                 while (rs.next()) {
                     userFlightNumbers.add(rs.getString("flight_number"));
                 }
-                for (Flight flight : serviceFlights) {
-                    if (userFlightNumbers.contains(flight.getFlightNumber())) {
-                        myFlights.add(flight);
-                    }
+                for (String userFlightNumber : userFlightNumbers) {
+                    myFlights.addAll(dataService.getFlightsByNumber(userFlightNumber));
                 }
             } catch (Exception e) {
                 showError("Failed to load user's flights: " + e.getMessage());
@@ -341,18 +379,20 @@ public class UserFlightInfoController implements UserBaseController {
         dialog.getDialogPane().getButtonTypes().addAll(reserveButtonType, ButtonType.CANCEL);
         // Seat selection UI
         ComboBox<String> seatCombo = new ComboBox<>();
-        // Generate seat labels (A1-F26)
-        java.util.List<String> allSeats = new java.util.ArrayList<>();
-        for (char row = 'A'; row <= 'F'; row++) {
-            for (int col = 1; col <= 26; col++) {
-                allSeats.add(row + String.valueOf(col));
-            }
-        }
-        // Remove reserved seats
-        java.util.List<String> reserved = DataService.getInstance().getReservedSeatsForFlight(flight.getFlightNumber());
-        allSeats.removeAll(reserved);
-        seatCombo.getItems().addAll(allSeats);
-        seatCombo.setPromptText("Select Seat");
+        // Free seats (A1-F26) from the seat inventory, read in the background on first use
+        seatCombo.setPromptText("Loading seats...");
+        seatCombo.setDisable(true);
+        dataService.getSeatInventoryAsync(flight.getFlightNumber())
+            .whenComplete((inventory, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                if (error != null) {
+                    System.err.println("Error loading seats: " + error.getMessage());
+                    seatCombo.setPromptText("Seats unavailable");
+                    return;
+                }
+                seatCombo.getItems().setAll(inventory.getFreeSeats());
+                seatCombo.setPromptText("Select Seat");
+                seatCombo.setDisable(false);
+            }));
         dialog.getDialogPane().setContent(seatCombo);
         dialog.setResultConverter(dialogButton -> {
             if (dialogButton == reserveButtonType) {
@@ -368,45 +408,30 @@ public class UserFlightInfoController implements UserBaseController {
     }
     
     private void reserveSeatForUser(Flight flight, String seat) {
-        try {
-            // Get user/passenger info (for demo, use userData)
-            if (userData == null) {
-                showError("User not logged in");
-                return;
-            }
-            DatabaseConnection db = DatabaseConnection.getInstance();
-            // Find passenger_id for this user
-            String[] nameParts = userData.getFullName().split(" ", 2);
-            String firstName = nameParts.length > 0 ? nameParts[0] : "";
-            String lastName = nameParts.length > 1 ? nameParts[1] : "";
-            String findPassenger = "SELECT passenger_id FROM passengers WHERE first_name = ? AND last_name = ?";
-            java.sql.ResultSet rs = db.executeQuery(findPassenger, firstName, lastName);
-            int passengerId = -1;
-            if (rs.next()) {
-                passengerId = rs.getInt("passenger_id");
-            }
-            if (passengerId == -1) {
-                showError("Passenger record not found for user");
-                return;
-            }
-            // Find flight_id
-            String findFlight = "SELECT flight_id FROM flights WHERE flight_number = ?";
-            rs = db.executeQuery(findFlight, flight.getFlightNumber());
-            int flightId = -1;
-            if (rs.next()) {
-                flightId = rs.getInt("flight_id");
-            }
-            if (flightId == -1) {
-                showError("Flight not found");
-                return;
-            }
-            // Insert booking
-            String insertBooking = "INSERT INTO bookings (booking_reference, passenger_id, flight_id, seat_number, booking_status) VALUES (?, ?, ?, ?, 'Confirmed')";
-            String bookingRef = "BR" + System.currentTimeMillis();
-            db.executeUpdate(insertBooking, bookingRef, passengerId, flightId, seat);
-            showInfo("Seat reserved successfully!\nSeat: " + seat + "\nBooking Reference: " + bookingRef);
-        } catch (Exception e) {
-            showError("Failed to reserve seat: " + e.getMessage());
+        // Get user/passenger info (for demo, use userData)
+        if (userData == null) {
+            showError("User not logged in");
+            return;
         }
+        // Finds or creates the passenger and stores the booking in one transaction, off the FX thread
+        BookingPipeline.BookingRequest request =
+            BookingPipeline.BookingRequest.forUser(flight.getFlightNumber(), seat, userData);
+        CompletableFuture
+            .supplyAsync(() -> {
+                try {
+                    return dataService.book(List.of(request)).get(0).getBookingReference();
+                } catch (java.sql.SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, BackgroundExecutors.database())
+            .whenComplete((bookingRef, error) -> BackgroundExecutors.runOnFxThread(() -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    showError("Failed to reserve seat: " + cause.getMessage());
+                } else {
+                    showInfo("Seat reserved successfully!\nSeat: " + seat + "\nBooking Reference: " + bookingRef);
+                }
+            }));
     }
 } 
\ No newline at end of file
@@ -12,7 +12,7 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 
-public class UserPortalController implements DataService.DataChangeListener {
+public class UserPortalController implements DataService.DataChangeEventListener {
     
     @FXML
     private BorderPane mainContainer;
@@ -63,7 +63,7 @@ public class UserPortalController implements DataService.DataChangeListener {
     @FXML
     public void initialize() {
         // Register as a listener for data changes
-        dataService.addDataChangeListener(this);
+        dataService.addChangeEventListener(this);
         
         // Set default active button and view
         setActiveButton(dashboardBtn);
@@ -71,40 +71,21 @@ public class UserPortalController implements DataService.DataChangeListener {
     }
     
     /**
-     * Handle data changes from the DataService
+     * Handle data changes from the DataService by patching the current view
      */
     @Override
-    public void onDataChanged(DataService.DataType dataType) {
-        // Refresh the current view when relevant data changes
-        switch (dataType) {
-            case FLIGHTS:
-                if (currentController instanceof UserFlightInfoController) {
-                    ((UserFlightInfoController) currentController).refreshData();
-                }
-                break;
-                
-            case NOTIFICATIONS:
-                // Show a notification badge or update notifications count
-                notificationsBtn.setStyle("-fx-font-weight: bold; -fx-text-fill: #60519b;");
-                break;
-                
-            case BAGGAGE:
-                if (currentController instanceof UserBaggageController) {
-                    ((UserBaggageController) currentController).refreshData();
-                }
-                break;
-                
-            case ALL:
-                // Refresh all data in current view
-                if (currentController instanceof UserFlightInfoController) {
-                    ((UserFlightInfoController) currentController).refreshData();
-                } else if (currentController instanceof UserBaggageController) {
-                    ((UserBaggageController) currentController).refreshData();
-                }
-                
-                // Show notification indicator
-                notificationsBtn.setStyle("-fx-font-weight: bold; -fx-text-fill: #60519b;");
-                break;
+    public void onDataChanged(DataChangeEvent event) {
+        if (event.affects(DataService.DataType.FLIGHTS) && currentController instanceof UserFlightInfoController) {
+            ((UserFlightInfoController) currentController).applyChanges(event);
+        }
+        
+        if (event.affects(DataService.DataType.BAGGAGE) && currentController instanceof UserBaggageController) {
+            ((UserBaggageController) currentController).applyChanges(event);
+        }
+        
+        if (event.affects(DataService.DataType.NOTIFICATIONS)) {
+            // Show a notification badge or update notifications count
+            notificationsBtn.setStyle("-fx-font-weight: bold; -fx-text-fill: #60519b;");
         }
     }
     
@@ -167,7 +148,7 @@ public class UserPortalController implements DataService.DataChangeListener {
     private void logout() {
         try {
             // Unregister from data service
-            dataService.removeDataChangeListener(this);
+            dataService.removeChangeEventListener(this);
             
             // Load login view
             FXMLLoader loader = new FXMLLoader(getClass().getResource("login-view.fxml"));
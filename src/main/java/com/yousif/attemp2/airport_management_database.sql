@@ -1,5 +1,11 @@
 -- Airport Management System Database Schema
 -- MySQL Database
+--
+-- Creates the baseline schema (migration V001) with sample data. The app
+-- owns everything after that: on startup MigrationRunner records a database
+-- created by this script at the baseline and applies the migrations in
+-- src/main/resources/com/yousif/attemp2/migrations. Add schema changes there,
+-- not here.
 
 -- Drop database if it exists (for clean installs)
 DROP DATABASE IF EXISTS airport_management;
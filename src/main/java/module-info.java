@@ -17,6 +17,7 @@ module com.yousif.attemp2 {
     requires transitive java.sql;
     requires java.base;
     requires java.desktop;
+    requires jdk.httpserver;
 
     // Combined exports and opens
     exports com.yousif.attemp2;
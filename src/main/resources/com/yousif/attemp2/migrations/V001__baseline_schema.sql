@@ -1,12 +1,9 @@
 -- Airport Management System Database Schema
 -- MySQL Database
-
--- Drop database if it exists (for clean installs)
-DROP DATABASE IF EXISTS airport_management;
-
--- Create database
-CREATE DATABASE airport_management;
-USE airport_management;
+--
+-- Baseline schema. Databases created before migrations existed are recorded
+-- as being at this version without running it. Never edit an applied
+-- migration; add a new one instead.
 
 -- Create Users table
 CREATE TABLE users (
@@ -188,4 +185,4 @@ JOIN
 JOIN 
     passengers p ON b.passenger_id = p.passenger_id
 JOIN 
-    flights f ON b.flight_id = f.flight_id; 
\ No newline at end of file
+    flights f ON b.flight_id = f.flight_id;
@@ -0,0 +1,32 @@
+-- Tombstones for deleted rows, read by the DataService delta refresh.
+-- Cascaded deletes don't fire triggers, so deleting a flight or booking
+-- records tombstones for the baggage it takes with it.
+-- Written to be safe on databases that already got these objects from the
+-- old all-in-one install script.
+CREATE TABLE IF NOT EXISTS deleted_rows (
+    tombstone_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(30) NOT NULL,
+    row_key VARCHAR(20) NOT NULL,
+    deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_deleted_rows_table (table_name, tombstone_id)
+);
+
+DROP TRIGGER IF EXISTS flights_tombstone;
+CREATE TRIGGER flights_tombstone AFTER DELETE ON flights FOR EACH ROW
+    INSERT INTO deleted_rows (table_name, row_key) VALUES ('flights', OLD.flight_number);
+
+DROP TRIGGER IF EXISTS flights_baggage_tombstone;
+CREATE TRIGGER flights_baggage_tombstone BEFORE DELETE ON flights FOR EACH ROW
+    INSERT INTO deleted_rows (table_name, row_key)
+    SELECT 'baggage', bg.baggage_tag FROM baggage bg
+    JOIN bookings bk ON bg.booking_id = bk.booking_id
+    WHERE bk.flight_id = OLD.flight_id;
+
+DROP TRIGGER IF EXISTS bookings_baggage_tombstone;
+CREATE TRIGGER bookings_baggage_tombstone BEFORE DELETE ON bookings FOR EACH ROW
+    INSERT INTO deleted_rows (table_name, row_key)
+    SELECT 'baggage', baggage_tag FROM baggage WHERE booking_id = OLD.booking_id;
+
+DROP TRIGGER IF EXISTS baggage_tombstone;
+CREATE TRIGGER baggage_tombstone AFTER DELETE ON baggage FOR EACH ROW
+    INSERT INTO deleted_rows (table_name, row_key) VALUES ('baggage', OLD.baggage_tag);
@@ -0,0 +1,30 @@
+-- Secondary indexes for the lookups every screen runs.
+-- InnoDB already keeps an implicit index on each foreign key column; the
+-- explicit ones below replace those with named (and, where useful,
+-- composite) indexes.
+
+-- Flight lookups by number (bookings, seat maps, delta refresh, deletes)
+CREATE INDEX idx_flights_flight_number ON flights (flight_number);
+
+-- Delta refresh: WHERE updated_at >= ?
+CREATE INDEX idx_flights_updated_at ON flights (updated_at);
+CREATE INDEX idx_baggage_updated_at ON baggage (updated_at);
+
+-- Reserved seats per flight: WHERE flight_id = ? AND booking_status ...
+CREATE INDEX idx_bookings_flight_status ON bookings (flight_id, booking_status);
+
+-- A passenger's bookings
+CREATE INDEX idx_bookings_passenger ON bookings (passenger_id);
+
+-- Passengers of a logged-in user, and the name lookups the user screens use
+CREATE INDEX idx_passengers_user ON passengers (user_id);
+CREATE INDEX idx_passengers_name ON passengers (last_name, first_name);
+
+-- Bags on a booking
+CREATE INDEX idx_baggage_booking ON baggage (booking_id);
+
+-- A user's notifications, newest first
+CREATE INDEX idx_notifications_user_created ON notifications (user_id, created_at);
+
+-- System-wide feed: ORDER BY created_at DESC LIMIT 20
+CREATE INDEX idx_notifications_created ON notifications (created_at);
@@ -0,0 +1,14 @@
+-- Service requests submitted from the user portal. The table was only in the
+-- sample-data script, so databases created from the install script lack it.
+CREATE TABLE IF NOT EXISTS service_requests (
+    request_id INT PRIMARY KEY AUTO_INCREMENT,
+    user_id INT NOT NULL,
+    service_type VARCHAR(50) NOT NULL,
+    location VARCHAR(100) NOT NULL,
+    urgency VARCHAR(20) NOT NULL,
+    description TEXT NOT NULL,
+    status VARCHAR(20) DEFAULT 'Pending',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
@@ -0,0 +1,11 @@
+-- At most one active booking per seat and flight.
+-- active_seat is the seat number while the booking is Confirmed or Checked In
+-- and NULL otherwise, so cancelled bookings (and bookings without a seat)
+-- never clash: a unique index allows any number of NULLs.
+-- Fails if the table already holds two active bookings for the same seat;
+-- cancel one of them and run the migration again.
+ALTER TABLE bookings
+    ADD COLUMN active_seat VARCHAR(5)
+        AS (CASE WHEN booking_status IN ('Confirmed', 'Checked In') THEN seat_number END) STORED;
+
+CREATE UNIQUE INDEX uq_bookings_active_seat ON bookings (flight_id, active_seat);
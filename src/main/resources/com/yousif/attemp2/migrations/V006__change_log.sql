@@ -0,0 +1,45 @@
+-- Append-only log of changes to the rows workstations cache, tailed by
+-- ChangeLogPoller so edits made on one workstation reach the others with one
+-- primary-key range query per interval.
+-- Deletes are logged from deleted_rows, whose triggers already cover the
+-- baggage removed by cascades. Entries older than a day are purged.
+CREATE TABLE IF NOT EXISTS change_log (
+    change_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(30) NOT NULL,
+    row_key VARCHAR(20) NOT NULL,
+    operation CHAR(1) NOT NULL,  -- I(nsert), U(pdate) or D(elete)
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_change_log_changed_at (changed_at)
+);
+
+DROP TRIGGER IF EXISTS flights_change_insert;
+CREATE TRIGGER flights_change_insert AFTER INSERT ON flights FOR EACH ROW
+    INSERT INTO change_log (table_name, row_key, operation) VALUES ('flights', NEW.flight_number, 'I');
+
+-- A renamed flight is a delete of the old number and an insert of the new one
+DROP TRIGGER IF EXISTS flights_change_update;
+CREATE TRIGGER flights_change_update AFTER UPDATE ON flights FOR EACH ROW
+    INSERT INTO change_log (table_name, row_key, operation)
+    SELECT 'flights', OLD.flight_number, 'D' FROM DUAL WHERE OLD.flight_number <> NEW.flight_number
+    UNION ALL
+    SELECT 'flights', NEW.flight_number, IF(OLD.flight_number <> NEW.flight_number, 'I', 'U') FROM DUAL;
+
+DROP TRIGGER IF EXISTS baggage_change_insert;
+CREATE TRIGGER baggage_change_insert AFTER INSERT ON baggage FOR EACH ROW
+    INSERT INTO change_log (table_name, row_key, operation) VALUES ('baggage', NEW.baggage_tag, 'I');
+
+DROP TRIGGER IF EXISTS baggage_change_update;
+CREATE TRIGGER baggage_change_update AFTER UPDATE ON baggage FOR EACH ROW
+    INSERT INTO change_log (table_name, row_key, operation) VALUES ('baggage', NEW.baggage_tag, 'U');
+
+DROP TRIGGER IF EXISTS deleted_rows_change;
+CREATE TRIGGER deleted_rows_change AFTER INSERT ON deleted_rows FOR EACH ROW
+    INSERT INTO change_log (table_name, row_key, operation) VALUES (NEW.table_name, NEW.row_key, 'D');
+
+DROP TRIGGER IF EXISTS notifications_change_insert;
+CREATE TRIGGER notifications_change_insert AFTER INSERT ON notifications FOR EACH ROW
+    INSERT INTO change_log (table_name, row_key, operation) VALUES ('notifications', NEW.notification_id, 'I');
+
+DROP TRIGGER IF EXISTS notifications_change_delete;
+CREATE TRIGGER notifications_change_delete AFTER DELETE ON notifications FOR EACH ROW
+    INSERT INTO change_log (table_name, row_key, operation) VALUES ('notifications', OLD.notification_id, 'D');
@@ -0,0 +1,3 @@
+-- A bag's tracking history in the order it happened (baggage details).
+-- Replaces the implicit foreign key index on baggage_id.
+CREATE INDEX idx_baggage_tracking_bag_time ON baggage_tracking (baggage_id, timestamp);